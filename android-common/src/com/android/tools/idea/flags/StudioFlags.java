@@ -398,6 +398,11 @@ public final class StudioFlags {
     "Enable ATF integration in visual linting of layouts.",
     true);
 
+  public static final Flag<Boolean> NELE_VISUAL_LINT_PROJECT_WIDE = Flag.create(
+    NELE, "visual.lint.project.wide", "Enable project wide visual linting",
+    "Enable visual linting of all the layouts of a module in the background, re-analyzing only the layouts that changed.",
+    false);
+
   public static final Flag<Boolean> NELE_WARN_NEW_THREADS = Flag.create(
     NELE, "preview.warn.new.threads", "Enable new threads warning",
     "Display a warning if user code creates new threads in the preview",
@@ -546,6 +551,13 @@ public final class StudioFlags {
     "Eliminate the cost of opening a connection and spawning a process when using Apply Changes.",
     true);
 
+  public static final Flag<Integer> MULTI_DEVICE_LAUNCH_PARALLELISM = Flag.create(
+    RUNDEBUG,
+    "multi.device.launch.parallelism",
+    "Number of devices deployed to in parallel",
+    "When running on multiple devices, run the launch tasks of up to this many devices at the same time. 1 deploys one device at a time.",
+    1);
+
   public static final Flag<Boolean> SELECT_DEVICE_SNAPSHOT_COMBO_BOX_SNAPSHOTS_ENABLED = Flag.create(
     RUNDEBUG,
     "select.device.snapshot.combo.box.snapshots.enabled",
@@ -1240,6 +1252,13 @@ public final class StudioFlags {
     false
   );
 
+  public static final Flag<Boolean> COMPOSE_ANIMATION_PREVIEW_FRAME_CACHE = Flag.create(
+    COMPOSE, "preview.animation.frame.cache",
+    "Enable the frame cache of Animation Inspector",
+    "If enabled, frames of the timeline are rendered ahead of time and displayed while scrubbing, before the exact frame is rendered.",
+    false
+  );
+
   public static final Flag<Boolean> COMPOSE_FAST_PREVIEW = Flag.create(
     COMPOSE, "preview.fast.reload.enabled", "Enable the Compose fast-reload preview",
     "If enabled, the preview enabled the fast-reload feature.",
@@ -0,0 +1,102 @@
+/*
+ * Copyright (C) 2022 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.android.tools.idea.lang.androidSql.room
+
+import com.android.support.AndroidxName
+import com.intellij.ide.highlighter.JavaClassFileType
+import com.intellij.ide.highlighter.JavaFileType
+import com.intellij.openapi.application.ApplicationManager
+import com.intellij.openapi.vfs.VirtualFile
+import com.intellij.psi.search.GlobalSearchScope
+import com.intellij.util.indexing.DataIndexer
+import com.intellij.util.indexing.DefaultFileTypeSpecificInputFilter
+import com.intellij.util.indexing.FileBasedIndex
+import com.intellij.util.indexing.FileContent
+import com.intellij.util.indexing.ID
+import com.intellij.util.indexing.ScalarIndexExtension
+import com.intellij.util.io.EnumeratorStringDescriptor
+import com.intellij.util.io.KeyDescriptor
+import org.jetbrains.kotlin.idea.KotlinFileType
+
+/**
+ * File based index of the Java, Kotlin and class files that declare Room entities, views, DAOs or databases, keyed by the simple name of
+ * the Room annotations they use. `@Fts3` and `@Fts4` tables are also annotated with `@Entity`, so they are found through it.
+ *
+ * The check is lexical, so it can also return files that only mention an annotation: [RoomSchemaManager] still looks at the annotations
+ * of the classes in the returned files.
+ */
+class RoomDeclarationIndex : ScalarIndexExtension<String>() {
+  companion object {
+    @JvmField
+    val NAME = ID.create<String, Void>("RoomDeclarationIndex")
+
+    private val ANNOTATIONS = listOf(RoomAnnotations.ENTITY, RoomAnnotations.DATABASE_VIEW, RoomAnnotations.DAO, RoomAnnotations.DATABASE)
+
+    /** `@Entity`, `@androidx.room.Entity`, `@Entity(...)`, but not `@EntityFoo`. */
+    private val SOURCE_ANNOTATION = Regex("@\\s*(?:[\\w.]+\\.)?(${ANNOTATIONS.joinToString("|") { it.simpleName }})\\b")
+
+    /** Descriptors of the annotations, as found in the constant pool of annotated class files, by key. */
+    private val CLASS_ANNOTATIONS: Map<String, List<ByteArray>> = ANNOTATIONS.associate { annotation ->
+      annotation.simpleName to listOf(annotation.oldName(), annotation.newName()).map { "L${it.replace('.', '/')};".toByteArray() }
+    }
+
+    private val CLASS_ROOM_PACKAGE = "room/".toByteArray()
+
+    /** Returns the files of [scope] that may declare a class annotated with one of the given Room [annotations]. */
+    fun getFiles(scope: GlobalSearchScope, vararg annotations: AndroidxName): Set<VirtualFile> {
+      ApplicationManager.getApplication().assertReadAccessAllowed()
+      val index = FileBasedIndex.getInstance()
+      return annotations.flatMapTo(HashSet()) { index.getContainingFiles(NAME, it.simpleName, scope) }
+    }
+
+    private val AndroidxName.simpleName get() = newName().substringAfterLast('.')
+
+    private fun ByteArray.contains(pattern: ByteArray): Boolean {
+      outer@ for (start in 0..size - pattern.size) {
+        for (i in pattern.indices) {
+          if (this[start + i] != pattern[i]) continue@outer
+        }
+        return true
+      }
+      return false
+    }
+  }
+
+  override fun getName(): ID<String, Void> = NAME
+  override fun getVersion() = 1
+  override fun dependsOnFileContent() = true
+  override fun getKeyDescriptor(): KeyDescriptor<String> = EnumeratorStringDescriptor.INSTANCE
+
+  override fun getInputFilter(): FileBasedIndex.InputFilter {
+    return DefaultFileTypeSpecificInputFilter(JavaFileType.INSTANCE, KotlinFileType.INSTANCE, JavaClassFileType.INSTANCE)
+  }
+
+  override fun getIndexer(): DataIndexer<String, Void, FileContent> {
+    return DataIndexer { inputData ->
+      val keys = if (inputData.fileType == JavaClassFileType.INSTANCE) {
+        val content = inputData.content
+        if (!content.contains(CLASS_ROOM_PACKAGE)) emptySet()
+        else CLASS_ANNOTATIONS.filterValues { descriptors -> descriptors.any { content.contains(it) } }.keys
+      }
+      else {
+        val text = inputData.contentAsText
+        // All the annotations are imported from, or qualified with, a "room" package.
+        if (text.indexOf("room") < 0) emptySet() else SOURCE_ANNOTATION.findAll(text).mapTo(HashSet()) { it.groupValues[1] }
+      }
+      keys.associateWith { null }
+    }
+  }
+}
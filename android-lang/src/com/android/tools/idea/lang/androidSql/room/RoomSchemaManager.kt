@@ -28,15 +28,20 @@ import com.android.tools.idea.projectsystem.getScopeType
 import com.intellij.openapi.diagnostic.Logger
 import com.intellij.openapi.diagnostic.debug
 import com.intellij.openapi.module.Module
+import com.intellij.openapi.project.Project
+import com.intellij.openapi.util.Key
 import com.intellij.openapi.util.text.StringUtil
 import com.intellij.psi.JavaPsiFacade
 import com.intellij.psi.PsiAnnotation
 import com.intellij.psi.PsiArrayInitializerMemberValue
 import com.intellij.psi.PsiClass
 import com.intellij.psi.PsiClassObjectAccessExpression
+import com.intellij.psi.PsiClassOwner
 import com.intellij.psi.PsiElement
 import com.intellij.psi.PsiField
 import com.intellij.psi.PsiFile
+import com.intellij.psi.PsiLiteralExpression
+import com.intellij.psi.PsiManager
 import com.intellij.psi.PsiMember
 import com.intellij.psi.PsiMethod
 import com.intellij.psi.PsiModifier
@@ -44,17 +49,19 @@ import com.intellij.psi.PsiModifierList
 import com.intellij.psi.PsiModifierListOwner
 import com.intellij.psi.PsiNamedElement
 import com.intellij.psi.SmartPointerManager
+import com.intellij.psi.SyntaxTraverser
 import com.intellij.psi.impl.source.PsiClassReferenceType
-import com.intellij.psi.search.GlobalSearchScope
-import com.intellij.psi.search.searches.AnnotatedElementsSearch.searchPsiClasses
 import com.intellij.psi.util.CachedValue
 import com.intellij.psi.util.CachedValueProvider
 import com.intellij.psi.util.CachedValuesManager
+import com.intellij.psi.util.InheritanceUtil
 import com.intellij.psi.util.PsiModificationTracker
 import com.intellij.psi.util.PsiUtil
 import com.intellij.testFramework.LightVirtualFile
+import org.jetbrains.kotlin.asJava.elements.KtLightElement
 import org.jetbrains.kotlin.asJava.elements.KtLightField
 import org.jetbrains.kotlin.psi.KtExpression
+import org.jetbrains.kotlin.psi.KtStringTemplateExpression
 import org.jetbrains.kotlin.utils.addToStdlib.safeAs
 
 private val LOG = Logger.getInstance(RoomSchemaManager::class.java)
@@ -90,10 +97,12 @@ class RoomSchemaManager(val module: Module) {
     return schemas[scopeType]!!.value
   }
 
-  private val constantEvaluationHelper = JavaPsiFacade.getInstance(module.project).constantEvaluationHelper
-  private val pointerManager = SmartPointerManager.getInstance(module.project)
-
-  /** Builds the schema using IJ indexes. */
+  /**
+   * Builds the schema from the files that [RoomDeclarationIndex] finds in the scope.
+   *
+   * This runs after every PSI change, but only merges the [RoomFileSchema]s of these files, which are cached in each file and only
+   * rebuilt when the file, or one of the files its declarations depend on, changes.
+   */
   private fun buildSchema(module: Module, scopeType: ScopeType): RoomSchema? {
     val scope = module.getModuleSystem().getResolveScope(scopeType)
 
@@ -101,34 +110,110 @@ class RoomSchemaManager(val module: Module) {
 
     LOG.debug { "Recalculating Room schema for module ${module.name} for scope ${scopeType}" }
 
-    val psiFacade = JavaPsiFacade.getInstance(module.project) ?: return null
+    val psiManager = PsiManager.getInstance(module.project)
+    val fileSchemas = RoomDeclarationIndex
+      .getFiles(scope, RoomAnnotations.ENTITY, RoomAnnotations.DATABASE_VIEW, RoomAnnotations.DAO, RoomAnnotations.DATABASE)
+      .mapNotNull { psiManager.findFile(it) as? PsiClassOwner }
+      .map(::getFileSchema)
+
+    val tables = fileSchemas.flatMapTo(HashSet()) { it.tables }
+    val daos = fileSchemas.flatMapTo(HashSet()) { it.daos }
+    val daoClasses = daos.mapNotNullTo(HashSet()) { it.psiClass.element }
+    val databases = fileSchemas.flatMapTo(HashSet()) { fileSchema ->
+      fileSchema.databases.map { database ->
+        RoomDatabase(
+          database.psiClass,
+          entities = database.entities,
+          views = database.views,
+          daos = database.daoCandidates.filterTo(HashSet()) { it.element in daoClasses })
+      }
+    }
+
+    return RoomSchema(databases, tables, daos)
+  }
 
-    // Some of this logic is repeated in [RoomReferenceSearchExecutor], make sure to keep them in sync.
-    val entities = processAnnotatedClasses(psiFacade, scope, RoomAnnotations.ENTITY) { createTable(it, RoomTable.Type.ENTITY) }
-    val views = processAnnotatedClasses(psiFacade, scope, RoomAnnotations.DATABASE_VIEW) { createTable(it, RoomTable.Type.VIEW) }
-    val daos = processAnnotatedClasses(psiFacade, scope, RoomAnnotations.DAO) {
-      Dao(pointerManager.createSmartPsiElementPointer(it))
+  private fun getFileSchema(file: PsiClassOwner): RoomFileSchema {
+    return CachedValuesManager.getCachedValue(file, FILE_SCHEMA_KEY) {
+      val builder = RoomFileSchemaBuilder(file.project)
+      val schema = builder.build(file)
+      CachedValueProvider.Result(schema, file, *builder.dependencies.toTypedArray())
     }
-    val databases = processAnnotatedClasses(psiFacade, scope, RoomAnnotations.DATABASE) { this.createDatabase(it, pointerManager, daos) }
+  }
+}
+
+/** The part of a [RoomSchema] declared in a single file. */
+private class RoomFileSchema(val tables: List<RoomTable>, val daos: List<Dao>, val databases: List<RoomDatabaseDeclaration>)
+
+/** A [RoomDatabase] before the DAOs of the schema are known. */
+private class RoomDatabaseDeclaration(
+  val psiClass: PsiClassPointer,
+  val entities: Set<PsiClassPointer>,
+  val views: Set<PsiClassPointer>,
+  /** Classes returned by the methods of the database. The ones annotated with `@Dao` are its DAOs. */
+  val daoCandidates: Set<PsiClassPointer>
+)
+
+private val FILE_SCHEMA_KEY = Key.create<CachedValue<RoomFileSchema>>("RoomFileSchema")
 
-    return RoomSchema(databases, entities + views, daos)
+/**
+ * Builds the [RoomFileSchema] of a file, and collects the other files it depends on: super classes and embedded classes, whose fields
+ * become columns, and the constants used in the annotations.
+ */
+private class RoomFileSchemaBuilder(project: Project) {
+  private val constantEvaluationHelper = JavaPsiFacade.getInstance(project).constantEvaluationHelper
+  private val pointerManager = SmartPointerManager.getInstance(project)
+
+  val dependencies = HashSet<PsiFile>()
+
+  // Some of this logic is repeated in [RoomReferenceSearchExecutor], make sure to keep them in sync.
+  fun build(file: PsiClassOwner): RoomFileSchema {
+    val tables = ArrayList<RoomTable>()
+    val daos = ArrayList<Dao>()
+    val databases = ArrayList<RoomDatabaseDeclaration>()
+    for (psiClass in file.classes.asSequence().flatMap(::withInnerClasses)) {
+      if (psiClass.hasAnnotation(RoomAnnotations.ENTITY)) {
+        createTable(psiClass, RoomTable.Type.ENTITY)?.let(tables::add)
+      }
+      if (psiClass.hasAnnotation(RoomAnnotations.DATABASE_VIEW)) {
+        createTable(psiClass, RoomTable.Type.VIEW)?.let(tables::add)
+      }
+      if (psiClass.hasAnnotation(RoomAnnotations.DAO)) {
+        daos.add(Dao(pointerManager.createSmartPsiElementPointer(psiClass)))
+      }
+      if (psiClass.hasAnnotation(RoomAnnotations.DATABASE)) {
+        createDatabase(psiClass)?.let(databases::add)
+      }
+    }
+    return RoomFileSchema(tables, daos, databases)
   }
 
-  /**
-   * Finds classes annotated with the given annotation (both old and new names) and processes them using the supplied [processor] function,
-   * gathering non-null results.
-   */
-  private fun <T : Any> processAnnotatedClasses(
-    psiFacade: JavaPsiFacade,
-    scope: GlobalSearchScope,
-    annotation: AndroidxName,
-    processor: (PsiClass) -> T?
-  ): Set<T> {
-    val result = HashSet<T>()
-    annotation.bothNames { name ->
-      psiFacade.findClass(name, scope)?.let { searchPsiClasses(it, scope).mapNotNullTo(result, processor) }
+  private fun withInnerClasses(psiClass: PsiClass): Sequence<PsiClass> {
+    return sequenceOf(psiClass) + psiClass.innerClasses.asSequence().flatMap(::withInnerClasses)
+  }
+
+  private fun PsiClass.hasAnnotation(annotation: AndroidxName): Boolean {
+    return hasAnnotation(annotation.oldName()) || hasAnnotation(annotation.newName())
+  }
+
+  private fun addHierarchyDependencies(psiClass: PsiClass) {
+    addDependency(psiClass)
+    InheritanceUtil.getSuperClasses(psiClass).forEach(::addDependency)
+  }
+
+  private fun addDependency(element: PsiElement) {
+    // The containing file of a Kotlin light element is not the one being edited.
+    val file = if (element is KtLightElement<*, *>) element.kotlinOrigin?.containingFile else element.containingFile
+    file?.let(dependencies::add)
+  }
+
+  /** Adds the files of the declarations referenced from an annotation [value], e.g. a constant used as a table name. */
+  private fun addReferenceDependencies(value: PsiElement) {
+    if (value is PsiLiteralExpression || (value is KtStringTemplateExpression && !value.hasInterpolation())) return
+    SyntaxTraverser.psiTraverser(value).forEach { element ->
+      for (reference in element.references) {
+        reference.resolve()?.let(::addDependency)
+      }
     }
-    return result
   }
 
   private fun createTable(psiClass: PsiClass, type: RoomTable.Type): RoomTable? {
@@ -185,6 +270,7 @@ class RoomSchemaManager(val module: Module) {
   }
 
   private fun createColumnsFromFields(psiClass: PsiClass, namePrefix: String = "", useMethods: Boolean): Sequence<RoomMemberColumn> {
+    addHierarchyDependencies(psiClass)
     val members:MutableList<PsiMember> = psiClass.allFields.toMutableList()
     if (useMethods) {
       members.addAll(psiClass.methods)
@@ -226,6 +312,7 @@ class RoomSchemaManager(val module: Module) {
     currentPrefix: String
   ): Sequence<RoomMemberColumn> {
     val newPrefix = embeddedAnnotation.findAttributeValue("prefix")
+                      ?.also(::addReferenceDependencies)
                       ?.let { constantEvaluationHelper.computeConstantExpression(it) }
                       ?.toString()
                     ?: ""
@@ -245,20 +332,19 @@ class RoomSchemaManager(val module: Module) {
       ?.let(pointerManager::createSmartPsiElementPointer)
   } ?: emptySet()
 
-  private fun createDatabase(psiClass: PsiClass, pointerManager: SmartPointerManager, daos: Set<Dao>): RoomDatabase? {
+  private fun createDatabase(psiClass: PsiClass): RoomDatabaseDeclaration? {
     val dataBaseAnnotation = psiClass.modifierList?.findAnnotation(RoomAnnotations.DATABASE) ?: return null
     val entities: Set<PsiClassPointer> = dataBaseAnnotation.extractClassesFromAttribute("entities")
     val views: Set<PsiClassPointer> = dataBaseAnnotation.extractClassesFromAttribute("views")
 
-    val daosExposedInDatabase: Set<PsiClassPointer> = psiClass.allMethods
+    // Which of these are DAOs is only known once the schema is merged.
+    addHierarchyDependencies(psiClass)
+    val daoCandidates: Set<PsiClassPointer> = psiClass.allMethods
       .mapNotNullTo((HashSet())) {
-        val resolvedClass = (it.returnType as? PsiClassReferenceType)?.resolve()
-        resolvedClass
-          ?.takeIf { daos.any { dao -> dao.psiClass.element == resolvedClass } }
-          ?.let(pointerManager::createSmartPsiElementPointer)
+        (it.returnType as? PsiClassReferenceType)?.resolve()?.let(pointerManager::createSmartPsiElementPointer)
       }
 
-    return RoomDatabase(pointerManager.createSmartPsiElementPointer(psiClass), entities = entities, daos = daosExposedInDatabase, views = views)
+    return RoomDatabaseDeclaration(pointerManager.createSmartPsiElementPointer(psiClass), entities, views, daoCandidates)
   }
 
   private fun <T> getNameAndNameElement(
@@ -313,12 +399,16 @@ class RoomSchemaManager(val module: Module) {
     var annotation: PsiElement? = element.modifierList
       ?.findAnnotation(annotationName)
       ?.findDeclaredAttributeValue(annotationAttributeName)
-    var name: String? = annotation?.let { constantEvaluationHelper.computeConstantExpression(it)?.toString() }
+    var name: String? = annotation?.let {
+      addReferenceDependencies(it)
+      constantEvaluationHelper.computeConstantExpression(it)?.toString()
+    }
 
     // There is special case for KtLightField when we have annotation without target (property annotation) e.g @ColumnInfo(name = 'override_name')
     // In that case element.modifierList.findAnnotation(annotationName) returns null because it searches only for annotation with FIELD target
     if (name == null && element is KtLightField) {
       val ktExpression = element.getPropertyAnnotationExpression(annotationName, annotationAttributeName)
+      ktExpression?.let(::addReferenceDependencies)
       name = ktExpression?.tryEvaluateConstant()
       if (name != null) annotation = ktExpression as PsiElement
     }
@@ -326,11 +416,6 @@ class RoomSchemaManager(val module: Module) {
     return name?.let { it to annotation!! }
   }
 
-  private inline fun AndroidxName.bothNames(f: (String) -> Unit) {
-    f(oldName())
-    f(newName())
-  }
-
   private fun PsiModifierList.findAnnotation(annotation: AndroidxName): PsiAnnotation? {
     return findAnnotation(annotation.oldName()) ?: findAnnotation(annotation.newName())
   }
@@ -32,6 +32,7 @@ import com.google.common.truth.Truth.assertThat
 import com.intellij.codeInsight.intention.impl.QuickEditAction
 import com.intellij.ide.highlighter.JavaFileType
 import com.intellij.openapi.application.ApplicationManager
+import com.intellij.openapi.command.WriteCommandAction
 import com.intellij.openapi.module.ModuleUtil
 import com.intellij.openapi.project.ex.ProjectEx
 import com.intellij.psi.PsiDocumentManager
@@ -674,4 +675,51 @@ class RoomSchemaManagerTest : JavaCodeInsightFixtureAdtTestCase() {
 
     assertThat(element).isEqualTo(myFixture.findClass("com.example.User"))
   }
+
+  fun testTablesOfUnchangedFilesAreReused() {
+    myFixture.addRoomEntity("com.example.User", "name" ofType "String")
+    val otherFile = myFixture.addFileToProject("com/example/Other.java", "package com.example; class Other {}")
+
+    val table = getSchema(otherFile).tables.single()
+
+    WriteCommandAction.runWriteCommandAction(project) {
+      val document = PsiDocumentManager.getInstance(project).getDocument(otherFile)!!
+      document.insertString(document.textLength, "\n// changed")
+      PsiDocumentManager.getInstance(project).commitDocument(document)
+    }
+
+    assertThat(getSchema(otherFile).tables.single()).isSameAs(table)
+  }
+
+  fun testTableIsUpdatedWhenSuperClassChanges() {
+    val base = myFixture.addFileToProject(
+      "com/example/Base.java",
+      """
+      package com.example;
+
+      public class Base {
+        String name;
+      }
+      """.trimIndent())
+    myFixture.addFileToProject(
+      "com/example/User.java",
+      """
+      package com.example;
+
+      import androidx.room.Entity;
+
+      @Entity
+      public class User extends Base {}
+      """.trimIndent())
+
+    assertThat(getSchema(base).tables.single().columns.mapNotNull { it.name }).containsExactly("name")
+
+    WriteCommandAction.runWriteCommandAction(project) {
+      val document = PsiDocumentManager.getInstance(project).getDocument(base)!!
+      document.replaceString(0, document.textLength, "package com.example; public class Base { String name; int age; }")
+      PsiDocumentManager.getInstance(project).commitDocument(document)
+    }
+
+    assertThat(getSchema(base).tables.single().columns.mapNotNull { it.name }).containsExactly("name", "age")
+  }
 }
@@ -25,6 +25,7 @@ import com.android.tools.idea.transport.TransportFileManager;
 import com.android.tools.idea.transport.TransportService;
 import com.android.tools.idea.transport.poller.TransportEventListener;
 import com.android.tools.idea.transport.poller.TransportEventPoller;
+import com.android.tools.idea.transport.poller.TransportEventSubscriptions;
 import com.android.tools.pipeline.example.proto.Echo;
 import com.android.tools.profiler.proto.Commands;
 import com.android.tools.profiler.proto.Commands.Command;
@@ -43,6 +44,7 @@ import com.intellij.ui.scale.JBUIScale;
 import java.awt.BorderLayout;
 import java.awt.Dimension;
 import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Locale;
@@ -132,7 +134,12 @@ public class TransportPipelineDialog extends DialogWrapper {
     myStreamIdMap = new HashMap<>();
     myProcessIdMap = new HashMap<>();
 
-    myTransportEventPoller = TransportEventPoller.createStartedPoller(myClient.getTransportStub(), TimeUnit.MILLISECONDS.toNanos(250));
+    myTransportEventPoller = TransportEventPoller.createStartedPoller(myClient.getTransportStub(),
+                                                                      TimeUnit.MILLISECONDS.toNanos(250),
+                                                                      Comparator.comparing(Common.Event::getTimestamp),
+                                                                      null,
+                                                                      TransportEventSubscriptions.forChannel(
+                                                                        TransportService.getChannelName()));
 
     // Register the event listeners with myTransportEventPoller
     initializeEventListeners();
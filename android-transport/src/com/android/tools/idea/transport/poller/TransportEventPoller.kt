@@ -22,22 +22,37 @@ import com.intellij.openapi.diagnostic.Logger
 import java.util.concurrent.ConcurrentHashMap
 import java.util.concurrent.CopyOnWriteArrayList
 import java.util.concurrent.Executors
+import java.util.concurrent.RejectedExecutionException
 import java.util.concurrent.ScheduledExecutorService
 import java.util.concurrent.ScheduledFuture
 import java.util.concurrent.TimeUnit
+import java.util.concurrent.atomic.AtomicBoolean
+import java.util.concurrent.atomic.AtomicLong
 import kotlin.math.max
 
 /**
  * Encapsulates most of the polling functionality that Transport Pipeline subscribers would need to implement
  * to listen for updates and Events coming in from the pipeline
+ *
+ * When [subscriptions] are given, the poller subscribes to the (kind, stream, pid) of every listener, sharing one subscription
+ * between the listeners with the same filter, and [poll] only queries the pipeline for the listeners that were notified of new
+ * events since their last query, or whose request changed (e.g. because their end time moved). Started pollers also poll as soon
+ * as they are notified instead of waiting for the next period.
  */
-class TransportEventPoller(
+class TransportEventPoller @JvmOverloads constructor(
   private val transportClient: TransportServiceGrpc.TransportServiceBlockingStub,
-  private val sortOrder: Comparator<Common.Event> = Comparator.comparing(Common.Event::getTimestamp)
+  private val sortOrder: Comparator<Common.Event> = Comparator.comparing(Common.Event::getTimestamp),
+  private val subscriptions: TransportEventSubscriptions? = null
 ) {
   private val writeLock = Object()
   private val eventListeners: MutableList<TransportEventListener> = CopyOnWriteArrayList() // Used to preserve insertion order
   private val listenersToLastTimestamp = ConcurrentHashMap<TransportEventListener, Long>()
+  private val listenersToSubscription = ConcurrentHashMap<TransportEventListener, ListenerSubscription>()
+  private val sharedSubscriptions = mutableMapOf<SubscriptionKey, SharedSubscription>()
+
+  /** Called when a subscription is notified of new events, set while the poller is started. */
+  @Volatile
+  private var onEventsAdded: (() -> Unit)? = null
 
   /**
    * Adds a listener to the list to poll for and be notified of changes. Listeners are polled in insertion order.
@@ -46,6 +61,9 @@ class TransportEventPoller(
     synchronized(writeLock) {
       eventListeners.add(listener)
       listenersToLastTimestamp[listener] = Long.MIN_VALUE
+      if (subscriptions != null) {
+        listenersToSubscription.put(listener, ListenerSubscription())?.key?.let { release(it) }
+      }
     }
   }
 
@@ -56,6 +74,7 @@ class TransportEventPoller(
     synchronized(writeLock) {
       eventListeners.remove(listener)
       listenersToLastTimestamp.remove(listener)
+      listenersToSubscription.remove(listener)?.key?.let { release(it) }
     }
   }
 
@@ -77,6 +96,9 @@ class TransportEventPoller(
       eventListener.processId?.invoke()?.let { builder.pid = it }
       eventListener.groupId?.invoke()?.let { builder.groupId = it }
 
+      if (subscriptions != null && !hasNewEvents(eventListener, builder)) {
+        continue
+      }
       val request = builder.build()
 
       // Order by timestamp
@@ -108,6 +130,63 @@ class TransportEventPoller(
     }
   }
 
+  /**
+   * Returns whether [listener] needs to be polled: it was notified of new events since its last poll, or the request for it differs
+   * from the previous one. Must be called before querying, so that events added during the query trigger another poll.
+   */
+  private fun hasNewEvents(listener: TransportEventListener, request: Transport.GetEventGroupsRequest.Builder): Boolean {
+    val key = SubscriptionKey(request.kind, request.streamId, request.pid)
+    synchronized(writeLock) {
+      val subscription = listenersToSubscription[listener] ?: return false
+      if (subscription.key != key) {
+        subscription.key?.let { release(it) }
+        subscription.key = key
+        sharedSubscriptions.getOrPut(key) { subscribe(key) }.listenerCount++
+      }
+      val generation = sharedSubscriptions.getValue(key).generation.get()
+      // The timestamp of the last event received is not part of the request here, since it only changes after a poll.
+      val parameters = request.clone().setFromTimestamp(listener.startTime?.invoke() ?: Long.MIN_VALUE).build()
+      if (subscription.generation == generation && subscription.request == parameters) {
+        return false
+      }
+      subscription.generation = generation
+      subscription.request = parameters
+    }
+    return true
+  }
+
+  private fun subscribe(key: SubscriptionKey): SharedSubscription {
+    val shared = SharedSubscription()
+    shared.handle = subscriptions!!.subscribe(key.kind, key.streamId, key.pid) {
+      shared.generation.incrementAndGet()
+      onEventsAdded?.invoke()
+    }
+    return shared
+  }
+
+  private fun release(key: SubscriptionKey) {
+    val shared = sharedSubscriptions[key] ?: return
+    if (--shared.listenerCount == 0) {
+      sharedSubscriptions.remove(key)
+      shared.handle?.close()
+    }
+  }
+
+  private data class SubscriptionKey(val kind: Common.Event.Kind, val streamId: Long, val pid: Int)
+
+  private class SharedSubscription {
+    /** Incremented every time an event matching the subscription is added. */
+    val generation = AtomicLong()
+    var listenerCount = 0
+    var handle: AutoCloseable? = null
+  }
+
+  private class ListenerSubscription {
+    var key: SubscriptionKey? = null
+    var generation = -1L
+    var request: Transport.GetEventGroupsRequest? = null
+  }
+
   companion object {
     private val myExecutorService: ScheduledExecutorService = Executors.newScheduledThreadPool(1)
     private val myScheduledFutures = mutableMapOf<TransportEventPoller, ScheduledFuture<*>>()
@@ -118,8 +197,9 @@ class TransportEventPoller(
       transportClient: TransportServiceGrpc.TransportServiceBlockingStub,
       pollPeriodNs: Long,
       sortOrder: java.util.Comparator<Common.Event> = Comparator.comparing(Common.Event::getTimestamp),
-      executorServiceForTest: ScheduledExecutorService? = null): TransportEventPoller {
-      val poller = TransportEventPoller(transportClient, sortOrder)
+      executorServiceForTest: ScheduledExecutorService? = null,
+      subscriptions: TransportEventSubscriptions? = null): TransportEventPoller {
+      val poller = TransportEventPoller(transportClient, sortOrder, subscriptions)
       startPoller(poller, pollPeriodNs, executorServiceForTest)
       return poller
     }
@@ -129,21 +209,40 @@ class TransportEventPoller(
       poller: TransportEventPoller,
       pollPeriodNs: Long,
       executorServiceForTest: ScheduledExecutorService? = null) {
-      val scheduledFuture = (executorServiceForTest ?: myExecutorService).scheduleWithFixedDelay(
-        {
-          try {
-            poller.poll()
-          }
-          catch (t: Throwable) {
-            Logger.getInstance(TransportEventPoller::class.java).warn(t.toString())
+      val executorService = executorServiceForTest ?: myExecutorService
+      val pollTask = Runnable {
+        try {
+          // Polls scheduled by the period and by new events must not run concurrently.
+          synchronized(poller) { poller.poll() }
+        }
+        catch (t: Throwable) {
+          Logger.getInstance(TransportEventPoller::class.java).warn(t.toString())
+        }
+      }
+      if (poller.subscriptions != null) {
+        val wakeUpPending = AtomicBoolean()
+        poller.onEventsAdded = {
+          // A burst of events only needs one extra poll.
+          if (wakeUpPending.compareAndSet(false, true)) {
+            try {
+              executorService.execute {
+                wakeUpPending.set(false)
+                pollTask.run()
+              }
+            }
+            catch (e: RejectedExecutionException) {
+              wakeUpPending.set(false)
+            }
           }
-        },
-        0, pollPeriodNs, TimeUnit.NANOSECONDS)
+        }
+      }
+      val scheduledFuture = executorService.scheduleWithFixedDelay(pollTask, 0, pollPeriodNs, TimeUnit.NANOSECONDS)
       myScheduledFutures[poller] = scheduledFuture
     }
 
     @JvmStatic
     fun stopPoller(poller: TransportEventPoller) {
+      poller.onEventsAdded = null
       myScheduledFutures.remove(poller)?.cancel(false)
     }
 
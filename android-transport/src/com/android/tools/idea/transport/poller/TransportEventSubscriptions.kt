@@ -0,0 +1,43 @@
+/*
+ * Copyright (C) 2022 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.android.tools.idea.transport.poller
+
+import com.android.tools.datastore.EventSubscriptionHub
+import com.android.tools.profiler.proto.Common
+
+/**
+ * Notifies [TransportEventPoller] of new events in the transport pipeline, so that it only queries for the listeners that have
+ * something new to receive.
+ */
+fun interface TransportEventSubscriptions {
+  /**
+   * Calls [onEvent] whenever an event of [kind] is added for [streamId] and [pid] (0 meaning any), until the returned handle is
+   * closed. [onEvent] can be called on any thread and should return quickly.
+   */
+  fun subscribe(kind: Common.Event.Kind, streamId: Long, pid: Int, onEvent: () -> Unit): AutoCloseable
+
+  companion object {
+    /**
+     * Returns the subscriptions of the datastore listening on the in-process channel [channelName], or null if there is no such
+     * datastore in this process.
+     */
+    @JvmStatic
+    fun forChannel(channelName: String): TransportEventSubscriptions? {
+      val hub = EventSubscriptionHub.forService(channelName) ?: return null
+      return TransportEventSubscriptions { kind, streamId, pid, onEvent -> hub.subscribe(kind, streamId, pid) { onEvent() } }
+    }
+  }
+}
@@ -456,4 +456,38 @@ class TransportEventPollerTest {
     assertThat(events[0]).isEqualTo(event2)
     assertThat(events[1]).isEqualTo(event1)
   }
+
+  @Test
+  fun subscribedPollerOnlyQueriesNotifiedListeners() {
+    val subscribers = mutableMapOf<Common.Event.Kind, MutableList<() -> Unit>>()
+    var subscriptionCount = 0
+    val subscriptions = TransportEventSubscriptions { kind, _, _, onEvent ->
+      subscriptionCount++
+      subscribers.getOrPut(kind) { mutableListOf() }.add(onEvent)
+      AutoCloseable { subscribers.getValue(kind).remove(onEvent) }
+    }
+    val poller = TransportEventPoller(transportClient!!.transportStub, subscriptions = subscriptions)
+    val events = mutableListOf<Common.Event>()
+    val listeners = (0 until 2).map {
+      TransportEventListener(eventKind = Common.Event.Kind.ECHO,
+                             callback = { event -> events.add(event); false },
+                             executor = MoreExecutors.directExecutor()).also { poller.registerListener(it) }
+    }
+    poller.poll()
+    // Both listeners share the same subscription.
+    assertThat(subscriptionCount).isEqualTo(1)
+
+    // Without a notification, the new event is not queried for.
+    val event = generateEchoEvent(1)
+    transportService.addEventToStream(FakeTransportService.FAKE_DEVICE_ID, event)
+    poller.poll()
+    assertThat(events).isEmpty()
+
+    subscribers.getValue(Common.Event.Kind.ECHO).forEach { it() }
+    poller.poll()
+    assertThat(events).containsExactly(event, event)
+
+    listeners.forEach { poller.unregisterListener(it) }
+    assertThat(subscribers.getValue(Common.Event.Kind.ECHO)).isEmpty()
+  }
 }
@@ -0,0 +1,449 @@
+/*
+ * Copyright (C) 2022 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.android.tools.idea.diagnostics.heap;
+
+import static com.android.tools.idea.diagnostics.heap.HeapTraverseUtil.sizeOf;
+
+import com.android.tools.idea.diagnostics.heap.HeapSnapshotTraverse.ErrorCode;
+import com.intellij.openapi.util.LowMemoryWatcher;
+import com.intellij.testFramework.LeakHunter;
+import com.intellij.util.ReflectionUtil;
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Queue;
+import java.util.Set;
+import java.util.Vector;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.TimeUnit;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Heap traversal for heaps that are too big for {@link HeapSnapshotTraverse}: it doesn't keep the topological order of the heap, stores
+ * visited objects in {@link OffHeapIdentityHashSet}s, splits the work between several threads and runs in time-bounded slices, so it can
+ * be run incrementally in background.
+ *
+ * The heap is walked once from the start roots. Every object is walked on behalf of an owner: a component, if the object is a root of
+ * this component, otherwise the owner of the object that referred to it. An object is owned by the first component that reaches it, and
+ * an object reached by a component after being reached from non-component objects is walked again for this component, so non-component
+ * objects keep the lowest ownership priority. Objects that are not owned by any component are non-component.
+ *
+ * Unlike {@link HeapSnapshotTraverse}, objects reachable from several components are not reported as shared, reference weights are not
+ * taken into account and retained sizes are not computed.
+ */
+public final class ConcurrentHeapSnapshotTraverse {
+
+  private static final int NON_COMPONENT = HeapSnapshotStatistics.COMPONENT_NOT_FOUND;
+
+  // How often a worker checks the slice budget and whether idle workers could take part of its stack.
+  private static final int CHECK_INTERVAL_MASK = 0xFF;
+
+  private static final int INITIAL_STACK_CAPACITY = 1024;
+
+  private volatile boolean myShouldAbortTraversal = false;
+  private volatile long mySliceDeadlineNanos;
+  @Nullable
+  private ErrorCode myErrorCode;
+
+  private final int myMaxDepth;
+  @NotNull
+  private final HeapSnapshotStatistics myStats;
+  @NotNull
+  private final HeapTraverseChildProcessor myHeapTraverseChildProcessor;
+  @NotNull
+  private final LowMemoryWatcher myWatcher;
+  @NotNull
+  private final ForkJoinPool myPool;
+  @NotNull
+  private final Set<ClassLoader> myProcessedLoaders = ConcurrentHashMap.newKeySet();
+  @NotNull
+  private final ClassValue<Integer> myClassComponentIds;
+  // Objects walked on behalf of anyone.
+  @NotNull
+  private final OffHeapIdentityHashSet myVisited = new OffHeapIdentityHashSet();
+  // Objects walked on behalf of a component.
+  @NotNull
+  private final OffHeapIdentityHashSet myOwned = new OffHeapIdentityHashSet();
+  // Work left over at the end of the previous slice.
+  @NotNull
+  private final Queue<SuspendedWork> mySuspendedWork = new ConcurrentLinkedQueue<>();
+  @NotNull
+  private final Queue<WorkerState> myWorkerStates = new ConcurrentLinkedQueue<>();
+  @NotNull
+  private final ThreadLocal<WorkerState> myWorkerState;
+
+  /**
+   * @param maxDepth the maximum depth to which we will descend when traversing the object tree.
+   * @param startRoots objects from which traversal is started.
+   * @param stats holder for memory report, filled when the traversal finishes.
+   * @param parallelism number of threads walking the heap during a slice.
+   */
+  public ConcurrentHeapSnapshotTraverse(int maxDepth,
+                                        @NotNull final Collection<?> startRoots,
+                                        @NotNull final HeapSnapshotStatistics stats,
+                                        int parallelism) {
+    this(new HeapTraverseChildProcessor(), maxDepth, startRoots, stats, parallelism);
+  }
+
+  public ConcurrentHeapSnapshotTraverse(@NotNull final HeapTraverseChildProcessor childProcessor,
+                                        int maxDepth,
+                                        @NotNull final Collection<?> startRoots,
+                                        @NotNull final HeapSnapshotStatistics stats,
+                                        int parallelism) {
+    myHeapTraverseChildProcessor = childProcessor;
+    myMaxDepth = maxDepth;
+    myStats = stats;
+    myWatcher = LowMemoryWatcher.register(this::onLowMemorySignalReceived);
+    myPool = new ForkJoinPool(parallelism);
+    myProcessedLoaders.add(LeakHunter.class.getClassLoader());
+    myClassComponentIds = new ClassValue<>() {
+      @Override
+      protected Integer computeValue(Class<?> type) {
+        // ComponentsSet caches the lookups by package.
+        synchronized (stats.getComponentsSet()) {
+          return stats.getComponentsSet().getComponentId(type);
+        }
+      }
+    };
+    myWorkerState = ThreadLocal.withInitial(() -> {
+      WorkerState state = new WorkerState(stats.getComponentsSet().getComponents().size());
+      myWorkerStates.add(state);
+      return state;
+    });
+
+    TraverseTask roots = new TraverseTask(Math.max(startRoots.size(), 1));
+    for (Object root : startRoots) {
+      claimAndPush(roots, root, 0, NON_COMPONENT);
+    }
+    mySuspendedWork.add(new SuspendedWork(roots));
+  }
+
+  private void onLowMemorySignalReceived() {
+    myShouldAbortTraversal = true;
+  }
+
+  /**
+   * Walks the heap for about budgetMs, then stops the workers and keeps the remaining work for the next slice.
+   *
+   * @return true if the traversal is finished: the statistics are filled and {@link #getErrorCode()} returns its result.
+   */
+  public boolean runSlice(long budgetMs) {
+    if (myErrorCode != null) {
+      return true;
+    }
+    mySliceDeadlineNanos = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(budgetMs);
+    try {
+      while (true) {
+        if (myShouldAbortTraversal) {
+          finish(ErrorCode.LOW_MEMORY);
+          return true;
+        }
+        List<TraverseTask> tasks = resumeSuspendedWork();
+        if (tasks.isEmpty()) {
+          finish(ErrorCode.OK);
+          return true;
+        }
+        myPool.invoke(ForkJoinTask.adapt(() -> ForkJoinTask.invokeAll(tasks)));
+        if (System.nanoTime() - mySliceDeadlineNanos >= 0) {
+          return false;
+        }
+      }
+    }
+    catch (RuntimeException e) {
+      finish(ErrorCode.CANCELLED);
+      throw e;
+    }
+  }
+
+  /**
+   * Runs the whole traversal on the calling thread, in slices of sliceMs separated by pauses of pauseMs, so the workers take about
+   * sliceMs / (sliceMs + pauseMs) of the CPU time they could take.
+   */
+  @NotNull
+  public ErrorCode walkObjects(long sliceMs, long pauseMs) {
+    try {
+      while (!runSlice(sliceMs)) {
+        if (pauseMs > 0) {
+          Thread.sleep(pauseMs);
+        }
+      }
+    }
+    catch (InterruptedException e) {
+      cancel();
+      Thread.currentThread().interrupt();
+    }
+    return myErrorCode != null ? myErrorCode : ErrorCode.CANCELLED;
+  }
+
+  /**
+   * Stops the traversal between two slices, keeping the statistics collected so far.
+   */
+  public void cancel() {
+    if (myErrorCode == null) {
+      finish(ErrorCode.CANCELLED);
+    }
+  }
+
+  /**
+   * Returns the result of the traversal, or null if it's not finished yet.
+   */
+  @Nullable
+  public ErrorCode getErrorCode() {
+    return myErrorCode;
+  }
+
+  @NotNull
+  private List<TraverseTask> resumeSuspendedWork() {
+    List<TraverseTask> tasks = new ArrayList<>();
+    SuspendedWork work;
+    while ((work = mySuspendedWork.poll()) != null) {
+      TraverseTask task = work.resume();
+      if (task.mySize > 0) {
+        tasks.add(task);
+      }
+    }
+    return tasks;
+  }
+
+  private void finish(@NotNull final ErrorCode errorCode) {
+    myErrorCode = errorCode;
+    myWatcher.stop();
+    myPool.shutdownNow();
+    mySuspendedWork.clear();
+    myVisited.clear();
+    myOwned.clear();
+
+    long totalCount = 0;
+    long totalSize = 0;
+    long ownedCount = 0;
+    long ownedSize = 0;
+    for (WorkerState state : myWorkerStates) {
+      totalCount += state.myTotalCount;
+      totalSize += state.myTotalSize;
+      for (int i = 0; i < state.myOwnedCounts.length; i++) {
+        myStats.addOwnedObjectsToComponent(i, (int)state.myOwnedCounts[i], state.myOwnedSizes[i]);
+        ownedCount += state.myOwnedCounts[i];
+        ownedSize += state.myOwnedSizes[i];
+      }
+    }
+    myStats.addObjectsToTotal((int)totalCount, totalSize);
+    myStats.addNonComponentObjects((int)(totalCount - ownedCount), totalSize - ownedSize);
+    myWorkerStates.clear();
+  }
+
+  private int getComponentId(@NotNull final Object obj) {
+    return myClassComponentIds.get(obj instanceof Class ? (Class<?>)obj : obj.getClass());
+  }
+
+  /**
+   * Pushes the object to the stack if it wasn't walked for its owner yet.
+   */
+  private void claimAndPush(@NotNull final TraverseTask stack, @Nullable final Object value, int depth, int parentOwner) {
+    if (value == null) {
+      return;
+    }
+    if (depth > myMaxDepth) {
+      return;
+    }
+    if (HeapTraverseUtil.isPrimitive(value.getClass())) {
+      return;
+    }
+    int componentId = getComponentId(value);
+    int owner = componentId != NON_COMPONENT ? componentId : parentOwner;
+    int valueHashCode = System.identityHashCode(value);
+    if (owner == NON_COMPONENT) {
+      if (!myVisited.add(valueHashCode)) {
+        return;
+      }
+      stack.push(value, depth, owner, true);
+    }
+    else {
+      if (!myOwned.add(valueHashCode)) {
+        return;
+      }
+      stack.push(value, depth, owner, myVisited.add(valueHashCode));
+    }
+
+    // check that ClassLoader that loaded the object class was already processed. In case if it wasn't - add it and all the corresponding
+    // classes
+    ClassLoader loader = value.getClass().getClassLoader();
+    if (loader != null && myProcessedLoaders.add(loader)) {
+      Vector<?> allLoadedClasses = ReflectionUtil.getField(loader.getClass(), loader, Vector.class, "classes");
+      if (allLoadedClasses != null) {
+        for (Object aClass : allLoadedClasses.toArray()) {
+          claimAndPush(stack, aClass, 0, NON_COMPONENT);
+        }
+      }
+    }
+  }
+
+  /**
+   * Per-thread state of the workers. The statistics are merged into {@link HeapSnapshotStatistics} when the traversal finishes.
+   */
+  private static final class WorkerState {
+    @NotNull
+    private final FieldCache myFieldCache = new FieldCache();
+    private long myTotalCount;
+    private long myTotalSize;
+    private final long[] myOwnedCounts;
+    private final long[] myOwnedSizes;
+
+    private WorkerState(int componentCount) {
+      myOwnedCounts = new long[componentCount];
+      myOwnedSizes = new long[componentCount];
+    }
+  }
+
+  /**
+   * Depth-first walk of the objects on its stack. When other workers are idle, the bottom half of the stack, the objects closest to the
+   * roots, is forked into a new task for them to steal.
+   */
+  private final class TraverseTask extends RecursiveAction {
+    private Object[] myObjects;
+    private int[] myDepths;
+    private int[] myOwners;
+    // Whether the object is walked for the first time, and should be added to the total statistics.
+    private boolean[] myFirstVisits;
+    private int mySize;
+
+    private TraverseTask(int capacity) {
+      myObjects = new Object[capacity];
+      myDepths = new int[capacity];
+      myOwners = new int[capacity];
+      myFirstVisits = new boolean[capacity];
+    }
+
+    private void push(@NotNull final Object obj, int depth, int owner, boolean firstVisit) {
+      if (mySize == myObjects.length) {
+        int capacity = mySize * 2;
+        myObjects = Arrays.copyOf(myObjects, capacity);
+        myDepths = Arrays.copyOf(myDepths, capacity);
+        myOwners = Arrays.copyOf(myOwners, capacity);
+        myFirstVisits = Arrays.copyOf(myFirstVisits, capacity);
+      }
+      myObjects[mySize] = obj;
+      myDepths[mySize] = depth;
+      myOwners[mySize] = owner;
+      myFirstVisits[mySize] = firstVisit;
+      mySize++;
+    }
+
+    @Override
+    protected void compute() {
+      WorkerState state = myWorkerState.get();
+      List<TraverseTask> forked = new ArrayList<>();
+      int processed = 0;
+      while (mySize > 0) {
+        if ((++processed & CHECK_INTERVAL_MASK) == 0) {
+          if (myShouldAbortTraversal || System.nanoTime() - mySliceDeadlineNanos >= 0) {
+            mySuspendedWork.add(new SuspendedWork(this));
+            mySize = 0;
+            break;
+          }
+          if (mySize > 1 && getSurplusQueuedTaskCount() <= 0) {
+            TraverseTask task = splitBottomHalf();
+            forked.add(task);
+            task.fork();
+          }
+        }
+        mySize--;
+        Object obj = myObjects[mySize];
+        myObjects[mySize] = null;
+        process(obj, myDepths[mySize], myOwners[mySize], myFirstVisits[mySize], state);
+      }
+      for (TraverseTask task : forked) {
+        task.join();
+      }
+    }
+
+    private void process(@NotNull final Object obj, int depth, int owner, boolean firstVisit, @NotNull final WorkerState state) {
+      long size = sizeOf(obj, state.myFieldCache);
+      if (firstVisit) {
+        state.myTotalCount++;
+        state.myTotalSize += size;
+      }
+      if (owner != NON_COMPONENT) {
+        state.myOwnedCounts[owner]++;
+        state.myOwnedSizes[owner] += size;
+      }
+      if (depth >= myMaxDepth) {
+        return;
+      }
+      myHeapTraverseChildProcessor.processChildObjects(obj, (Object value, HeapTraverseNode.RefWeight weight) ->
+        claimAndPush(this, value, depth + 1, owner), state.myFieldCache);
+    }
+
+    @NotNull
+    private TraverseTask splitBottomHalf() {
+      int half = mySize / 2;
+      TraverseTask task = new TraverseTask(Math.max(half, INITIAL_STACK_CAPACITY));
+      System.arraycopy(myObjects, 0, task.myObjects, 0, half);
+      System.arraycopy(myDepths, 0, task.myDepths, 0, half);
+      System.arraycopy(myOwners, 0, task.myOwners, 0, half);
+      System.arraycopy(myFirstVisits, 0, task.myFirstVisits, 0, half);
+      task.mySize = half;
+
+      int remaining = mySize - half;
+      System.arraycopy(myObjects, half, myObjects, 0, remaining);
+      System.arraycopy(myDepths, half, myDepths, 0, remaining);
+      System.arraycopy(myOwners, half, myOwners, 0, remaining);
+      System.arraycopy(myFirstVisits, half, myFirstVisits, 0, remaining);
+      Arrays.fill(myObjects, remaining, mySize, null);
+      mySize = remaining;
+      return task;
+    }
+  }
+
+  /**
+   * Stack of a task stopped at the end of a slice. The objects are only weakly referenced, so the traversal doesn't keep garbage alive
+   * between slices.
+   */
+  private final class SuspendedWork {
+    private final WeakReference<?>[] myObjects;
+    private final int[] myDepths;
+    private final int[] myOwners;
+    private final boolean[] myFirstVisits;
+
+    private SuspendedWork(@NotNull final TraverseTask task) {
+      myObjects = new WeakReference<?>[task.mySize];
+      for (int i = 0; i < task.mySize; i++) {
+        myObjects[i] = new WeakReference<>(task.myObjects[i]);
+      }
+      myDepths = Arrays.copyOf(task.myDepths, task.mySize);
+      myOwners = Arrays.copyOf(task.myOwners, task.mySize);
+      myFirstVisits = Arrays.copyOf(task.myFirstVisits, task.mySize);
+    }
+
+    @NotNull
+    private TraverseTask resume() {
+      TraverseTask task = new TraverseTask(Math.max(myObjects.length, INITIAL_STACK_CAPACITY));
+      for (int i = 0; i < myObjects.length; i++) {
+        Object obj = myObjects[i].get();
+        if (obj != null) {
+          task.push(obj, myDepths[i], myOwners[i], myFirstVisits[i]);
+        }
+      }
+      return task;
+    }
+  }
+}
@@ -78,6 +78,26 @@ public final class HeapSnapshotStatistics {
     myNonComponentStats.addOwnedObject(size);
   }
 
+  void addOwnedObjectsToComponent(int componentId, int count, long size) {
+    myComponentStats.get(componentId).addOwnedObjects(count, size);
+  }
+
+  void addObjectsToTotal(int count, long size) {
+    myTotalStats.addOwnedObjects(count, size);
+  }
+
+  void addNonComponentObjects(int count, long size) {
+    myNonComponentStats.addOwnedObjects(count, size);
+  }
+
+  int getTotalObjectsNumber() {
+    return myTotalStats.myOwnedObjectsNumber;
+  }
+
+  int getNonComponentObjectsNumber() {
+    return myNonComponentStats.myOwnedObjectsNumber;
+  }
+
   void print(@NotNull final PrintWriter out) {
     out.printf("Total: [%s/%d]\n", HeapReportUtils.INSTANCE.toShortStringAsCount(myTotalStats.myOwnedTotalSizeOfObjects),
                myTotalStats.myOwnedObjectsNumber);
@@ -123,6 +143,11 @@ public final class HeapSnapshotStatistics {
       myOwnedTotalSizeOfObjects += size;
     }
 
+    private void addOwnedObjects(int count, long size) {
+      myOwnedObjectsNumber += count;
+      myOwnedTotalSizeOfObjects += size;
+    }
+
     public void addRetainedObject(long size) {
       myRetainedObjectsNumber++;
       myRetainedTotalSizeOfObjects += size;
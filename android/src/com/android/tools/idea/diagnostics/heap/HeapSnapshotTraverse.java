@@ -318,7 +318,8 @@ public final class HeapSnapshotTraverse {
   public enum ErrorCode {
     OK("Success"),
     HEAP_IS_TOO_BIG("Heap is too big"),
-    LOW_MEMORY("LowMemory state occured during the heap traversal");
+    LOW_MEMORY("LowMemory state occured during the heap traversal"),
+    CANCELLED("The heap traversal was cancelled");
 
     private final String myClarification;
 
@@ -18,7 +18,10 @@ package com.android.tools.idea.diagnostics.heap;
 import com.intellij.openapi.actionSystem.AnAction;
 import com.intellij.openapi.actionSystem.AnActionEvent;
 import com.intellij.openapi.diagnostic.Logger;
+import com.intellij.openapi.progress.ProgressIndicator;
+import com.intellij.openapi.progress.Task;
 import com.intellij.testFramework.LeakHunter;
+import com.intellij.util.TimeoutUtil;
 import com.intellij.util.containers.WeakList;
 import java.io.PrintWriter;
 import java.nio.charset.StandardCharsets;
@@ -28,6 +31,9 @@ public final class HeapStrongReferenceCountAction extends AnAction {
 
   private static final Logger LOG = Logger.getInstance(HeapStrongReferenceCountAction.class);
   private static final int MAX_DEPTH = Integer.MAX_VALUE;
+  private static final long CONCURRENT_TRAVERSE_SLICE_MS = 1000;
+  // The concurrent traversal takes about half of the CPU time its workers could take, to keep the IDE responsive.
+  private static final long CONCURRENT_TRAVERSE_PAUSE_MS = 1000;
 
   @Override
   public void actionPerformed(@NotNull AnActionEvent e) {
@@ -35,6 +41,32 @@ public final class HeapStrongReferenceCountAction extends AnAction {
     roots.addAll(LeakHunter.allRoots().get().keySet());
     HeapSnapshotStatistics stats = new HeapSnapshotStatistics(ComponentsSet.getComponentSet());
     HeapSnapshotTraverse.ErrorCode errorCode = new HeapSnapshotTraverse().walkObjects(MAX_DEPTH, roots, stats);
+    if (errorCode == HeapSnapshotTraverse.ErrorCode.HEAP_IS_TOO_BIG) {
+      // Only owned sizes are collected by the concurrent traversal, but it doesn't need to keep the whole heap order in memory.
+      LOG.info("Heap is too big for the full traversal, falling back to the concurrent traversal");
+      new Task.Backgroundable(e.getProject(), "Counting strong references", true) {
+        @Override
+        public void run(@NotNull ProgressIndicator indicator) {
+          HeapSnapshotStatistics concurrentStats = new HeapSnapshotStatistics(ComponentsSet.getComponentSet());
+          int parallelism = Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+          ConcurrentHeapSnapshotTraverse traverse = new ConcurrentHeapSnapshotTraverse(MAX_DEPTH, roots, concurrentStats, parallelism);
+          while (!traverse.runSlice(CONCURRENT_TRAVERSE_SLICE_MS)) {
+            if (indicator.isCanceled()) {
+              traverse.cancel();
+              break;
+            }
+            TimeoutUtil.sleep(CONCURRENT_TRAVERSE_PAUSE_MS);
+          }
+          HeapSnapshotTraverse.ErrorCode concurrentErrorCode = traverse.getErrorCode();
+          printStatistics(concurrentErrorCode != null ? concurrentErrorCode : HeapSnapshotTraverse.ErrorCode.CANCELLED, concurrentStats);
+        }
+      }.queue();
+      return;
+    }
+    printStatistics(errorCode, stats);
+  }
+
+  private static void printStatistics(@NotNull HeapSnapshotTraverse.ErrorCode errorCode, @NotNull HeapSnapshotStatistics stats) {
     if (errorCode != HeapSnapshotTraverse.ErrorCode.OK) {
       LOG.warn("Heap traversing finished with an error: " + errorCode.getDescription());
     }
@@ -0,0 +1,105 @@
+/*
+ * Copyright (C) 2022 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.android.tools.idea.diagnostics.heap;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Set of object identity hash codes that can be updated from several threads.
+ *
+ * It's a bitset over the whole int range, so it costs one bit per possible hash code instead of a boxed or hashed entry per object. The
+ * bitset is split into pages that are allocated on first use outside of the Java heap, so the set doesn't grow the heap that is being
+ * traversed: a heap of a few hundred million objects takes at most 512 MB of native memory.
+ */
+final class OffHeapIdentityHashSet {
+
+  // 2^23 bits = 1 MB per page.
+  private static final int PAGE_SHIFT = 23;
+  private static final int PAGE_COUNT = 1 << (Integer.SIZE - PAGE_SHIFT);
+  private static final int PAGE_SIZE_BYTES = 1 << (PAGE_SHIFT - 3);
+  private static final int BIT_INDEX_MASK = (1 << PAGE_SHIFT) - 1;
+
+  private static final VarHandle LONG_VIEW = MethodHandles.byteBufferViewVarHandle(long[].class, ByteOrder.nativeOrder());
+
+  @NotNull
+  private final AtomicReferenceArray<ByteBuffer> myPages = new AtomicReferenceArray<>(PAGE_COUNT);
+
+  /**
+   * Adds the hash code to the set.
+   *
+   * @return true if the hash code was not in the set before.
+   */
+  boolean add(int hashCode) {
+    ByteBuffer page = getOrAllocatePage(hashCode >>> PAGE_SHIFT);
+    long bit = bitOf(hashCode);
+    long previous = (long)LONG_VIEW.getAndBitwiseOr(page, byteOffsetOf(hashCode), bit);
+    return (previous & bit) == 0;
+  }
+
+  boolean contains(int hashCode) {
+    ByteBuffer page = myPages.get(hashCode >>> PAGE_SHIFT);
+    if (page == null) {
+      return false;
+    }
+    return ((long)LONG_VIEW.getVolatile(page, byteOffsetOf(hashCode)) & bitOf(hashCode)) != 0;
+  }
+
+  /**
+   * Drops all the pages. The native memory is released when the pages are garbage collected.
+   */
+  void clear() {
+    for (int i = 0; i < PAGE_COUNT; i++) {
+      myPages.set(i, null);
+    }
+  }
+
+  long getAllocatedBytes() {
+    long bytes = 0;
+    for (int i = 0; i < PAGE_COUNT; i++) {
+      if (myPages.get(i) != null) {
+        bytes += PAGE_SIZE_BYTES;
+      }
+    }
+    return bytes;
+  }
+
+  @NotNull
+  private ByteBuffer getOrAllocatePage(int pageIndex) {
+    ByteBuffer page = myPages.get(pageIndex);
+    if (page != null) {
+      return page;
+    }
+    // Atomic access through the view requires 8-byte aligned addresses. Direct buffers are zeroed on allocation.
+    page = ByteBuffer.allocateDirect(PAGE_SIZE_BYTES + Long.BYTES).alignedSlice(Long.BYTES);
+    if (myPages.compareAndSet(pageIndex, null, page)) {
+      return page;
+    }
+    return myPages.get(pageIndex);
+  }
+
+  private static int byteOffsetOf(int hashCode) {
+    return ((hashCode & BIT_INDEX_MASK) >>> 6) << 3;
+  }
+
+  private static long bitOf(int hashCode) {
+    return 1L << (hashCode & 63);
+  }
+}
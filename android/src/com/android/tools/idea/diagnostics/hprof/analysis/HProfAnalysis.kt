@@ -16,7 +16,6 @@
 package com.android.tools.idea.diagnostics.hprof.analysis
 
 import com.android.tools.idea.diagnostics.hprof.classstore.HProfMetadata
-import com.android.tools.idea.diagnostics.hprof.histogram.Histogram
 import com.android.tools.idea.diagnostics.hprof.navigator.ObjectNavigator
 import com.android.tools.idea.diagnostics.hprof.parser.HProfEventBasedParser
 import com.android.tools.idea.diagnostics.hprof.util.FileBackedIntList
@@ -26,6 +25,9 @@ import com.android.tools.idea.diagnostics.hprof.util.HeapReportUtils.sectionHead
 import com.android.tools.idea.diagnostics.hprof.util.HeapReportUtils.toShortStringAsCount
 import com.android.tools.idea.diagnostics.hprof.util.ListProvider
 import com.android.tools.idea.diagnostics.hprof.util.PartialProgressIndicator
+import com.android.tools.idea.diagnostics.hprof.visitors.CollectObjectIdsVisitor
+import com.android.tools.idea.diagnostics.hprof.visitors.CompositeVisitor
+import com.android.tools.idea.diagnostics.hprof.visitors.HistogramVisitor
 import com.android.tools.idea.diagnostics.hprof.visitors.RemapIDsVisitor
 import com.google.common.base.Stopwatch
 import com.intellij.openapi.progress.ProgressIndicator
@@ -34,6 +36,17 @@ import java.nio.channels.FileChannel
 import java.nio.file.Files
 import java.nio.file.Path
 import java.nio.file.StandardOpenOption
+import java.util.concurrent.Callable
+import java.util.concurrent.ExecutorService
+import java.util.concurrent.Executors
+import java.util.concurrent.Future
+import kotlin.math.max
+import kotlin.math.min
+
+/**
+ * Maximum number of threads scanning heap dump segments. More threads than this are usually limited by the disk.
+ */
+private const val MAX_SCAN_THREADS = 4
 
 class HProfAnalysis(private val hprofFileChannel: FileChannel,
                     private val tempFilenameSupplier: TempFilenameSupplier) {
@@ -52,6 +65,8 @@ class HProfAnalysis(private val hprofFileChannel: FileChannel,
 
   private var includeMetaInfo = true
 
+  private val scanThreadCount = max(1, min(Runtime.getRuntime().availableProcessors() - 1, MAX_SCAN_THREADS))
+
   @TestOnly
   fun setIncludeMetaInfo(value: Boolean) {
     includeMetaInfo = value
@@ -82,22 +97,34 @@ class HProfAnalysis(private val hprofFileChannel: FileChannel,
     val totalStopwatch = Stopwatch.createStarted()
     val prepareFilesStopwatch = Stopwatch.createStarted()
     val analysisStopwatch = Stopwatch.createUnstarted()
+    val scanStopwatch = Stopwatch.createUnstarted()
+    val metadataStopwatch = Stopwatch.createUnstarted()
+    val remapStopwatch = Stopwatch.createUnstarted()
+    val navigatorStopwatch = Stopwatch.createUnstarted()
 
     progress.text = "Analyze Heap"
     progress.text2 = "Open heap file"
     progress.fraction = 0.0
 
     val parser = HProfEventBasedParser(hprofFileChannel)
+    val scanExecutor = Executors.newFixedThreadPool(scanThreadCount) { runnable ->
+      Thread(runnable, "HProf Analysis Segment Scan").apply { isDaemon = true }
+    }
     try {
-      progress.text2 = "Collect heap metadata"
+      progress.text2 = "Collect heap metadata and histogram"
       progress.fraction = 0.0
 
-      val hprofMetadata = HProfMetadata.create(parser)
+      // The histogram and the list of object IDs only depend on the heap dump segments, so they are collected on other threads, one
+      // group of segments each, while this thread collects the metadata.
+      scanStopwatch.start()
+      val segmentScans = startSegmentScans(parser.getHeapDumpSegments(), scanExecutor)
 
-      progress.text2 = "Create histogram"
-      progress.fraction = 0.1
+      metadataStopwatch.start()
+      val hprofMetadata = HProfMetadata.create(parser)
+      metadataStopwatch.stop()
 
-      val histogram = Histogram.create(parser, hprofMetadata.classStore)
+      val histogram = HistogramVisitor.createHistogram(segmentScans.map { it.get().histogramVisitor }, hprofMetadata.classStore)
+      scanStopwatch.stop()
 
       val nominatedClasses = ClassNomination(histogram, 5).nominateClasses()
 
@@ -111,18 +138,24 @@ class HProfAnalysis(private val hprofFileChannel: FileChannel,
         return result.toString()
       }
 
+      remapStopwatch.start()
       val idMappingChannel = openTempEmptyFileChannel("id-mapping")
       val remapIDsVisitor = RemapIDsVisitor.createFileBased(
         idMappingChannel,
         histogram.instanceCount)
 
-      parser.accept(remapIDsVisitor, "id mapping")
+      for (segmentScan in segmentScans.map { it.get() }) {
+        remapIDsVisitor.addMappingsInOrder(segmentScan.objectIdsChannel, segmentScan.objectIdsVisitor.objectCount)
+        segmentScan.objectIdsChannel.close()
+      }
       parser.setIdRemappingFunction(remapIDsVisitor.getRemappingFunction())
       hprofMetadata.remapIds(remapIDsVisitor.getRemappingFunction())
+      remapStopwatch.stop()
 
       progress.text2 = "Create reference graph"
       progress.fraction = 0.3
 
+      navigatorStopwatch.start()
       val navigator = ObjectNavigator.createOnAuxiliaryFiles(
         parser,
         openTempEmptyFileChannel("auxOffset"),
@@ -130,6 +163,7 @@ class HProfAnalysis(private val hprofFileChannel: FileChannel,
         hprofMetadata,
         histogram.instanceCount
       )
+      navigatorStopwatch.stop()
 
       prepareFilesStopwatch.stop()
 
@@ -162,6 +196,9 @@ class HProfAnalysis(private val hprofFileChannel: FileChannel,
       if (includeMetaInfo) {
         result.appendln(sectionHeader("Analysis information"))
         result.appendln("Prepare files duration: $prepareFilesStopwatch")
+        result.appendln("  Heap dump scan duration: $scanStopwatch (metadata: $metadataStopwatch, segments on $scanThreadCount threads)")
+        result.appendln("  Remap object IDs duration: $remapStopwatch")
+        result.appendln("  Create reference graph duration: $navigatorStopwatch")
         result.appendln("Analysis duration: $analysisStopwatch")
         result.appendln("TOTAL DURATION: $totalStopwatch")
         result.appendln("Temp files:")
@@ -177,12 +214,49 @@ class HProfAnalysis(private val hprofFileChannel: FileChannel,
       }
     }
     finally {
+      scanExecutor.shutdownNow()
       parser.close()
       closeAndDeleteTemporaryFiles()
     }
     return result.toString()
   }
 
+  private class SegmentScan(val histogramVisitor: HistogramVisitor,
+                            val objectIdsVisitor: CollectObjectIdsVisitor,
+                            val objectIdsChannel: FileChannel)
+
+  /**
+   * Splits [segments] in consecutive groups of similar sizes, and starts collecting the histogram and the object IDs of each group on
+   * [executor], with a parser of its own. The returned scans are in the order of the groups.
+   */
+  private fun startSegmentScans(segments: List<HProfEventBasedParser.HeapDumpSegment>,
+                                executor: ExecutorService): List<Future<SegmentScan>> {
+    val groupCount = min(segments.size, scanThreadCount * 2)
+    val groupTargetSize = max(1L, segments.sumOf { it.length } / max(1, groupCount))
+    val groups = mutableListOf<MutableList<HProfEventBasedParser.HeapDumpSegment>>()
+    var currentGroupSize = 0L
+    for (segment in segments) {
+      if (groups.isEmpty() || currentGroupSize >= groupTargetSize) {
+        groups.add(mutableListOf())
+        currentGroupSize = 0
+      }
+      groups.last().add(segment)
+      currentGroupSize += segment.length
+    }
+
+    return groups.map { group ->
+      val objectIdsChannel = openTempEmptyFileChannel("object-ids")
+      executor.submit(Callable {
+        val histogramVisitor = HistogramVisitor()
+        val objectIdsVisitor = CollectObjectIdsVisitor(objectIdsChannel)
+        HProfEventBasedParser(hprofFileChannel).use {
+          it.acceptHeapDumpSegments(CompositeVisitor(histogramVisitor, objectIdsVisitor), group, "histogram and object IDs")
+        }
+        SegmentScan(histogramVisitor, objectIdsVisitor, objectIdsChannel)
+      })
+    }
+  }
+
   private fun isSupported(instanceCount: Long): Boolean {
     // Limitation due to FileBackedHashMap in RemapIDsVisitor. Many other components
     // assume instanceCount <= Int.MAX_VALUE.
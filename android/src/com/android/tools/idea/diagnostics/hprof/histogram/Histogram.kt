@@ -61,9 +61,9 @@ class Histogram(val entries: List<HistogramEntry>, val instanceCount: Long) {
 
   companion object {
     fun create(parser: HProfEventBasedParser, classStore: ClassStore): Histogram {
-      val histogramVisitor = HistogramVisitor(classStore)
+      val histogramVisitor = HistogramVisitor()
       parser.accept(histogramVisitor, "histogram")
-      return histogramVisitor.createHistogram()
+      return histogramVisitor.createHistogram(classStore)
     }
 
     fun prepareMergedHistogramReport(mainHistogram: Histogram, mainHistogramName: String,
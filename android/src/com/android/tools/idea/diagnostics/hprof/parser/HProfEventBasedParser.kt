@@ -62,9 +62,47 @@ class HProfEventBasedParser(fileChannel: FileChannel) : AutoCloseable {
     reparsePosition = buffer.position()
   }
 
-  fun accept(visitor: HProfVisitor, description: String?) {
-    val stopwatch = Stopwatch.createStarted()
+  /**
+   * Position and length of the content of a heap dump (or heap dump segment) record.
+   */
+  class HeapDumpSegment(val position: Long, val length: Long)
+
+  /**
+   * Returns the heap dump segments of the file, in order. Only the top-level record headers are read, so this is much faster than
+   * visiting the file.
+   */
+  fun getHeapDumpSegments(): List<HeapDumpSegment> {
+    val segments = mutableListOf<HeapDumpSegment>()
     buffer.position(reparsePosition)
+    while (!buffer.isEof()) {
+      val tag = readUnsignedByte()
+      readInt() // Ignored: timestamp
+      val length = readUnsignedInt()
+      val recordType = RecordType.fromInt(tag)
+      if (recordType == RecordType.HeapDump || recordType == RecordType.HeapDumpSegment) {
+        segments.add(HeapDumpSegment(buffer.position(), length))
+      }
+      skip(length)
+    }
+    return segments
+  }
+
+  /**
+   * Visits the heap dump records of the given [segments] only, in order. As segments are independent, parsers of the same file can
+   * visit different segments concurrently.
+   */
+  fun acceptHeapDumpSegments(visitor: HProfVisitor, segments: List<HeapDumpSegment>, description: String?) {
+    val stopwatch = Stopwatch.createStarted()
+    prepareVisitor(visitor)
+    for (segment in segments) {
+      buffer.position(segment.position)
+      acceptHeapDumpSegment(visitor, segment.length)
+    }
+    visitor.postVisit()
+    LOG.info("HProfEventBasedParser${if (description != null) " - $description" else ""}: $stopwatch")
+  }
+
+  private fun prepareVisitor(visitor: HProfVisitor) {
     visitor.visitorContext = object : VisitorContext {
       override val currentHeapRecordOffset: Long
         get() {
@@ -77,6 +115,12 @@ class HProfEventBasedParser(fileChannel: FileChannel) : AutoCloseable {
         }
     }
     visitor.preVisit()
+  }
+
+  fun accept(visitor: HProfVisitor, description: String?) {
+    val stopwatch = Stopwatch.createStarted()
+    buffer.position(reparsePosition)
+    prepareVisitor(visitor)
 
     while (!buffer.isEof()) {
       val tag = readUnsignedByte()
@@ -0,0 +1,77 @@
+/*
+ * Copyright (C) 2022 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.android.tools.idea.diagnostics.hprof.visitors
+
+import com.android.tools.idea.diagnostics.hprof.parser.ConstantPoolEntry
+import com.android.tools.idea.diagnostics.hprof.parser.HProfVisitor
+import com.android.tools.idea.diagnostics.hprof.parser.HeapDumpRecordType
+import com.android.tools.idea.diagnostics.hprof.parser.InstanceFieldEntry
+import com.android.tools.idea.diagnostics.hprof.parser.StaticFieldEntry
+import com.android.tools.idea.diagnostics.hprof.parser.Type
+import com.android.tools.idea.diagnostics.hprof.util.FileChannelBackedWriteBuffer
+import java.nio.ByteBuffer
+import java.nio.channels.FileChannel
+
+/**
+ * Writes the IDs of the objects of the heap dump to [channel], in the order [RemapIDsVisitor] would give them new IDs. The new IDs can
+ * then be assigned from the file with [RemapIDsVisitor.addMappingsInOrder], without visiting the heap dump again.
+ */
+class CollectObjectIdsVisitor(channel: FileChannel) : HProfVisitor() {
+  private val output = FileChannelBackedWriteBuffer(channel)
+
+  var objectCount = 0L
+    private set
+
+  override fun preVisit() {
+    disableAll()
+    enable(HeapDumpRecordType.ClassDump)
+    enable(HeapDumpRecordType.InstanceDump)
+    enable(HeapDumpRecordType.PrimitiveArrayDump)
+    enable(HeapDumpRecordType.ObjectArrayDump)
+  }
+
+  override fun postVisit() {
+    output.close()
+  }
+
+  private fun addObject(id: Long) {
+    output.writeLong(id)
+    objectCount++
+  }
+
+  override fun visitPrimitiveArrayDump(arrayObjectId: Long, stackTraceSerialNumber: Long, numberOfElements: Long, elementType: Type) {
+    addObject(arrayObjectId)
+  }
+
+  override fun visitClassDump(classId: Long,
+                              stackTraceSerialNumber: Long,
+                              superClassId: Long,
+                              classloaderClassId: Long,
+                              instanceSize: Long,
+                              constants: Array<ConstantPoolEntry>,
+                              staticFields: Array<StaticFieldEntry>,
+                              instanceFields: Array<InstanceFieldEntry>) {
+    addObject(classId)
+  }
+
+  override fun visitObjectArrayDump(arrayObjectId: Long, stackTraceSerialNumber: Long, arrayClassObjectId: Long, objects: LongArray) {
+    addObject(arrayObjectId)
+  }
+
+  override fun visitInstanceDump(objectId: Long, stackTraceSerialNumber: Long, classObjectId: Long, bytes: ByteBuffer) {
+    addObject(objectId)
+  }
+}
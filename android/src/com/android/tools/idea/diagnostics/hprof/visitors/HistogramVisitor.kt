@@ -27,12 +27,20 @@ import com.android.tools.idea.diagnostics.hprof.parser.StaticFieldEntry
 import com.android.tools.idea.diagnostics.hprof.parser.Type
 import java.nio.ByteBuffer
 
-class HistogramVisitor(private val classStore: ClassStore) : HProfVisitor() {
+/**
+ * Counts instances and their sizes by class. Classes are only resolved when creating the histogram, so the class store doesn't need to
+ * be ready while visiting: this visitor can be used in the same pass as the visitors creating the class store, or on separate segments
+ * of the heap dump concurrently (see [createHistogram] for multiple visitors).
+ */
+class HistogramVisitor : HProfVisitor() {
   private var completed = false
 
   private var instanceCount = 0L
 
-  private var classToHistogramEntryInternal = HashMap<ClassDefinition, InternalHistogramEntry>()
+  /**
+   * Entries by instance class ID, primitive array [Type] or [CLASS_DUMP_KEY], in order of first occurrence.
+   */
+  private val rawEntries = LinkedHashMap<Any, RawHistogramEntry>()
 
   override fun preVisit() {
     assert(!completed)
@@ -45,10 +53,8 @@ class HistogramVisitor(private val classStore: ClassStore) : HProfVisitor() {
 
   override fun visitPrimitiveArrayDump(arrayObjectId: Long, stackTraceSerialNumber: Long, numberOfElements: Long, elementType: Type) {
     instanceCount++
-    val classDefinition = classStore.getClassForPrimitiveArray(elementType)!!
-    classToHistogramEntryInternal.getOrPut(classDefinition) {
-      InternalHistogramEntry(classDefinition)
-    }.addInstance(numberOfElements * elementType.size + ClassDefinition.ARRAY_PREAMBLE_SIZE)
+    rawEntries.getOrPut(elementType) { RawHistogramEntry() }
+      .addVariableSizeInstance(numberOfElements * elementType.size + ClassDefinition.ARRAY_PREAMBLE_SIZE)
   }
 
   override fun visitClassDump(classId: Long,
@@ -60,41 +66,39 @@ class HistogramVisitor(private val classStore: ClassStore) : HProfVisitor() {
                               staticFields: Array<StaticFieldEntry>,
                               instanceFields: Array<InstanceFieldEntry>) {
     instanceCount++
-    val classDefinition = classStore.classClass
-    classToHistogramEntryInternal.getOrPut(classDefinition) {
-      InternalHistogramEntry(classDefinition)
-    }.addInstance(classDefinition.instanceSize.toLong() + ClassDefinition.OBJECT_PREAMBLE_SIZE)
+    rawEntries.getOrPut(CLASS_DUMP_KEY) { RawHistogramEntry() }.addFixedSizeInstance()
   }
 
   override fun visitObjectArrayDump(arrayObjectId: Long, stackTraceSerialNumber: Long, arrayClassObjectId: Long, objects: LongArray) {
     instanceCount++
-    val classDefinition = classStore[arrayClassObjectId]
-    classToHistogramEntryInternal.getOrPut(classDefinition) {
-      InternalHistogramEntry(classDefinition)
-    }.addInstance(objects.size.toLong() * visitorContext.idSize + ClassDefinition.ARRAY_PREAMBLE_SIZE)
+    rawEntries.getOrPut(arrayClassObjectId) { RawHistogramEntry() }
+      .addVariableSizeInstance(objects.size.toLong() * visitorContext.idSize + ClassDefinition.ARRAY_PREAMBLE_SIZE)
   }
 
   override fun visitInstanceDump(objectId: Long, stackTraceSerialNumber: Long, classObjectId: Long, bytes: ByteBuffer) {
     instanceCount++
-    val classDefinition = classStore[classObjectId]
-    classToHistogramEntryInternal.getOrPut(classDefinition) {
-      InternalHistogramEntry(classDefinition)
-    }.addInstance(classDefinition.instanceSize.toLong() + ClassDefinition.OBJECT_PREAMBLE_SIZE)
+    rawEntries.getOrPut(classObjectId) { RawHistogramEntry() }.addFixedSizeInstance()
   }
 
   override fun postVisit() {
     completed = true
   }
 
-  fun createHistogram(): Histogram {
-    assert(completed)
-    val result = ArrayList<HistogramEntry>(classToHistogramEntryInternal.size)
+  fun createHistogram(classStore: ClassStore): Histogram = createHistogram(listOf(this), classStore)
+
+  private class RawHistogramEntry {
+    var fixedSizeInstances = 0L
+    var variableSizeInstances = 0L
+    var variableSizeBytes = 0L
+
+    fun addFixedSizeInstance() {
+      fixedSizeInstances++
+    }
 
-    classToHistogramEntryInternal.forEach { (_, internalEntry) ->
-      result.add(internalEntry.asHistogramEntry())
+    fun addVariableSizeInstance(sizeInBytes: Long) {
+      variableSizeInstances++
+      variableSizeBytes += sizeInBytes
     }
-    result.sortByDescending { e -> e.totalInstances }
-    return Histogram(result, instanceCount)
   }
 
   class InternalHistogramEntry(private val classDefinition: ClassDefinition) {
@@ -102,8 +106,8 @@ class HistogramVisitor(private val classStore: ClassStore) : HProfVisitor() {
     private var totalInstances = 0L
     private var totalBytes = 0L
 
-    fun addInstance(sizeInBytes: Long) {
-      totalInstances++
+    fun addInstances(count: Long, sizeInBytes: Long) {
+      totalInstances += count
       totalBytes += sizeInBytes
     }
 
@@ -111,4 +115,39 @@ class HistogramVisitor(private val classStore: ClassStore) : HProfVisitor() {
       return HistogramEntry(classDefinition, totalInstances, totalBytes)
     }
   }
+
+  companion object {
+    private val CLASS_DUMP_KEY = Any()
+
+    /**
+     * Creates the histogram of the instances counted by all the [visitors], which visited consecutive parts of the heap dump, in order.
+     */
+    fun createHistogram(visitors: List<HistogramVisitor>, classStore: ClassStore): Histogram {
+      val classToHistogramEntryInternal = HashMap<ClassDefinition, InternalHistogramEntry>()
+      var instanceCount = 0L
+      for (visitor in visitors) {
+        assert(visitor.completed)
+        instanceCount += visitor.instanceCount
+        visitor.rawEntries.forEach { (key, rawEntry) ->
+          val classDefinition = when (key) {
+            CLASS_DUMP_KEY -> classStore.classClass
+            is Type -> classStore.getClassForPrimitiveArray(key)!!
+            else -> classStore[key as Long]
+          }
+          val fixedSize = classDefinition.instanceSize.toLong() + ClassDefinition.OBJECT_PREAMBLE_SIZE
+          classToHistogramEntryInternal.getOrPut(classDefinition) {
+            InternalHistogramEntry(classDefinition)
+          }.addInstances(rawEntry.fixedSizeInstances + rawEntry.variableSizeInstances,
+                         rawEntry.fixedSizeInstances * fixedSize + rawEntry.variableSizeBytes)
+        }
+      }
+
+      val result = ArrayList<HistogramEntry>(classToHistogramEntryInternal.size)
+      classToHistogramEntryInternal.forEach { (_, internalEntry) ->
+        result.add(internalEntry.asHistogramEntry())
+      }
+      result.sortByDescending { e -> e.totalInstances }
+      return Histogram(result, instanceCount)
+    }
+  }
 }
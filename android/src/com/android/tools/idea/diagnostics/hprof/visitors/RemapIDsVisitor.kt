@@ -24,6 +24,7 @@ import com.android.tools.idea.diagnostics.hprof.parser.StaticFieldEntry
 import com.android.tools.idea.diagnostics.hprof.parser.Type
 import com.android.tools.idea.diagnostics.hprof.util.FileBackedHashMap
 import gnu.trove.TLongIntHashMap
+import java.io.EOFException
 import java.nio.ByteBuffer
 import java.nio.channels.FileChannel
 import java.util.function.LongUnaryOperator
@@ -66,6 +67,29 @@ abstract class RemapIDsVisitor : HProfVisitor() {
 
   abstract fun addMapping(oldId: Long, newId: Int)
 
+  /**
+   * Gives new IDs to the [count] object IDs written to [channel] by [CollectObjectIdsVisitor]s, as visiting the heap dump would.
+   * Files of consecutive parts of the heap dump must be passed in order.
+   */
+  fun addMappingsInOrder(channel: FileChannel, count: Long) {
+    if (currentID == 0) currentID = 1
+    val buffer = ByteBuffer.allocateDirect(64 * 1024)
+    channel.position(0)
+    var remaining = count
+    while (remaining > 0) {
+      buffer.clear()
+      buffer.limit(minOf(buffer.capacity().toLong(), remaining * 8).toInt())
+      while (buffer.hasRemaining()) {
+        if (channel.read(buffer) < 0) throw EOFException("Missing object IDs")
+      }
+      buffer.flip()
+      while (buffer.hasRemaining()) {
+        addMapping(buffer.long, currentID++)
+        remaining--
+      }
+    }
+  }
+
   abstract fun getRemappingFunction(): LongUnaryOperator
 
   companion object {
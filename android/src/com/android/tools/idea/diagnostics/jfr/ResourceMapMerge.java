@@ -0,0 +1,39 @@
+/*
+ * Copyright (C) 2022 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.android.tools.idea.diagnostics.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Threshold;
+
+@Name("com.android.tools.idea.ResourceMapMerge")
+@Label("Resource Repository Cache Rebuild")
+@Category({"Android Studio", "Spans"})
+@Threshold("1 ms")
+@StackTrace(false)
+public class ResourceMapMerge extends Event {
+  @Label("phase")
+  public String phase;
+
+  @Label("resource type")
+  public String resourceType;
+
+  @Label("repositories")
+  public int repositoryCount;
+}
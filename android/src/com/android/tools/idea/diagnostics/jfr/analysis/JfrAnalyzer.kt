@@ -22,14 +22,25 @@ import jdk.jfr.consumer.RecordedEvent
 import jdk.jfr.consumer.RecordingFile
 import java.nio.file.Path
 import java.time.Instant
+import kotlin.math.max
+import kotlin.math.min
 
 private data class Sample(val thread: String, val time: Instant, val duration: Long, val stackTrace: List<String>)
 
+/** The part of a span event, e.g. a render or a resource scan, that overlaps with the freeze. */
+private data class Span(val thread: String, val subsystem: String, val durationMs: Long)
+
 private class Freeze(val startTime: Long, val endTime: Long) {
   val samples = mutableMapOf<Long, MutableList<Sample>>() // thread id -> samples for that thread
 
   fun containsInstant(i: Instant) = i.toEpochMilli() in startTime until endTime
 
+  fun overlapMs(event: RecordedEvent): Long? {
+    val start = max(event.startTime.toEpochMilli(), startTime)
+    val end = min(event.endTime.toEpochMilli(), endTime)
+    return if (start <= end) end - start else null
+  }
+
   fun aggregateCallTrees(): MutableMap<Long, CallTree> {
     val trees = mutableMapOf<Long, CallTree>()
     samples.forEach { (tid, sampleList) ->
@@ -82,6 +93,10 @@ class JfrAnalyzer {
         if (samples.isNotEmpty()) freeze.samples[tid] = samples
       }
 
+    val spans = events.filter { it.eventType.categoryNames == SPAN_CATEGORY }.mapNotNull { event ->
+      freeze.overlapMs(event)?.let { Span(event.thread?.javaName ?: "unknown", event.getSubsystem(), it) }
+    }
+
     val callTrees = freeze.aggregateCallTrees()
     val edtTree = callTrees.remove(edtId)
 
@@ -90,6 +105,7 @@ class JfrAnalyzer {
     }
 
     val sb = TruncatingStringBuilder(MAX_REPORT_LENGTH_BYTES, "\n...report truncated...")
+    if (spans.isNotEmpty()) sb.append(getSpanReport(spans))
     if (edtTree != null) sb.append(getThreadReport(edtId, edtTree))
     callTrees.entries.toList().sortedByDescending { it.value.numNodesAboveCutoff() }.forEach { (tid, tree) ->
       sb.append(getThreadReport(tid, tree))
@@ -97,12 +113,39 @@ class JfrAnalyzer {
     return sb.toString()
   }
 
+  /**
+   * Lists the subsystems that were running during the freeze, with the time they ran during the freeze, grouped by thread. The EDT comes
+   * first, then the threads that spent the most time in them.
+   */
+  private fun getSpanReport(spans: List<Span>): String {
+    val sb = StringBuilder("Subsystems running during the freeze:\n")
+    val spansByThread = spans.groupBy { it.thread }
+    val threadDurations = spansByThread.mapValues { (_, threadSpans) -> threadSpans.sumOf { it.durationMs } }
+    spansByThread.entries
+      .sortedWith(compareBy<Map.Entry<String, List<Span>>> { it.key != EDT }.thenByDescending { threadDurations[it.key] })
+      .forEach { (thread, threadSpans) ->
+        sb.append("$thread\n")
+        threadSpans.groupBy { it.subsystem }.entries.sortedByDescending { (_, subsystemSpans) -> subsystemSpans.sumOf { it.durationMs } }
+          .forEach { (subsystem, subsystemSpans) ->
+            sb.append("  $subsystem: ${subsystemSpans.size} span(s), ${subsystemSpans.sumOf { it.durationMs }}ms\n")
+          }
+      }
+    return sb.append("\n").toString()
+  }
+
+  private fun RecordedEvent.getSubsystem(): String {
+    val phase = if (hasField("phase")) getString("phase") else null
+    return if (phase != null) "${eventType.label} ($phase)" else eventType.label
+  }
+
   private fun RecordedEvent.getStacktrace() = stackTrace.frames.map { frame ->
     "${frame.method.type.name}.${frame.method.name}" + if (frame.lineNumber == -1) "(Unknown Source)" else "(?:${frame.lineNumber})"
   }
 
   companion object {
     private val SAMPLING_EVENT_NAMES = listOf("jdk.ExecutionSample", "jdk.NativeMethodSample")
+    // Category of the events covering the hot paths of Studio, e.g. renders, resource scans, Gradle sync phases or lint.
+    private val SPAN_CATEGORY = listOf("Android Studio", "Spans")
     private const val FREEZE_EVENT_NAME = "com.android.tools.idea.FreezeEvent"
     private const val EDT = "AWT-EventQueue-0"
     private const val MAX_REPORT_LENGTH_BYTES = 200_000
@@ -45,6 +45,7 @@ import org.jetbrains.kotlin.psi.KtFile
 import java.nio.file.Files
 import java.nio.file.Path
 import java.util.concurrent.ExecutionException
+import java.util.concurrent.atomic.AtomicBoolean
 
 private val defaultRetryTimes = Integer.getInteger("fast.preview.224875189.retries", 3)
 
@@ -121,8 +122,14 @@ class EmbeddedCompilerClientImpl(
   constructor(project: Project, log: Logger, useInlineAnalysis: Boolean): this(project, log, { useInlineAnalysis })
 
   private val daemonLock = Mutex()
+  private val isDisposed = AtomicBoolean(false)
+
+  /**
+   * The embedded compiler is available until disposed. This allows the [FastPreviewManager] to reuse the same instance, and its caches,
+   * across requests instead of creating a new one for every request.
+   */
   override val isRunning: Boolean
-    get() = daemonLock.holdsLock(this)
+    get() = !isDisposed.get()
 
   /**
    * The Live Edit inline candidates cache. The cache can only be accessed with the Compile lock (see [runWithCompileLock]).
@@ -238,5 +245,7 @@ class EmbeddedCompilerClientImpl(
     }
   }
 
-  override fun dispose() {}
+  override fun dispose() {
+    isDisposed.set(true)
+  }
 }
\ No newline at end of file
@@ -31,6 +31,7 @@ import com.google.common.hash.Hashing
 import com.intellij.notification.Notification
 import com.intellij.notification.NotificationType
 import com.intellij.openapi.Disposable
+import com.intellij.openapi.application.runReadAction
 import com.intellij.openapi.components.Service
 import com.intellij.openapi.diagnostic.Logger
 import com.intellij.openapi.module.Module
@@ -134,7 +135,10 @@ private class DaemonRegistry(
       val existingDaemon = daemons[version]
       if (existingDaemon?.isRunning == true) return@withContext existingDaemon
       // Ensure it's removed from the current list in case it had stopped running.
-      daemons.remove(version)
+      daemons.remove(version)?.let {
+        // Release the stopped daemon instead of keeping it registered until the registry is disposed.
+        scope.launch { Disposer.dispose(it) }
+      }
 
       // We did not have an existing one so start a request. startingDaemons avoids duplicating requests.
       return@synchronized startingDaemons.getOrCreate(version) {
@@ -207,24 +211,27 @@ private fun embeddedDaemonFactory(project: Project, log: Logger): CompilerDaemon
 private typealias CompileRequestId = String
 
 /**
- * Creates a [CompileRequestId] for the given inputs. [files] will be used to ensure the [CompileRequestId] changes if
- * one of the given files contents have changed.
+ * Creates a [CompileRequestId] for the given inputs. The contents of the [files] are hashed so the [CompileRequestId] changes if
+ * one of the given files contents have changed, and is the same again if a change is reverted, for example, by undoing it.
+ * The [module] and the project roots modification count are used to ensure that the [CompileRequestId] changes if the classpath
+ * changes.
  */
 private fun createCompileRequestId(files: Collection<PsiFile>, module: Module): CompileRequestId {
-  val filesDependency = files
-    .sortedBy { it.virtualFile.path }.joinToString("\n") {
-      "${it.virtualFile.path}@${it.modificationStamp}"
-    }
-  val compilationRequestContents = """
-        $filesDependency
-        ${ProjectRootModificationTracker.getInstance(module.project).modificationCount}
-        """.trimIndent()
-
   @Suppress("UnstableApiUsage")
-  return Hashing.goodFastHash(32).newHasher()
-    .putString(compilationRequestContents, Charsets.UTF_8)
-    .hash()
-    .toString()
+  val hasher = Hashing.goodFastHash(32).newHasher()
+    .putString(module.name, Charsets.UTF_8)
+    .putLong(ProjectRootModificationTracker.getInstance(module.project).modificationCount)
+  runReadAction {
+    files
+      .sortedBy { it.virtualFile.path }
+      .forEach {
+        hasher
+          .putString(it.virtualFile.path, Charsets.UTF_8)
+          .putString(it.text, Charsets.UTF_8)
+      }
+  }
+
+  return hasher.hash().toString()
 }
 
 private val DEFAULT_MAX_CACHED_REQUESTS = Integer.getInteger("preview.fast.max.cached.requests", 5)
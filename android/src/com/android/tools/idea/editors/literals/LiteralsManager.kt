@@ -18,6 +18,7 @@ package com.android.tools.idea.editors.literals
 import com.android.utils.reflection.qualifiedName
 import com.google.common.annotations.VisibleForTesting
 import com.intellij.codeInsight.highlighting.HighlightManager
+import com.intellij.openapi.Disposable
 import com.intellij.openapi.application.ReadAction
 import com.intellij.openapi.diagnostic.Logger
 import com.intellij.openapi.editor.Editor
@@ -25,6 +26,7 @@ import com.intellij.openapi.editor.colors.TextAttributesKey
 import com.intellij.openapi.editor.markup.RangeHighlighter
 import com.intellij.openapi.project.IndexNotReadyException
 import com.intellij.openapi.project.Project
+import com.intellij.openapi.util.Disposer
 import com.intellij.openapi.util.Key
 import com.intellij.openapi.util.ModificationTracker
 import com.intellij.openapi.util.SimpleModificationTracker
@@ -32,9 +34,13 @@ import com.intellij.openapi.util.TextRange
 import com.intellij.psi.PsiClass
 import com.intellij.psi.PsiElement
 import com.intellij.psi.PsiFile
+import com.intellij.psi.PsiManager
 import com.intellij.psi.PsiMethod
 import com.intellij.psi.PsiRecursiveElementWalkingVisitor
+import com.intellij.psi.PsiTreeChangeAdapter
+import com.intellij.psi.PsiTreeChangeEvent
 import com.intellij.psi.impl.PsiExpressionEvaluator
+import com.intellij.psi.impl.PsiTreeChangeEventImpl
 import com.intellij.psi.util.PsiTreeUtil
 import com.intellij.util.concurrency.AppExecutorUtil
 import org.jetbrains.concurrency.await
@@ -50,6 +56,7 @@ import org.jetbrains.kotlin.psi.KtElement
 import org.jetbrains.kotlin.psi.KtExpression
 import org.jetbrains.kotlin.psi.KtFunction
 import org.jetbrains.kotlin.psi.KtLiteralStringTemplateEntry
+import org.jetbrains.kotlin.psi.KtReferenceExpression
 import org.jetbrains.kotlin.psi.KtSimpleNameExpression
 import org.jetbrains.kotlin.psi.KtStringTemplateExpression
 import org.jetbrains.kotlin.psi.KtUnaryExpression
@@ -275,7 +282,21 @@ private class LiteralReferenceImpl(originalElement: PsiElement,
     onElementAttached(originalElement, this)
   }
 
-  private val elementPointer = ReattachableSmartPsiElementPointer(originalElement) { onElementAttached(it, this) }
+  /**
+   * True when the PSI changes of the containing file are reported to this reference via [markChanged]. When false, every modification of
+   * the file might have changed this literal.
+   */
+  @Volatile
+  var isChangeTracked = false
+
+  /** Set when a PSI change might have modified this literal since it was last evaluated. */
+  @Volatile
+  private var hasPendingChanges = false
+
+  private val elementPointer = ReattachableSmartPsiElementPointer(originalElement) {
+    hasPendingChanges = true
+    onElementAttached(it, this)
+  }
 
   // The originalElement.containingFile not being nullable is enforced during the visit the PsiElements
   override val containingFile = originalElement.containingFile!!
@@ -294,7 +315,8 @@ private class LiteralReferenceImpl(originalElement: PsiElement,
         try {
           constantEvaluator.evaluate(it)
         } catch (_: IndexNotReadyException) {
-          // If not in smart mode, just return the last cached value
+          // If not in smart mode, just return the last cached value and evaluate again on the next check
+          hasPendingChanges = true
           lastCachedConstantValue
         }
       }
@@ -303,15 +325,37 @@ private class LiteralReferenceImpl(originalElement: PsiElement,
   private val fileModificationTracker = ModificationTracker {
     elementPointer.containingFile?.let { if (it.isValid) it.modificationStamp else -1 } ?: -1
   }
-  private var lastFileModificationCount = 0L
+  // The initialConstantValue has been evaluated for the current version of the file.
+  private var lastFileModificationCount = originalElement.containingFile.modificationStamp
   private var localModificationTracker = SimpleModificationTracker()
+
+  /**
+   * Marks this literal as possibly modified by a PSI change so it is evaluated again in the next [getModificationCount] call.
+   */
+  fun markChanged() {
+    hasPendingChanges = true
+  }
+
+  /**
+   * Returns whether the literal needs to be evaluated again to know if it has changed. When the file changes are tracked, only the
+   * literals affected by a change, or that are not currently resolved to a value, need to be evaluated again.
+   */
+  private fun needsEvaluation(): Boolean {
+    if (!isChangeTracked || lastCachedConstantValue == null) return true
+    if (!hasPendingChanges) return false
+    hasPendingChanges = false
+    return true
+  }
+
   override fun getModificationCount(): Long {
     if (!isValid) {
       // The element is not valid anymore so it will not be updated again.
       return localModificationTracker.modificationCount
     }
 
-    if (lastFileModificationCount != fileModificationTracker.modificationCount && lastCachedConstantValue != constantValue) {
+    if (lastFileModificationCount != fileModificationTracker.modificationCount
+        && needsEvaluation()
+        && lastCachedConstantValue != constantValue) {
       lastFileModificationCount = fileModificationTracker.modificationCount
       lastCachedConstantValue = constantValue
       localModificationTracker.incModificationCount()
@@ -374,6 +418,61 @@ private class LiteralReferenceSnapshotImpl(references: Collection<LiteralReferen
   override fun newSnapshot(): LiteralReferenceSnapshot = LiteralReferenceSnapshotImpl(tracking.keys)
 }
 
+/**
+ * [PsiTreeChangeAdapter] that marks the [references] of [file] affected by each PSI change. This allows the [LiteralReferenceImpl]s to
+ * only evaluate again the literals within the changed subtrees instead of all the literals in the file. Changes that can not be mapped
+ * to a subtree, mark all the [references].
+ */
+private class LiteralsChangeTracker(private val file: PsiFile,
+                                    private val references: Collection<LiteralReferenceImpl>) : PsiTreeChangeAdapter() {
+  /**
+   * Marks the literal containing [element], if any. Returns false if [element] is not within a literal.
+   */
+  private fun markContainingLiteral(element: PsiElement?): Boolean {
+    var current = element
+    while (current != null && current !is PsiFile) {
+      val reference = LiteralsManager.getLiteralReference(current) as? LiteralReferenceImpl
+      if (reference != null) {
+        reference.markChanged()
+        return true
+      }
+      current = current.parent
+    }
+    return false
+  }
+
+  /**
+   * Marks all the literals in the subtree of the given [element].
+   */
+  private fun markLiteralsIn(element: PsiElement?) {
+    element?.accept(object : PsiRecursiveElementWalkingVisitor() {
+      override fun visitElement(element: PsiElement) {
+        (LiteralsManager.getLiteralReference(element) as? LiteralReferenceImpl)?.markChanged()
+        super.visitElement(element)
+      }
+    })
+  }
+
+  private fun onChange(event: PsiTreeChangeEvent, parent: PsiElement?, child: PsiElement?) {
+    if (event.file != file) return
+    if (!markContainingLiteral(parent)) markLiteralsIn(child)
+  }
+
+  override fun beforeChildAddition(event: PsiTreeChangeEvent) = onChange(event, event.parent, null)
+  override fun beforeChildRemoval(event: PsiTreeChangeEvent) = onChange(event, event.parent, event.child)
+  override fun beforeChildReplacement(event: PsiTreeChangeEvent) = onChange(event, event.parent, event.oldChild)
+  override fun beforeChildMovement(event: PsiTreeChangeEvent) {
+    onChange(event, event.oldParent, event.child)
+    onChange(event, event.newParent, null)
+  }
+
+  override fun childrenChanged(event: PsiTreeChangeEvent) {
+    // Generic changes are always accompanied by the more specific events above.
+    if (event.file != file || (event as? PsiTreeChangeEventImpl)?.isGenericChange == true) return
+    if (!markContainingLiteral(event.parent)) references.forEach { it.markChanged() }
+  }
+}
+
 /**
  * Class that manages the literals present in a [PsiElement] tree. Use this class to obtain an snapshot of the
  * literals present in a [PsiElement].
@@ -395,6 +494,7 @@ class LiteralsManager(
   private suspend fun findLiterals(root: PsiElement,
                                    constantType: Collection<Class<*>>,
                                    constantEvaluator: ConstantEvaluator,
+                                   parentDisposable: Disposable?,
                                    elementFilter: (PsiElement) -> Boolean): LiteralReferenceSnapshot {
     val savedLiterals = ReadAction.nonBlocking(Callable<Collection<LiteralReferenceImpl>> {
       val savedLiterals = mutableListOf<LiteralReferenceImpl>()
@@ -450,6 +550,18 @@ class LiteralsManager(
           }
         })
       } catch (_: IndexNotReadyException) {}
+
+      val file = root.containingFile
+      // The tracking stops when parentDisposable is disposed, from then on every modification might have changed the literals.
+      if (parentDisposable != null && file != null && savedLiterals.isNotEmpty() &&
+          Disposer.tryRegister(parentDisposable) { savedLiterals.forEach { it.isChangeTracked = false } }) {
+        // Register while holding the read lock so no changes happen between the file walk and the start of the tracking.
+        PsiManager.getInstance(root.project).addPsiTreeChangeListener(LiteralsChangeTracker(file, savedLiterals), parentDisposable)
+        savedLiterals.forEach {
+          // Literals referencing other elements, like -CONSTANT, can change without changes in their own subtree.
+          it.isChangeTracked = PsiTreeUtil.findChildOfType(it.element, KtReferenceExpression::class.java) == null
+        }
+      }
       savedLiterals
     }).submit(literalReadingExecutor).await()
 
@@ -458,10 +570,14 @@ class LiteralsManager(
 
   /**
    * Finds the literals in the given tree root [PsiElement] and returns a [LiteralReferenceSnapshot].
+   *
+   * If a [parentDisposable] is passed, the PSI changes in the file are tracked until it is disposed so checking the snapshot for
+   * modifications only evaluates again the literals affected by the changes. Otherwise, all the literals are evaluated again after every
+   * modification of the file.
    */
-  suspend fun findLiterals(root: PsiElement): LiteralReferenceSnapshot =
+  suspend fun findLiterals(root: PsiElement, parentDisposable: Disposable? = null): LiteralReferenceSnapshot =
     if (root.language == KotlinLanguage.INSTANCE) {
-      findLiterals(root, literalsTypes, KotlinConstantEvaluator) {
+      findLiterals(root, literalsTypes, KotlinConstantEvaluator, parentDisposable) {
         it !is KtAnnotationEntry // Exclude annotations since we do not process literals in them.
         && it !is KtSimpleNameExpression // Exclude variable constants.
       }
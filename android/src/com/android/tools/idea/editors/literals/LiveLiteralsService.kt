@@ -392,8 +392,14 @@ class LiveLiteralsService private constructor(private val project: Project,
     }
   }
 
-  private suspend fun newFileSnapshotForDocument(file: PsiFile, document: Document): LiteralReferenceSnapshot = withContext(workerThread) {
-    val fileSnapshot = literalsManager.findLiterals(file)
+  /**
+   * Creates a new [LiteralReferenceSnapshot] for the given [file]. The PSI changes of the file will be tracked until [parentDisposable] is
+   * disposed so only the literals in the changed ranges are evaluated again.
+   */
+  private suspend fun newFileSnapshotForDocument(file: PsiFile,
+                                                 document: Document,
+                                                 parentDisposable: Disposable): LiteralReferenceSnapshot = withContext(workerThread) {
+    val fileSnapshot = literalsManager.findLiterals(file, parentDisposable)
 
     if (fileSnapshot.all.isNotEmpty()) {
       document.putCachedDocumentSnapshot(fileSnapshot)
@@ -425,7 +431,8 @@ class LiveLiteralsService private constructor(private val project: Project,
     val document = textEditor.editor.document
     val file = AndroidPsiUtils.getPsiFileSafely(project, document) ?: return
     AndroidCoroutineScope(parentDisposable).launch(uiThread) {
-      val cachedSnapshot: LiteralReferenceSnapshot = document.getCachedDocumentSnapshot() ?: newFileSnapshotForDocument(file, document)
+      val cachedSnapshot: LiteralReferenceSnapshot = document.getCachedDocumentSnapshot()
+                                                      ?: newFileSnapshotForDocument(file, document, activationDisposable)
       if (editor.isDisposed || !isActive) return@launch
       val tracker = HighlightTracker(file, editor, cachedSnapshot)
 
@@ -482,6 +489,11 @@ class LiveLiteralsService private constructor(private val project: Project,
     if (Disposer.isDisposed(this) || !isEnabled) return
     log.debug("activateTracking")
 
+    // The cached snapshots only track the changes while the previous activation is alive, so they can not be reused.
+    editorWithCachedSnapshot.forEach {
+      it.document.clearCachedDocumentSnapshot()
+    }
+
     val newActivationDisposable = Disposer.newDisposable()
 
     // Find all the active editors
@@ -21,7 +21,6 @@ import com.android.tools.idea.editors.strings.table.FrozenColumnTableEvent;
 import com.android.tools.idea.editors.strings.table.StringResourceTable;
 import com.android.tools.idea.editors.strings.table.StringResourceTableModel;
 import com.android.tools.idea.res.StringResourceWriter;
-import com.intellij.openapi.command.WriteCommandAction;
 import com.intellij.openapi.project.Project;
 import java.awt.event.ActionEvent;
 import java.util.Arrays;
@@ -111,13 +110,7 @@ public class DeleteStringAction extends AbstractAction {
     }
     else {
       // remove all in a single action (so we can undo it in 1 go)
-      WriteCommandAction.runWriteCommandAction(myPanel.getFacet().getModule().getProject(), "Delete multiple strings", null, () -> {
-        for (int row : rows) {
-          for (int col : cols) {
-            table.getModel().setValueAt("", row, col);
-          }
-        }
-      });
+      table.getModel().clearValuesAt(rows, cols);
     }
   }
 }
@@ -16,6 +16,7 @@
 package com.android.tools.idea.editors.strings;
 
 import com.android.tools.idea.editors.strings.model.StringResourceRepository;
+import com.android.tools.idea.editors.strings.table.StringResourceTable;
 import com.android.tools.idea.editors.strings.table.StringResourceTableModel;
 import com.android.tools.idea.res.LocalResourceRepository;
 import com.android.tools.idea.res.ResourceRepositoryManager;
@@ -70,7 +71,12 @@ final class ResourceLoadingTask extends Task.Backgroundable {
   @Override
   public void onSuccess() {
     assert myRepository != null;
-    myPanel.getTable().setModel(new StringResourceTableModel(myRepository, myPanel.getFacet().getModule().getProject()));
+    StringResourceTable table = myPanel.getTable();
+
+    // Patch the current model if possible, so the rows that didn't change don't have to be built again.
+    if (!table.getModel().update(myRepository)) {
+      table.setModel(new StringResourceTableModel(myRepository, myPanel.getFacet().getModule().getProject()));
+    }
 
     myPanel.getLoadingPanel().stopLoading();
   }
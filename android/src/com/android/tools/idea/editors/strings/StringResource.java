@@ -210,7 +210,7 @@ public final class StringResource {
         while (++index < keys.size()) {
           StringResourceKey next = keys.get(index);
           // Check if this resource exist in the given Locale file.
-          if (myData.getStringResource(next).getTranslationAsResourceItem(locale) != null) {
+          if (myData.getTranslationAsResourceItem(next, locale) != null) {
             anchor = next;
             break;
           }
@@ -224,6 +224,7 @@ public final class StringResource {
 
         myLocaleToTranslationMap
           .put(locale, new ResourceItemEntry(item, getTextOfTag(IdeResourcesUtil.getItemTag(myData.getProject(), item))));
+        myData.translatedLocalesChanged();
         return true;
       }, SameThreadExecutor.INSTANCE);
     }
@@ -243,6 +244,7 @@ public final class StringResource {
 
     if (translation.isEmpty()) {
       myLocaleToTranslationMap.remove(locale);
+      myData.translatedLocalesChanged();
       return Futures.immediateFuture(true);
     }
 
@@ -309,6 +311,47 @@ public final class StringResource {
     }
   }
 
+  /**
+   * Forgets the default value (null locale) and the translations of the given locales after their items were deleted.
+   */
+  void removeValues(@NotNull Collection<@Nullable Locale> locales) {
+    for (Locale locale : locales) {
+      if (locale == null) {
+        myDefaultValue = null;
+      }
+      else if (myLocaleToTranslationMap.remove(locale) != null) {
+        myData.translatedLocalesChanged();
+      }
+    }
+  }
+
+  /**
+   * Returns true if the items of the repository are still the ones this resource was built from, with the same XML.
+   */
+  boolean isUpToDate() {
+    ApplicationManager.getApplication().assertReadAccessAllowed();
+    List<ResourceItem> items = myData.getRepository().getItems(myKey);
+
+    if (items.size() != myLocaleToTranslationMap.size() + (myDefaultValue == null ? 0 : 1)) {
+      return false;
+    }
+
+    for (ResourceItem item : items) {
+      LocaleQualifier qualifier = item.getConfiguration().getLocaleQualifier();
+      ResourceItemEntry entry = qualifier == null ? myDefaultValue : myLocaleToTranslationMap.get(Locale.create(qualifier));
+
+      if (entry == null || entry.myResourceItem != item) {
+        return false;
+      }
+
+      if (!entry.myTagText.equals(getTextOfTag(IdeResourcesUtil.getItemTag(myData.getProject(), item)))) {
+        return false;
+      }
+    }
+
+    return true;
+  }
+
   @NotNull
   Collection<Locale> getTranslatedLocales() {
     return myLocaleToTranslationMap.keySet();
@@ -34,10 +34,14 @@ import com.intellij.psi.xml.XmlTag;
 import com.intellij.refactoring.rename.RenameProcessor;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.Comparator;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Set;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
@@ -47,9 +51,16 @@ import org.jetbrains.annotations.Nullable;
 public class StringResourceData {
   private static final int MAX_LOCALE_LABEL_COUNT = 3;
 
-  private final LinkedHashMap<StringResourceKey, StringResource> myKeyToResourceMap;
+  /**
+   * The {@link StringResource} of a key is only built, from the PSI of all its translations, the first time it's needed, e.g. when its
+   * row is shown in the table. Until then the value is null.
+   */
+  private final LinkedHashMap<StringResourceKey, @Nullable StringResource> myKeyToResourceMap;
   private final Project myProject;
-  private final StringResourceRepository myRepository;
+  private StringResourceRepository myRepository;
+
+  @Nullable
+  private Set<Locale> myLocaleSet;
 
   private final StringResourceWriter myStringResourceWriter = StringResourceWriter.INSTANCE;
   private StringResourceData(@NotNull Project project, @NotNull StringResourceRepository repository) {
@@ -61,11 +72,44 @@ public class StringResourceData {
   @NotNull
   public static StringResourceData create(@NotNull Project project, @NotNull StringResourceRepository repository) {
     StringResourceData data = new StringResourceData(project, repository);
-    repository.getKeys().forEach(key -> data.myKeyToResourceMap.put(key, new StringResource(key, data)));
+    repository.getKeys().forEach(key -> data.myKeyToResourceMap.put(key, null));
 
     return data;
   }
 
+  /**
+   * Switches to a newer snapshot of the string resources, e.g. after the resource files changed. The resources that were already built
+   * are kept as long as their items didn't change.
+   *
+   * @return the keys that were added, removed or changed
+   */
+  @NotNull
+  public Set<StringResourceKey> update(@NotNull StringResourceRepository repository) {
+    Map<StringResourceKey, StringResource> oldKeyToResourceMap = new HashMap<>(myKeyToResourceMap);
+    Set<StringResourceKey> changedKeys = new HashSet<>();
+
+    myRepository = repository;
+    myLocaleSet = null;
+    myKeyToResourceMap.clear();
+
+    for (StringResourceKey key : repository.getKeys()) {
+      if (!oldKeyToResourceMap.containsKey(key)) {
+        changedKeys.add(key);
+        myKeyToResourceMap.put(key, null);
+        continue;
+      }
+      StringResource resource = oldKeyToResourceMap.remove(key);
+      if (resource != null && !resource.isUpToDate()) {
+        changedKeys.add(key);
+        resource = null;
+      }
+      myKeyToResourceMap.put(key, resource);
+    }
+
+    changedKeys.addAll(oldKeyToResourceMap.keySet());
+    return changedKeys;
+  }
+
   @NotNull
   final Project getProject() {
     return myProject;
@@ -108,7 +152,7 @@ public class StringResourceData {
 
     myKeyToResourceMap.remove(key);
     key = new StringResourceKey(name, key.getDirectory());
-    myKeyToResourceMap.put(key, new StringResource(key, this));
+    myKeyToResourceMap.put(key, null);
   }
 
   public boolean setTranslatable(@NotNull StringResourceKey key, boolean translatable) {
@@ -219,10 +263,15 @@ public class StringResourceData {
 
   @NotNull
   public StringResource getStringResource(@NotNull StringResourceKey key) {
+    if (!myKeyToResourceMap.containsKey(key)) {
+      throw new IllegalArgumentException(key.toString());
+    }
+
     StringResource resource = myKeyToResourceMap.get(key);
 
     if (resource == null) {
-      throw new IllegalArgumentException(key.toString());
+      resource = new StringResource(key, this);
+      myKeyToResourceMap.put(key, resource);
     }
 
     return resource;
@@ -230,7 +279,61 @@ public class StringResourceData {
 
   @NotNull
   public Collection<StringResource> getResources() {
-    return myKeyToResourceMap.values();
+    return myKeyToResourceMap.keySet().stream()
+      .map(this::getStringResource)
+      .collect(Collectors.toList());
+  }
+
+  /**
+   * Returns whether the {@link StringResource} of the key was built.
+   */
+  @VisibleForTesting
+  boolean isStringResourceBuilt(@NotNull StringResourceKey key) {
+    return myKeyToResourceMap.get(key) != null;
+  }
+
+  /**
+   * Returns the translation of the key without building its {@link StringResource} if it's not built yet.
+   */
+  @Nullable
+  ResourceItem getTranslationAsResourceItem(@NotNull StringResourceKey key, @NotNull Locale locale) {
+    StringResource resource = myKeyToResourceMap.get(key);
+    return resource == null ? myRepository.getTranslation(key, locale) : resource.getTranslationAsResourceItem(locale);
+  }
+
+  /**
+   * Deletes the given default values (null locale) and translations of the given keys in a single write command.
+   *
+   * @return true if anything was deleted
+   */
+  public boolean deleteValues(@NotNull Map<StringResourceKey, ? extends Collection<@Nullable Locale>> keyToLocalesMap) {
+    List<ResourceItem> items = new ArrayList<>();
+
+    keyToLocalesMap.forEach((key, locales) -> {
+      StringResource resource = getStringResource(key);
+
+      for (Locale locale : locales) {
+        ResourceItem item = locale == null ? resource.getDefaultValueAsResourceItem() : resource.getTranslationAsResourceItem(locale);
+
+        if (item != null) {
+          items.add(item);
+        }
+      }
+    });
+
+    if (!myStringResourceWriter.delete(myProject, items)) {
+      return false;
+    }
+
+    keyToLocalesMap.forEach((key, locales) -> getStringResource(key).removeValues(locales));
+    return true;
+  }
+
+  /**
+   * Called by the {@link StringResource}s when their set of translated locales changes.
+   */
+  void translatedLocalesChanged() {
+    myLocaleSet = null;
   }
 
   @NotNull
@@ -240,20 +343,32 @@ public class StringResourceData {
 
   @NotNull
   public List<Locale> getLocaleList() {
-    return getTranslatedLocaleStream()
-      .distinct()
+    return getLocaleSet().stream()
       .sorted(Locale.LANGUAGE_NAME_COMPARATOR)
       .collect(Collectors.toList());
   }
 
   @NotNull
   public Set<Locale> getLocaleSet() {
-    return getTranslatedLocaleStream().collect(Collectors.toSet());
+    if (myLocaleSet == null) {
+      myLocaleSet = Collections.unmodifiableSet(getTranslatedLocaleStream().collect(Collectors.toSet()));
+    }
+    return myLocaleSet;
   }
 
   @NotNull
   private Stream<Locale> getTranslatedLocaleStream() {
-    return myKeyToResourceMap.values().stream().flatMap(resource -> resource.getTranslatedLocales().stream());
+    // The locales of the resources that aren't built yet come from the item configurations, which doesn't need the PSI.
+    return myKeyToResourceMap.entrySet().stream().flatMap(entry -> {
+      StringResource resource = entry.getValue();
+      if (resource != null) {
+        return resource.getTranslatedLocales().stream();
+      }
+      return myRepository.getItems(entry.getKey()).stream()
+        .map(item -> item.getConfiguration().getLocaleQualifier())
+        .filter(Objects::nonNull)
+        .map(Locale::create);
+    });
   }
 
   /**
@@ -265,8 +380,8 @@ public class StringResourceData {
   @Nullable
   XmlFile getDefaultLocaleXml(@NotNull Locale locale) {
     XmlFile lastFile = null;
-    for (StringResource stringResource : myKeyToResourceMap.values()) {
-      ResourceItem resourceItem = stringResource.getTranslationAsResourceItem(locale);
+    for (StringResourceKey key : myKeyToResourceMap.keySet()) {
+      ResourceItem resourceItem = getTranslationAsResourceItem(key, locale);
       if (resourceItem == null) {
         continue;
       }
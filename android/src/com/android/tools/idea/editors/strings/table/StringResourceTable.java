@@ -19,6 +19,7 @@ import com.android.ide.common.resources.Locale;
 import com.android.tools.idea.editors.strings.StringResourceData;
 import com.android.tools.idea.editors.strings.table.filter.StringResourceTableColumnFilter;
 import com.android.tools.idea.editors.strings.table.filter.StringResourceTableRowFilter;
+import com.google.common.annotations.VisibleForTesting;
 import com.intellij.ui.scale.JBUIScale;
 import java.awt.event.KeyEvent;
 import java.util.List;
@@ -34,6 +35,12 @@ import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
 public class StringResourceTable extends FrozenColumnTable<StringResourceTableModel> {
+  /**
+   * The number of rows the preferred column widths are computed from, about what the editor displays when it opens.
+   */
+  @VisibleForTesting
+  public static final int COLUMN_WIDTH_SAMPLE_ROW_COUNT = 50;
+
   private final TableCellRenderer myLocaleRenderer;
 
   @Nullable
@@ -130,7 +137,8 @@ public class StringResourceTable extends FrozenColumnTable<StringResourceTableMo
   private int getPreferredColumnWidth(int viewColumnIndex) {
     int headerWidth = getPreferredHeaderWidth(viewColumnIndex);
 
-    OptionalInt optionalMaxCellWidth = IntStream.range(0, getRowCount())
+    // Only measure the first rows, as measuring a row builds its StringResource from the PSI of all its translations.
+    OptionalInt optionalMaxCellWidth = IntStream.range(0, Math.min(getRowCount(), COLUMN_WIDTH_SAMPLE_ROW_COUNT))
       .map(viewRowIndex -> getPreferredCellWidth(viewRowIndex, viewColumnIndex))
       .max();
 
@@ -26,8 +26,13 @@ import com.google.common.util.concurrent.Futures;
 import com.intellij.openapi.application.ApplicationManager;
 import com.intellij.openapi.project.Project;
 import com.intellij.util.concurrency.SameThreadExecutor;
+import java.util.Arrays;
 import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
 import javax.swing.table.AbstractTableModel;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
@@ -39,7 +44,7 @@ public class StringResourceTableModel extends AbstractTableModel {
   public static final int DEFAULT_VALUE_COLUMN = 3;
   public static final int FIXED_COLUMN_COUNT = 4;
 
-  private final StringResourceRepository myRepository;
+  private StringResourceRepository myRepository;
 
   private final @Nullable StringResourceData myData;
 
@@ -69,6 +74,40 @@ public class StringResourceTableModel extends AbstractTableModel {
     myLocales = data.getLocaleList();
   }
 
+  /**
+   * Updates the model in place from a newer snapshot of the string resources, so only the rows of the keys that changed are rebuilt.
+   *
+   * @return false if the model can't be updated, e.g. because the locales changed, and a new model is needed
+   */
+  public boolean update(@NotNull StringResourceRepository repository) {
+    if (myData == null) {
+      return false;
+    }
+
+    Set<StringResourceKey> changedKeys = myData.update(repository);
+    myRepository = repository;
+
+    if (!myData.getLocaleList().equals(myLocales)) {
+      return false;
+    }
+
+    List<StringResourceKey> keys = myData.getKeys();
+
+    if (!keys.equals(myKeys)) {
+      myKeys = keys;
+      fireTableDataChanged();
+      return true;
+    }
+
+    for (int row = 0; row < myKeys.size(); row++) {
+      if (changedKeys.contains(myKeys.get(row))) {
+        fireTableRowsUpdated(row, row);
+      }
+    }
+
+    return true;
+  }
+
   @NotNull
   public StringResourceRepository getRepository() {
     return myRepository;
@@ -172,6 +211,33 @@ public class StringResourceTableModel extends AbstractTableModel {
     }
   }
 
+  /**
+   * Clears the default values and translations in the given cells. All the strings are deleted in one write command instead of one per
+   * cell.
+   */
+  public void clearValuesAt(int @NotNull [] rows, int @NotNull [] columns) {
+    assert myData != null;
+
+    List<Locale> locales = Arrays.stream(columns)
+      .filter(column -> column >= DEFAULT_VALUE_COLUMN)
+      .mapToObj(this::getLocale)
+      .collect(Collectors.toList());
+
+    if (rows.length == 0 || locales.isEmpty()) {
+      return;
+    }
+
+    Map<StringResourceKey, List<Locale>> keyToLocalesMap = new LinkedHashMap<>();
+
+    for (int row : rows) {
+      keyToLocalesMap.put(getKey(row), locales);
+    }
+
+    if (myData.deleteValues(keyToLocalesMap)) {
+      fireTableRowsUpdated(Arrays.stream(rows).min().getAsInt(), Arrays.stream(rows).max().getAsInt());
+    }
+  }
+
   @NotNull
   @Override
   public Object getValueAt(int row, int column) {
@@ -51,6 +51,7 @@ import com.android.tools.analytics.crash.CrashReporter;
 import com.android.tools.idea.AndroidPsiUtils;
 import com.android.tools.idea.configurations.Configuration;
 import com.android.tools.idea.diagnostics.crash.StudioExceptionReport;
+import com.android.tools.idea.diagnostics.jfr.Render;
 import com.android.tools.idea.layoutlib.LayoutLibrary;
 import com.android.tools.idea.layoutlib.RenderParamsFlags;
 import com.android.tools.idea.model.ActivityAttributesSnapshot;
@@ -877,13 +878,22 @@ public class RenderTask {
     long startInflateTimeMs = System.currentTimeMillis();
     // Inflation can be way slower than a regular render since it will load classes and initiate most of the state.
     // That's why, for inflating, we allow a more generous timeout than for rendering.
-    return runAsyncRenderAction(() -> createRenderSession((width, height) -> {
-      if (myImageFactoryDelegate != null) {
-        return myImageFactoryDelegate.getImage(width, height);
-      }
+    return runAsyncRenderAction(() -> {
+      Render event = new Render();
+      event.begin();
+      try {
+        return createRenderSession((width, height) -> {
+          if (myImageFactoryDelegate != null) {
+            return myImageFactoryDelegate.getImage(width, height);
+          }
 
-      return new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
-    }), RenderAsyncActionExecutor.DEFAULT_RENDER_THREAD_TIMEOUT_MS * 10, TimeUnit.MILLISECONDS)
+          return new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+        });
+      }
+      finally {
+        commitRenderEvent(event, Render.INFLATE, xmlFile);
+      }
+    }, RenderAsyncActionExecutor.DEFAULT_RENDER_THREAD_TIMEOUT_MS * 10, TimeUnit.MILLISECONDS)
       .handle((result, ex) -> {
         if (ex != null) {
           String message = ex.getMessage();
@@ -983,6 +993,17 @@ public class RenderTask {
     });
   }
 
+  /**
+   * Commits the JFR event of an inflate or render. The fields are only filled when the event is recorded.
+   */
+  private static void commitRenderEvent(@NotNull Render event, @NotNull String phase, @NotNull PsiFile file) {
+    if (event.shouldCommit()) {
+      event.phase = phase;
+      event.file = file.getName();
+      event.commit();
+    }
+  }
+
   /**
    * Method used to report unhandled layoutlib exceptions to the crash reporter
    */
@@ -1026,9 +1047,16 @@ public class RenderTask {
       try {
         long startRenderTimeMs = System.currentTimeMillis();
         return runAsyncRenderAction(() -> {
-          myRenderSession.render();
-          RenderResult result =
-            RenderResult.create(this, myRenderSession, psiFile, myLogger, myImagePool.copyOf(myRenderSession.getImage()));
+          Render event = new Render();
+          event.begin();
+          RenderResult result;
+          try {
+            myRenderSession.render();
+            result = RenderResult.create(this, myRenderSession, psiFile, myLogger, myImagePool.copyOf(myRenderSession.getImage()));
+          }
+          finally {
+            commitRenderEvent(event, Render.RENDER, psiFile);
+          }
           Result renderResult = result.getRenderResult();
           if (renderResult.getException() != null) {
             reportException(renderResult.getException());
@@ -25,6 +25,7 @@ import com.android.ide.common.resources.SingleNamespaceResourceRepository;
 import com.android.ide.common.resources.configuration.FolderConfiguration;
 import com.android.resources.ResourceType;
 import com.android.resources.aar.AarResourceRepository;
+import com.android.tools.idea.diagnostics.jfr.ResourceMapMerge;
 import com.android.utils.TraceUtils;
 import com.google.common.base.Stopwatch;
 import com.google.common.collect.ArrayListMultimap;
@@ -308,6 +309,8 @@ public abstract class MultiResourceRepository extends LocalResourceRepository im
 
     // Merge all items of the given type.
     Stopwatch stopwatch = LOG.isDebugEnabled() ? Stopwatch.createStarted() : null;
+    ResourceMapMerge event = new ResourceMapMerge();
+    event.begin();
 
     if (map == null) {
       for (SingleNamespaceResourceRepository repository : repositoriesForNamespace) {
@@ -365,6 +368,12 @@ public abstract class MultiResourceRepository extends LocalResourceRepository im
       myUnreconciledResources.remove(namespace, type);
     }
 
+    if (event.shouldCommit()) {
+      event.phase = unreconciledRepositories == null ? "full" : "partial";
+      event.resourceType = type.getName();
+      event.repositoryCount = repositoriesForNamespace.size();
+      event.commit();
+    }
     if (stopwatch != null) {
       LOG.debug(String.format(Locale.US,
                               "Merged %d resources of type %s in %s for %s.",
@@ -65,6 +65,7 @@ import com.android.resources.base.ResourceSerializationUtil;
 import com.android.resources.base.ResourceSourceFile;
 import com.android.sdklib.IAndroidTarget;
 import com.android.tools.idea.configurations.ConfigurationManager;
+import com.android.tools.idea.diagnostics.jfr.ResourceScan;
 import com.android.tools.idea.util.FileExtensions;
 import com.android.utils.Base128InputStream;
 import com.android.utils.SdkUtils;
@@ -812,6 +813,21 @@ public final class ResourceFolderRepository extends LocalResourceRepository impl
   }
 
   private void scan(@NotNull PsiFile psiFile, @NotNull ResourceFolderType folderType) {
+    ResourceScan event = new ResourceScan();
+    event.begin();
+    try {
+      doScan(psiFile, folderType);
+    }
+    finally {
+      if (event.shouldCommit()) {
+        event.phase = folderType.getName();
+        event.file = psiFile.getName();
+        event.commit();
+      }
+    }
+  }
+
+  private void doScan(@NotNull PsiFile psiFile, @NotNull ResourceFolderType folderType) {
     ProgressManager.checkCanceled();
 
     if (!isResourceFile(psiFile) || !isRelevantFile(psiFile) || psiFile.getProject().isDisposed()) {
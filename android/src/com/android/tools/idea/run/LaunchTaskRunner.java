@@ -17,6 +17,7 @@ package com.android.tools.idea.run;
 
 import com.android.ddmlib.IDevice;
 import com.android.sdklib.AndroidVersion;
+import com.android.tools.idea.flags.StudioFlags;
 import com.android.tools.idea.run.tasks.ConnectDebuggerTask;
 import com.android.tools.idea.run.tasks.LaunchContext;
 import com.android.tools.idea.run.tasks.LaunchResult;
@@ -34,12 +35,14 @@ import com.google.wireless.android.sdk.stats.LaunchTaskDetail;
 import com.intellij.execution.filters.HyperlinkInfo;
 import com.intellij.execution.process.ProcessHandler;
 import com.intellij.execution.ui.RunContentManager;
+import com.intellij.ide.util.DelegatingProgressIndicator;
 import com.intellij.notification.NotificationGroup;
-import com.intellij.notification.NotificationListener;
 import com.intellij.notification.NotificationType;
 import com.intellij.openapi.application.ApplicationManager;
 import com.intellij.openapi.diagnostic.Logger;
+import com.intellij.openapi.progress.ProcessCanceledException;
 import com.intellij.openapi.progress.ProgressIndicator;
+import com.intellij.openapi.progress.ProgressManager;
 import com.intellij.openapi.progress.Task;
 import com.intellij.openapi.progress.util.ProgressIndicatorUtils;
 import com.intellij.openapi.project.Project;
@@ -51,14 +54,18 @@ import java.text.DateFormat;
 import java.text.SimpleDateFormat;
 import java.util.ArrayList;
 import java.util.Date;
-import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.concurrent.CancellationException;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.BiConsumer;
 import java.util.stream.Collectors;
 import org.jetbrains.android.util.AndroidBundle;
@@ -66,6 +73,8 @@ import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
 public class LaunchTaskRunner extends Task.Backgroundable {
+  private static final long PROGRESS_TEXT_UPDATE_INTERVAL_MS = 200;
+
   @NotNull private final String myConfigName;
   @NotNull private final String myApplicationId;
   @Nullable private final String myExecutionTargetName; // Change to NotNull once everything is moved over to DeviceAndSnapshot
@@ -77,8 +86,8 @@ public class LaunchTaskRunner extends Task.Backgroundable {
   @NotNull private final BiConsumer<String, HyperlinkInfo> myConsoleConsumer;
   @NotNull private final List<Runnable> myOnFinished;
 
-  @Nullable private String myError;
-  @Nullable private NotificationListener myErrorNotificationListener;
+  // The error or warning of each device, written by its launch tasks, which run in parallel when launching on several devices.
+  @NotNull private final Map<IDevice, String> myErrors = new ConcurrentHashMap<>();
 
   public LaunchTaskRunner(@NotNull Project project,
                           @NotNull String configName,
@@ -101,7 +110,7 @@ public class LaunchTaskRunner extends Task.Backgroundable {
     myLaunchTasksProvider = launchTasksProvider;
     myStats = stats;
     myConsoleConsumer = consoleConsumer;
-    myOnFinished = new ArrayList<>();
+    myOnFinished = ContainerUtil.createConcurrentList();
   }
 
   @Override
@@ -172,7 +181,7 @@ public class LaunchTaskRunner extends Task.Backgroundable {
       myLaunchTasksProvider.fillStats(myStats);
 
       // Create launch tasks for each device.
-      Map<IDevice, List<LaunchTask>> launchTaskMap = new HashMap<>(devices.size());
+      Map<IDevice, List<LaunchTask>> launchTaskMap = new LinkedHashMap<>(devices.size());
       for (IDevice device : devices) {
         try {
           List<LaunchTask> launchTasks = myLaunchTasksProvider.getTasks(device, launchStatus, consolePrinter);
@@ -189,7 +198,7 @@ public class LaunchTaskRunner extends Task.Backgroundable {
         }
       }
 
-      Ref<Integer> completedStepsCount = new Ref<>(0);
+      AtomicInteger completedStepsCount = new AtomicInteger();
       final int totalScheduledStepsCount = launchTaskMap
         .values()
         .stream()
@@ -199,16 +208,12 @@ public class LaunchTaskRunner extends Task.Backgroundable {
       // A list of devices that we have launched application successfully.
       List<IDevice> launchedDevices = new ArrayList<>();
 
-      for (Map.Entry<IDevice, List<LaunchTask>> entry : launchTaskMap.entrySet()) {
+      Map<IDevice, Boolean> results = runLaunchTasksOnDevices(
+        launchTaskMap, launchStatus, consolePrinter, indicator, destroyProcessOnCancellation, completedStepsCount,
+        totalScheduledStepsCount);
+      for (Map.Entry<IDevice, Boolean> entry : results.entrySet()) {
         IDevice device = entry.getKey();
-        boolean isSucceeded = runLaunchTasks(
-          entry.getValue(),
-          new LaunchContext(myProject, myLaunchInfo.executor, device, launchStatus, consolePrinter, myProcessHandler, indicator),
-          destroyProcessOnCancellation,
-          completedStepsCount,
-          totalScheduledStepsCount
-        );
-        if (isSucceeded) {
+        if (entry.getValue()) {
           launchedDevices.add(device);
         } else {
           // Manually detach a device here because devices may not be detached automatically when
@@ -231,8 +236,7 @@ public class LaunchTaskRunner extends Task.Backgroundable {
           indicator.setText(debugSessionTask.getDescription());
           debugSessionTask.perform(myLaunchInfo, device, launchStatus, consolePrinter);
           // Update the indicator progress bar.
-          completedStepsCount.set(completedStepsCount.get() + debugSessionTask.getDuration());
-          indicator.setFraction(completedStepsCount.get().floatValue() / totalScheduledStepsCount);
+          indicator.setFraction((float)completedStepsCount.addAndGet(debugSessionTask.getDuration()) / totalScheduledStepsCount);
         }
       }
     } finally {
@@ -240,14 +244,110 @@ public class LaunchTaskRunner extends Task.Backgroundable {
     }
   }
 
+  /**
+   * Runs the launch tasks of every device, and returns whether they succeeded by device, in the order of {@code launchTaskMap}.
+   * <p>
+   * The tasks of a device run one after the other. When {@link StudioFlags#MULTI_DEVICE_LAUNCH_PARALLELISM} is above one, that many
+   * devices are handled at the same time under the given indicator, so that deploying to several devices takes about as long as the
+   * slowest of them rather than the sum. The deploy tasks of all devices share the dex and deployment caches of the project's
+   * {@code DeploymentService}, so what is computed from the APKs of the build is reused across devices.
+   * <p>
+   * An exception thrown by the tasks of any device fails the whole launch, as it does when the devices are handled one at a time.
+   */
+  @NotNull
+  private Map<IDevice, Boolean> runLaunchTasksOnDevices(@NotNull Map<IDevice, List<LaunchTask>> launchTaskMap,
+                                                        @NotNull LaunchStatus launchStatus,
+                                                        @NotNull ConsolePrinter consolePrinter,
+                                                        @NotNull ProgressIndicator indicator,
+                                                        boolean destroyProcessOnCancellation,
+                                                        @NotNull AtomicInteger completedStepsCount,
+                                                        int totalScheduledStepsCount) {
+    Map<IDevice, Boolean> results = new LinkedHashMap<>(launchTaskMap.size());
+    int parallelism = Math.min(launchTaskMap.size(), StudioFlags.MULTI_DEVICE_LAUNCH_PARALLELISM.get());
+    if (parallelism <= 1) {
+      for (Map.Entry<IDevice, List<LaunchTask>> entry : launchTaskMap.entrySet()) {
+        IDevice device = entry.getKey();
+        results.put(device, runLaunchTasks(
+          entry.getValue(),
+          new LaunchContext(myProject, myLaunchInfo.executor, device, launchStatus, consolePrinter, myProcessHandler, indicator),
+          destroyProcessOnCancellation,
+          completedStepsCount,
+          totalScheduledStepsCount
+        ));
+      }
+      return results;
+    }
+
+    ExecutorService executor = AppExecutorUtil.createBoundedApplicationPoolExecutor("LaunchTaskRunner", parallelism);
+    Map<IDevice, Future<Boolean>> futures = new LinkedHashMap<>(launchTaskMap.size());
+    // The text of each device, shown by this thread rather than by the tasks of the devices overwriting each other's.
+    Map<IDevice, String> deviceTexts = new ConcurrentHashMap<>();
+    for (Map.Entry<IDevice, List<LaunchTask>> entry : launchTaskMap.entrySet()) {
+      IDevice device = entry.getKey();
+      ProgressIndicator deviceIndicator = new DelegatingProgressIndicator(indicator) {
+        @Override
+        public void setText(String text) {
+          deviceTexts.put(device, StringUtil.notNullize(text));
+        }
+      };
+      LaunchContext launchContext =
+        new LaunchContext(myProject, myLaunchInfo.executor, device, launchStatus, consolePrinter, myProcessHandler, deviceIndicator);
+      // Run under the indicator of this task, so that the launch tasks can check for cancellation and report progress.
+      futures.put(device, executor.submit(() -> {
+        Ref<Boolean> isSucceeded = new Ref<>(false);
+        ProgressManager.getInstance().executeProcessUnderProgress(
+          () -> isSucceeded.set(
+            runLaunchTasks(entry.getValue(), launchContext, destroyProcessOnCancellation, completedStepsCount, totalScheduledStepsCount)),
+          deviceIndicator);
+        return isSucceeded.get();
+      }));
+    }
+    executor.shutdown();
+
+    // The tasks check the indicator and the launch status themselves, so waiting for them also handles cancellation.
+    try {
+      for (Map.Entry<IDevice, Future<Boolean>> entry : futures.entrySet()) {
+        while (true) {
+          try {
+            results.put(entry.getKey(), entry.getValue().get(PROGRESS_TEXT_UPDATE_INTERVAL_MS, TimeUnit.MILLISECONDS));
+            break;
+          }
+          catch (TimeoutException e) {
+            indicator.setText(deviceTexts.values().stream().distinct().sorted().collect(Collectors.joining(", ")));
+          }
+        }
+      }
+    }
+    catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      launchStatus.terminateLaunch("Interrupted while launching", destroyProcessOnCancellation);
+      throw new ProcessCanceledException(e);
+    }
+    catch (ExecutionException e) {
+      // Fail the launch like a failure of the sequential launch would.
+      Throwable cause = e.getCause();
+      if (cause instanceof RuntimeException) {
+        throw (RuntimeException)cause;
+      }
+      if (cause instanceof Error) {
+        throw (Error)cause;
+      }
+      throw new RuntimeException(cause);
+    }
+    finally {
+      futures.values().forEach(future -> future.cancel(true));
+    }
+    return results;
+  }
+
   private boolean runLaunchTasks(@NotNull List<LaunchTask> launchTasks,
                                  @NotNull LaunchContext launchContext,
                                  boolean destroyProcessOnCancellation,
-                                 @NotNull Ref<Integer> completedStepsCount,
+                                 @NotNull AtomicInteger completedStepsCount,
                                  int totalScheduledStepsCount) {
     // Update the indicator progress.
     ProgressIndicator indicator = launchContext.getProgressIndicator();
-    indicator.setFraction(completedStepsCount.get().floatValue() / totalScheduledStepsCount);
+    indicator.setFraction((float)completedStepsCount.get() / totalScheduledStepsCount);
     IDevice device = launchContext.getDevice();
     LaunchStatus launchStatus = launchContext.getLaunchStatus();
 
@@ -263,15 +363,19 @@ public class LaunchTaskRunner extends Task.Backgroundable {
       }
 
       if (task.shouldRun(launchContext)) {
-        LaunchTaskDetail.Builder details = myStats.beginLaunchTask(task);
+        LaunchTaskDetail.Builder details;
+        synchronized (myStats) {
+          details = myStats.beginLaunchTask(task);
+        }
         indicator.setText(task.getDescription());
         LaunchResult launchResult = task.run(launchContext);
         myOnFinished.addAll(launchResult.onFinishedCallbacks());
         Result result = launchResult.getResult();
-        myStats.endLaunchTask(task, details, result != Result.ERROR);
+        synchronized (myStats) {
+          myStats.endLaunchTask(task, details, result != Result.ERROR);
+        }
         if (result != Result.SUCCESS) {
-          myErrorNotificationListener = launchResult.getNotificationListener();
-          myError = launchResult.getMessage();
+          myErrors.put(device, StringUtil.notNullize(launchResult.getMessage()));
           launchContext.getConsolePrinter().stderr(launchResult.getConsoleMessage());
 
           // Append a footer hyperlink, if one was provided.
@@ -289,7 +393,7 @@ public class LaunchTaskRunner extends Task.Backgroundable {
             title = "Warning";
             type = NotificationType.WARNING;
           }
-          notificationGroup.createNotification(title, launchResult.getMessage(), type).setListener(myErrorNotificationListener)
+          notificationGroup.createNotification(title, launchResult.getMessage(), type).setListener(launchResult.getNotificationListener())
             .setImportant(true).notify(myProject);
 
           // Show the tool window when we have an error.
@@ -297,7 +401,9 @@ public class LaunchTaskRunner extends Task.Backgroundable {
                                                               myLaunchInfo.executor, myProcessHandler));
 
           if (result == Result.ERROR) {
-            myStats.setErrorId(launchResult.getErrorId());
+            synchronized (myStats) {
+              myStats.setErrorId(launchResult.getErrorId());
+            }
             return false;
           }
           else {
@@ -310,8 +416,7 @@ public class LaunchTaskRunner extends Task.Backgroundable {
       }
 
       // Update the indicator progress.
-      completedStepsCount.set(completedStepsCount.get() + task.getDuration());
-      indicator.setFraction(completedStepsCount.get().floatValue() / totalScheduledStepsCount);
+      indicator.setFraction((float)completedStepsCount.addAndGet(task.getDuration()) / totalScheduledStepsCount);
     }
 
     String launchType = myLaunchTasksProvider.getLaunchTypeDisplayName();
@@ -353,7 +458,7 @@ public class LaunchTaskRunner extends Task.Backgroundable {
 
   @Override
   public void onSuccess() {
-    if (myError == null) {
+    if (myErrors.isEmpty()) {
       myStats.success();
     }
   }
@@ -361,7 +466,7 @@ public class LaunchTaskRunner extends Task.Backgroundable {
   @Override
   public void onFinished() {
     super.onFinished();
-    if (myError != null) {
+    if (!myErrors.isEmpty()) {
       myStats.fail();
     }
     for (Runnable runnable : myOnFinished) {
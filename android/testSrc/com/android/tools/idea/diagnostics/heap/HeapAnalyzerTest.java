@@ -242,6 +242,54 @@ public class HeapAnalyzerTest {
                         traverse.walkObjects(MAX_DEPTH, List.of(new A()), stats));
   }
 
+  @Test
+  public void testConcurrentTraverseSimpleComponents() {
+    ComponentsSet componentsSet = new ComponentsSet();
+    componentsSet.addComponentWithPackagesAndClassNames("A", Collections.emptyList(),
+                                                        "com.android.tools.idea.diagnostics.heap.HeapAnalyzerTest$A");
+    componentsSet.addComponentWithPackagesAndClassNames("B", Collections.emptyList(),
+                                                        "com.android.tools.idea.diagnostics.heap.HeapAnalyzerTest$B");
+
+    HeapSnapshotStatistics stats = new HeapSnapshotStatistics(componentsSet);
+    Assert.assertEquals(HeapSnapshotTraverse.ErrorCode.OK,
+                        new ConcurrentHeapSnapshotTraverse(MAX_DEPTH, List.of(new A(), new A()), stats, 2).walkObjects(1000, 0));
+
+    List<HeapSnapshotStatistics.HeapObjectsStatistics> componentStats = stats.getComponentStats();
+    Assert.assertEquals(2, componentStats.size());
+    // 2 instances of A, boxed int
+    Assert.assertEquals(3, componentStats.get(0).getOwnedObjectsNumber());
+    Assert.assertEquals(64, componentStats.get(0).getOwnedTotalSizeOfObjects());
+    // 2 instances of B
+    Assert.assertEquals(2, componentStats.get(1).getOwnedObjectsNumber());
+    Assert.assertEquals(32, componentStats.get(1).getOwnedTotalSizeOfObjects());
+    Assert.assertEquals(5, stats.getTotalObjectsNumber());
+    Assert.assertEquals(0, stats.getNonComponentObjectsNumber());
+  }
+
+  @Test
+  public void testConcurrentTraverseNonComponentObjectLowOwnershipPriority() {
+    ComponentsSet componentsSet = new ComponentsSet();
+    componentsSet.addComponentWithPackagesAndClassNames("A", Collections.emptyList(),
+                                                        "com.android.tools.idea.diagnostics.heap.HeapAnalyzerTest$A");
+
+    B b = new B();
+    HeapSnapshotStatistics stats = new HeapSnapshotStatistics(componentsSet);
+    // The last root is walked first, so the non-component array reaches b before A does.
+    ConcurrentHeapSnapshotTraverse traverse = new ConcurrentHeapSnapshotTraverse(MAX_DEPTH, List.of(new A(b), new D(b)), stats, 1);
+    // Slices without budget still make progress.
+    while (!traverse.runSlice(0)) {
+    }
+    Assert.assertEquals(HeapSnapshotTraverse.ErrorCode.OK, traverse.getErrorCode());
+
+    List<HeapSnapshotStatistics.HeapObjectsStatistics> componentStats = stats.getComponentStats();
+    Assert.assertEquals(1, componentStats.size());
+    // A, B, Integer
+    Assert.assertEquals(3, componentStats.get(0).getOwnedObjectsNumber());
+    Assert.assertEquals(56, componentStats.get(0).getOwnedTotalSizeOfObjects());
+    // D and its array
+    Assert.assertEquals(2, stats.getNonComponentObjectsNumber());
+  }
+
   private static class A {
     private B myB = new B();
     private final Integer myInt = 0;
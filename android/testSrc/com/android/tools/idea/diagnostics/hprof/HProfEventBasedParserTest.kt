@@ -18,8 +18,10 @@ package com.android.tools.idea.diagnostics.hprof
 import com.android.testutils.TestUtils.resolveWorkspacePath
 import com.android.tools.idea.diagnostics.hprof.analysis.HProfAnalysis
 import com.android.tools.idea.diagnostics.hprof.classstore.HProfMetadata
+import com.android.tools.idea.diagnostics.hprof.histogram.Histogram
 import com.android.tools.idea.diagnostics.hprof.navigator.RootReason
 import com.android.tools.idea.diagnostics.hprof.parser.HProfEventBasedParser
+import com.android.tools.idea.diagnostics.hprof.visitors.HistogramVisitor
 import com.intellij.openapi.progress.util.AbstractProgressIndicatorBase
 import gnu.trove.TObjectIntHashMap
 import it.unimi.dsi.fastutil.objects.Object2IntOpenHashMap
@@ -110,6 +112,21 @@ class HProfEventBasedParserTest {
     assertEquals("value", stringDef.refInstanceFields[0].name)
   }
 
+  @Test
+  fun testHistogramOfSegments() {
+    val classStore = HProfMetadata.create(parser).classStore
+    val expected = Histogram.create(parser, classStore)
+
+    val segments = parser.getHeapDumpSegments()
+    val visitors = segments.map { segment ->
+      HistogramVisitor().also { parser.acceptHeapDumpSegments(it, listOf(segment), null) }
+    }
+    val histogram = HistogramVisitor.createHistogram(visitors, classStore)
+
+    assertEquals(expected.instanceCount, histogram.instanceCount)
+    assertEquals(expected.entries, histogram.entries)
+  }
+
   @Test
   fun testReport() {
     val analysis = HProfAnalysis(channel, object : HProfAnalysis.TempFilenameSupplier {
@@ -19,10 +19,12 @@ import com.android.tools.idea.run.deployment.liveedit.LiveEditUpdateException
 import com.android.tools.idea.testing.AndroidProjectRule
 import com.intellij.openapi.diagnostic.Logger
 import com.intellij.openapi.progress.EmptyProgressIndicator
+import com.intellij.openapi.util.Disposer
 import com.intellij.util.io.delete
 import kotlinx.coroutines.launch
 import kotlinx.coroutines.runBlocking
 import org.junit.Assert.assertEquals
+import org.junit.Assert.assertFalse
 import org.junit.Assert.assertTrue
 import org.junit.Assert.fail
 import org.junit.Rule
@@ -37,6 +39,15 @@ internal class EmbeddedCompilerClientImplTest {
                                log = Logger.getInstance(EmbeddedCompilerClientImplTest::class.java))
   }
 
+  @Test
+  fun `compiler is running until disposed`() {
+    val compiler = EmbeddedCompilerClientImpl(project = projectRule.project,
+                                              log = Logger.getInstance(EmbeddedCompilerClientImplTest::class.java))
+    assertTrue(compiler.isRunning)
+    Disposer.dispose(compiler)
+    assertFalse(compiler.isRunning)
+  }
+
   @Test
   fun `simple compilation request`() {
     val file = projectRule.fixture.addFileToProject(
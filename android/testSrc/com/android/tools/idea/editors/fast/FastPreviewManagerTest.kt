@@ -18,7 +18,10 @@ package com.android.tools.idea.editors.fast
 import com.android.ide.common.repository.GradleVersion
 import com.android.tools.idea.concurrency.AndroidCoroutineScope
 import com.android.tools.idea.testing.AndroidProjectRule
+import com.android.tools.idea.testing.executeAndSave
+import com.android.tools.idea.testing.replaceText
 import com.intellij.mock.MockPsiFile
+import com.intellij.openapi.application.runReadAction
 import com.intellij.openapi.diagnostic.Logger
 import com.intellij.openapi.module.Module
 import com.intellij.openapi.progress.ProcessCanceledException
@@ -192,6 +195,7 @@ internal class FastPreviewManagerTest {
     // Mock file to use so we control when it is signal as "modified".
     val mockFile = object : MockPsiFile(actualFile.virtualFile, actualFile.manager) {
       override fun getModificationStamp(): Long = modificationCount
+      override fun getText(): String = "fun empty$modificationCount() {}"
     }
     val blockingDaemon = BlockingDaemonClient()
     val manager = FastPreviewManager.getTestInstance(project,
@@ -218,6 +222,46 @@ internal class FastPreviewManagerTest {
     assertEquals("Only 5 requests were expected to be different", 5, blockingDaemon.requestReceived)
   }
 
+  @Test
+  fun `reverted changes reuse the cached compilation`() = runBlocking {
+    val file = projectRule.fixture.addFileToProject("test.kt", """
+      fun empty() {}
+    """.trimIndent())
+    projectRule.fixture.configureFromExistingVirtualFile(file.virtualFile)
+    val compiledContents = mutableListOf<String>()
+    val manager = FastPreviewManager.getTestInstance(
+      project,
+      daemonFactory = { _, _, _, _ ->
+        object : CompilerDaemonClient by NopCompilerDaemonClient {
+          override suspend fun compileRequest(files: Collection<PsiFile>,
+                                              module: Module,
+                                              outputDirectory: Path,
+                                              indicator: ProgressIndicator): CompilationResult {
+            compiledContents.add(runReadAction { files.single().text })
+            return CompilationResult.Success
+          }
+        }
+      },
+      moduleRuntimeVersionLocator = { TEST_VERSION }).also {
+      Disposer.register(projectRule.testRootDisposable, it)
+    }
+
+    val (_, originalOutput) = manager.compileRequest(file, projectRule.module)
+    projectRule.fixture.editor.executeAndSave { replaceText("empty", "modified") }
+    manager.compileRequest(file, projectRule.module)
+    // Undo the change. The original output can be reused.
+    projectRule.fixture.editor.executeAndSave { replaceText("modified", "empty") }
+    assertEquals(originalOutput, manager.compileRequest(file, projectRule.module).second)
+    // Repeat the change. The output of the second request can be reused.
+    projectRule.fixture.editor.executeAndSave { replaceText("empty", "modified") }
+    manager.compileRequest(file, projectRule.module)
+
+    assertEquals("""
+      fun empty() {}
+      fun modified() {}
+    """.trimIndent(), compiledContents.joinToString("\n"))
+  }
+
   @Test
   fun `verify compiler request`() = runBlocking {
     val file = projectRule.fixture.addFileToProject("test.kt", """
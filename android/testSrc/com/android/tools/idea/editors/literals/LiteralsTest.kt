@@ -154,6 +154,32 @@ class LiteralsTest {
   }
 
 
+  @Test
+  fun `tracked literals are only updated by changes in their own subtree`() {
+    val literalsManager = LiteralsManager()
+    val file = populateKotlinFile().configureEditor()
+    val snapshot = runBlocking { literalsManager.findLiterals(file, projectRule.testRootDisposable) }
+    assertEquals(21, snapshot.all.size)
+
+    projectRule.fixture.editor.executeAndSave {
+      replaceText("\"S8\"", "\"S8_MODIFIED\"")
+      replaceText("fun testCall() {", "fun testCall() {\n  println(\"NEW\")")
+    }
+    assertEquals("""
+      text='S8_MODIFIED' location='LiteralsTest.kt (567,569)' value='S8_MODIFIED' usages='test.app.LiteralsTest.testCall-567'
+    """.trimIndent(), snapshot.modified.toDebugString())
+
+    projectRule.fixture.editor.executeAndSave {
+      deleteText("100 +")
+      replaceText("\"S1\"", "\"S1_MODIFIED\"")
+    }
+    assertEquals("""
+      text='S1_MODIFIED' location='LiteralsTest.kt (356,358)' value='S1_MODIFIED' usages='test.app.LiteralsTest.<init>-356'
+      text='S8_MODIFIED' location='LiteralsTest.kt (567,569)' value='S8_MODIFIED' usages='test.app.LiteralsTest.testCall-567'
+    """.trimIndent(), snapshot.modified.toDebugString())
+    assertTrue(snapshot.newSnapshot().modified.isEmpty())
+  }
+
   @Test
   fun `Kotlin literals finder for string interpolation`() {
     val literalsManager = LiteralsManager()
@@ -171,6 +171,35 @@ internal class LiveLiteralsServiceTest {
     assertEquals(2, modifications.size)
   }
 
+  @Test
+  fun `changes are detected after the tracking is activated again`() {
+    // Setup
+    val latch = CountDownLatch(1)
+    val modifications = mutableListOf<LiteralReference>()
+    val liveLiteralsService = getTestLiveLiteralsService()
+    liveLiteralsService.addOnLiteralsChangedListener(projectRule.fixture.testRootDisposable) {
+      modifications.addAll(it)
+      latch.countDown()
+    }
+    projectRule.fixture.configureFromExistingVirtualFile(file1.virtualFile)
+    runAndWaitForDocumentAdded(liveLiteralsService) {
+      liveLiteralsService.liveLiteralsMonitorStarted("TestDevice", LiveLiteralsMonitorHandler.DeviceType.PREVIEW)
+    }
+    // A second device activates the tracking again, disposing the previous activation.
+    runAndWaitForDocumentAdded(liveLiteralsService) {
+      liveLiteralsService.liveLiteralsMonitorStarted("TestDevice2", LiveLiteralsMonitorHandler.DeviceType.PREVIEW)
+    }
+
+    // Run test
+    projectRule.fixture.editor.executeAndSave {
+      replaceText("999", "555")
+    }
+
+    // Wait for the modification to be notified
+    latch.await(5, TimeUnit.SECONDS)
+    assertEquals(1, modifications.size)
+  }
+
   @Test
   fun `listener is only called when live literals are available`() {
     var changeListenerCalls = 0
@@ -23,6 +23,8 @@ import com.android.ide.common.resources.Locale;
 import com.android.projectmodel.DynamicResourceValue;
 import com.android.resources.ResourceType;
 import com.android.tools.idea.editors.strings.model.StringResourceKey;
+import com.android.tools.idea.editors.strings.table.StringResourceTable;
+import com.android.tools.idea.editors.strings.table.StringResourceTableModel;
 import com.android.tools.idea.res.DynamicValueResourceRepository;
 import com.android.tools.idea.res.LocalResourceRepository;
 import com.android.tools.idea.res.ResourcesTestsUtil;
@@ -34,6 +36,7 @@ import com.intellij.psi.PsiFile;
 import com.intellij.psi.PsiManager;
 import com.intellij.psi.xml.XmlFile;
 import com.intellij.psi.xml.XmlTag;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.List;
@@ -161,6 +164,49 @@ public class StringResourceDataTest extends AndroidTestCase {
     assertFalse(data.getStringResource(newStringResourceKey("key8")).isTranslationMissing(en_rGB));
   }
 
+  public void testUpdateKeepsUnchangedResources() {
+    StringResourceKey key = newStringResourceKey("key1");
+    StringResource resource = data.getStringResource(key);
+
+    assertEmpty(data.update(data.getRepository()));
+    assertSame(resource, data.getStringResource(key));
+  }
+
+  public void testSettingTableModelOnlyBuildsTheMeasuredRows() {
+    int keyCount = StringResourceTable.COLUMN_WIDTH_SAMPLE_ROW_COUNT * 3;
+    StringBuilder strings = new StringBuilder("<resources>\n");
+    for (int i = 0; i < keyCount; i++) {
+      strings.append("  <string name=\"key").append(i).append("\">Value ").append(i).append("</string>\n");
+    }
+    strings.append("</resources>\n");
+    VirtualFile stringsFile = myFixture.addFileToProject("manyStrings/res/values/strings.xml", strings.toString()).getVirtualFile();
+    VirtualFile directory = stringsFile.getParent().getParent();
+    myFixture.addFileToProject("manyStrings/res/values-fr/strings.xml", "<resources><string name=\"key0\">Valeur</string></resources>");
+
+    LocalResourceRepository repository = ResourcesTestsUtil.createTestModuleRepository(myFacet, Collections.singletonList(directory));
+    StringResourceTableModel model = new StringResourceTableModel(Utils.createStringRepository(repository), myModule.getProject());
+    StringResourceTable table = new StringResourceTable();
+    table.setModel(model);
+
+    StringResourceData tableData = model.getData();
+    assertNotNull(tableData);
+    long builtCount = tableData.getKeys().stream().filter(tableData::isStringResourceBuilt).count();
+    // Only the rows the column widths are computed from are built, not the other keys.
+    assertTrue(builtCount > 0);
+    assertTrue(builtCount <= StringResourceTable.COLUMN_WIDTH_SAMPLE_ROW_COUNT);
+  }
+
+  public void testDeleteValues() {
+    StringResourceKey key = newStringResourceKey("key2");
+    Locale hi = Locale.create("hi");
+
+    assertTrue(data.deleteValues(Collections.singletonMap(key, Arrays.asList(null, hi))));
+
+    StringResource resource = data.getStringResource(key);
+    assertEquals("", resource.getDefaultValueAsString());
+    assertEquals("", resource.getTranslationAsString(hi));
+  }
+
   public void testEditingDoNotTranslate() {
     VirtualFile stringsFile = resourceDirectory.findFileByRelativePath("values/strings.xml");
     assertNotNull(stringsFile);
@@ -22,6 +22,7 @@ import com.android.testutils.MockitoKt.any
 import com.android.testutils.MockitoKt.eq
 import com.android.testutils.MockitoKt.mock
 import com.android.testutils.MockitoKt.whenever
+import com.android.tools.idea.flags.StudioFlags
 import com.android.tools.idea.run.tasks.LaunchResult
 import com.android.tools.idea.run.tasks.LaunchTask
 import com.android.tools.idea.run.tasks.LaunchTasksProvider
@@ -35,10 +36,14 @@ import com.intellij.execution.runners.ExecutionEnvironment
 import com.intellij.execution.runners.ProgramRunner
 import com.intellij.openapi.progress.EmptyProgressIndicator
 import com.intellij.openapi.progress.ProgressIndicator
+import org.junit.After
+import org.junit.Assert.assertEquals
+import org.junit.Assert.assertThrows
 import org.junit.Before
 import org.junit.Rule
 import org.junit.Test
 import org.mockito.Mock
+import org.mockito.Mockito.atLeastOnce
 import org.mockito.Mockito.never
 import org.mockito.Mockito.times
 import org.mockito.Mockito.verify
@@ -85,6 +90,11 @@ class LaunchTaskRunnerTest {
     whenever(mockExecutor.toolWindowId).thenReturn("toolWindowId")
   }
 
+  @After
+  fun tearDown() {
+    StudioFlags.MULTI_DEVICE_LAUNCH_PARALLELISM.clearOverride()
+  }
+
   private fun createDeviceFutures(numDevices: Int = 1): DeviceFutures {
     val devices = (1..numDevices).map {
       val device = mock<AndroidDevice>()
@@ -257,4 +267,80 @@ class LaunchTaskRunnerTest {
 
     verify(mockRunStats).endLaunchTasks()
   }
-}
\ No newline at end of file
+
+  @Test
+  fun runSucceededOnMultipleDevicesInParallel() {
+    StudioFlags.MULTI_DEVICE_LAUNCH_PARALLELISM.override(2)
+    val deviceFutures = createDeviceFutures(numDevices = 2)
+    val runner = createLaunchTaskRunner(deviceFutures)
+
+    runner.run(progressIndicator)
+
+    verify(mockProcessHandler).addTargetDevice(eq(deviceFutures.get()[0].get()))
+    verify(mockProcessHandler).addTargetDevice(eq(deviceFutures.get()[1].get()))
+    verify(mockProcessHandler, never()).detachDevice(any())
+    verify(mockProcessHandler, never()).destroyProcess()
+
+    verify(mockRunStats).endLaunchTasks()
+  }
+
+  @Test
+  fun runFailedOnOneDeviceInParallel() {
+    StudioFlags.MULTI_DEVICE_LAUNCH_PARALLELISM.override(2)
+    val deviceFutures = createDeviceFutures(numDevices = 2)
+    val runner = createLaunchTaskRunner(deviceFutures)
+
+    val device1 = deviceFutures.get()[0].get()
+    val device2 = deviceFutures.get()[1].get()
+
+    setFailingLaunchTask(device1)
+    runner.run(progressIndicator)
+
+    verify(mockProcessHandler).detachDevice(eq(device1))
+    verify(mockProcessHandler, never()).detachDevice(eq(device2))
+    verify(mockProcessHandler, never()).destroyProcess()
+
+    verify(mockRunStats).endLaunchTasks()
+  }
+
+  @Test
+  fun exceptionInParallelLaunchTaskFailsTheLaunch() {
+    StudioFlags.MULTI_DEVICE_LAUNCH_PARALLELISM.override(2)
+    val deviceFutures = createDeviceFutures(numDevices = 2)
+    val runner = createLaunchTaskRunner(deviceFutures)
+
+    val throwingTask = mock<LaunchTask>()
+    whenever(throwingTask.shouldRun(any())).thenReturn(true)
+    whenever(throwingTask.run(any())).thenThrow(IllegalStateException("Deployment crashed"))
+    whenever(mockLaunchTasksProvider.getTasks(eq(deviceFutures.get()[1].get()), any(), any())).thenReturn(listOf(throwingTask))
+
+    val exception = assertThrows(IllegalStateException::class.java) { runner.run(progressIndicator) }
+    assertEquals("Deployment crashed", exception.message)
+
+    verify(mockRunStats).endLaunchTasks()
+  }
+
+  @Test
+  fun cancellationStopsParallelLaunchTasks() {
+    StudioFlags.MULTI_DEVICE_LAUNCH_PARALLELISM.override(2)
+    val deviceFutures = createDeviceFutures(numDevices = 2)
+    val runner = createLaunchTaskRunner(deviceFutures)
+
+    val cancellingTask = mock<LaunchTask>()
+    whenever(cancellingTask.shouldRun(any())).thenReturn(true)
+    whenever(cancellingTask.run(any())).thenAnswer {
+      progressIndicator.cancel()
+      LaunchResult.success()
+    }
+    val laterTask = mock<LaunchTask>()
+    whenever(laterTask.shouldRun(any())).thenReturn(true)
+    whenever(mockLaunchTasksProvider.getTasks(any(), any(), any())).thenReturn(listOf(cancellingTask, laterTask))
+
+    runner.run(progressIndicator)
+
+    verify(laterTask, never()).run(any())
+    verify(mockProcessHandler, atLeastOnce()).destroyProcess()
+
+    verify(mockRunStats).endLaunchTasks()
+  }
+}
@@ -545,7 +545,8 @@ class DatabaseInspectorControllerImpl(
       sqliteStatement = createSqliteStatement(project, selectAllAndRowIdFromTable(table)),
       showExportDialog = ::showExportDialog,
       edtExecutor = edtExecutor,
-      taskExecutor = taskExecutor
+      taskExecutor = taskExecutor,
+      maxCachedRows = DEFAULT_MAX_CACHED_ROWS
     )
     Disposer.register(project, tableController)
     resultSetControllers[tabId] = tableController
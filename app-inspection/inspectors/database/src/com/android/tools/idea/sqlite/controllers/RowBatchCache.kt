@@ -0,0 +1,132 @@
+/*
+ * Copyright (C) 2022 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.android.tools.idea.sqlite.controllers
+
+import com.android.annotations.concurrency.UiThread
+import com.android.tools.idea.concurrency.addCallback
+import com.android.tools.idea.concurrency.transform
+import com.android.tools.idea.sqlite.databaseConnection.SqliteResultSet
+import com.android.tools.idea.sqlite.model.SqliteRow
+import com.google.common.util.concurrent.Futures
+import com.google.common.util.concurrent.ListenableFuture
+import java.util.concurrent.Executor
+import kotlin.math.max
+import kotlin.math.min
+
+/** Number of rows [RowBatchCache] keeps by default for table tabs. */
+internal const val DEFAULT_MAX_CACHED_ROWS = 5_000
+
+/**
+ * Bounded cache of the rows of a [SqliteResultSet], used by [TableController] to page through a table without a round-trip to
+ * the database for every page.
+ *
+ * Once a batch is shown, [prefetchAround] loads the batches right before and right after it in the background, so moving to the
+ * previous or next page is usually served from memory. At most [maxRows] rows are kept, evicting the least recently used ones.
+ * The row count of the result set is cached as well, since computing it means scanning the whole table.
+ *
+ * A [maxRows] of 0 disables the cache: every call goes straight to the result set.
+ *
+ * The cache must be [invalidate]d whenever the underlying data might have changed.
+ */
+@UiThread
+internal class RowBatchCache(
+  private val resultSet: SqliteResultSet,
+  private val maxRows: Int,
+  private val edtExecutor: Executor
+) {
+  private val rows = object : LinkedHashMap<Int, SqliteRow>(16, 0.75f, true) {
+    override fun removeEldestEntry(eldest: MutableMap.MutableEntry<Int, SqliteRow>?) = size > maxRows
+  }
+
+  /** Batches being fetched, by offset and size. */
+  private val pendingBatches = mutableMapOf<Pair<Int, Int>, ListenableFuture<List<SqliteRow>>>()
+
+  /** The number of rows in the result set, once a batch ended before the size it asked for. */
+  private var knownEnd = Int.MAX_VALUE
+
+  private var totalRowCount: ListenableFuture<Int>? = null
+
+  /** Incremented on [invalidate], so that batches requested before then are not cached. */
+  private var generation = 0
+
+  private val isEnabled get() = maxRows > 0
+
+  fun getTotalRowCount(): ListenableFuture<Int> {
+    if (!isEnabled) return resultSet.totalRowCount
+    totalRowCount?.let { return it }
+    val future = resultSet.totalRowCount
+    totalRowCount = future
+    // Don't keep errors around, the next call should try again.
+    future.addCallback(edtExecutor, success = {}) { if (totalRowCount === future) totalRowCount = null }
+    return future
+  }
+
+  fun getRowBatch(rowOffset: Int, rowBatchSize: Int): ListenableFuture<List<SqliteRow>> {
+    if (!isEnabled) return resultSet.getRowBatch(rowOffset, rowBatchSize)
+    getCachedBatch(rowOffset, rowBatchSize)?.let { return Futures.immediateFuture(it) }
+    return pendingBatches[rowOffset to rowBatchSize] ?: fetch(rowOffset, rowBatchSize)
+  }
+
+  /**
+   * Starts loading the batches of [rowBatchSize] rows just before and just after the one at [rowOffset], unless they are cached.
+   */
+  fun prefetchAround(rowOffset: Int, rowBatchSize: Int) {
+    if (!isEnabled || rowBatchSize * 3 > maxRows) return
+    val next = rowOffset + rowBatchSize
+    if (next < knownEnd) prefetch(next, rowBatchSize)
+    if (rowOffset > 0) prefetch(max(0, rowOffset - rowBatchSize), rowBatchSize)
+  }
+
+  fun invalidate() {
+    generation++
+    rows.clear()
+    pendingBatches.clear()
+    knownEnd = Int.MAX_VALUE
+    totalRowCount = null
+    resultSet.invalidate()
+  }
+
+  private fun prefetch(rowOffset: Int, rowBatchSize: Int) {
+    if (getCachedBatch(rowOffset, rowBatchSize) == null && !pendingBatches.containsKey(rowOffset to rowBatchSize)) {
+      fetch(rowOffset, rowBatchSize)
+    }
+  }
+
+  private fun getCachedBatch(rowOffset: Int, rowBatchSize: Int): List<SqliteRow>? {
+    val end = min(rowOffset + rowBatchSize, knownEnd)
+    if (rowOffset >= end) return if (rowOffset >= knownEnd) emptyList() else null
+    val batch = ArrayList<SqliteRow>(end - rowOffset)
+    for (index in rowOffset until end) {
+      batch.add(rows[index] ?: return null)
+    }
+    return batch
+  }
+
+  private fun fetch(rowOffset: Int, rowBatchSize: Int): ListenableFuture<List<SqliteRow>> {
+    val key = rowOffset to rowBatchSize
+    val fetchGeneration = generation
+    val future = resultSet.getRowBatch(rowOffset, rowBatchSize).transform(edtExecutor) { batch ->
+      if (fetchGeneration == generation) {
+        batch.forEachIndexed { index, row -> rows[rowOffset + index] = row }
+        if (batch.size < rowBatchSize) knownEnd = min(knownEnd, rowOffset + batch.size)
+      }
+      batch
+    }
+    pendingBatches[key] = future
+    future.addListener({ if (pendingBatches[key] === future) pendingBatches.remove(key) }, edtExecutor)
+    return future
+  }
+}
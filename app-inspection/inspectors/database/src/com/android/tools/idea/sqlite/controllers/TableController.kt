@@ -60,6 +60,8 @@ import kotlin.math.min
  *
  * @param tableSupplier returns a [SqliteTable] instance representing the table or view associated with the controller, or `null` if the
  * controller not associated with a specific table, e.g. in the case of custom queries.
+ * @param maxCachedRows the maximum number of rows kept in memory to page through the table without querying the database again,
+ * see [RowBatchCache]. 0 disables the cache.
  */
 @UiThread
 class TableController(
@@ -73,9 +75,11 @@ class TableController(
   override val closeTabInvoked: () -> Unit,
   private val showExportDialog: (ExportDialogParams) -> Unit,
   private val edtExecutor: Executor,
-  private val taskExecutor: Executor
+  private val taskExecutor: Executor,
+  private val maxCachedRows: Int = 0
 ) : DatabaseInspectorController.TabController {
   private lateinit var resultSet: SqliteResultSet
+  private lateinit var rowCache: RowBatchCache
   private val listener = TableViewListenerImpl()
   private var orderBy: OrderBy = OrderBy.NotOrdered
   private var rowOffset = 0
@@ -112,6 +116,7 @@ class TableController(
       view.addListener(listener)
 
       resultSet = newResultSet
+      rowCache = RowBatchCache(newResultSet, maxCachedRows, edtExecutor)
       Disposer.register(this, newResultSet)
 
       fetchAndDisplayTableData()
@@ -126,6 +131,8 @@ class TableController(
   }
 
   override fun notifyDataMightBeStale() {
+    // Cached rows are stale even if live updates are off, the next page has to be read from the database.
+    if (::rowCache.isInitialized) rowCache.invalidate()
     // refresh the table, without showing a loading screen.
     if (liveUpdatesEnabled && refreshDataFuture.isDone) {
       refreshDataFuture = fetchAndDisplayTableData()
@@ -143,6 +150,7 @@ class TableController(
    * Callers of this method should take care of setting the view in a loading state.
    */
   private fun fetchAndDisplayTableData(): ListenableFuture<Unit> {
+    rowCache.invalidate()
     val fetchTableDataFuture = resultSet.columns.transformAsync(edtExecutor) { columns ->
       if (Disposer.isDisposed(this)) throw ProcessCanceledException()
       if (columns != currentCols) {
@@ -177,8 +185,8 @@ class TableController(
     view.setFetchNextRowsButtonState(false)
 
     return fetchAndDisplayRows()
-      .transformAsync(taskExecutor) {
-        resultSet.totalRowCount
+      .transformAsync(edtExecutor) {
+        rowCache.getTotalRowCount()
       }.transform(edtExecutor) { rowCount ->
         view.setFetchPreviousRowsButtonState(rowOffset > 0)
         view.setFetchNextRowsButtonState(rowOffset + rowBatchSize < rowCount)
@@ -197,13 +205,13 @@ class TableController(
   }
 
   /**
-   * Fetches rows through the [resultSet] using [rowOffset] and [rowBatchSize].
+   * Fetches rows through the [rowCache] using [rowOffset] and [rowBatchSize], then prefetches the rows around them.
    * The view is updated through a list of [RowDiffOperation]. Compared to just recreating the view
    * this approach has the advantage that the state is not lost. Eg. if the user is navigating the table
    * using the keyboard we don't want to lose the navigation each time the data has to be updated.
    */
   private fun fetchAndDisplayRows() : ListenableFuture<Unit> {
-    return resultSet.getRowBatch(rowOffset, rowBatchSize).transform(edtExecutor) { newRows ->
+    return rowCache.getRowBatch(rowOffset, rowBatchSize).transform(edtExecutor) { newRows ->
       val rowDiffOperations = mutableListOf<RowDiffOperation>()
 
       // Update the cells that already exist
@@ -226,6 +234,7 @@ class TableController(
       view.setEditable(isEditable())
 
       currentRows = newRows
+      rowCache.prefetchAround(rowOffset, rowBatchSize)
     }.cancelOnDispose(this)
   }
 
@@ -277,6 +286,7 @@ class TableController(
           }
 
           resultSet = newResultSet
+          rowCache = RowBatchCache(newResultSet, maxCachedRows, edtExecutor)
           Disposer.register(this@TableController, newResultSet)
 
           rowOffset = 0
@@ -333,7 +343,7 @@ class TableController(
     }
 
     override fun loadLastRowsInvoked() {
-      resultSet.totalRowCount.transformAsync(edtExecutor) { rowCount ->
+      rowCache.getTotalRowCount().transformAsync(edtExecutor) { rowCount ->
         rowOffset = (rowCount / rowBatchSize) * rowBatchSize
 
         if (rowOffset == rowCount) rowOffset -= rowBatchSize
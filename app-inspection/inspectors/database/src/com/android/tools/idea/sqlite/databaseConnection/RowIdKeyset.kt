@@ -0,0 +1,120 @@
+/*
+ * Copyright (C) 2022 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.android.tools.idea.sqlite.databaseConnection
+
+import com.android.tools.idea.sqlite.model.SqliteRow
+import com.android.tools.idea.sqlite.model.SqliteStatement
+import com.android.tools.idea.sqlite.model.SqliteStatementType
+import com.android.tools.idea.sqlite.model.SqliteValue
+import com.android.tools.idea.sqlite.model.transform
+import java.util.concurrent.ConcurrentHashMap
+
+/**
+ * Keyset pagination for the result sets of statements created by `selectAllAndRowIdFromTable`.
+ *
+ * `LIMIT offset, size` makes SQLite step over `offset` rows for every batch, so paging deep into a large table gets slower and
+ * slower. [RowIdKeyset] remembers the rowid of the first and last row of every batch it has seen, so that the batch right after
+ * (or right before) a known row can be selected with `WHERE rowid > key` (or `<`), which SQLite answers with a seek in the table.
+ *
+ * Keyset batches are ordered by rowid, and a plain table scan isn't guaranteed to be (e.g. when SQLite decides to scan an index).
+ * Mixing both would show rows twice or skip them, so the batches selected by offset are ordered by rowid as well. If the rowids
+ * turn out not to be distinct integers (e.g. a column named `rowid` shadows the real one), the keyset turns itself off for good,
+ * and the rest of the result is paged by offset, still in the same order.
+ */
+internal class RowIdKeyset private constructor(private val sqliteStatement: SqliteStatement, private val rowIdColumn: String) {
+  /** Maps the position of a row in the result set to its rowid. */
+  private val keys = ConcurrentHashMap<Int, Long>()
+
+  @Volatile
+  private var enabled = true
+
+  /**
+   * Returns a statement that selects [rowBatchSize] rows starting at [rowOffset], through a known rowid if there is one next to the
+   * batch, by offset otherwise.
+   */
+  fun toSelectBatch(rowOffset: Int, rowBatchSize: Int): SqliteStatement {
+    if (enabled) {
+      toSelectBatchByKey(rowOffset, rowBatchSize)?.let { return it }
+    }
+    return sqliteStatement.transform(SqliteStatementType.SELECT) {
+      "SELECT * FROM ($it) ORDER BY $rowIdColumn LIMIT $rowOffset, $rowBatchSize"
+    }
+  }
+
+  private fun toSelectBatchByKey(rowOffset: Int, rowBatchSize: Int): SqliteStatement? {
+    keys[rowOffset - 1]?.let { previousKey ->
+      return sqliteStatement.transform(SqliteStatementType.SELECT) {
+        "SELECT * FROM ($it) WHERE $rowIdColumn > $previousKey ORDER BY $rowIdColumn LIMIT $rowBatchSize"
+      }
+    }
+    keys[rowOffset + rowBatchSize]?.let { nextKey ->
+      return sqliteStatement.transform(SqliteStatementType.SELECT) {
+        "SELECT * FROM (SELECT * FROM ($it) WHERE $rowIdColumn < $nextKey ORDER BY $rowIdColumn DESC LIMIT $rowBatchSize) " +
+        "ORDER BY $rowIdColumn"
+      }
+    }
+    return null
+  }
+
+  /**
+   * Records the rowids at both ends of [rows], which were fetched starting at [rowOffset].
+   */
+  fun onBatchFetched(rowOffset: Int, rows: List<SqliteRow>) {
+    if (!enabled || rows.isEmpty()) return
+    var previous = Long.MIN_VALUE
+    val rowIds = rows.map { row ->
+      val rowId = ((row.values.firstOrNull { it.columnName == rowIdColumn }?.value as? SqliteValue.StringValue)?.value)?.toLongOrNull()
+      if (rowId == null || rowId <= previous) {
+        enabled = false
+        keys.clear()
+        return
+      }
+      previous = rowId
+      rowId
+    }
+    if (keys.size >= MAX_KEYS) keys.clear()
+    keys[rowOffset] = rowIds.first()
+    keys[rowOffset + rows.size - 1] = rowIds.last()
+  }
+
+  /**
+   * Forgets all the known rowids, e.g. because rows might have been inserted or deleted.
+   */
+  fun invalidate() {
+    keys.clear()
+  }
+
+  companion object {
+    private const val MAX_KEYS = 10_000
+    /**
+     * Matches exactly what `selectAllAndRowIdFromTable` generates: the table name is either an identifier or a name quoted by
+     * `AndroidSqlLexer.getValidName`. Anything after it, like a WHERE, ORDER BY or LIMIT clause typed by the user, would be lost by
+     * re-ordering and re-limiting the statement, so such statements don't match.
+     */
+    private val SELECT_ALL_AND_ROW_ID =
+      Regex("SELECT \\*, (rowid|oid|_rowid_) as \\1 FROM ([\\p{javaJavaIdentifierStart}&&[^$]]\\p{javaJavaIdentifierPart}*|`([^`]|``)+`)")
+
+    /**
+     * Returns a [RowIdKeyset] for [sqliteStatement], or null if the statement is not the plain selection of a table and its rowid
+     * created by `selectAllAndRowIdFromTable`.
+     */
+    fun of(sqliteStatement: SqliteStatement): RowIdKeyset? {
+      if (sqliteStatement.statementType != SqliteStatementType.SELECT) return null
+      val match = SELECT_ALL_AND_ROW_ID.matchEntire(sqliteStatement.sqliteStatementText) ?: return null
+      return RowIdKeyset(sqliteStatement, match.groupValues[1])
+    }
+  }
+}
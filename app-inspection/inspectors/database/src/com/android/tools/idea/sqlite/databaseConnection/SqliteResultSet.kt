@@ -52,6 +52,11 @@ interface SqliteResultSet : Disposable {
    * @param rowBatchSize The maximum amount of rows returned. Must be > 0
    */
   fun getRowBatch(rowOffset: Int, rowBatchSize: Int): ListenableFuture<List<SqliteRow>>
+
+  /**
+   * Tells the result set that the rows it returned might be stale, so that it doesn't rely on their positions anymore.
+   */
+  fun invalidate() { }
 }
 
 /**
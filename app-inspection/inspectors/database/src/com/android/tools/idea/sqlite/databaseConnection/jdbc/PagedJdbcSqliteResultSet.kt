@@ -15,6 +15,7 @@
  */
 package com.android.tools.idea.sqlite.databaseConnection.jdbc
 
+import com.android.tools.idea.sqlite.databaseConnection.RowIdKeyset
 import com.android.tools.idea.sqlite.databaseConnection.checkOffsetAndSize
 import com.android.tools.idea.sqlite.model.SqliteRow
 import com.android.tools.idea.sqlite.model.SqliteStatement
@@ -27,6 +28,8 @@ class PagedJdbcSqliteResultSet(
   connection: Connection,
   private val sqliteStatement: SqliteStatement
 ) : JdbcSqliteResultSet(taskExecutor, connection, sqliteStatement) {
+  private val keyset = RowIdKeyset.of(sqliteStatement)
+
   override val totalRowCount: ListenableFuture<Int>
     get() = getRowCount(sqliteStatement.toRowCountStatement()) {
       it.next()
@@ -36,12 +39,18 @@ class PagedJdbcSqliteResultSet(
 
   override fun getRowBatch(rowOffset: Int, rowBatchSize: Int): ListenableFuture<List<SqliteRow>> {
     checkOffsetAndSize(rowOffset, rowBatchSize)
-    return getRowBatch(sqliteStatement.toSelectLimitOffset(rowOffset, rowBatchSize)) { resultSet, columns ->
+    val statement = keyset?.toSelectBatch(rowOffset, rowBatchSize) ?: sqliteStatement.toSelectLimitOffset(rowOffset, rowBatchSize)
+    return getRowBatch(statement) { resultSet, columns ->
       val rows = ArrayList<SqliteRow>()
       while (resultSet.next()) {
         rows.add(createCurrentRow(resultSet, columns))
       }
+      keyset?.onBatchFetched(rowOffset, rows)
       rows
     }
   }
+
+  override fun invalidate() {
+    keyset?.invalidate()
+  }
 }
\ No newline at end of file
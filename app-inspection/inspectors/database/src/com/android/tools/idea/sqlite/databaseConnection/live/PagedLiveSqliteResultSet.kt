@@ -17,6 +17,7 @@ package com.android.tools.idea.sqlite.databaseConnection.live
 
 import com.android.tools.idea.concurrency.transform
 import com.android.tools.idea.sqlite.DatabaseInspectorMessenger
+import com.android.tools.idea.sqlite.databaseConnection.RowIdKeyset
 import com.android.tools.idea.sqlite.databaseConnection.checkOffsetAndSize
 import com.android.tools.idea.sqlite.model.ResultSetSqliteColumn
 import com.android.tools.idea.sqlite.model.SqliteRow
@@ -30,6 +31,7 @@ class PagedLiveSqliteResultSet(
   connectionId: Int,
   private val taskExecutor: Executor
 ) : LiveSqliteResultSet(sqliteStatement, messenger, connectionId, taskExecutor) {
+  private val keyset = RowIdKeyset.of(sqliteStatement)
 
   override val columns: ListenableFuture<List<ResultSetSqliteColumn>> get() =
     sendQueryCommand(sqliteStatement.toSelectLimitOffset(0, 1)).mapToColumns(taskExecutor)
@@ -42,13 +44,20 @@ class PagedLiveSqliteResultSet(
 
   override fun getRowBatch(rowOffset: Int, rowBatchSize: Int, responseSizeByteLimitHint: Long?): ListenableFuture<List<SqliteRow>> {
     checkOffsetAndSize(rowOffset, rowBatchSize)
-    return sendQueryCommand(sqliteStatement.toSelectLimitOffset(rowOffset, rowBatchSize), responseSizeByteLimitHint)
+    val statement = keyset?.toSelectBatch(rowOffset, rowBatchSize) ?: sqliteStatement.toSelectLimitOffset(rowOffset, rowBatchSize)
+    return sendQueryCommand(statement, responseSizeByteLimitHint)
       .transform(taskExecutor) { response ->
         val columnNames = response.query.columnNamesList
-        response.query.rowsList.map {
+        val rows = response.query.rowsList.map {
           val sqliteColumnValues = it.valuesList.mapIndexed { index, cellValue -> cellValue.toSqliteColumnValue(columnNames[index]) }
           SqliteRow(sqliteColumnValues)
         }
+        keyset?.onBatchFetched(rowOffset, rows)
+        rows
       }
   }
+
+  override fun invalidate() {
+    keyset?.invalidate()
+  }
 }
@@ -0,0 +1,91 @@
+/*
+ * Copyright (C) 2022 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.android.tools.idea.sqlite.controllers
+
+import com.android.tools.idea.sqlite.mocks.FakeSqliteResultSet
+import com.google.common.truth.Truth.assertThat
+import com.google.common.util.concurrent.Futures
+import com.google.common.util.concurrent.MoreExecutors
+import org.junit.Test
+
+class RowBatchCacheTest {
+  private val resultSet = FakeSqliteResultSet(25)
+
+  @Test
+  fun prefetchedBatchesAreServedFromMemory() {
+    val cache = RowBatchCache(resultSet, 100, MoreExecutors.directExecutor())
+
+    val firstBatch = Futures.getDone(cache.getRowBatch(10, 5))
+    cache.prefetchAround(10, 5)
+    assertThat(resultSet.invocations).hasSize(3)
+
+    assertThat(Futures.getDone(cache.getRowBatch(10, 5))).isEqualTo(firstBatch)
+    assertThat(Futures.getDone(cache.getRowBatch(15, 5))).isEqualTo(resultSet.rows.subList(15, 20))
+    assertThat(Futures.getDone(cache.getRowBatch(5, 5))).isEqualTo(resultSet.rows.subList(5, 10))
+    assertThat(resultSet.invocations).hasSize(3)
+  }
+
+  @Test
+  fun endOfResultSetIsRemembered() {
+    val cache = RowBatchCache(resultSet, 100, MoreExecutors.directExecutor())
+
+    assertThat(Futures.getDone(cache.getRowBatch(20, 10))).hasSize(5)
+    cache.prefetchAround(20, 10)
+    assertThat(Futures.getDone(cache.getRowBatch(20, 10))).hasSize(5)
+    // Only the previous batch was prefetched, the next one is known to be empty.
+    assertThat(resultSet.invocations).hasSize(2)
+    assertThat(Futures.getDone(cache.getRowBatch(30, 10))).isEmpty()
+    assertThat(resultSet.invocations).hasSize(2)
+  }
+
+  @Test
+  fun invalidateDropsCachedRows() {
+    val cache = RowBatchCache(resultSet, 100, MoreExecutors.directExecutor())
+    Futures.getDone(cache.getRowBatch(0, 5))
+    assertThat(Futures.getDone(cache.getTotalRowCount())).isEqualTo(25)
+
+    resultSet.deleteRowAtIndex(0)
+    assertThat(Futures.getDone(cache.getRowBatch(0, 5))).isEqualTo(resultSet.invocations[0])
+    assertThat(Futures.getDone(cache.getTotalRowCount())).isEqualTo(25)
+
+    cache.invalidate()
+    assertThat(Futures.getDone(cache.getRowBatch(0, 5))).isEqualTo(resultSet.rows.subList(0, 5))
+    assertThat(Futures.getDone(cache.getTotalRowCount())).isEqualTo(24)
+  }
+
+  @Test
+  fun leastRecentlyUsedRowsAreEvicted() {
+    val cache = RowBatchCache(resultSet, 10, MoreExecutors.directExecutor())
+    Futures.getDone(cache.getRowBatch(0, 5))
+    Futures.getDone(cache.getRowBatch(5, 5))
+    Futures.getDone(cache.getRowBatch(10, 5))
+    assertThat(resultSet.invocations).hasSize(3)
+
+    Futures.getDone(cache.getRowBatch(5, 5))
+    assertThat(resultSet.invocations).hasSize(3)
+    Futures.getDone(cache.getRowBatch(0, 5))
+    assertThat(resultSet.invocations).hasSize(4)
+  }
+
+  @Test
+  fun disabledCacheAlwaysQueriesResultSet() {
+    val cache = RowBatchCache(resultSet, 0, MoreExecutors.directExecutor())
+    Futures.getDone(cache.getRowBatch(0, 5))
+    cache.prefetchAround(0, 5)
+    Futures.getDone(cache.getRowBatch(0, 5))
+    assertThat(resultSet.invocations).hasSize(2)
+  }
+}
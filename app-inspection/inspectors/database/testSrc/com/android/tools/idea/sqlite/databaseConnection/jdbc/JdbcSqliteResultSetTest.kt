@@ -22,6 +22,7 @@ import com.android.tools.idea.sqlite.databaseConnection.DatabaseConnection
 import com.android.tools.idea.sqlite.fileType.SqliteTestUtil
 import com.android.tools.idea.sqlite.model.SqliteStatement
 import com.android.tools.idea.sqlite.model.SqliteStatementType
+import com.android.tools.idea.sqlite.model.SqliteValue
 import com.android.tools.idea.sqlite.utils.getJdbcDatabaseConnection
 import com.intellij.openapi.util.Disposer
 import com.intellij.testFramework.LightPlatformTestCase
@@ -185,4 +186,99 @@ class JdbcSqliteResultSetTest : LightPlatformTestCase() {
     Disposer.dispose(customConnection!!)
     pumpEventsAndWaitForFutureCancellation(resultSet.getRowBatch(0, 10))
   }
-}
\ No newline at end of file
+
+  fun `test GetRowBatch ThroughRowIdKeyset ReturnsSameRowsAsOffsetPagination`() {
+    // Prepare
+    val customSqliteFile = sqliteUtil.createAdHocSqliteDatabase(
+      createStatement = "CREATE TABLE t1 (c1 INT)",
+      insertStatement = "INSERT INTO t1 (c1) VALUES ${(1..50).joinToString { "($it)" }}"
+    )
+    customConnection = pumpEventsAndWaitForFuture(
+      getJdbcDatabaseConnection(testRootDisposable, customSqliteFile, FutureCallbackExecutor.wrap(EdtExecutorService.getInstance()))
+    )
+    val keysetResultSet = pumpEventsAndWaitForFuture(
+      customConnection!!.query(SqliteStatement(SqliteStatementType.SELECT, "SELECT *, rowid as rowid FROM t1"))
+    )
+    val offsetResultSet = pumpEventsAndWaitForFuture(
+      customConnection!!.query(SqliteStatement(SqliteStatementType.SELECT, "SELECT c1, rowid as rowid FROM t1"))
+    )
+    val offsets = listOf(0, 10, 20, 10, 0)
+
+    // Act
+    val keysetBatches = offsets.map { pumpEventsAndWaitForFuture(keysetResultSet.getRowBatch(it, 10)) }
+    val offsetBatches = offsets.map { pumpEventsAndWaitForFuture(offsetResultSet.getRowBatch(it, 10)) }
+
+    // Assert
+    assertEquals(offsetBatches, keysetBatches)
+  }
+
+  fun `test GetRowBatch ThroughRowIdKeyset AfterInvalidate SeesDeletedRows`() {
+    // Prepare
+    val customSqliteFile = sqliteUtil.createAdHocSqliteDatabase(
+      createStatement = "CREATE TABLE t1 (c1 INT)",
+      insertStatement = "INSERT INTO t1 (c1) VALUES ${(1..50).joinToString { "($it)" }}"
+    )
+    customConnection = pumpEventsAndWaitForFuture(
+      getJdbcDatabaseConnection(testRootDisposable, customSqliteFile, FutureCallbackExecutor.wrap(EdtExecutorService.getInstance()))
+    )
+    val resultSet = pumpEventsAndWaitForFuture(
+      customConnection!!.query(SqliteStatement(SqliteStatementType.SELECT, "SELECT *, rowid as rowid FROM t1"))
+    )
+    pumpEventsAndWaitForFuture(resultSet.getRowBatch(0, 10))
+
+    // Act
+    pumpEventsAndWaitForFuture(customConnection!!.execute(SqliteStatement(SqliteStatementType.DELETE, "DELETE FROM t1 WHERE c1 = 1")))
+    resultSet.invalidate()
+    val rows = pumpEventsAndWaitForFuture(resultSet.getRowBatch(10, 10))
+
+    // Assert
+    assertEquals((12..21).map { it.toString() }, rows.map { (it.values.first().value as SqliteValue.StringValue).value })
+  }
+
+  fun `test GetRowBatch ThroughRowIdKeyset OrdersEveryBatchByRowId`() {
+    // Prepare
+    // SQLite scans the covering index on c1 for "SELECT *, rowid", so the natural order is not the rowid order.
+    val customSqliteFile = sqliteUtil.createAdHocSqliteDatabase(
+      createStatement = "CREATE TABLE t1 (c1 INT UNIQUE)",
+      insertStatement = "INSERT INTO t1 (c1) VALUES ${(50 downTo 1).joinToString { "($it)" }}"
+    )
+    customConnection = pumpEventsAndWaitForFuture(
+      getJdbcDatabaseConnection(testRootDisposable, customSqliteFile, FutureCallbackExecutor.wrap(EdtExecutorService.getInstance()))
+    )
+    val resultSet = pumpEventsAndWaitForFuture(
+      customConnection!!.query(SqliteStatement(SqliteStatementType.SELECT, "SELECT *, rowid as rowid FROM t1"))
+    )
+
+    // Act
+    val rows = listOf(0, 10, 30, 20).flatMap { pumpEventsAndWaitForFuture(resultSet.getRowBatch(it, 10)) }
+
+    // Assert
+    val expectedRowIds = (1..10) + (11..20) + (31..40) + (21..30)
+    assertEquals(expectedRowIds.map { it.toString() }, rows.map { (it.values.last().value as SqliteValue.StringValue).value })
+  }
+
+  fun `test GetRowBatch KeepsTheOrderAndLimitOfUserQueries`() {
+    // Prepare
+    val customSqliteFile = sqliteUtil.createAdHocSqliteDatabase(
+      createStatement = "CREATE TABLE t1 (c1 INT)",
+      insertStatement = "INSERT INTO t1 (c1) VALUES ${(1..50).joinToString { "($it)" }}"
+    )
+    customConnection = pumpEventsAndWaitForFuture(
+      getJdbcDatabaseConnection(testRootDisposable, customSqliteFile, FutureCallbackExecutor.wrap(EdtExecutorService.getInstance()))
+    )
+    val orderedResultSet = pumpEventsAndWaitForFuture(
+      customConnection!!.query(SqliteStatement(SqliteStatementType.SELECT, "SELECT *, rowid as rowid FROM t1 ORDER BY c1 DESC"))
+    )
+    val limitedResultSet = pumpEventsAndWaitForFuture(
+      customConnection!!.query(SqliteStatement(SqliteStatementType.SELECT, "SELECT *, rowid as rowid FROM t1 LIMIT 5"))
+    )
+
+    // Act
+    val orderedRows = pumpEventsAndWaitForFuture(orderedResultSet.getRowBatch(0, 10))
+    val limitedRows = pumpEventsAndWaitForFuture(limitedResultSet.getRowBatch(0, 10))
+
+    // Assert
+    assertEquals((50 downTo 41).map { it.toString() }, orderedRows.map { (it.values.first().value as SqliteValue.StringValue).value })
+    assertEquals((1..5).map { it.toString() }, limitedRows.map { (it.values.first().value as SqliteValue.StringValue).value })
+  }
+}
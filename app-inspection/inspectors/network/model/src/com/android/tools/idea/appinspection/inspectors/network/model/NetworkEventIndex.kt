@@ -0,0 +1,149 @@
+/*
+ * Copyright (C) 2022 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.android.tools.idea.appinspection.inspectors.network.model
+
+import studio.network.inspection.NetworkInspectorProtocol.Event
+import java.util.concurrent.ConcurrentHashMap
+import java.util.concurrent.CopyOnWriteArrayList
+import java.util.concurrent.TimeUnit
+
+/**
+ * Append-only log of events sorted by timestamp, e.g. speed samples.
+ *
+ * Timestamps are kept in fixed-size primitive chunks, separate from the events, so that range searches only touch long arrays.
+ * Chunks are never reallocated and the size is published last, so readers can search concurrently with the (single) writer
+ * without any locking: a reader only ever sees the events that were fully added when it started.
+ */
+internal class TimestampedEventLog {
+  private val timestampChunks = CopyOnWriteArrayList<LongArray>()
+  private val eventChunks = CopyOnWriteArrayList<Array<Event?>>()
+
+  @Volatile
+  var size = 0
+    private set
+
+  /**
+   * Appends [event], whose timestamp must not be lower than the timestamp of the last added event. Must not be called concurrently.
+   */
+  fun add(event: Event) {
+    val index = size
+    if (index % CHUNK_SIZE == 0) {
+      timestampChunks.add(LongArray(CHUNK_SIZE))
+      eventChunks.add(arrayOfNulls(CHUNK_SIZE))
+    }
+    timestampChunks[index / CHUNK_SIZE][index % CHUNK_SIZE] = event.timestamp
+    eventChunks[index / CHUNK_SIZE][index % CHUNK_SIZE] = event
+    size = index + 1
+  }
+
+  /**
+   * Returns all events whose timestamp is in [[min], [max]], in O(log n + k).
+   */
+  fun searchRange(min: Long, max: Long): List<Event> {
+    val count = size
+    val start = lowerBound(min, count)
+    val end = if (max == Long.MAX_VALUE) count else lowerBound(max + 1, count)
+    return (start until end).map { eventChunks[it / CHUNK_SIZE][it % CHUNK_SIZE]!! }
+  }
+
+  /**
+   * Index of the first event whose timestamp is at least [timestamp], or [count] if there is none. Unlike a plain binary search,
+   * this is well defined when several events share the same timestamp.
+   */
+  private fun lowerBound(timestamp: Long, count: Int): Int {
+    var low = 0
+    var high = count
+    while (low < high) {
+      val mid = (low + high) ushr 1
+      if (timestampChunks[mid / CHUNK_SIZE][mid % CHUNK_SIZE] < timestamp) low = mid + 1 else high = mid
+    }
+    return low
+  }
+
+  private companion object {
+    const val CHUNK_SIZE = 4096
+  }
+}
+
+/**
+ * Index of the events of HTTP connections, queried by time range.
+ *
+ * The lifetime of a connection spans from its first to its last event. Time is split into buckets of [bucketWidthNs], and every
+ * connection is registered in all the buckets its lifetime overlaps, so a range query only visits the buckets of the range and the
+ * connections in them instead of every connection ever recorded.
+ *
+ * The events of a connection are replaced by a new immutable list on every insertion, so readers always work on a consistent
+ * snapshot and can query concurrently with the (single) writer.
+ */
+internal class HttpConnectionIndex(private val bucketWidthNs: Long = TimeUnit.SECONDS.toNanos(1)) {
+  private class Connection(@Volatile var events: List<Event>) {
+    // Only accessed by the writer.
+    var firstBucket = Long.MAX_VALUE
+    var lastBucket = Long.MIN_VALUE
+  }
+
+  private val connections = ConcurrentHashMap<Long, Connection>()
+  private val buckets = ConcurrentHashMap<Long, MutableSet<Connection>>()
+
+  /**
+   * Adds the event of a connection. Must not be called concurrently.
+   */
+  fun add(event: Event) {
+    val connection = connections.getOrPut(event.httpConnectionEvent.connectionId) { Connection(emptyList()) }
+    val events = connection.events + event
+    connection.events = events
+    // Register the connection in the buckets it now covers, before it becomes visible through them.
+    val first = bucketOf(minOf(events.first().timestamp, events.last().timestamp))
+    val last = bucketOf(maxOf(events.first().timestamp, events.last().timestamp))
+    for (bucket in first..last) {
+      if (bucket < connection.firstBucket || bucket > connection.lastBucket) {
+        buckets.getOrPut(bucket) { ConcurrentHashMap.newKeySet() }.add(connection)
+      }
+    }
+    connection.firstBucket = minOf(connection.firstBucket, first)
+    connection.lastBucket = maxOf(connection.lastBucket, last)
+  }
+
+  /**
+   * Returns the events of all the connections that intersect [[min], [max]], sorted by timestamp.
+   */
+  fun searchRange(min: Long, max: Long): List<Event> {
+    val candidates = LinkedHashSet<Connection>()
+    val first = bucketOf(min)
+    val last = bucketOf(max)
+    if (last - first < buckets.size) {
+      for (bucket in first..last) buckets[bucket]?.let { candidates.addAll(it) }
+    }
+    else {
+      // The range has more buckets than were ever recorded; checking every connection is cheaper than walking the range.
+      candidates.addAll(connections.values)
+    }
+    return candidates.asSequence()
+      .map { it.events }
+      .filter { events -> intersectsRange(min, max, events) }
+      .flatten()
+      .sortedBy { event -> event.timestamp }
+      .toList()
+  }
+
+  private fun bucketOf(timestamp: Long) = Math.floorDiv(timestamp, bucketWidthNs)
+
+  private fun intersectsRange(min: Long, max: Long, data: List<Event>): Boolean {
+    val firstEventTimestamp = data.firstOrNull()?.timestamp ?: return false
+    val lastEventTimestamp = data.last().timestamp
+    return firstEventTimestamp in min..max || lastEventTimestamp in min..max || (firstEventTimestamp < min && lastEventTimestamp > max)
+  }
+}
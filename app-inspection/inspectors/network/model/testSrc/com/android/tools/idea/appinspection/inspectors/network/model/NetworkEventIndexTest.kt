@@ -0,0 +1,100 @@
+/*
+ * Copyright (C) 2022 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.android.tools.idea.appinspection.inspectors.network.model
+
+import com.google.common.truth.Truth.assertThat
+import org.junit.Test
+import studio.network.inspection.NetworkInspectorProtocol.Event
+import studio.network.inspection.NetworkInspectorProtocol.HttpConnectionEvent
+import studio.network.inspection.NetworkInspectorProtocol.SpeedEvent
+import java.util.concurrent.Executors
+import java.util.concurrent.TimeUnit
+
+class NetworkEventIndexTest {
+  private fun speedEvent(timestamp: Long) =
+    Event.newBuilder().setTimestamp(timestamp).setSpeedEvent(SpeedEvent.getDefaultInstance()).build()
+
+  private fun httpEvent(connectionId: Long, timestamp: Long) =
+    Event.newBuilder().setTimestamp(timestamp).setHttpConnectionEvent(
+      HttpConnectionEvent.newBuilder().setConnectionId(connectionId).setHttpClosed(HttpConnectionEvent.Closed.getDefaultInstance())
+    ).build()
+
+  @Test
+  fun eventLogSpansSeveralChunks() {
+    val log = TimestampedEventLog()
+    val events = (0 until 10_000L).map { speedEvent(it / 2) }
+    events.forEach { log.add(it) }
+
+    assertThat(log.size).isEqualTo(10_000)
+    assertThat(log.searchRange(0, Long.MAX_VALUE)).isEqualTo(events)
+    assertThat(log.searchRange(2047, 2049)).isEqualTo(events.subList(4094, 4100))
+    assertThat(log.searchRange(-10, -1)).isEmpty()
+    assertThat(log.searchRange(5000, 6000)).isEmpty()
+  }
+
+  @Test
+  fun eventLogReadersRunConcurrentlyWithWriter() {
+    val log = TimestampedEventLog()
+    val executor = Executors.newFixedThreadPool(4)
+    try {
+      val readers = (0 until 4).map {
+        executor.submit {
+          repeat(1000) {
+            // Whatever the reader sees must be a sorted prefix of the log.
+            val events = log.searchRange(0, Long.MAX_VALUE)
+            events.forEachIndexed { index, event -> assertThat(event.timestamp).isEqualTo(index.toLong()) }
+          }
+        }
+      }
+      (0 until 20_000L).forEach { log.add(speedEvent(it)) }
+      readers.forEach { it.get() }
+    }
+    finally {
+      executor.shutdownNow()
+    }
+  }
+
+  @Test
+  fun connectionIndexFindsConnectionsSpanningTheRange() {
+    val second = TimeUnit.SECONDS.toNanos(1)
+    val index = HttpConnectionIndex(second)
+    // A connection that lasts for a long time, but has no event in the queried range.
+    val longStart = httpEvent(1, 0)
+    val longEnd = httpEvent(1, 100 * second)
+    // Connections inside and outside the range.
+    val inside = httpEvent(2, 50 * second)
+    val outside = httpEvent(3, 10 * second)
+    listOf(longStart, inside, outside, longEnd).forEach { index.add(it) }
+
+    assertThat(index.searchRange(40 * second, 60 * second)).containsExactly(longStart, inside, longEnd).inOrder()
+    assertThat(index.searchRange(10 * second, 10 * second)).containsExactly(longStart, outside, longEnd).inOrder()
+    assertThat(index.searchRange(-second, Long.MAX_VALUE)).containsExactly(longStart, outside, inside, longEnd).inOrder()
+    assertThat(index.searchRange(200 * second, 300 * second)).isEmpty()
+  }
+
+  @Test
+  fun connectionIndexSeesConnectionsExtendedLater() {
+    val second = TimeUnit.SECONDS.toNanos(1)
+    val index = HttpConnectionIndex(second)
+    val start = httpEvent(1, 0)
+    index.add(start)
+    assertThat(index.searchRange(5 * second, 6 * second)).isEmpty()
+
+    val end = httpEvent(1, 10 * second)
+    index.add(end)
+    assertThat(index.searchRange(5 * second, 6 * second)).containsExactly(start, end).inOrder()
+  }
+}
@@ -54,10 +54,16 @@ fun runWithBleak(options: BleakOptions, scenario: () -> Unit) {
   }
 }
 
+/**
+ * @param incrementalExpansion If true, the graphs of the middle iterations only expand the paths leading to the leak roots of the
+ * previous iteration, instead of the whole heap. The whole graph is still built on the first and last iterations. Off by default,
+ * since a leak root whose path changes between iterations is then lost rather than found again through the whole heap.
+ */
 class MainBleakCheck(ignoreList: IgnoreList<LeakInfo>,
                      knownIssues: IgnoreList<LeakInfo> = IgnoreList(),
                      customExpanderSupplier: Supplier<List<Expander>>,
-                     private val forbiddenObjects: List<Any> = listOf()):
+                     private val forbiddenObjects: List<Any> = listOf(),
+                     private val incrementalExpansion: Boolean = false):
   BleakCheck<() -> ExpanderChooser, LeakInfo>({ getExpanderChooser(customExpanderSupplier) }, ignoreList, knownIssues) {
   private lateinit var g1: HeapGraph
   private lateinit var g2: HeapGraph
@@ -70,8 +76,13 @@ class MainBleakCheck(ignoreList: IgnoreList<LeakInfo>,
   }
 
   override fun middleIterationFinished() {
-    g2 = buildGraph()
-    g1.propagateGrowing(g2)
+    if (incrementalExpansion) {
+      g2 = HeapGraph(options(), forbiddenObjects)
+      g1.propagateGrowingIncremental(g2)
+    } else {
+      g2 = buildGraph()
+      g1.propagateGrowing(g2)
+    }
     g1 = g2
   }
 
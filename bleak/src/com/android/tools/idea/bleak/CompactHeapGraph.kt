@@ -0,0 +1,86 @@
+/*
+ * Copyright (C) 2022 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.android.tools.idea.bleak
+
+/**
+ * [CompactHeapGraph] is a read-only snapshot of the edges of a [HeapGraph], stored as int arrays: node i is the [Node] whose
+ * [Node.id] is i, and its successors are `successors[offsets[i] until offsets[i+1]]` (compressed sparse row layout).
+ *
+ * The [DominatorTree] of the snapshot is computed once, on first use. Nodes unreachable from the roots have no immediate dominator.
+ */
+class CompactHeapGraph(private val nodes: List<Node>, roots: Collection<Node>): DoNotTrace {
+  private val size = nodes.size
+  private val rootIds = roots.map { it.id }.toIntArray()
+  private val offsets = IntArray(size + 1)
+  private val successors: IntArray
+
+  init {
+    for (node in nodes) offsets[node.id + 1] = node.edges.size
+    for (i in 0 until size) offsets[i + 1] += offsets[i]
+    successors = IntArray(offsets[size])
+    for (node in nodes) {
+      var next = offsets[node.id]
+      for (e in node.edges) successors[next++] = e.end.id
+    }
+  }
+
+  private val dominatorTree by lazy { DominatorTree(size, rootIds, offsets, successors) }
+
+  /** Immediate dominator of [node], or null for the roots and for unreachable nodes. */
+  fun immediateDominator(node: Node): Node? = dominatorTree.immediateDominator(node.id).let { if (it >= 0) nodes[it] else null }
+
+  /** Nodes in the dominator subtree of [node], including itself. */
+  fun dominatedNodes(node: Node): List<Node> = dominatorTree.dominatedBy(node.id).map { nodes[it] }
+
+  /**
+   * Nodes that are only reachable from the roots through [dominators], i.e. the nodes that would be collected if all the
+   * dominators were. This is the set counterpart of [dominatedNodes], answered with two traversals of the CSR arrays.
+   */
+  fun dominatedNodes(dominators: Collection<Node>): List<Node> {
+    val isDominator = BooleanArray(size)
+    dominators.forEach { isDominator[it.id] = true }
+    // First mark everything reachable without going through a dominator...
+    val reachable = BooleanArray(size)
+    traverse(rootIds.filter { !isDominator[it] }, reachable) { !isDominator[it] }
+    // ... then everything else that is reachable from the dominators is retained by them.
+    val retained = BooleanArray(size)
+    val result = mutableListOf<Node>()
+    traverse(dominators.map { it.id }, retained) { !reachable[it] }
+    for (id in 0 until size) if (retained[id]) result.add(nodes[id])
+    return result
+  }
+
+  private inline fun traverse(start: List<Int>, visited: BooleanArray, filter: (Int) -> Boolean) {
+    val stack = IntArray(size)
+    var top = 0
+    for (id in start) {
+      if (!visited[id]) {
+        visited[id] = true
+        stack[top++] = id
+      }
+    }
+    while (top > 0) {
+      val id = stack[--top]
+      for (i in offsets[id] until offsets[id + 1]) {
+        val child = successors[i]
+        if (!visited[child] && filter(child)) {
+          visited[child] = true
+          stack[top++] = child
+        }
+      }
+    }
+  }
+}
@@ -0,0 +1,150 @@
+/*
+ * Copyright (C) 2022 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.android.tools.idea.bleak
+
+/**
+ * Dominator tree of a graph of [size] nodes whose successors are given in compressed sparse row layout: the successors of node i are
+ * `successors[offsets[i] until offsets[i+1]]`. A node dominates another if every path from [roots] to the latter goes through it.
+ *
+ * The tree is computed with Lengauer-Tarjan, with a virtual root (id [size]) pointing to all the graph roots. All the recursion of the
+ * textbook algorithm is unrolled, since heap graphs are far too deep for the call stack.
+ */
+internal class DominatorTree(val size: Int,
+                             private val roots: IntArray,
+                             private val offsets: IntArray,
+                             private val successors: IntArray) {
+  /** Reachable nodes in depth-first preorder, so every node comes after its immediate dominator. Set by [computeDominators]. */
+  private lateinit var dfsOrder: IntArray
+  private val idoms: IntArray = computeDominators()
+
+  /** Immediate dominator of node [id], or -1 for the roots and for unreachable nodes. */
+  fun immediateDominator(id: Int): Int = idoms[id]
+
+  fun isReachable(id: Int) = idoms[id] >= 0 || id in roots
+
+  /** Nodes in the dominator subtree of node [id], including itself, in depth-first preorder. */
+  fun dominatedBy(id: Int): List<Int> {
+    if (!isReachable(id)) return emptyList()
+    val dominated = BooleanArray(size)
+    dominated[id] = true
+    val result = mutableListOf(id)
+    // A node is dominated by `id` iff its immediate dominator is; DFS order guarantees the immediate dominator is decided first.
+    for (v in dfsOrder) {
+      val idom = idoms[v]
+      if (idom >= 0 && dominated[idom]) {
+        dominated[v] = true
+        result.add(v)
+      }
+    }
+    return result
+  }
+
+  private fun computeDominators(): IntArray {
+    val n = size + 1
+    val virtualRoot = size
+    fun successorsOf(v: Int, action: (Int) -> Unit) {
+      if (v == virtualRoot) roots.forEach(action) else for (i in offsets[v] until offsets[v + 1]) action(successors[i])
+    }
+
+    // Depth-first numbering. semi[v] holds the DFS number of v until it is replaced by the number of its semi-dominator.
+    val semi = IntArray(n) { -1 }
+    val vertex = IntArray(n)
+    val parent = IntArray(n) { -1 }
+    var count = 0
+    run {
+      val stack = IntArray(n + successors.size + roots.size)
+      val stackParent = IntArray(stack.size)
+      var top = 0
+      stack[top++] = virtualRoot
+      while (top > 0) {
+        top--
+        val v = stack[top]
+        if (semi[v] != -1) continue
+        semi[v] = count
+        vertex[count++] = v
+        parent[v] = stackParent[top]
+        successorsOf(v) { w ->
+          if (semi[w] == -1) {
+            stackParent[top] = v
+            stack[top++] = w
+          }
+        }
+      }
+    }
+    parent[virtualRoot] = -1
+
+    // Predecessors of the reachable nodes, in CSR layout.
+    val predOffsets = IntArray(n + 1)
+    for (i in 0 until count) successorsOf(vertex[i]) { w -> predOffsets[w + 1]++ }
+    for (i in 0 until n) predOffsets[i + 1] += predOffsets[i]
+    val predecessors = IntArray(predOffsets[n])
+    val fill = predOffsets.copyOf(n)
+    for (i in 0 until count) { val v = vertex[i]; successorsOf(v) { w -> predecessors[fill[w]++] = v } }
+
+    val idom = IntArray(n) { -1 }
+    val ancestor = IntArray(n) { -1 }
+    val label = IntArray(n) { it }
+    val bucketHead = IntArray(n) { -1 }
+    val bucketNext = IntArray(n) { -1 }
+    val path = IntArray(n)
+
+    fun eval(v: Int): Int {
+      if (ancestor[v] == -1) return v
+      // compress(v), iteratively: collect the path up to the forest root, then propagate labels from the top down.
+      var depth = 0
+      var x = v
+      while (ancestor[ancestor[x]] != -1) {
+        path[depth++] = x
+        x = ancestor[x]
+      }
+      while (depth > 0) {
+        val y = path[--depth]
+        val a = ancestor[y]
+        if (semi[label[a]] < semi[label[y]]) label[y] = label[a]
+        ancestor[y] = ancestor[a]
+      }
+      return label[v]
+    }
+
+    for (i in count - 1 downTo 1) {
+      val w = vertex[i]
+      for (p in predOffsets[w] until predOffsets[w + 1]) {
+        val u = eval(predecessors[p])
+        if (semi[u] < semi[w]) semi[w] = semi[u]
+      }
+      val s = vertex[semi[w]]
+      bucketNext[w] = bucketHead[s]
+      bucketHead[s] = w
+      val pw = parent[w]
+      ancestor[w] = pw
+      var v = bucketHead[pw]
+      while (v != -1) {
+        val u = eval(v)
+        idom[v] = if (semi[u] < semi[v]) u else pw
+        v = bucketNext[v]
+      }
+      bucketHead[pw] = -1
+    }
+    for (i in 1 until count) {
+      val w = vertex[i]
+      if (idom[w] != vertex[semi[w]]) idom[w] = idom[idom[w]]
+    }
+
+    // Drop the virtual root: graph roots end up without an immediate dominator.
+    dfsOrder = IntArray(count - 1) { vertex[it + 1] }
+    return IntArray(size) { if (idom[it] == virtualRoot) -1 else idom[it] }
+  }
+}
@@ -40,12 +40,15 @@ typealias Node = HeapGraph.Node
 class HeapGraph(private val expanderChooser: ExpanderChooser, private val forbiddenObjects: List<Any> = listOf()): DoNotTrace {
 
   private val objToNode: MutableMap<Any, Node> = IdentityHashMap()
+  // indexed by Node.id
+  private val nodeList: MutableList<Node> = mutableListOf()
   private val rootNodes: List<Node> = mutableListOf(Node(jniHelper, true))
   private val nodes: MutableCollection<Node>
     get() = objToNode.values
   val leakRoots: MutableList<Node> = mutableListOf()
 
   inner class Node(val obj: Any, val isRootNode: Boolean = false): DoNotTrace {
+    val id = nodeList.size
     val expander = expanderChooser.expanderFor(obj)
     val edges = mutableListOf<Edge>()
     val type: Class<*> = obj.javaClass
@@ -63,6 +66,7 @@ class HeapGraph(private val expanderChooser: ExpanderChooser, private val forbid
 
     init {
       objToNode[obj] = this
+      nodeList.add(this)
     }
 
     fun expand() {
@@ -145,11 +149,6 @@ class HeapGraph(private val expanderChooser: ExpanderChooser, private val forbid
       }
       return found && target.isReachableFrom(this)
     }
-
-    // trashes marks
-    private fun dominatedNodes(roots: Collection<Node> = rootNodes, followWeakSoftRefs: Boolean = false) = dominatedNodes(setOf(this), roots)
-
-    fun retainedSize() = dominatedNodes().fold(0L) { acc, node -> acc + node.approximateSize }
   }
 
   private fun forEachNode(action: Node.() -> Unit) = nodes.forEach { it.action() }
@@ -263,9 +262,11 @@ class HeapGraph(private val expanderChooser: ExpanderChooser, private val forbid
   }
 
   fun getLeaks(prevGraph: HeapGraph): List<LeakInfo> {
+    // The snapshot is only needed while the leaks are analyzed: LeakInfo does not keep it, so it is not held alongside the graph.
+    val compactGraph = CompactHeapGraph(nodeList, rootNodes)
     return leakRoots.map { root ->
       (prevGraph.getNodeForPath(root.getPath()) ?: prevGraph.leakRoots.find { it.obj === root.obj })?.let { prevRoot ->
-        LeakInfo(this, root, prevRoot)
+        LeakInfo(compactGraph, root, prevRoot)
       }
     }.filterNotNull()
   }
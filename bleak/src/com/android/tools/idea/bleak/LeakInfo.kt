@@ -17,14 +17,14 @@ package com.android.tools.idea.bleak
 
 import java.util.IdentityHashMap
 
-class LeakInfo(private val g: HeapGraph, private val leakRoot: Node, private val prevLeakRoot: Node) {
+class LeakInfo(g: CompactHeapGraph, private val leakRoot: Node, private val prevLeakRoot: Node) {
   private val leaktrace: Leaktrace = leakRoot.getLeaktrace()
   private val childrenObjects = leakRoot.childObjects.uniqueByIdentity()
   private val prevChildrenObjects = prevLeakRoot.childObjects.uniqueByIdentity()
   private val addedChildrenObjects = childrenObjects.filter { c -> prevChildrenObjects.all { it !== c } }
   private val addedChildren = leakRoot.children.filter { c -> prevLeakRoot.children.all { it.obj !== c.obj }}
-  private val retainedByNewChildren = g.dominatedNodes(addedChildren.toSet())
-  private val retainedByAllChildren = g.dominatedNodes(leakRoot.children.toSet())
+  private val retainedByNewChildren = g.dominatedNodes(addedChildren)
+  private val retainedByAllChildren = g.dominatedNodes(leakRoot.children)
 
   override fun toString() = buildString {
     appendln(leaktrace)
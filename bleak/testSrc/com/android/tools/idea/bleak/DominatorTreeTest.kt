@@ -0,0 +1,101 @@
+/*
+ * Copyright (C) 2022 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.android.tools.idea.bleak
+
+import com.google.common.truth.Truth.assertThat
+import org.junit.Test
+
+class DominatorTreeTest {
+  @Test
+  fun chain() {
+    val tree = dominatorTree(3, intArrayOf(0), 0 to 1, 1 to 2)
+
+    assertThat(tree.idoms()).containsExactly(-1, 0, 1).inOrder()
+    assertThat(tree.dominatedBy(1)).containsExactly(1, 2)
+  }
+
+  @Test
+  fun diamond() {
+    val tree = dominatorTree(4, intArrayOf(0), 0 to 1, 0 to 2, 1 to 3, 2 to 3)
+
+    assertThat(tree.idoms()).containsExactly(-1, 0, 0, 0).inOrder()
+    assertThat(tree.dominatedBy(1)).containsExactly(1)
+    assertThat(tree.dominatedBy(0)).containsExactly(0, 1, 2, 3)
+  }
+
+  @Test
+  fun loop() {
+    // 0 -> 1 -> 2 -> 3, with a back edge 3 -> 1 and an exit 2 -> 4.
+    val tree = dominatorTree(5, intArrayOf(0), 0 to 1, 1 to 2, 2 to 3, 3 to 1, 2 to 4)
+
+    assertThat(tree.idoms()).containsExactly(-1, 0, 1, 2, 2).inOrder()
+  }
+
+  @Test
+  fun nodesReachableFromSeveralRootsAreOnlyDominatedByTheirCommonPath() {
+    // Roots 0 and 1 both reach 2, which is the only way to 3.
+    val tree = dominatorTree(4, intArrayOf(0, 1), 0 to 2, 1 to 2, 2 to 3)
+
+    assertThat(tree.idoms()).containsExactly(-1, -1, -1, 2).inOrder()
+    assertThat(tree.isReachable(2)).isTrue()
+    assertThat(tree.dominatedBy(0)).containsExactly(0)
+  }
+
+  @Test
+  fun unreachableNodesHaveNoDominator() {
+    val tree = dominatorTree(4, intArrayOf(0), 0 to 1, 2 to 3, 3 to 1)
+
+    assertThat(tree.idoms()).containsExactly(-1, 0, -1, -1).inOrder()
+    assertThat(tree.isReachable(2)).isFalse()
+    assertThat(tree.dominatedBy(2)).isEmpty()
+  }
+
+  @Test
+  fun lengauerTarjanPaperExample() {
+    // The flow graph of figure 1 of "A Fast Algorithm for Finding Dominators in a Flowgraph" (Lengauer and Tarjan, 1979).
+    val names = "RABCDEFGHIJKL"
+    val successors = mapOf("R" to "ABC", "A" to "D", "B" to "ADE", "C" to "FG", "D" to "L", "E" to "H", "F" to "I", "G" to "IJ",
+                           "H" to "EK", "I" to "K", "J" to "I", "K" to "IR", "L" to "H")
+    val edges = successors.flatMap { (from, to) -> to.map { names.indexOf(from) to names.indexOf(it) } }
+    val tree = dominatorTree(names.length, intArrayOf(0), *edges.toTypedArray())
+
+    val idoms = names.indices.associate { names[it] to tree.immediateDominator(it).let { idom -> if (idom >= 0) names[idom] else null } }
+    assertThat(idoms).containsExactlyEntriesIn(mapOf(
+      'R' to null, 'A' to 'R', 'B' to 'R', 'C' to 'R', 'D' to 'R', 'E' to 'R', 'F' to 'C', 'G' to 'C', 'H' to 'R', 'I' to 'R',
+      'J' to 'G', 'K' to 'R', 'L' to 'D'))
+    assertThat(tree.dominatedBy(names.indexOf('C')).map { names[it] }).containsExactly('C', 'F', 'G', 'J')
+  }
+
+  @Test
+  fun deepGraphsDoNotOverflowTheStack() {
+    val size = 1_000_000
+    val tree = dominatorTree(size, intArrayOf(0), *(0 until size - 1).map { it to it + 1 }.toTypedArray())
+
+    assertThat(tree.immediateDominator(size - 1)).isEqualTo(size - 2)
+  }
+
+  private fun DominatorTree.idoms(): List<Int> = (0 until size).map { immediateDominator(it) }
+
+  private fun dominatorTree(size: Int, roots: IntArray, vararg edges: Pair<Int, Int>): DominatorTree {
+    val offsets = IntArray(size + 1)
+    edges.forEach { (from, _) -> offsets[from + 1]++ }
+    for (i in 0 until size) offsets[i + 1] += offsets[i]
+    val successors = IntArray(edges.size)
+    val next = offsets.copyOf(size)
+    edges.forEach { (from, to) -> successors[next[from]++] = to }
+    return DominatorTree(size, roots, offsets, successors)
+  }
+}
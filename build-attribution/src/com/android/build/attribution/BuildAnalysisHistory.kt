@@ -0,0 +1,394 @@
+/*
+ * Copyright (C) 2022 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.android.build.attribution
+
+import com.android.build.attribution.data.TaskData
+import com.intellij.openapi.diagnostic.Logger
+import com.intellij.util.io.DataInputOutputUtil
+import java.io.BufferedOutputStream
+import java.io.ByteArrayInputStream
+import java.io.ByteArrayOutputStream
+import java.io.DataInput
+import java.io.DataInputStream
+import java.io.DataOutput
+import java.io.DataOutputStream
+import java.io.File
+import java.io.FileOutputStream
+import java.io.IOException
+import java.io.RandomAccessFile
+import java.nio.ByteBuffer
+import java.nio.file.Files
+import java.nio.file.StandardCopyOption
+import java.util.zip.CRC32
+import kotlin.math.ceil
+
+private val LOG = Logger.getInstance(BuildAnalysisHistory::class.java)
+
+private const val MAGIC = 0x42414831 // "BAH1"
+private const val VERSION = 2
+
+private const val ENTRY_TASK_PATH: Byte = 1
+private const val ENTRY_BUILD: Byte = 2
+
+/** Size of the kind, length and checksum written before the data of each entry. */
+private const val ENTRY_HEADER_SIZE = 9
+
+/**
+ * Number of builds kept in the history, which is several months of builds for most projects.
+ */
+private const val DEFAULT_MAX_BUILDS = 10_000
+
+/**
+ * Summary of a build kept in [BuildAnalysisHistory]: the timings needed to follow the build time of a project over time, without the
+ * full [BuildAnalysisResults].
+ */
+data class BuildHistoryRecord(
+  val buildID: String,
+  val buildStartedTimestamp: Long,
+  val buildFinishedTimestamp: Long,
+  val configurationTimeMs: Long,
+  val garbageCollectionTimeMs: Long,
+  /** Execution time of each task of the build, by task path. */
+  val taskDurationsMs: Map<String, Long>,
+  /** Paths of the tasks determining the build duration. */
+  val criticalPathTasks: List<String>
+) {
+  val buildDurationMs: Long
+    get() = buildFinishedTimestamp - buildStartedTimestamp
+
+  companion object {
+    fun create(results: BuildAnalysisResults, tasks: Collection<TaskData>) = BuildHistoryRecord(
+      buildID = results.getBuildSessionID(),
+      buildStartedTimestamp = results.getBuildStartedTimestamp(),
+      buildFinishedTimestamp = results.getBuildFinishedTimestamp(),
+      configurationTimeMs = results.getConfigurationPhaseTimeMs(),
+      garbageCollectionTimeMs = results.getTotalGarbageCollectionTimeMs(),
+      taskDurationsMs = tasks.associate { it.getTaskPath() to it.executionTime },
+      criticalPathTasks = results.getCriticalPathTasks().map { it.getTaskPath() }
+    )
+  }
+}
+
+/**
+ * Distribution of a duration over several builds.
+ */
+data class DurationTrend(val buildCount: Int, val p50Ms: Long, val p95Ms: Long, val minMs: Long, val maxMs: Long)
+
+/**
+ * A task that took [durationMs] in a build, while it took [baseDurationMs] in the build it's compared with. [baseDurationMs] is 0 for
+ * tasks that didn't run in the base build.
+ */
+data class TaskRegression(val taskPath: String, val baseDurationMs: Long, val durationMs: Long) {
+  val differenceMs: Long
+    get() = durationMs - baseDurationMs
+}
+
+/**
+ * Append-only history of the builds of a project, saved in [file] so it survives restarts.
+ *
+ * The file is a sequence of entries: task path entries give an id to each task path the first time it's seen, and build entries
+ * refer to task paths by id, with all numbers written as variable length integers. This keeps each build to a few bytes per task.
+ * Only the position and the build ID of each build are kept in memory; the builds themselves are read from the file when queried.
+ *
+ * Once the history holds a tenth more than [maxBuilds] builds, the file is rewritten with only the last [maxBuilds] builds, so that
+ * it doesn't have to be rewritten on every build.
+ *
+ * Every entry is written with its length and a checksum of its data. When the history is opened, an entry that was only partly
+ * written (e.g. because the IDE was killed or the disk was full) or that is otherwise damaged is skipped, along with the builds that
+ * use a task path it defined, and the entries after it are still read. The file is then rewritten without the skipped entries.
+ */
+class BuildAnalysisHistory(private val file: File, private val maxBuilds: Int = DEFAULT_MAX_BUILDS) {
+  private class BuildEntry(val buildID: String, val offset: Long)
+
+  // Guarded by this.
+  private val taskPaths = HashMap<Int, String>()
+
+  // Guarded by this.
+  private val taskPathIds = HashMap<String, Int>()
+
+  // Guarded by this.
+  private var nextTaskPathId = 0
+
+  // Guarded by this.
+  private val builds = mutableListOf<BuildEntry>()
+
+  init {
+    var damaged = false
+    try {
+      damaged = !load()
+    }
+    catch (e: IOException) {
+      LOG.warn("Failed to load build analysis history from $file, starting a new one", e)
+      reset()
+    }
+    compactIfNeeded(force = damaged)
+  }
+
+  /** IDs of the builds in the history, from the oldest to the latest. */
+  @Synchronized
+  fun getBuildIDs(): List<String> = builds.map { it.buildID }
+
+  @Synchronized
+  fun append(record: BuildHistoryRecord) {
+    val fileLength = file.length()
+    val bytes = ByteArrayOutputStream()
+    val newTaskPathIds = LinkedHashMap<String, Int>()
+    val buildOffset: Long
+    DataOutputStream(bytes).use { out ->
+      for (path in record.taskDurationsMs.keys + record.criticalPathTasks) {
+        if (path in taskPathIds || path in newTaskPathIds) continue
+        val id = nextTaskPathId + newTaskPathIds.size
+        newTaskPathIds[path] = id
+        writeTaskPath(out, id, path)
+      }
+      buildOffset = fileLength + out.size()
+      writeBuild(out, record) { taskPathIds[it] ?: newTaskPathIds.getValue(it) }
+    }
+    try {
+      FileOutputStream(file, true).use { it.write(bytes.toByteArray()) }
+    }
+    catch (e: IOException) {
+      LOG.warn("Failed to save build ${record.buildID} in the build analysis history", e)
+      // Don't leave part of the entries behind for the next builds to be appended after.
+      try {
+        RandomAccessFile(file, "rw").use { it.setLength(fileLength) }
+      }
+      catch (ignored: IOException) {
+      }
+      return
+    }
+    newTaskPathIds.forEach { (path, id) -> addTaskPath(id, path) }
+    builds.add(BuildEntry(record.buildID, buildOffset))
+    compactIfNeeded()
+  }
+
+  /** Returns the build with the given ID, or null if it's not in the history. */
+  @Synchronized
+  fun getBuild(buildID: String): BuildHistoryRecord? = builds.lastOrNull { it.buildID == buildID }?.let { readBuilds(listOf(it)).single() }
+
+  /** Returns the last [count] builds of the history, from the oldest to the latest. */
+  @Synchronized
+  fun getLastBuilds(count: Int): List<BuildHistoryRecord> = readBuilds(builds.takeLast(count))
+
+  /**
+   * Returns the distribution of the execution time of the task at [taskPath] over the last [lastBuilds] builds, ignoring the builds it
+   * didn't run in, or null if it didn't run in any of them.
+   */
+  fun getTaskDurationTrend(taskPath: String, lastBuilds: Int): DurationTrend? {
+    return durationTrend(getLastBuilds(lastBuilds).mapNotNull { it.taskDurationsMs[taskPath] })
+  }
+
+  /** Returns the distribution of the duration of the last [lastBuilds] builds, or null if the history is empty. */
+  fun getBuildDurationTrend(lastBuilds: Int): DurationTrend? = durationTrend(getLastBuilds(lastBuilds).map { it.buildDurationMs })
+
+  /**
+   * Returns the tasks that took at least [minDifferenceMs] more in the build with ID [buildID] than in the build with ID [baseBuildID],
+   * from the largest to the smallest regression.
+   *
+   * @exception NoSuchElementException if one of the builds is not in the history
+   */
+  fun getRegressions(baseBuildID: String, buildID: String, minDifferenceMs: Long = 0): List<TaskRegression> {
+    val base = getBuild(baseBuildID) ?: throw NoSuchElementException("No such build was found in the history: $baseBuildID")
+    val build = getBuild(buildID) ?: throw NoSuchElementException("No such build was found in the history: $buildID")
+    return build.taskDurationsMs
+      .map { (path, duration) -> TaskRegression(path, base.taskDurationsMs[path] ?: 0, duration) }
+      .filter { it.differenceMs > 0 && it.differenceMs >= minDifferenceMs }
+      .sortedByDescending { it.differenceMs }
+  }
+
+  private fun durationTrend(durations: List<Long>): DurationTrend? {
+    if (durations.isEmpty()) return null
+    val sorted = durations.sorted()
+    // Nearest-rank percentile.
+    fun percentile(p: Double) = sorted[(ceil(p * sorted.size).toInt() - 1).coerceIn(sorted.indices)]
+    return DurationTrend(sorted.size, percentile(0.50), percentile(0.95), sorted.first(), sorted.last())
+  }
+
+  private fun addTaskPath(id: Int, path: String) {
+    taskPaths[id] = path
+    taskPathIds[path] = id
+    nextTaskPathId = maxOf(nextTaskPathId, id + 1)
+  }
+
+  private fun readBuilds(entries: List<BuildEntry>): List<BuildHistoryRecord> {
+    if (entries.isEmpty()) return emptyList()
+    RandomAccessFile(file, "r").use { input ->
+      return entries.map {
+        input.seek(it.offset)
+        check(input.readByte() == ENTRY_BUILD) { "No build at offset ${it.offset} of $file" }
+        val data = ByteArray(input.readInt())
+        input.readInt() // The checksum was verified when the history was loaded.
+        input.readFully(data)
+        readBuild(DataInputStream(ByteArrayInputStream(data)))
+      }
+    }
+  }
+
+  private fun writeEntry(out: DataOutput, kind: Byte, writeData: (DataOutput) -> Unit) {
+    val bytes = ByteArrayOutputStream()
+    DataOutputStream(bytes).use(writeData)
+    val data = bytes.toByteArray()
+    out.writeByte(kind.toInt())
+    out.writeInt(data.size)
+    out.writeInt(checksum(data, 0, data.size))
+    out.write(data)
+  }
+
+  private fun checksum(bytes: ByteArray, offset: Int, length: Int): Int = CRC32().apply { update(bytes, offset, length) }.value.toInt()
+
+  private fun writeTaskPath(out: DataOutput, id: Int, path: String) = writeEntry(out, ENTRY_TASK_PATH) {
+    DataInputOutputUtil.writeINT(it, id)
+    it.writeUTF(path)
+  }
+
+  private fun writeBuild(out: DataOutput, record: BuildHistoryRecord, taskPathId: (String) -> Int) = writeEntry(out, ENTRY_BUILD) {
+    it.writeUTF(record.buildID)
+    DataInputOutputUtil.writeLONG(it, record.buildStartedTimestamp)
+    DataInputOutputUtil.writeLONG(it, record.buildFinishedTimestamp - record.buildStartedTimestamp)
+    DataInputOutputUtil.writeLONG(it, record.configurationTimeMs)
+    DataInputOutputUtil.writeLONG(it, record.garbageCollectionTimeMs)
+    DataInputOutputUtil.writeINT(it, record.taskDurationsMs.size)
+    for ((path, duration) in record.taskDurationsMs) {
+      DataInputOutputUtil.writeINT(it, taskPathId(path))
+      DataInputOutputUtil.writeLONG(it, duration)
+    }
+    DataInputOutputUtil.writeINT(it, record.criticalPathTasks.size)
+    record.criticalPathTasks.forEach { path -> DataInputOutputUtil.writeINT(it, taskPathId(path)) }
+  }
+
+  /** Reads the data of a build entry. */
+  private fun readBuild(input: DataInput): BuildHistoryRecord {
+    fun taskPath(id: Int) = taskPaths[id] ?: throw IOException("Unknown task path id $id")
+    val buildID = input.readUTF()
+    val started = DataInputOutputUtil.readLONG(input)
+    val finished = started + DataInputOutputUtil.readLONG(input)
+    val configurationTime = DataInputOutputUtil.readLONG(input)
+    val gcTime = DataInputOutputUtil.readLONG(input)
+    val taskDurations = LinkedHashMap<String, Long>()
+    repeat(DataInputOutputUtil.readINT(input)) {
+      taskDurations[taskPath(DataInputOutputUtil.readINT(input))] = DataInputOutputUtil.readLONG(input)
+    }
+    val criticalPath = List(DataInputOutputUtil.readINT(input)) { taskPath(DataInputOutputUtil.readINT(input)) }
+    return BuildHistoryRecord(buildID, started, finished, configurationTime, gcTime, taskDurations, criticalPath)
+  }
+
+  /**
+   * Reads the entries of the file, skipping the damaged ones. Returns false if any entry was skipped, so that the file should be
+   * rewritten.
+   */
+  private fun load(): Boolean {
+    if (!file.exists() || file.length() == 0L) {
+      reset()
+      return true
+    }
+    val bytes = ByteBuffer.wrap(file.readBytes())
+    if (bytes.remaining() < 8 || bytes.getInt() != MAGIC || bytes.getInt() != VERSION) throw IOException("Unknown format of $file")
+    var intact = true
+    while (bytes.hasRemaining()) {
+      val offset = bytes.position()
+      if (!isIntactEntry(bytes, offset)) {
+        // Skip to the next intact entry, if there is one: only the damaged entry is lost.
+        val next = (offset + 1 until bytes.limit()).firstOrNull { isIntactEntry(bytes, it) } ?: bytes.limit()
+        LOG.warn("Skipping ${next - offset} damaged bytes of $file at offset $offset")
+        intact = false
+        bytes.position(next)
+        continue
+      }
+      val kind = bytes.get(offset)
+      val length = bytes.getInt(offset + 1)
+      val data = DataInputStream(ByteArrayInputStream(bytes.array(), offset + ENTRY_HEADER_SIZE, length))
+      try {
+        when (kind) {
+          ENTRY_TASK_PATH -> addTaskPath(DataInputOutputUtil.readINT(data), data.readUTF())
+          ENTRY_BUILD -> builds.add(BuildEntry(readBuild(data).buildID, offset.toLong()))
+        }
+      }
+      catch (e: IOException) {
+        // E.g. a build using a task path whose entry was damaged.
+        LOG.warn("Skipping the unreadable entry of $file at offset $offset", e)
+        intact = false
+      }
+      bytes.position(offset + ENTRY_HEADER_SIZE + length)
+    }
+    return intact
+  }
+
+  private fun isIntactEntry(bytes: ByteBuffer, offset: Int): Boolean {
+    if (bytes.limit() - offset < ENTRY_HEADER_SIZE) return false
+    val kind = bytes.get(offset)
+    val length = bytes.getInt(offset + 1)
+    if (kind != ENTRY_TASK_PATH && kind != ENTRY_BUILD || length < 0 || length > bytes.limit() - offset - ENTRY_HEADER_SIZE) return false
+    return bytes.getInt(offset + 5) == checksum(bytes.array(), offset + ENTRY_HEADER_SIZE, length)
+  }
+
+  private fun compactIfNeeded(force: Boolean = false) {
+    if (!force && builds.size <= maxBuilds + maxBuilds / 10) return
+    try {
+      compact()
+    }
+    catch (e: IOException) {
+      LOG.warn("Failed to rewrite the build analysis history $file", e)
+    }
+  }
+
+  /**
+   * Rewrites the file with only the last [maxBuilds] builds, and the task paths they use. The history is left unchanged if the file
+   * can't be rewritten.
+   */
+  private fun compact() {
+    val kept = readBuilds(builds.takeLast(maxBuilds))
+    val temp = File(file.path + ".tmp")
+    val keptTaskPathIds = LinkedHashMap<String, Int>()
+    val keptBuilds = mutableListOf<BuildEntry>()
+    DataOutputStream(BufferedOutputStream(FileOutputStream(temp))).use { out ->
+      out.writeInt(MAGIC)
+      out.writeInt(VERSION)
+      for (record in kept) {
+        for (path in record.taskDurationsMs.keys + record.criticalPathTasks) {
+          if (path in keptTaskPathIds) continue
+          keptTaskPathIds[path] = keptTaskPathIds.size
+          writeTaskPath(out, keptTaskPathIds.getValue(path), path)
+        }
+        keptBuilds.add(BuildEntry(record.buildID, out.size().toLong()))
+        writeBuild(out, record) { keptTaskPathIds.getValue(it) }
+      }
+    }
+    Files.move(temp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING)
+    taskPaths.clear()
+    taskPathIds.clear()
+    nextTaskPathId = 0
+    keptTaskPathIds.forEach { (path, id) -> addTaskPath(id, path) }
+    builds.clear()
+    builds.addAll(keptBuilds)
+  }
+
+  private fun reset() {
+    taskPaths.clear()
+    taskPathIds.clear()
+    nextTaskPathId = 0
+    builds.clear()
+    try {
+      file.parentFile?.mkdirs()
+      DataOutputStream(FileOutputStream(file)).use {
+        it.writeInt(MAGIC)
+        it.writeInt(VERSION)
+      }
+    }
+    catch (e: IOException) {
+      LOG.warn("Failed to create the build analysis history file $file", e)
+    }
+  }
+}
@@ -40,6 +40,11 @@ interface BuildAnalyzerStorageManager {
    */
   fun getHistoricBuildResultByID(buildID : String) : BuildAnalysisResults
   fun getListOfHistoricBuildIDs() : Set<String>
+  /**
+   * Returns the compact history of the builds of the project, kept across restarts, used to follow build times over time.
+   * Builds are only added to it when the history is enabled.
+   */
+  fun getBuildHistory() : BuildAnalysisHistory
 
   interface Listener {
     fun newDataAvailable()
@@ -18,15 +18,27 @@ package com.android.build.attribution
 import com.android.build.attribution.analyzers.BuildEventsAnalyzersProxy
 import com.android.build.attribution.analyzers.DownloadsAnalyzer
 import com.android.build.attribution.data.BuildRequestHolder
+import com.google.common.annotations.VisibleForTesting
+import com.intellij.openapi.application.PathManager
 import com.intellij.openapi.project.Project
 import com.android.tools.idea.flags.StudioFlags
+import java.io.File
 
 
 class BuildAnalyzerStorageManagerImpl(
   val project: Project
 ) : BuildAnalyzerStorageManager {
   private var buildResults : BuildAnalysisResults? = null
-  private var historicBuildResults : MutableMap<String, BuildAnalysisResults> = mutableMapOf()
+  /**
+   * Full results of the last [MAX_HISTORIC_BUILD_RESULTS] builds. Each of them holds every task and plugin of its build, so older
+   * builds are only kept as summaries in [buildHistory].
+   */
+  private val historicBuildResults = object : LinkedHashMap<String, BuildAnalysisResults>() {
+    override fun removeEldestEntry(eldest: MutableMap.MutableEntry<String, BuildAnalysisResults>) = size > MAX_HISTORIC_BUILD_RESULTS
+  }
+  private val buildHistory by lazy {
+    BuildAnalysisHistory(File(PathManager.getSystemPath(), "build-analyzer-history/${project.locationHash}.bin"))
+  }
 
   private fun notifyDataListeners() {
     var publisher = project.messageBus.syncPublisher(BuildAnalyzerStorageManager.DATA_IS_READY_TOPIC);
@@ -65,7 +77,10 @@ class BuildAnalyzerStorageManagerImpl(
   override fun storeNewBuildResults(analyzersProxy: BuildEventsAnalyzersProxy, buildID : String, requestHolder : BuildRequestHolder) {
     val buildResults = createBuildResultsObject(analyzersProxy, buildID, requestHolder)
     this.buildResults = buildResults
-    if(StudioFlags.BUILD_ANALYZER_HISTORY.get()) historicBuildResults[buildID] = buildResults
+    if(StudioFlags.BUILD_ANALYZER_HISTORY.get()) {
+      historicBuildResults[buildID] = buildResults
+      buildHistory.append(BuildHistoryRecord.create(buildResults, analyzersProxy.taskContainer.allTasks()))
+    }
     notifyDataListeners()
   }
 
@@ -74,10 +89,19 @@ class BuildAnalyzerStorageManagerImpl(
   }
 
   override fun getListOfHistoricBuildIDs() : Set<String> {
-    return historicBuildResults.keys
+    return historicBuildResults.keys.toSet()
+  }
+
+  override fun getBuildHistory() : BuildAnalysisHistory {
+    return buildHistory
   }
 
   override fun hasData(): Boolean {
     return buildResults != null
   }
-}
\ No newline at end of file
+
+  companion object {
+    @VisibleForTesting
+    const val MAX_HISTORIC_BUILD_RESULTS = 10
+  }
+}
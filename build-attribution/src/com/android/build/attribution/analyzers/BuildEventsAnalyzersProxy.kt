@@ -88,7 +88,7 @@ interface BuildEventsAnalysisResult {
  * Used to fetch the final data from the analyzers after the build is complete.
  */
 class BuildEventsAnalyzersProxy(
-  taskContainer: TaskContainer,
+  val taskContainer: TaskContainer,
   pluginContainer: PluginContainer
 ) {
   val alwaysRunTasksAnalyzer = AlwaysRunTasksAnalyzer(taskContainer, pluginContainer)
@@ -43,6 +43,8 @@ class TaskContainer {
 
   fun any(predicate: (TaskData) -> Boolean) = taskCache.values.any(predicate)
 
+  fun allTasks(): Collection<TaskData> = taskCache.values
+
   fun clear() {
     taskCache.clear()
   }
@@ -0,0 +1,169 @@
+/*
+ * Copyright (C) 2022 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.android.build.attribution
+
+import com.google.common.truth.Truth
+import org.junit.Rule
+import org.junit.Test
+import org.junit.rules.TemporaryFolder
+import java.io.File
+import java.io.RandomAccessFile
+
+class BuildAnalysisHistoryTest {
+  @get:Rule
+  val temporaryFolder = TemporaryFolder()
+
+  private val historyFile: File
+    get() = File(temporaryFolder.root, "history.bin")
+
+  private fun build(id: String, compileTimeMs: Long, lintTimeMs: Long? = null) = BuildHistoryRecord(
+    buildID = id,
+    buildStartedTimestamp = 1000,
+    buildFinishedTimestamp = 1000 + compileTimeMs + (lintTimeMs ?: 0),
+    configurationTimeMs = 100,
+    garbageCollectionTimeMs = 10,
+    taskDurationsMs = listOfNotNull(":app:compile" to compileTimeMs, lintTimeMs?.let { ":app:lint" to it }).toMap(),
+    criticalPathTasks = listOf(":app:compile")
+  )
+
+  @Test
+  fun testBuildsAreKeptAcrossInstances() {
+    BuildAnalysisHistory(historyFile).apply {
+      append(build("1", 100))
+      append(build("2", 200, 50))
+    }
+
+    val history = BuildAnalysisHistory(historyFile)
+    Truth.assertThat(history.getBuildIDs()).containsExactly("1", "2").inOrder()
+    Truth.assertThat(history.getBuild("2")).isEqualTo(build("2", 200, 50))
+    Truth.assertThat(history.getBuild("3")).isNull()
+  }
+
+  @Test
+  fun testTrends() {
+    val history = BuildAnalysisHistory(historyFile)
+    (1..20).forEach { history.append(build("$it", it * 10L, if (it % 2 == 0) 5 else null)) }
+
+    Truth.assertThat(history.getTaskDurationTrend(":app:compile", 10)).isEqualTo(DurationTrend(10, 150, 200, 110, 200))
+    Truth.assertThat(history.getTaskDurationTrend(":app:lint", 10)!!.buildCount).isEqualTo(5)
+    Truth.assertThat(history.getTaskDurationTrend(":app:test", 10)).isNull()
+  }
+
+  @Test
+  fun testRegressions() {
+    val history = BuildAnalysisHistory(historyFile)
+    history.append(build("1", 100))
+    history.append(build("2", 300, 50))
+
+    Truth.assertThat(history.getRegressions("1", "2")).containsExactly(
+      TaskRegression(":app:compile", 100, 300),
+      TaskRegression(":app:lint", 0, 50)
+    ).inOrder()
+    Truth.assertThat(history.getRegressions("1", "2", minDifferenceMs = 100)).containsExactly(TaskRegression(":app:compile", 100, 300))
+    Truth.assertThat(history.getRegressions("2", "1")).isEmpty()
+  }
+
+  @Test
+  fun testIncompleteBuildIsDropped() {
+    BuildAnalysisHistory(historyFile).apply {
+      append(build("1", 100))
+      append(build("2", 200))
+    }
+    RandomAccessFile(historyFile, "rw").use { it.setLength(it.length() - 2) }
+
+    val history = BuildAnalysisHistory(historyFile)
+    Truth.assertThat(history.getBuildIDs()).containsExactly("1")
+    history.append(build("3", 300))
+    Truth.assertThat(BuildAnalysisHistory(historyFile).getBuild("3")).isEqualTo(build("3", 300))
+  }
+
+  @Test
+  fun testOldBuildsAreDropped() {
+    BuildAnalysisHistory(historyFile, maxBuilds = 3).apply {
+      (1..5).forEach { append(build("$it", it * 10L)) }
+    }
+
+    val history = BuildAnalysisHistory(historyFile, maxBuilds = 3)
+    Truth.assertThat(history.getBuildIDs()).containsExactly("3", "4", "5").inOrder()
+    Truth.assertThat(history.getLastBuilds(3)).containsExactly(build("3", 30), build("4", 40), build("5", 50)).inOrder()
+  }
+
+  @Test
+  fun testEntriesAfterUnreadableEntryAreDropped() {
+    BuildAnalysisHistory(historyFile).apply {
+      append(build("1", 100))
+      append(build("2", 200))
+    }
+    historyFile.appendBytes(byteArrayOf(42, 1, 2, 3))
+
+    val history = BuildAnalysisHistory(historyFile)
+    Truth.assertThat(history.getBuildIDs()).containsExactly("1", "2").inOrder()
+    history.append(build("3", 300))
+    Truth.assertThat(BuildAnalysisHistory(historyFile).getBuildIDs()).containsExactly("1", "2", "3").inOrder()
+  }
+
+  @Test
+  fun testBuildsAfterPartlyWrittenBuildAreKept() {
+    BuildAnalysisHistory(historyFile).append(build("1", 100))
+    val oneBuildLength = historyFile.length()
+    // The entries of build 3, which only uses task paths already defined by build 1, in a history where build 1 was the last build.
+    val build3Entries = File(temporaryFolder.root, "other.bin").let { otherFile ->
+      historyFile.copyTo(otherFile)
+      BuildAnalysisHistory(otherFile).append(build("3", 300))
+      otherFile.readBytes().copyOfRange(oneBuildLength.toInt(), otherFile.length().toInt())
+    }
+    BuildAnalysisHistory(historyFile).append(build("2", 200))
+    // Only part of build 2 made it to the file before build 3 was appended.
+    RandomAccessFile(historyFile, "rw").use { it.setLength(it.length() - 2) }
+    historyFile.appendBytes(build3Entries)
+
+    val history = BuildAnalysisHistory(historyFile)
+    Truth.assertThat(history.getBuildIDs()).containsExactly("1", "3").inOrder()
+    Truth.assertThat(history.getBuild("3")).isEqualTo(build("3", 300))
+    history.append(build("4", 400))
+    Truth.assertThat(BuildAnalysisHistory(historyFile).getBuildIDs()).containsExactly("1", "3", "4").inOrder()
+  }
+
+  @Test
+  fun testOnlyTheDamagedBuildIsDropped() {
+    val history = BuildAnalysisHistory(historyFile)
+    history.append(build("1", 100))
+    history.append(build("2", 200))
+    val build2End = historyFile.length().toInt()
+    history.append(build("3", 300))
+    val bytes = historyFile.readBytes()
+    bytes[build2End - 1] = (bytes[build2End - 1] + 1).toByte()
+    historyFile.writeBytes(bytes)
+
+    Truth.assertThat(BuildAnalysisHistory(historyFile).getBuildIDs()).containsExactly("1", "3").inOrder()
+    // The damaged build is not in the file anymore.
+    Truth.assertThat(historyFile.length()).isLessThan(bytes.size.toLong())
+  }
+
+  @Test
+  fun testOldBuildsAreDroppedOnAppend() {
+    val history = BuildAnalysisHistory(historyFile, maxBuilds = 10)
+    (1..11).forEach { history.append(build("$it", it * 10L)) }
+    Truth.assertThat(history.getBuildIDs()).hasSize(11)
+
+    history.append(build("12", 120))
+    Truth.assertThat(history.getBuildIDs()).containsExactlyElementsIn((3..12).map { "$it" }).inOrder()
+    Truth.assertThat(history.getBuild("12")).isEqualTo(build("12", 120))
+    history.append(build("13", 130))
+    Truth.assertThat(BuildAnalysisHistory(historyFile, maxBuilds = 10).getBuildIDs())
+      .containsExactlyElementsIn((3..13).map { "$it" }).inOrder()
+  }
+}
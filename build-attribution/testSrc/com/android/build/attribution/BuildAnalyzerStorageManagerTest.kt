@@ -71,6 +71,22 @@ class BuildAnalyzerStorageManagerTest {
                        .getBuildSessionID()).isEqualTo("some buildID")
   }
 
+  @Test
+  fun testOnlyTheLatestFullResultsAreKept() {
+    StudioFlags.BUILD_ANALYZER_HISTORY.override(true)
+    val analyzersProxy = BuildEventsAnalyzersProxy(TaskContainer(), PluginContainer())
+    val request = GradleBuildInvoker.Request
+      .builder(projectRule.project, Projects.getBaseDirPath(projectRule.project), "assembleDebug").build()
+    val buildIDs = (0..BuildAnalyzerStorageManagerImpl.MAX_HISTORIC_BUILD_RESULTS).map { "buildID $it" }
+    buildIDs.forEach {
+      BuildAnalyzerStorageManager.getInstance(projectRule.project).storeNewBuildResults(analyzersProxy, it, BuildRequestHolder(request))
+    }
+    Truth.assertThat(BuildAnalyzerStorageManager.getInstance(projectRule.project).getListOfHistoricBuildIDs())
+      .containsExactlyElementsIn(buildIDs.drop(1))
+    // The summary of the oldest build is still in the history.
+    Truth.assertThat(BuildAnalyzerStorageManager.getInstance(projectRule.project).getBuildHistory().getBuild(buildIDs.first())).isNotNull()
+  }
+
   @Test
   fun testDoesNotStoreResultsWithFalseFlag() {
     StudioFlags.BUILD_ANALYZER_HISTORY.override(false)
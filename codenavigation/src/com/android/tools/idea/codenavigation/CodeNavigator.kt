@@ -98,6 +98,20 @@ class CodeNavigator (source: NavSource, private val executor: Executor) {
     return getNavigatableAsync(location).thenApply { nav: Navigatable? -> nav != null }
   }
 
+  /**
+   * Checks several locations at once, in a single background read action, e.g. to find which
+   * frames of a stack or a call tree can be navigated to. The result is in the same order as
+   * [locations].
+   */
+  fun isNavigatable(locations: List<CodeLocation>): CompletableFuture<List<Boolean>> {
+    return CompletableFuture.supplyAsync(
+      {
+        ReadAction.compute(
+          ThrowableComputable<List<Navigatable?>, RuntimeException> { mySource.lookUp(locations, cpuArchSource.get()) })
+      }
+    ) { runnable: Runnable? -> executor.onBackground(runnable!!) }.thenApply { navs -> navs.map { it != null } }
+  }
+
   /**
    * Gets the navigatable in another thread, so we don't block the UI while potentially performing
    * heavy operations, such as searching for the java class/method in the PSI tree or using
@@ -16,19 +16,94 @@
 package com.android.tools.idea.codenavigation
 
 import com.android.tools.nativeSymbolizer.NativeSymbolizer
+import com.google.common.annotations.VisibleForTesting
 import com.intellij.openapi.project.Project
 import com.intellij.pom.Navigatable
+import com.intellij.psi.util.PsiModificationTracker
 
 /**
  * Combines all the individual [NavSource]s needed navigate to [CodeLocation]s in an IntelliJ
  * project.
+ *
+ * Profiler views look up the same locations over and over (e.g. to check which frames of a stack
+ * or a call tree can be navigated to), so the results of the most recent lookups are cached. PSI
+ * navigatables go stale when the code changes, so the cache is cleared whenever PSI changes.
  */
-class IntelliJNavSource(project: Project, symbolizer: NativeSymbolizer): NavSource {
-  private val sources = listOf(ApkNavSource(project),
-                               NativeNavSource(project, symbolizer),
-                               PsiNavSource(project))
+class IntelliJNavSource @VisibleForTesting internal constructor(
+  private val project: Project,
+  private val sources: List<NavSource>
+): NavSource {
+  constructor(project: Project, symbolizer: NativeSymbolizer) :
+    this(project, listOf(ApkNavSource(project), NativeNavSource(project, symbolizer), PsiNavSource(project)))
+
+  private val lock = Any()
+
+  // Guarded by lock.
+  private val cache = object : LinkedHashMap<LookUpKey, LookUpResult>(16, 0.75f, true) {
+    override fun removeEldestEntry(eldest: MutableMap.MutableEntry<LookUpKey, LookUpResult>) = size > CACHE_SIZE
+  }
+
+  // Guarded by lock.
+  private var cacheModificationCount = -1L
 
   override fun lookUp(location: CodeLocation, arch: String?): Navigatable? {
-    return sources.asSequence().map { it.lookUp(location, arch) }.filterNotNull().firstOrNull()
+    return lookUp(listOf(location), arch).single()
+  }
+
+  override fun lookUp(locations: List<CodeLocation>, arch: String?): List<Navigatable?> {
+    val modificationCount = PsiModificationTracker.getInstance(project).modificationCount
+    val keys = locations.map { LookUpKey(it, it.nativeVAddress, arch) }
+    val results = arrayOfNulls<Navigatable>(locations.size)
+    val misses = mutableListOf<Int>()
+    synchronized(lock) {
+      if (modificationCount != cacheModificationCount) {
+        cache.clear()
+        cacheModificationCount = modificationCount
+      }
+      keys.forEachIndexed { index, key ->
+        val cached = cache[key]
+        if (cached == null) {
+          misses.add(index)
+        }
+        else {
+          results[index] = cached.navigatable
+        }
+      }
+    }
+
+    // Don't hold the lock while looking up, symbolizing native code can be slow. Each source gets
+    // all the locations the previous sources couldn't resolve in a single call.
+    var unresolved: List<Int> = misses
+    for (source in sources) {
+      if (unresolved.isEmpty()) {
+        break
+      }
+      val navigatables = source.lookUp(unresolved.map { locations[it] }, arch)
+      unresolved = unresolved.filterIndexed { i, index ->
+        results[index] = navigatables[i]
+        navigatables[i] == null
+      }
+    }
+
+    synchronized(lock) {
+      if (modificationCount == cacheModificationCount) {
+        misses.forEach { cache[keys[it]] = LookUpResult(results[it]) }
+      }
+    }
+    return results.asList()
+  }
+
+  /**
+   * [CodeLocation.equals] ignores the native address, which is what identifies a native frame
+   * within its module.
+   */
+  private data class LookUpKey(val location: CodeLocation, val nativeVAddress: Long, val arch: String?)
+
+  /** Wrapper to cache the locations that can't be navigated to as well. */
+  private class LookUpResult(val navigatable: Navigatable?)
+
+  companion object {
+    @VisibleForTesting
+    internal const val CACHE_SIZE = 2000
   }
-}
\ No newline at end of file
+}
@@ -16,6 +16,7 @@
 package com.android.tools.idea.codenavigation
 
 import com.android.tools.nativeSymbolizer.NativeSymbolizer
+import com.android.tools.nativeSymbolizer.Symbol
 import com.intellij.build.FileNavigatable
 import com.intellij.build.FilePosition
 import com.intellij.openapi.project.Project
@@ -35,14 +36,39 @@ class NativeNavSource(private val project: Project,
                                         File(location.fileName),
                                         location.nativeVAddress)
 
-      if (symbol == null) {
-        null
-      } else {
-        FileNavigatable(project, FilePosition(File(symbol.sourceFile), symbol.lineNumber - 1, 0))
-      }
+      symbol?.let { navigatableOf(it) }
     }
     catch (e: IOException) {
       null
     }
   }
-}
\ No newline at end of file
+
+  /**
+   * Symbolizes the native frames among [locations] in a single [NativeSymbolizer.symbolizeAll] call, which shares the symbolizer
+   * processes and caches across frames instead of going through them once per frame.
+   */
+  override fun lookUp(locations: List<CodeLocation>, arch: String?): List<Navigatable?> {
+    val result = arrayOfNulls<Navigatable>(locations.size)
+    if (arch == null) {
+      return result.asList()
+    }
+
+    val nativeIndices = locations.indices.filter { locations[it].isNativeCode && locations[it].fileName != null }
+    if (nativeIndices.isEmpty()) {
+      return result.asList()
+    }
+
+    val frames = nativeIndices.map { NativeSymbolizer.Frame(File(locations[it].fileName), locations[it].nativeVAddress) }
+    val symbols = try {
+      symbolizer.symbolizeAll(arch, frames)
+    }
+    catch (e: IOException) {
+      return result.asList()
+    }
+    nativeIndices.forEachIndexed { i, index -> result[index] = symbols[i]?.let { navigatableOf(it) } }
+    return result.asList()
+  }
+
+  private fun navigatableOf(symbol: Symbol): Navigatable =
+    FileNavigatable(project, FilePosition(File(symbol.sourceFile), symbol.lineNumber - 1, 0))
+}
@@ -27,4 +27,13 @@ interface NavSource {
    * arch as defined in the [Abi] enum. If no [Navigatable] can be found, null will be returned.
    */
   fun lookUp(location: CodeLocation, arch: String?): Navigatable?
+
+  /**
+   * Gets the [Navigatable]s of several [CodeLocation]s at once, in the same order as [locations].
+   * Sources that can share work between lookups should override this; by default, each location
+   * is looked up separately.
+   */
+  fun lookUp(locations: List<CodeLocation>, arch: String?): List<Navigatable?> {
+    return locations.map { lookUp(it, arch) }
+  }
 }
\ No newline at end of file
@@ -31,8 +31,25 @@ import com.intellij.psi.util.ClassUtil
  */
 class PsiNavSource(private val project: Project): NavSource {
   override fun lookUp(location: CodeLocation, arch: String?): Navigatable? {
-    var psiClass = findClass(location) ?: return null
+    val psiClass = findClass(location) ?: return null
+    return navigatableOf(psiClass, location)
+  }
 
+  /**
+   * Looks up each class once for all the [locations] in it: a call stack usually has several frames in the same class, and finding a
+   * class by name is the expensive part of a lookup.
+   */
+  override fun lookUp(locations: List<CodeLocation>, arch: String?): List<Navigatable?> {
+    val classes = mutableMapOf<ClassKey, PsiClass?>()
+    return locations.map { location ->
+      // findClass only falls back to the outer class for locations with a line number, so that is part of the key.
+      val key = ClassKey(location.className, location.lineNumber >= 0)
+      val psiClass = if (key in classes) classes[key] else findClass(location).also { classes[key] = it }
+      psiClass?.let { navigatableOf(it, location) }
+    }
+  }
+
+  private fun navigatableOf(psiClass: PsiClass, location: CodeLocation): Navigatable {
     if (location.lineNumber >= 0) {
       // If the specified CodeLocation has a line number, navigatable is that line
       return OpenFileDescriptor(project,
@@ -45,6 +62,8 @@ class PsiNavSource(private val project: Project): NavSource {
     return findMethod(psiClass, location) ?: psiClass
   }
 
+  private data class ClassKey(val className: String?, val hasLineNumber: Boolean)
+
   /**
    * Looks for the class definition that covers [location]. Returns null if no class can be
    * found (e.g. not java/kotlin code).
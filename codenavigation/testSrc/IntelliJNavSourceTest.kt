@@ -0,0 +1,112 @@
+/*
+ * Copyright (C) 2022 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+import com.android.tools.idea.codenavigation.CodeLocation
+import com.android.tools.idea.codenavigation.IntelliJNavSource
+import com.android.tools.idea.codenavigation.NavSource
+import com.google.common.truth.Truth.assertThat
+import com.intellij.openapi.project.Project
+import com.intellij.pom.Navigatable
+import com.intellij.psi.util.PsiModificationTracker
+import org.junit.Before
+import org.junit.Test
+import org.mockito.Mockito.mock
+import org.mockito.Mockito.`when`
+
+class IntelliJNavSourceTest {
+  private val project = mock(Project::class.java)
+  private val modificationTracker = mock(PsiModificationTracker::class.java)
+  private val apkSource = FakeNavSource("Apk")
+  private val psiSource = FakeNavSource("Psi")
+  private val navSource = IntelliJNavSource(project, listOf(apkSource, psiSource))
+
+  @Before
+  fun setUp() {
+    `when`(project.getService(PsiModificationTracker::class.java)).thenReturn(modificationTracker)
+    `when`(modificationTracker.modificationCount).thenReturn(1L)
+  }
+
+  @Test
+  fun locationsAreResolvedByTheFirstSourceThatKnowsThem() {
+    val navigatables = navSource.lookUp(listOf(location("Apk", 1), location("Psi", 2), location("Unknown", 3)), null)
+
+    assertThat(navigatables).containsExactly(apkSource.navigatable, psiSource.navigatable, null).inOrder()
+    assertThat(apkSource.lookedUp).containsExactly(listOf(location("Apk", 1), location("Psi", 2), location("Unknown", 3)))
+    // Only the locations the first source can't resolve are passed on, in a single call.
+    assertThat(psiSource.lookedUp).containsExactly(listOf(location("Psi", 2), location("Unknown", 3)))
+  }
+
+  @Test
+  fun cachedLocationsAreNotLookedUpAgain() {
+    navSource.lookUp(listOf(location("Apk", 1), location("Unknown", 2)), null)
+    apkSource.lookedUp.clear()
+    psiSource.lookedUp.clear()
+
+    assertThat(navSource.lookUp(location("Apk", 1), null)).isSameAs(apkSource.navigatable)
+    assertThat(navSource.lookUp(location("Unknown", 2), null)).isNull()
+    assertThat(navSource.lookUp(listOf(location("Apk", 1), location("Psi", 3)), null))
+      .containsExactly(apkSource.navigatable, psiSource.navigatable).inOrder()
+    assertThat(apkSource.lookedUp).containsExactly(listOf(location("Psi", 3)))
+  }
+
+  @Test
+  fun leastRecentlyUsedLocationsAreEvicted() {
+    navSource.lookUp(location("Apk", 0), null)
+    navSource.lookUp(location("Apk", 1), null)
+    // Use the first location again, so the second one becomes the least recently used.
+    navSource.lookUp(location("Apk", 0), null)
+    navSource.lookUp((2 until IntelliJNavSource.CACHE_SIZE + 1).map { location("Apk", it) }, null)
+    apkSource.lookedUp.clear()
+
+    navSource.lookUp(location("Apk", 0), null)
+    navSource.lookUp(location("Apk", 1), null)
+    assertThat(apkSource.lookedUp).containsExactly(listOf(location("Apk", 1)))
+  }
+
+  @Test
+  fun cacheIsClearedWhenPsiChanges() {
+    navSource.lookUp(location("Apk", 1), null)
+    `when`(modificationTracker.modificationCount).thenReturn(2L)
+    apkSource.lookedUp.clear()
+
+    navSource.lookUp(location("Apk", 1), null)
+    assertThat(apkSource.lookedUp).containsExactly(listOf(location("Apk", 1)))
+  }
+
+  @Test
+  fun cacheIsKeyedOnArch() {
+    navSource.lookUp(location("Apk", 1), "arm64")
+    apkSource.lookedUp.clear()
+
+    navSource.lookUp(location("Apk", 1), "x86")
+    assertThat(apkSource.lookedUp).containsExactly(listOf(location("Apk", 1)))
+  }
+
+  private fun location(className: String, line: Int) = CodeLocation.Builder(className).setLineNumber(line).build()
+
+  /** Resolves the locations whose class name is [className], and records every call. */
+  private class FakeNavSource(private val className: String) : NavSource {
+    val navigatable: Navigatable = mock(Navigatable::class.java)
+    val lookedUp = mutableListOf<List<CodeLocation>>()
+
+    override fun lookUp(location: CodeLocation, arch: String?) = lookUp(listOf(location), arch).single()
+
+    override fun lookUp(locations: List<CodeLocation>, arch: String?): List<Navigatable?> {
+      lookedUp.add(locations)
+      return locations.map { if (it.className == className) navigatable else null }
+    }
+  }
+}
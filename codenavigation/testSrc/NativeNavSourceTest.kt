@@ -0,0 +1,81 @@
+/*
+ * Copyright (C) 2022 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+import com.android.tools.idea.codenavigation.CodeLocation
+import com.android.tools.idea.codenavigation.NativeNavSource
+import com.android.tools.nativeSymbolizer.NativeSymbolizer
+import com.android.tools.nativeSymbolizer.Symbol
+import com.google.common.truth.Truth.assertThat
+import com.intellij.openapi.project.Project
+import org.junit.Test
+import org.mockito.Mockito.mock
+import java.io.File
+import java.io.IOException
+
+class NativeNavSourceTest {
+  private val project = mock(Project::class.java)
+
+  @Test
+  fun nativeLocationsAreSymbolizedInOneCall() {
+    val symbolizer = FakeSymbolizer()
+    val navSource = NativeNavSource(project, symbolizer)
+
+    val navigatables = navSource.lookUp(listOf(nativeLocation(1), javaLocation(), nativeLocation(2), nativeLocation(3)), "arm64")
+
+    assertThat(symbolizer.calls).containsExactly(listOf(frame(1), frame(2), frame(3)))
+    // Address 3 has no symbol.
+    assertThat(navigatables.map { it != null }).containsExactly(true, false, true, false).inOrder()
+  }
+
+  @Test
+  fun nothingIsSymbolizedWithoutArch() {
+    val symbolizer = FakeSymbolizer()
+    val navSource = NativeNavSource(project, symbolizer)
+
+    assertThat(navSource.lookUp(listOf(nativeLocation(1)), null)).containsExactly(null)
+    assertThat(symbolizer.calls).isEmpty()
+  }
+
+  @Test
+  fun symbolizerErrorsResolveNothing() {
+    val navSource = NativeNavSource(project, object : FakeSymbolizer() {
+      override fun symbolizeAll(abiArch: String, frames: List<NativeSymbolizer.Frame>) = throw IOException()
+    })
+
+    assertThat(navSource.lookUp(listOf(nativeLocation(1), nativeLocation(2)), "arm64")).containsExactly(null, null)
+  }
+
+  private fun nativeLocation(address: Long) =
+    CodeLocation.Builder("native").setFileName("libnative.so").setNativeCode(true).setNativeVAddress(address).build()
+
+  private fun javaLocation() = CodeLocation.Builder("com.example.Foo").setLineNumber(1).build()
+
+  private fun frame(address: Long) = NativeSymbolizer.Frame(File("libnative.so"), address)
+
+  /** Symbolizes the addresses below 3, and records every batch. */
+  private open class FakeSymbolizer : NativeSymbolizer {
+    val calls = mutableListOf<List<NativeSymbolizer.Frame>>()
+
+    override fun symbolize(abiArch: String, module: File, offset: Long): Symbol? = throw UnsupportedOperationException()
+
+    override fun symbolizeAll(abiArch: String, frames: List<NativeSymbolizer.Frame>): List<Symbol?> {
+      calls.add(frames)
+      return frames.map { if (it.offset < 3) Symbol("f${it.offset}", it.module.path, "native.cpp", it.offset.toInt()) else null }
+    }
+
+    override fun stop() {}
+  }
+}
@@ -0,0 +1,169 @@
+/*
+ * Copyright (C) 2022 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.android.tools.idea.compose.preview.animation
+
+import com.android.tools.idea.rendering.imagepool.ImagePool
+import com.google.common.annotations.VisibleForTesting
+import java.awt.Graphics
+import java.awt.Graphics2D
+import java.awt.GraphicsConfiguration
+import java.awt.RenderingHints
+import java.awt.Transparency
+import java.awt.image.BufferedImage
+import java.util.TreeMap
+import java.util.function.Consumer
+import kotlin.math.abs
+import kotlin.math.max
+import kotlin.math.roundToInt
+
+/**
+ * Same memory budget as each bucket of the default [ImagePool] (see `ImagePoolFactory`).
+ */
+private const val DEFAULT_MAX_BYTES = 50_000_000L
+
+/**
+ * Frames are scaled down to this size, so more of them fit in the budget. They are only displayed until the exact frame is rendered.
+ */
+private const val MAX_FRAME_SIZE_PX = 1024
+
+/**
+ * Frames of the animations of an [AnimationPreview] rendered ahead of time, so scrubbing the timeline can display them at once instead
+ * of waiting for a render of each position.
+ *
+ * Frames are only valid for the signature they were rendered with, that is, the animations, their states and their offsets in the
+ * timeline: all of them are dropped when it changes. The total size of the frames is bounded by [maxBytes].
+ */
+class AnimationFrameCache(private val maxBytes: Long = DEFAULT_MAX_BYTES) {
+  private val lock = Any()
+
+  // Guarded by lock.
+  private val frames = TreeMap<Long, CachedFrame>()
+
+  // Guarded by lock.
+  private var bytes = 0L
+
+  // Guarded by lock.
+  private var signature: Any? = null
+
+  /**
+   * Returns the frame closest to [timeMs] rendered for [signature], if it's at most [toleranceMs] away from it.
+   */
+  fun getFrame(signature: Any, timeMs: Long, toleranceMs: Long): ImagePool.Image? = synchronized(lock) {
+    if (!checkSignature(signature)) return null
+    val candidates = listOfNotNull(frames.floorEntry(timeMs), frames.ceilingEntry(timeMs))
+    return candidates.filter { abs(it.key - timeMs) <= toleranceMs }.minByOrNull { abs(it.key - timeMs) }?.value
+  }
+
+  /**
+   * Returns the times of [timesMs] that don't have a frame rendered for [signature] yet, in the same order.
+   */
+  fun getMissingTimes(signature: Any, timesMs: List<Long>): List<Long> = synchronized(lock) {
+    checkSignature(signature)
+    return timesMs.filter { it !in frames }
+  }
+
+  /**
+   * Adds the frame rendered for [signature] at [timeMs], scaling it down if needed. Returns false if the frame doesn't fit in the
+   * budget.
+   */
+  fun putFrame(signature: Any, timeMs: Long, image: ImagePool.Image): Boolean {
+    val frame = CachedFrame(scaleDown(image))
+    synchronized(lock) {
+      checkSignature(signature)
+      if (bytes + frame.bytes > maxBytes) return false
+      frames.put(timeMs, frame)?.let { bytes -= it.bytes }
+      bytes += frame.bytes
+      return true
+    }
+  }
+
+  fun clear() = synchronized(lock) {
+    frames.clear()
+    bytes = 0
+    signature = null
+  }
+
+  @VisibleForTesting
+  val frameCount: Int
+    get() = synchronized(lock) { frames.size }
+
+  /**
+   * Drops all the frames if [signature] is not the one they were rendered for. Returns false if they were dropped.
+   */
+  private fun checkSignature(signature: Any): Boolean {
+    if (this.signature == signature) return true
+    frames.clear()
+    bytes = 0
+    this.signature = signature
+    return false
+  }
+
+  private fun scaleDown(image: ImagePool.Image): BufferedImage {
+    val scale = MAX_FRAME_SIZE_PX.toDouble() / max(image.width, image.height)
+    val width = if (scale < 1) max(1, (image.width * scale).roundToInt()) else image.width
+    val height = if (scale < 1) max(1, (image.height * scale).roundToInt()) else image.height
+    val frame = BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB)
+    val g = frame.createGraphics()
+    try {
+      g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR)
+      image.drawImageTo(g, 0, 0, width, height)
+    }
+    finally {
+      g.dispose()
+    }
+    return frame
+  }
+
+  /**
+   * A frame, displayed through [com.android.tools.idea.uibuilder.scene.LayoutlibSceneManager.setRenderedImageOverride]. It's owned by
+   * the cache, so it's not a disposable pooled image.
+   */
+  private class CachedFrame(private val image: BufferedImage) : ImagePool.Image {
+    val bytes = image.width.toLong() * image.height * 4
+
+    override fun getWidth() = image.width
+
+    override fun getHeight() = image.height
+
+    override fun drawImageTo(g: Graphics, dx1: Int, dy1: Int, dx2: Int, dy2: Int, sx1: Int, sy1: Int, sx2: Int, sy2: Int) {
+      g.drawImage(image, dx1, dy1, dx2, dy2, sx1, sy1, sx2, sy2, null)
+    }
+
+    override fun paint(command: Consumer<Graphics2D>) {
+      val g = image.createGraphics()
+      try {
+        command.accept(g)
+      }
+      finally {
+        g.dispose()
+      }
+    }
+
+    override fun getCopy(gc: GraphicsConfiguration?, x: Int, y: Int, w: Int, h: Int): BufferedImage {
+      val copy = gc?.createCompatibleImage(w, h, Transparency.TRANSLUCENT) ?: BufferedImage(w, h, BufferedImage.TYPE_INT_ARGB)
+      val g = copy.createGraphics()
+      try {
+        g.drawImage(image, 0, 0, w, h, x, y, x + w, y + h, null)
+      }
+      finally {
+        g.dispose()
+      }
+      return copy
+    }
+
+    override fun isValid() = true
+  }
+}
@@ -32,6 +32,8 @@ import com.android.tools.idea.compose.preview.animation.timeline.PositionProxy
 import com.android.tools.idea.compose.preview.animation.timeline.TimelineElement
 import com.android.tools.idea.compose.preview.animation.timeline.TimelineLine
 import com.android.tools.idea.compose.preview.animation.timeline.TransitionCurve
+import com.android.tools.idea.flags.StudioFlags
+import com.android.tools.idea.rendering.imagepool.ImagePool
 import com.android.tools.idea.uibuilder.scene.LayoutlibSceneManager
 import com.google.common.annotations.VisibleForTesting
 import com.google.common.util.concurrent.MoreExecutors
@@ -50,7 +52,9 @@ import com.intellij.util.ui.UIUtil
 import java.awt.BorderLayout
 import java.awt.event.ComponentAdapter
 import java.awt.event.ComponentEvent
+import java.util.concurrent.ScheduledFuture
 import java.util.concurrent.TimeUnit
+import java.util.concurrent.atomic.AtomicInteger
 import javax.swing.JComponent
 import javax.swing.JPanel
 import javax.swing.LayoutFocusTraversalPolicy
@@ -70,6 +74,16 @@ private const val MINIMUM_TIMELINE_DURATION_MS = 1000L
 /** Number of points for one curve. */
 private const val DEFAULT_CURVE_POINTS_NUMBER = 200
 
+/**
+ * Number of evenly spaced frames of the timeline pre-rendered in the background (see [AnimationFrameCache]).
+ */
+private const val PRERENDERED_FRAME_COUNT = 64
+
+/**
+ * Time without timeline changes after which the exact frame is rendered and the frames around the timeline are pre-rendered.
+ */
+private const val SETTLE_DELAY_MS = 150L
+
 //TODO Change to a tracker class.
 typealias ComposeAnimationEventTracker = (type: ComposeAnimationToolingEvent.ComposeAnimationToolingEventType) -> Unit
 
@@ -193,6 +207,17 @@ class AnimationPreview(val surface: DesignSurface<LayoutlibSceneManager>) : Disp
       updateTimelineMaximum()
     }
 
+  /** Frames pre-rendered around the timeline, displayed while scrubbing it. */
+  private val frameCache = AnimationFrameCache()
+
+  /** Incremented each time the timeline moves, so pending pre-rendering and refinements of previous positions are abandoned. */
+  private val timelineGeneration = AtomicInteger()
+
+  /** Task calling [onTimelineSettled] once the timeline stops moving. */
+  private var settleTask: ScheduledFuture<*>? = null
+
+  private val prerenderExecutor = AppExecutorUtil.createBoundedApplicationPoolExecutor("Animation Frames Prerenderer", 1)
+
   /** Create list of [TimelineElement] for selected [SupportedAnimationManager]s. */
   private fun createTimelineElements(tabs: Collection<AnimationManager>) {
     executeOnRenderThread(false) {
@@ -231,21 +256,164 @@ class AnimationPreview(val surface: DesignSurface<LayoutlibSceneManager>) : Disp
 
   private fun setClockTime(newValue: Int, longTimeout: Boolean = false) {
     animationClock?.apply {
-      val clockTimeMs = newValue.toLong()
-      if (!executeOnRenderThread(longTimeout) {
-          if (coordinationIsSupported())
-            setClockTimes(animationsMap.mapValues {
-              (if (it.value.elementState.frozen) it.value.elementState.frozenValue.toLong() else clockTimeMs) - it.value.elementState.valueOffset
-            })
-          // Fall back to `setClockTime` if coordination is nor available.
-          else setClockTime(clockTimeMs)
-        }) return
+      val clockTimes = clockTimesAt(newValue.toLong())
+      if (!executeOnRenderThread(longTimeout) { applyClockTimes(newValue.toLong(), clockTimes) }) return
 
       // Load all properties.
       animations.forEach { it.loadProperties() }
     }
   }
 
+  /** Returns the clock time of each animation when the timeline is at [clockTimeMs], taking frozen and offset animations into account. */
+  private fun clockTimesAt(clockTimeMs: Long): Map<ComposeAnimation, Long> = animationsMap.mapValues {
+    (if (it.value.elementState.frozen) it.value.elementState.frozenValue.toLong() else clockTimeMs) - it.value.elementState.valueOffset
+  }
+
+  private fun AnimationClock.applyClockTimes(clockTimeMs: Long, clockTimes: Map<ComposeAnimation, Long>) {
+    if (coordinationIsSupported()) setClockTimes(clockTimes)
+    // Fall back to `setClockTime` if coordination is nor available.
+    else setClockTime(clockTimeMs)
+  }
+
+  /**
+   * Called when the timeline moves to [value]. If a frame for [value] was pre-rendered, it's displayed at once instead of waiting for the
+   * render of the new clock time. Once the timeline stops moving, the exact frame is rendered and the frames around the timeline are
+   * pre-rendered again if needed.
+   */
+  private fun onTimelineValueChanged(value: Int) {
+    val sceneManager = surface.sceneManager
+    if (!StudioFlags.COMPOSE_ANIMATION_PREVIEW_FRAME_CACHE.get() || sceneManager == null) {
+      setClockTime(value)
+      return
+    }
+    val generation = timelineGeneration.incrementAndGet()
+    settleTask?.cancel(false)
+    val tolerance = max(1L, timeline.maximum.toLong() / PRERENDERED_FRAME_COUNT / 2)
+    val frame = frameCache.getFrame(frameCacheSignature(), value.toLong(), tolerance)
+    if (frame != null) {
+      sceneManager.setRenderedImageOverride(frame)
+    }
+    else {
+      sceneManager.setRenderedImageOverride(null)
+      setClockTime(value)
+    }
+    settleTask = AppExecutorUtil.getAppScheduledExecutorService().schedule(
+      { invokeLater { if (timelineGeneration.get() == generation) onTimelineSettled(value) } },
+      SETTLE_DELAY_MS, TimeUnit.MILLISECONDS)
+  }
+
+  /**
+   * Called when the timeline stopped at [value]. The clock time is set again to [value] even if it was set while scrubbing, as that may
+   * have timed out or been overtaken by the pre-rendering of a previous position, and then the frames around it are pre-rendered.
+   */
+  private fun onTimelineSettled(value: Int) {
+    val sceneManager = surface.sceneManager ?: return
+    val clock = animationClock ?: return
+    val signature = frameCacheSignature()
+    val missingTimes = frameCache.getMissingTimes(signature, framesToPrerender())
+    val clockTimes = missingTimes.associateWith { clockTimesAt(it) }
+    val currentClockTimes = clockTimesAt(value.toLong())
+    val generation = timelineGeneration.get()
+    // The executor is shut down once this panel is disposed.
+    if (prerenderExecutor.isShutdown) return
+    prerenderExecutor.execute {
+      if (!applyClockTimesIfCurrent(clock, value.toLong(), currentClockTimes, generation)) return@execute
+      animations.forEach { it.loadProperties() }
+      prerenderFrames(sceneManager, clock, signature, value.toLong(), clockTimes, currentClockTimes, generation)
+    }
+  }
+
+  /**
+   * Applies [clockTimes] on the render thread, unless the timeline moved since [generation] by the time it runs there, so that a queued
+   * update of a previous position never overrides a newer one. Returns false if it was not applied.
+   */
+  private fun applyClockTimesIfCurrent(clock: AnimationClock,
+                                       clockTimeMs: Long,
+                                       clockTimes: Map<ComposeAnimation, Long>,
+                                       generation: Int): Boolean {
+    var applied = false
+    return executeOnRenderThread(true) {
+      if (timelineGeneration.get() == generation) {
+        clock.applyClockTimes(clockTimeMs, clockTimes)
+        applied = true
+      }
+    } && applied
+  }
+
+  /**
+   * Renders the frames at the given [clockTimes] in the background and adds them to [frameCache]. While doing so, the frame at
+   * [currentTimeMs] is displayed instead of the renders, and the clock is set back to [currentTimeMs] at the end. It stops as soon as the
+   * timeline moves again, that is, when [timelineGeneration] is not [generation] anymore, or when the cache is full.
+   */
+  private fun prerenderFrames(sceneManager: LayoutlibSceneManager,
+                              clock: AnimationClock,
+                              signature: Any,
+                              currentTimeMs: Long,
+                              clockTimes: Map<Long, Map<ComposeAnimation, Long>>,
+                              currentClockTimes: Map<ComposeAnimation, Long>,
+                              generation: Int) {
+    fun isCurrent() = timelineGeneration.get() == generation
+    try {
+      sceneManager.requestRenderAsync().get(5, TimeUnit.SECONDS)
+      if (!isCurrent()) return
+      var currentFrame: ImagePool.Image? = null
+      sceneManager.renderResult?.processImageIfNotDisposed { image ->
+        if (frameCache.putFrame(signature, currentTimeMs, image)) {
+          currentFrame = frameCache.getFrame(signature, currentTimeMs, 0)
+        }
+      }
+      val frame = currentFrame
+      if (clockTimes.isEmpty() || frame == null) {
+        // The exact frame was just rendered, so stop displaying a pre-rendered one.
+        if (isCurrent()) sceneManager.setRenderedImageOverride(null)
+        return
+      }
+      sceneManager.setRenderedImageOverride(frame)
+      try {
+        for ((timeMs, times) in clockTimes) {
+          if (!isCurrent()) break
+          if (!applyClockTimesIfCurrent(clock, timeMs, times, generation)) break
+          sceneManager.requestRenderAsync().get(5, TimeUnit.SECONDS)
+          var added = true
+          sceneManager.renderResult?.processImageIfNotDisposed { added = frameCache.putFrame(signature, timeMs, it) }
+          if (!added) break
+        }
+      }
+      finally {
+        // When the timeline moved, the clock is left to the new position, which is set again once the timeline settles.
+        if (applyClockTimesIfCurrent(clock, currentTimeMs, currentClockTimes, generation)) {
+          sceneManager.requestRenderAsync().whenComplete { _, _ ->
+            if (isCurrent()) sceneManager.setRenderedImageOverride(null)
+          }
+        }
+      }
+    }
+    catch (e: Exception) {
+      LOG.debug("Failed to pre-render animation frames", e)
+    }
+  }
+
+  /**
+   * Returns the timeline values to pre-render, most useful first: the start and end of each animation, then evenly spaced values, from
+   * the coarsest to the finest spacing, so an incomplete pre-rendering still covers the whole timeline.
+   */
+  private fun framesToPrerender(): List<Long> {
+    val maximum = timeline.maximum.toLong()
+    val keyframes = animations.flatMap { animation ->
+      listOfNotNull(animation.currentTransition.startMillis, animation.currentTransition.endMillis)
+        .map { it.toLong() + animation.elementState.valueOffset }
+    }
+    val evenlySpaced = (0..PRERENDERED_FRAME_COUNT)
+      .sortedByDescending { Integer.numberOfTrailingZeros(it or PRERENDERED_FRAME_COUNT) }
+      .map { it * maximum / PRERENDERED_FRAME_COUNT }
+    return (keyframes + evenlySpaced).filter { it in 0..maximum }.distinct()
+  }
+
+  /** Everything, other than the clock time, that a pre-rendered frame depends on. */
+  private fun frameCacheSignature(): Any = listOf(animationClock, timeline.maximum) + animations.map {
+    listOf(it.animation, it.currentTransition, it.elementState.valueOffset, it.elementState.frozen, it.elementState.frozenValue)
+  }
+
 
   /** Do an initial setup before adding animation to the panel. */
   fun setupAnimation(animation: ComposeAnimation, callback: () -> Unit) {
@@ -367,9 +535,15 @@ class AnimationPreview(val surface: DesignSurface<LayoutlibSceneManager>) : Disp
     // animationsMap, and tabs from tabbedPane. It will also show the noAnimationsPanel when removing all tabs.
     allAnimations.forEach { removeTab(it) }
     tabNames.clear()
+    frameCache.clear()
   }
 
   override fun dispose() {
+    timelineGeneration.incrementAndGet()
+    settleTask?.cancel(false)
+    prerenderExecutor.shutdownNow()
+    surface.sceneManager?.setRenderedImageOverride(null)
+    frameCache.clear()
     animationsMap.clear()
     animations.clear()
     tabNames.clear()
@@ -690,7 +864,7 @@ class AnimationPreview(val surface: DesignSurface<LayoutlibSceneManager>) : Disp
       addChangeListener {
         if (value == cachedVal) return@addChangeListener // Ignore repeated values
         cachedVal = value
-        setClockTime(value)
+        onTimelineValueChanged(value)
       }
       addComponentListener(object : ComponentAdapter() {
         override fun componentResized(e: ComponentEvent?) = updateTimelineElements()
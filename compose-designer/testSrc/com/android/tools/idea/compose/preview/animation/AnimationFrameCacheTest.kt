@@ -0,0 +1,61 @@
+/*
+ * Copyright (C) 2022 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.android.tools.idea.compose.preview.animation
+
+import com.android.tools.idea.rendering.imagepool.ImagePoolFactory
+import org.junit.Test
+import java.awt.image.BufferedImage
+import kotlin.test.assertEquals
+import kotlin.test.assertFalse
+import kotlin.test.assertNotNull
+import kotlin.test.assertNull
+import kotlin.test.assertTrue
+
+class AnimationFrameCacheTest {
+
+  private fun image(width: Int, height: Int) =
+    ImagePoolFactory.getNonPooledPool().copyOf(BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB))
+
+  @Test
+  fun `frames are found within the tolerance`() {
+    val cache = AnimationFrameCache()
+    cache.putFrame("signature", 100, image(10, 10))
+    cache.putFrame("signature", 200, image(10, 10))
+
+    assertNotNull(cache.getFrame("signature", 110, 10))
+    assertNull(cache.getFrame("signature", 150, 10))
+    assertEquals(listOf(150L), cache.getMissingTimes("signature", listOf(100, 150, 200)))
+  }
+
+  @Test
+  fun `frames are dropped when the signature changes`() {
+    val cache = AnimationFrameCache()
+    cache.putFrame("signature", 100, image(10, 10))
+
+    assertNull(cache.getFrame("other signature", 100, 0))
+    assertEquals(0, cache.frameCount)
+  }
+
+  @Test
+  fun `frames are scaled down and bounded by the budget`() {
+    val cache = AnimationFrameCache(maxBytes = 2L * 1024 * 512 * 4)
+    assertTrue(cache.putFrame("signature", 0, image(4000, 2000)))
+    assertEquals(1024, cache.getFrame("signature", 0, 0)!!.width)
+    assertTrue(cache.putFrame("signature", 1, image(4000, 2000)))
+    assertFalse(cache.putFrame("signature", 2, image(4000, 2000)))
+    assertEquals(2, cache.frameCount)
+  }
+}
@@ -16,6 +16,7 @@
 package com.android.tools.idea.databinding.module
 
 import com.android.ide.common.rendering.api.ResourceNamespace
+import com.android.ide.common.resources.ResourceItem
 import com.android.resources.ResourceType
 import com.android.tools.idea.databinding.BindingLayout
 import com.android.tools.idea.databinding.BindingLayoutGroup
@@ -33,13 +34,17 @@ import com.android.tools.idea.databinding.util.isViewBindingEnabled
 import com.android.tools.idea.projectsystem.GoogleMavenArtifactId
 import com.android.tools.idea.projectsystem.PROJECT_SYSTEM_SYNC_TOPIC
 import com.android.tools.idea.projectsystem.ProjectSystemSyncManager
+import com.android.tools.idea.projectsystem.getModuleSystem
 import com.android.tools.idea.res.ResourceRepositoryManager
+import com.android.tools.idea.res.getSourceAsVirtualFile
 import com.android.tools.idea.util.dependsOn
 import com.intellij.openapi.application.ApplicationManager
 import com.intellij.openapi.diagnostic.Logger
+import com.intellij.openapi.fileEditor.FileDocumentManager
 import com.intellij.openapi.module.Module
 import com.intellij.openapi.project.DumbService
 import com.intellij.openapi.util.Key
+import com.intellij.openapi.vfs.VirtualFile
 import com.intellij.psi.PsiManager
 import net.jcip.annotations.GuardedBy
 import net.jcip.annotations.ThreadSafe
@@ -163,6 +168,29 @@ class LayoutBindingModuleCache(private val module: Module) {
   private val BindingLayoutGroup.layoutFileName: String
     get() = mainLayout.file.name
 
+  /**
+   * The [BindingLayout] created for a layout file (or null if it has no binding), and the modification stamp of the file's content at
+   * the time.
+   */
+  private class CachedBindingLayout(val layout: BindingLayout?, val modificationStamp: Long)
+
+  /**
+   * The [BindingLayout]s of the layout files, by path. An entry is only recreated when its file changes, so that editing one layout
+   * doesn't recreate the [BindingLayout]s of all the other ones.
+   */
+  @GuardedBy("lock")
+  private var bindingLayouts = mapOf<String, CachedBindingLayout>()
+
+  /** The module settings all the [bindingLayouts] were created with. */
+  @GuardedBy("lock")
+  private var bindingLayoutsSettings: Pair<String?, Boolean>? = null
+
+  /**
+   * Modification stamp of the content of [this] file, including the unsaved changes of its document.
+   */
+  private val VirtualFile.contentModificationStamp: Long
+    get() = FileDocumentManager.getInstance().getCachedDocument(this)?.modificationStamp ?: modificationStamp
+
   /**
    * A modification tracker for module resources.
    *
@@ -201,10 +229,14 @@ class LayoutBindingModuleCache(private val module: Module) {
         val modificationCount = moduleResources.modificationCount
         if (modificationCount != lastResourcesModificationCount) {
           val layoutResources = moduleResources.getResources(ResourceNamespace.RES_AUTO, ResourceType.LAYOUT)
-          _bindingLayoutGroups = layoutResources.values()
-            .mapNotNull { resource -> BindingLayout.tryCreate(facet, resource) }
+          // Resources change on most edits, but usually only for a single layout. Keep the groups of
+          // the layouts that didn't change, so their light binding classes (which are expensive to
+          // create) don't have to be recreated.
+          val previousGroups = _bindingLayoutGroups.associateBy { group -> group.layoutFileName }
+          _bindingLayoutGroups = updateBindingLayouts(facet, layoutResources.values())
             .groupBy { info -> info.file.name }
             .map { entry -> BindingLayoutGroup(entry.value) }
+            .map { group -> previousGroups[group.layoutFileName]?.takeIf { it.hasSameLayoutsAs(group) } ?: group }
             .toSet()
           lastResourcesModificationCount = modificationCount
         }
@@ -213,6 +245,35 @@ class LayoutBindingModuleCache(private val module: Module) {
       }
     }
 
+  /**
+   * Returns the [BindingLayout]s of [layoutResources], only creating them for the files that changed since the last call.
+   */
+  @GuardedBy("lock")
+  private fun updateBindingLayouts(facet: AndroidFacet, layoutResources: Collection<ResourceItem>): List<BindingLayout> {
+    // Every BindingLayout depends on these, so all of them have to be recreated if they change.
+    val settings = facet.getModuleSystem().getPackageName() to facet.isViewBindingEnabled()
+    val previousLayouts = if (settings == bindingLayoutsSettings) bindingLayouts else emptyMap()
+    val layouts = HashMap<String, CachedBindingLayout>()
+    for (resource in layoutResources) {
+      val file = resource.getSourceAsVirtualFile() ?: continue
+      val modificationStamp = file.contentModificationStamp
+      layouts[file.path] = previousLayouts[file.path]?.takeIf { it.modificationStamp == modificationStamp }
+                           ?: CachedBindingLayout(BindingLayout.tryCreate(facet, resource), modificationStamp)
+    }
+    // Layouts that were deleted are dropped here.
+    bindingLayouts = layouts
+    bindingLayoutsSettings = settings
+    return layoutResources.mapNotNull { resource -> resource.getSourceAsVirtualFile()?.let { layouts[it.path]?.layout } }
+  }
+
+  /**
+   * Returns true if [other] consists of the very same [BindingLayout] instances as this group, i.e. none of its layout files changed,
+   * in which case the binding classes generated for one are valid for the other.
+   */
+  private fun BindingLayoutGroup.hasSameLayoutsAs(other: BindingLayoutGroup): Boolean {
+    return layouts.size == other.layouts.size && layouts.all { layout -> other.layouts.any { it === layout } }
+  }
+
   /**
    * Returns a list of [LightBindingClass] instances corresponding to the layout XML files
    * related to the passed-in [BindingLayoutGroup].
@@ -953,6 +953,38 @@ class LightBindingClassTest {
     assertThat(twoResourcesGroups).isSameAs(bindingCache.bindingLayoutGroups)
   }
 
+  @Test
+  fun lightBindingClassesOfUnchangedLayoutsAreReused() {
+    // language=XML
+    val sampleXml = """
+      <?xml version="1.0" encoding="utf-8"?>
+      <layout xmlns:android="http://schemas.android.com/apk/res/android">
+        <LinearLayout />
+      </layout>
+      """.trimIndent()
+
+    val bindingCache = LayoutBindingModuleCache.getInstance(facet)
+    fixture.addFileToProject("res/layout/activity_first.xml", sampleXml)
+    projectRule.waitForResourceRepositoryUpdates()
+    val firstClasses = bindingCache.getLightBindingClasses(bindingCache.bindingLayoutGroups.single())
+
+    fixture.addFileToProject("res/layout/activity_second.xml", sampleXml)
+    projectRule.waitForResourceRepositoryUpdates()
+    val firstGroup = bindingCache.bindingLayoutGroups.single { group -> group.mainLayout.className == "ActivityFirstBinding" }
+    assertThat(bindingCache.getLightBindingClasses(firstGroup)).isSameAs(firstClasses)
+
+    val secondGroup = bindingCache.bindingLayoutGroups.single { group -> group.mainLayout.className == "ActivitySecondBinding" }
+    val secondClasses = bindingCache.getLightBindingClasses(secondGroup)
+
+    fixture.addFileToProject("res/layout/activity_first.xml", sampleXml.replace("<LinearLayout />", """<LinearLayout android:id="@+id/root" />"""))
+    projectRule.waitForResourceRepositoryUpdates()
+    val updatedGroup = bindingCache.bindingLayoutGroups.single { group -> group.mainLayout.className == "ActivityFirstBinding" }
+    assertThat(bindingCache.getLightBindingClasses(updatedGroup)).isNotSameAs(firstClasses)
+    // Only the edited layout was rebuilt.
+    assertThat(bindingCache.bindingLayoutGroups.any { group -> group === secondGroup }).isTrue()
+    assertThat(bindingCache.getLightBindingClasses(secondGroup)).isSameAs(secondClasses)
+  }
+
   @Test
   fun bindingCacheRecoversAfterExitingDumbMode() {
     // language=XML
@@ -0,0 +1,128 @@
+/*
+ * Copyright (C) 2022 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.android.tools.idea.run;
+
+import com.android.tools.deployer.tasks.Canceller;
+import com.google.common.annotations.VisibleForTesting;
+import java.io.File;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Coordinates the deployments of the same build to several devices.
+ * <p>
+ * The {@code Deployer} of a device parses the APKs it deploys and splits their dex files, and stores the result in the dex database of
+ * {@link DeploymentService}, where it is keyed by the contents of the APKs. When the APKs of a build are deployed to several devices at
+ * the same time, the first deployment of each APK does that work while the deployments of the same APK to the other devices wait for it,
+ * and then find the APK in the dex database rather than parsing and splitting it again. The installs themselves still run in parallel.
+ */
+public class DeploymentCoordinator {
+  private static final long CANCELLATION_CHECK_INTERVAL_MS = 100;
+
+  /** The deployments in progress, by the APK files they deploy. */
+  private final Map<List<ApkFileKey>, CountDownLatch> myDeployments = new HashMap<>();
+
+  /**
+   * Starts deploying the APKs of {@code apkInfo} to a device, once they have been deployed to another device if that is in progress.
+   * The returned {@link Deployment} must be closed when the deployment to the device is done, whether it succeeded or not.
+   * <p>
+   * Stops waiting when {@code canceller} is cancelled, so that the deployment can check it and stop.
+   */
+  @NotNull
+  public Deployment begin(@NotNull ApkInfo apkInfo, @NotNull Canceller canceller) {
+    List<ApkFileKey> key = apkInfo.getFiles().stream()
+      .map(file -> new ApkFileKey(file.getApkFile()))
+      .collect(Collectors.toList());
+
+    CountDownLatch inProgress;
+    CountDownLatch deployed = new CountDownLatch(1);
+    synchronized (myDeployments) {
+      inProgress = myDeployments.putIfAbsent(key, deployed);
+    }
+    if (inProgress != null) {
+      awaitDeployed(inProgress, canceller);
+      return () -> {};
+    }
+    return () -> {
+      // Deployments that start from now on find the APKs in the dex database.
+      synchronized (myDeployments) {
+        myDeployments.remove(key);
+      }
+      deployed.countDown();
+    };
+  }
+
+  @VisibleForTesting
+  int getDeploymentsInProgress() {
+    synchronized (myDeployments) {
+      return myDeployments.size();
+    }
+  }
+
+  private static void awaitDeployed(@NotNull CountDownLatch deployed, @NotNull Canceller canceller) {
+    try {
+      while (!canceller.cancelled()) {
+        if (deployed.await(CANCELLATION_CHECK_INTERVAL_MS, TimeUnit.MILLISECONDS)) {
+          return;
+        }
+      }
+    }
+    catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  /** A deployment of the APKs of a build to a device. */
+  public interface Deployment extends AutoCloseable {
+    @Override
+    void close();
+  }
+
+  /** Identifies the contents of an APK file of a build. */
+  private static final class ApkFileKey {
+    @NotNull private final String myPath;
+    private final long myLength;
+    private final long myLastModified;
+
+    ApkFileKey(@NotNull File file) {
+      myPath = file.getAbsolutePath();
+      myLength = file.length();
+      myLastModified = file.lastModified();
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (this == o) {
+        return true;
+      }
+      if (!(o instanceof ApkFileKey)) {
+        return false;
+      }
+      ApkFileKey other = (ApkFileKey)o;
+      return myPath.equals(other.myPath) && myLength == other.myLength && myLastModified == other.myLastModified;
+    }
+
+    @Override
+    public int hashCode() {
+      return (myPath.hashCode() * 31 + Long.hashCode(myLength)) * 31 + Long.hashCode(myLastModified);
+    }
+  }
+}
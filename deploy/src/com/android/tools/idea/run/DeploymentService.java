@@ -37,6 +37,8 @@ public class DeploymentService {
   private final NotNullLazyValue<SqlApkFileDatabase> dexDatabase;
   private final NotNullLazyValue<DeploymentCacheDatabase> deploymentCacheDatabase;
 
+  private final DeploymentCoordinator coordinator;
+
   @NotNull
   public static DeploymentService getInstance(@NotNull Project project) {
     return project.getService(DeploymentService.class);
@@ -51,6 +53,7 @@ public class DeploymentService {
 
     dexDatabase  = NotNullLazyValue.createValue(() -> new SqlApkFileDatabase(dexDbPath.toFile(), PathManager.getTempPath()));
     deploymentCacheDatabase =  NotNullLazyValue.createValue(() -> new DeploymentCacheDatabase(deployDbPath.toFile()));
+    coordinator = new DeploymentCoordinator();
   }
 
   public TaskRunner getTaskRunner() {
@@ -64,4 +67,8 @@ public class DeploymentService {
   public DeploymentCacheDatabase getDeploymentCacheDatabase() {
     return deploymentCacheDatabase.getValue();
   }
+
+  public DeploymentCoordinator getDeploymentCoordinator() {
+    return coordinator;
+  }
 }
@@ -38,6 +38,7 @@ import com.android.tools.idea.log.LogWrapper;
 import com.android.tools.idea.run.ApkFileUnit;
 import com.android.tools.idea.run.ApkInfo;
 import com.android.tools.idea.run.ConsolePrinter;
+import com.android.tools.idea.run.DeploymentCoordinator;
 import com.android.tools.idea.run.DeploymentService;
 import com.android.tools.idea.run.IdeService;
 import com.android.tools.idea.run.ui.ApplyChangesAction;
@@ -219,8 +220,15 @@ public abstract class AbstractDeployTask implements LaunchTask {
                                      installer, ideService, metrics, logger, option);
     List<String> idsSkippedInstall = new ArrayList<>();
     List<Deployer.Result> results = new ArrayList<>();
+    DeploymentCoordinator coordinator = service.getDeploymentCoordinator();
     for (ApkInfo apkInfo : myPackages) {
-      Deployer.Result result = perform(device, deployer, apkInfo, canceller);
+      // When the build is being deployed to other devices, let the first of them parse the APK and split its dex files.
+      long waitStartMs = System.currentTimeMillis();
+      Deployer.Result result;
+      try (DeploymentCoordinator.Deployment ignored = coordinator.begin(apkInfo, canceller)) {
+        addWaitForOtherDevicesDetail(waitStartMs, System.currentTimeMillis());
+        result = perform(device, deployer, apkInfo, canceller);
+      }
 
       if (result.skippedInstall) {
         idsSkippedInstall.add(apkInfo.getApplicationId());
@@ -297,6 +305,17 @@ public abstract class AbstractDeployTask implements LaunchTask {
     }
   }
 
+  private void addWaitForOtherDevicesDetail(long startWallClockMs, long endWallClockMs) {
+    if (endWallClockMs > startWallClockMs) {
+      mySubTaskDetails.add(LaunchTaskDetail.newBuilder()
+                             .setId(getId() + ".WaitForOtherDevices")
+                             .setStartTimestampMs(startWallClockMs)
+                             .setEndTimestampMs(endWallClockMs)
+                             .setTid((int)Thread.currentThread().getId())
+                             .build());
+    }
+  }
+
   private void logAgentFailures(List<Deploy.AgentExceptionLog> agentExceptionLogs) {
     for (Deploy.AgentExceptionLog log : agentExceptionLogs) {
       UsageTracker.log(toStudioEvent(log));
@@ -0,0 +1,84 @@
+/*
+ * Copyright (C) 2022 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.android.tools.idea.run
+
+import com.android.tools.deployer.tasks.Canceller
+import com.google.common.truth.Truth.assertThat
+import org.junit.Assert.fail
+import org.junit.Rule
+import org.junit.Test
+import org.junit.rules.TemporaryFolder
+import java.util.concurrent.CompletableFuture
+import java.util.concurrent.TimeUnit
+import java.util.concurrent.TimeoutException
+
+class DeploymentCoordinatorTest {
+  @get:Rule
+  val temporaryFolder = TemporaryFolder()
+
+  private val coordinator = DeploymentCoordinator()
+  private val notCancelled = Canceller { false }
+
+  @Test
+  fun sameApkWaitsForTheFirstDeployment() {
+    val apk = ApkInfo(temporaryFolder.newFile("app.apk"), "com.example")
+    val first = coordinator.begin(apk, notCancelled)
+
+    val second = CompletableFuture.supplyAsync { coordinator.begin(apk, notCancelled) }
+    try {
+      second.get(500, TimeUnit.MILLISECONDS)
+      fail("The second deployment should wait for the first one")
+    }
+    catch (expected: TimeoutException) {
+    }
+
+    first.close()
+    second.get(5, TimeUnit.SECONDS).close()
+    assertThat(coordinator.deploymentsInProgress).isEqualTo(0)
+  }
+
+  @Test
+  fun differentApksDoNotWait() {
+    val first = coordinator.begin(ApkInfo(temporaryFolder.newFile("app.apk"), "com.example"), notCancelled)
+    val second = coordinator.begin(ApkInfo(temporaryFolder.newFile("test.apk"), "com.example.test"), notCancelled)
+
+    assertThat(coordinator.deploymentsInProgress).isEqualTo(2)
+    first.close()
+    second.close()
+    assertThat(coordinator.deploymentsInProgress).isEqualTo(0)
+  }
+
+  @Test
+  fun rebuiltApkDoesNotWait() {
+    val file = temporaryFolder.newFile("app.apk")
+    val first = coordinator.begin(ApkInfo(file, "com.example"), notCancelled)
+    file.writeText("rebuilt")
+
+    coordinator.begin(ApkInfo(file, "com.example"), notCancelled).close()
+    first.close()
+  }
+
+  @Test
+  fun cancellationStopsWaiting() {
+    val apk = ApkInfo(temporaryFolder.newFile("app.apk"), "com.example")
+    val first = coordinator.begin(apk, notCancelled)
+
+    coordinator.begin(apk) { true }.close()
+    // The first deployment is still the one the others wait for.
+    assertThat(coordinator.deploymentsInProgress).isEqualTo(1)
+    first.close()
+  }
+}
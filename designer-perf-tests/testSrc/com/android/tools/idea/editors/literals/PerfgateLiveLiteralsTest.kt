@@ -0,0 +1,131 @@
+/*
+ * Copyright (C) 2022 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.android.tools.idea.editors.literals
+
+import com.android.tools.idea.rendering.MetricMeasurement
+import com.android.tools.idea.rendering.measureOperation
+import com.android.tools.idea.testing.AndroidProjectRule
+import com.android.tools.idea.testing.executeAndSave
+import com.android.tools.idea.testing.replaceText
+import com.android.tools.perflogger.Benchmark
+import com.android.tools.perflogger.Metric
+import com.android.tools.perflogger.Metric.MetricSample
+import com.intellij.psi.PsiFile
+import kotlinx.coroutines.runBlocking
+import org.junit.Assert.assertEquals
+import org.junit.Rule
+import org.junit.Test
+import java.time.Instant
+
+/** Number of functions in the synthetic file. Each function contains [LITERALS_PER_FUNCTION] literals. */
+private const val FUNCTION_COUNT = 500
+private const val LITERALS_PER_FUNCTION = 6
+
+private val liveLiteralsBenchmark = Benchmark.Builder("Live Literals Benchmark")
+  .setProject("Design Tools")
+  .setDescription("Time to find the modified literals after an edit in a file with ${FUNCTION_COUNT * LITERALS_PER_FUNCTION} literals.")
+  .build()
+
+/**
+ * A [MetricMeasurement] that records the elapsed time in milliseconds returned by the operation. This allows excluding the edit itself
+ * from the measurement.
+ */
+private class ReturnedTimeMeasurement(metric: Metric) : MetricMeasurement<Long>(metric) {
+  override fun before() {}
+
+  override fun after(result: Long) = MetricSample(Instant.now().toEpochMilli(), result)
+}
+
+class PerfgateLiveLiteralsTest {
+  @get:Rule
+  val projectRule = AndroidProjectRule.inMemory()
+
+  private fun addSyntheticFile(): PsiFile = projectRule.fixture.addFileToProject(
+    "/src/test/app/LiteralsBenchmark.kt",
+    buildString {
+      appendLine("package test.app")
+      repeat(FUNCTION_COUNT) {
+        appendLine("""
+          fun Screen$it(name: String) {
+            println("Title $it")
+            println("Hello ${'$'}name from $it!")
+            val padding = $it
+            val ratio = $it.5f
+            val enabled = true
+          }
+        """.trimIndent())
+      }
+    }).also {
+    projectRule.fixture.configureFromExistingVirtualFile(it.virtualFile)
+  }
+
+  /**
+   * Modifies one literal in the middle of the file and returns the time in milliseconds that [findModified] takes to find it.
+   */
+  private fun editAndMeasure(findModified: () -> Collection<LiteralReference>): Long {
+    projectRule.fixture.editor.executeAndSave {
+      replaceText("\"Title ${FUNCTION_COUNT / 2}", "\"Title ${FUNCTION_COUNT / 2}*")
+    }
+    val startMs = System.currentTimeMillis()
+    val modified = findModified()
+    val elapsedMs = System.currentTimeMillis() - startMs
+    assertEquals(1, modified.size)
+    return elapsedMs
+  }
+
+  @Test
+  fun fullRescan() {
+    val literalsManager = LiteralsManager()
+    val file = addSyntheticFile()
+    liveLiteralsBenchmark.measureOperation(listOf(ReturnedTimeMeasurement(Metric("live_literals_full_rescan_time")))) {
+      var snapshot = runBlocking { literalsManager.findLiterals(file) }
+      editAndMeasure {
+        // The edit does not add or remove literals so the rescan finds them in the same order as the previous one.
+        val previousValues = snapshot.all.map { it.initialConstantValue }
+        snapshot = runBlocking { literalsManager.findLiterals(file) }
+        snapshot.all.filterIndexed { index, literal -> literal.initialConstantValue != previousValues[index] }
+      }
+    }
+  }
+
+  @Test
+  fun untrackedUpdate() {
+    val literalsManager = LiteralsManager()
+    val file = addSyntheticFile()
+    val snapshot = runBlocking { literalsManager.findLiterals(file) }
+    assertEquals(FUNCTION_COUNT * LITERALS_PER_FUNCTION, snapshot.all.size)
+    var current = snapshot
+    liveLiteralsBenchmark.measureOperation(listOf(ReturnedTimeMeasurement(Metric("live_literals_untracked_update_time")))) {
+      editAndMeasure {
+        current.modified.also { current = current.newSnapshot() }
+      }
+    }
+  }
+
+  @Test
+  fun incrementalUpdate() {
+    val literalsManager = LiteralsManager()
+    val file = addSyntheticFile()
+    val snapshot = runBlocking { literalsManager.findLiterals(file, projectRule.testRootDisposable) }
+    assertEquals(FUNCTION_COUNT * LITERALS_PER_FUNCTION, snapshot.all.size)
+    var current = snapshot
+    liveLiteralsBenchmark.measureOperation(listOf(ReturnedTimeMeasurement(Metric("live_literals_incremental_update_time")))) {
+      editAndMeasure {
+        current.modified.also { current = current.newSnapshot() }
+      }
+    }
+  }
+}
@@ -28,9 +28,11 @@ public class Display {
   private DisplayList myDisplayList = new DisplayList();
   private long myDisplayListVersion = 0;
   double myScale = 0;
+  private boolean myNeedsFullRebuild = true;
 
   public void reLayout() {
     myDisplayListVersion = 0;
+    myNeedsFullRebuild = true;
   }
 
   public void draw(@NotNull SceneContext sceneContext, @NotNull Graphics2D g, @NotNull Scene scene) {
@@ -45,12 +47,18 @@ public class Display {
     }
     needsRebuild |= myDisplayList.getCommands().isEmpty();
     if (needsRebuild) {
+      if (myNeedsFullRebuild) {
+        // Don't reuse what the components cached, the settings they were built for may have changed.
+        scene.needsRebuildList();
+        myNeedsFullRebuild = false;
+      }
       needsRebuild = scene.layout(mTime, sceneContext);
       myDisplayList.clear();
       scene.buildDisplayList(myDisplayList, mTime, sceneContext);
       myDisplayListVersion = scene.getDisplayListVersion();
       if (needsRebuild) {
-        scene.needsRebuildList();
+        // The components that are still animating mark themselves again in the next layout.
+        scene.incrementDisplayListVersion();
       }
     }
     draw(sceneContext, g, myDisplayList);
@@ -106,6 +106,7 @@ public class Scene implements SelectionListener, Disposable {
   public static final int IMMEDIATE_LAYOUT = 1;
   public static final int ANIMATED_LAYOUT = 2;
   private long myDisplayListVersion = 1;
+  private long myDisplayListCacheVersion = 1;
   private Target myOverTarget;
   private Target mySnapTarget;
   private SceneComponent myCurrentComponent;
@@ -454,8 +455,10 @@ public class Scene implements SelectionListener, Disposable {
   public boolean layout(long time, SceneContext sceneContext) {
     boolean needsToRebuildDisplayList = false;
     if (myRoot != null) {
+      long version = myDisplayListVersion;
       needsToRebuildDisplayList = myRoot.layout(sceneContext, time);
-      if (needsToRebuildDisplayList) {
+      // The components that changed have marked themselves, unless a layout implementation didn't say which one did.
+      if (needsToRebuildDisplayList && myDisplayListVersion == version) {
         needsRebuildList();
       }
     }
@@ -808,6 +811,7 @@ public class Scene implements SelectionListener, Disposable {
                         @AndroidDpCoordinate int x,
                         @AndroidDpCoordinate int y,
                         @JdkConstants.InputEventMask int modifiersEx) {
+    invalidateHitListeners();
     myPressedMouseX = x;
     myPressedMouseY = y;
 
@@ -970,6 +974,7 @@ public class Scene implements SelectionListener, Disposable {
                            @AndroidDpCoordinate int x,
                            @AndroidDpCoordinate int y,
                            @JdkConstants.InputEventMask int modifiersEx) {
+    invalidateHitListeners();
     myLastMouseX = x;
     myLastMouseY = y;
 
@@ -1023,6 +1028,7 @@ public class Scene implements SelectionListener, Disposable {
   }
 
   public void mouseCancel() {
+    invalidateHitListeners();
     if (myHitTarget != null) {
       myHitTarget.mouseCancel();
       myHitTarget.getComponent().setDragging(false);
@@ -1078,10 +1084,42 @@ public class Scene implements SelectionListener, Disposable {
     return myDisplayListVersion;
   }
 
+  /**
+   * Display list version before which the display lists cached by the {@link SceneComponent}s are stale.
+   */
+  long getDisplayListCacheVersion() {
+    return myDisplayListCacheVersion;
+  }
+
   // TODO: reduce visibility? Probably the modified SceneComponents should do this rather than
   // requiring it to be done explicitly by the code that's modifying them.
   public void needsRebuildList() {
     myDisplayListVersion++;
+    myDisplayListCacheVersion = myDisplayListVersion;
+  }
+
+  /**
+   * Like {@link #needsRebuildList()}, but only the display list of the given component and of its ancestors
+   * has to be regenerated, the other components keep using the draw commands they built last time.
+   */
+  public void needsRebuildList(@NotNull SceneComponent component) {
+    myDisplayListVersion++;
+    component.markDisplayListChanged(myDisplayListVersion);
+  }
+
+  /**
+   * Requests a new display list without invalidating any component, for the components that mark themselves
+   * while they are laid out, e.g. because they are animating.
+   */
+  void incrementDisplayListVersion() {
+    myDisplayListVersion++;
+  }
+
+  private void invalidateHitListeners() {
+    myHoverListener.invalidate();
+    myHitListener.invalidate();
+    myFindListener.invalidate();
+    mySnapListener.invalidate();
   }
 
   //endregion
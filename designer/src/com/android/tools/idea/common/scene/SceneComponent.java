@@ -16,14 +16,18 @@
 package com.android.tools.idea.common.scene;
 
 import com.android.annotations.concurrency.GuardedBy;
+import com.android.tools.adtui.common.SwingCoordinate;
 import com.android.tools.idea.common.model.AndroidDpCoordinate;
 import com.android.tools.idea.common.model.Coordinates;
 import com.android.tools.idea.common.model.NlComponent;
 import com.android.tools.idea.common.scene.decorator.SceneDecorator;
+import com.android.tools.idea.common.scene.draw.ColorSet;
 import com.android.tools.idea.common.scene.draw.DisplayList;
+import com.android.tools.idea.common.scene.draw.DrawCommand;
 import com.android.tools.idea.common.scene.target.CommonDragTarget;
 import com.android.tools.idea.common.scene.target.Target;
 import com.android.tools.idea.flags.StudioFlags;
+import com.android.tools.idea.uibuilder.handlers.constraint.SecondarySelector;
 import com.android.tools.idea.uibuilder.model.NlComponentHelperKt;
 import com.android.tools.idea.uibuilder.scene.decorator.DecoratorUtilities;
 import com.android.tools.idea.uibuilder.scene.target.Notch;
@@ -33,7 +37,9 @@ import com.google.common.collect.ImmutableList;
 import java.awt.Rectangle;
 import java.awt.geom.Rectangle2D;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.Iterator;
 import java.util.List;
 import java.util.concurrent.CopyOnWriteArrayList;
 import org.intellij.lang.annotations.JdkConstants;
@@ -52,6 +58,7 @@ import org.jetbrains.annotations.Nullable;
 @SuppressWarnings("ForLoopReplaceableByForEach")
 public class SceneComponent {
   @VisibleForTesting public static final int ANIMATION_DURATION = 350; // ms -- the duration of the animation
+  private static final int MAX_CACHED_DISPLAY_LISTS = 2; // e.g. design and blueprint views of the same scene
   public HashMap<String, Object> myCache = new HashMap<>();
   public SceneDecorator myDecorator;
   private TargetProvider myTargetProvider;
@@ -90,6 +97,11 @@ public class SceneComponent {
 
   private boolean myShowBaseline = false;
 
+  // Display list version at which this component or one of its descendants last changed.
+  private long myDisplayListChangeVersion = 0;
+  // Draw commands of this subtree built by the last buildDisplayList calls, one entry per SceneContext.
+  private final ArrayList<CachedDisplayList> myCachedDisplayLists = new ArrayList<>(MAX_CACHED_DISPLAY_LISTS);
+
   @Nullable private Notch.Provider myNotchProvider = null;
 
   @AndroidDpCoordinate
@@ -411,7 +423,7 @@ public class SceneComponent {
       NlComponentHelperKt.setX(myNlComponent, Coordinates.dpToPx(myScene.getSceneManager(), dx));
       NlComponentHelperKt.setY(myNlComponent, Coordinates.dpToPx(myScene.getSceneManager(), dy));
     }
-    myScene.needsRebuildList();
+    myScene.needsRebuildList(this);
   }
 
   /**
@@ -432,7 +444,7 @@ public class SceneComponent {
       NlComponentHelperKt.setY(myNlComponent, Coordinates.dpToPx(myScene.getSceneManager(), dy));
     }
     else {
-      myScene.needsRebuildList();
+      myScene.needsRebuildList(this);
     }
   }
 
@@ -447,7 +459,7 @@ public class SceneComponent {
       NlComponentHelperKt.setW(myNlComponent, Coordinates.dpToPx(myScene.getSceneManager(), width));
       NlComponentHelperKt.setH(myNlComponent, Coordinates.dpToPx(myScene.getSceneManager(), height));
     }
-    myScene.needsRebuildList();
+    myScene.needsRebuildList(this);
   }
 
   /**
@@ -720,6 +732,9 @@ public class SceneComponent {
       Target target = targets.get(i);
       needsRebuildDisplayList |= target.layout(sceneTransform, myCurrentLeft, myCurrentTop, myCurrentRight, myCurrentBottom);
     }
+    if (needsRebuildDisplayList) {
+      myScene.needsRebuildList(this);
+    }
 
     for (SceneComponent child : myChildren) {
       needsRebuildDisplayList |= child.layout(sceneTransform, time);
@@ -769,7 +784,83 @@ public class SceneComponent {
   }
 
   public void buildDisplayList(long time, @NotNull DisplayList list, SceneContext sceneContext) {
+    ArrayList<DrawCommand> commands = list.getCommands();
+    CachedDisplayList cached = getCachedDisplayList(sceneContext);
+    if (cached != null) {
+      Collections.addAll(commands, cached.myCommands);
+      return;
+    }
+    int start = commands.size();
+    int selectorCount = SecondarySelector.getAllocationCount();
     myDecorator.buildList(list, time, sceneContext, this);
+    // Connections hold pooled SecondarySelectors that are released on every rebuild, so they can't be reused.
+    if (sceneContext != null && !isAnimating() && selectorCount == SecondarySelector.getAllocationCount()) {
+      if (myCachedDisplayLists.size() == MAX_CACHED_DISPLAY_LISTS) {
+        myCachedDisplayLists.remove(0);
+      }
+      DrawCommand[] built = commands.subList(start, commands.size()).toArray(new DrawCommand[0]);
+      myCachedDisplayLists.add(new CachedDisplayList(sceneContext, myScene.getDisplayListVersion(), built));
+    }
+  }
+
+  /**
+   * Marks this component and its ancestors, whose display lists contain the commands of this one, as changed.
+   */
+  void markDisplayListChanged(long version) {
+    for (SceneComponent component = this; component != null; component = component.myParent) {
+      component.myDisplayListChangeVersion = version;
+    }
+  }
+
+  /**
+   * Returns the commands built for the given context if nothing in this subtree changed since then, removing the stale ones.
+   */
+  @Nullable
+  private CachedDisplayList getCachedDisplayList(@Nullable SceneContext sceneContext) {
+    if (sceneContext == null || myCachedDisplayLists.isEmpty()) {
+      return null;
+    }
+    long minVersion = Math.max(myDisplayListChangeVersion, myScene.getDisplayListCacheVersion());
+    CachedDisplayList result = null;
+    for (Iterator<CachedDisplayList> it = myCachedDisplayLists.iterator(); it.hasNext(); ) {
+      CachedDisplayList cached = it.next();
+      if (cached.myVersion < minVersion) {
+        it.remove();
+      }
+      else if (cached.isBuiltFor(sceneContext)) {
+        result = cached;
+      }
+    }
+    return result;
+  }
+
+  private static final class CachedDisplayList {
+    @NotNull private final SceneContext myContext;
+    @NotNull private final ColorSet myColorSet;
+    private final double myScale;
+    @SwingCoordinate private final int myOriginX;
+    @SwingCoordinate private final int myOriginY;
+    private final long myVersion;
+    @NotNull private final DrawCommand[] myCommands;
+
+    private CachedDisplayList(@NotNull SceneContext context, long version, @NotNull DrawCommand[] commands) {
+      myContext = context;
+      myColorSet = context.getColorSet();
+      myScale = context.getScale();
+      myOriginX = context.getSwingXDip(0);
+      myOriginY = context.getSwingYDip(0);
+      myVersion = version;
+      myCommands = commands;
+    }
+
+    @SuppressWarnings("FloatingPointEquality")  // The scale is compared with the value it was read from.
+    private boolean isBuiltFor(@NotNull SceneContext context) {
+      return myContext == context &&
+             myColorSet == context.getColorSet() &&
+             myScale == context.getScale() &&
+             myOriginX == context.getSwingXDip(0) &&
+             myOriginY == context.getSwingYDip(0);
+    }
   }
 
   //endregion
@@ -41,6 +41,15 @@ class SceneHitListener {
   @NotNull final ArrayList<Target> myHitTargets = new ArrayList<>();
   private Predicate<Target> myTargertFilter = it -> true;
 
+  // What the picker was filled for. The hit regions are only collected again when one of these changes.
+  @Nullable private SceneComponent myPickedRoot;
+  @Nullable private SceneContext myPickedTransform;
+  private long myPickedDisplayListVersion = -1;
+  private int myPickedModifiersEx;
+  private double myPickedScale;
+  private int myPickedOriginX;
+  private int myPickedOriginY;
+
   public SceneHitListener(@NotNull SelectionModel selectionModel) {
     mySelectionModel = selectionModel;
     myPicker.setSelectListener((a, b) -> over(a, b));
@@ -59,11 +68,46 @@ class SceneHitListener {
     myHitTargets.clear();
     myClosestComponentDistance = Double.MAX_VALUE;
     myClosestTargetDistance = Double.MAX_VALUE;
-    myPicker.reset();
-    root.addHit(transform, myPicker, modifiersEx);
+    if (!isPickerUpToDate(transform, root, modifiersEx)) {
+      myPicker.reset();
+      root.addHit(transform, myPicker, modifiersEx);
+      myPickedRoot = root;
+      myPickedTransform = transform;
+      myPickedDisplayListVersion = root.getScene().getDisplayListVersion();
+      myPickedModifiersEx = modifiersEx;
+      myPickedScale = transform.getScale();
+      myPickedOriginX = transform.getSwingXDip(0);
+      myPickedOriginY = transform.getSwingYDip(0);
+    }
     myPicker.find(transform.getSwingXDip(x), transform.getSwingYDip(y));
   }
 
+  /**
+   * Hit regions only change when something that needs a new display list changes, so while hovering over a scene that
+   * doesn't change the regions collected by the previous {@link #find} can be used again.
+   */
+  @SuppressWarnings("FloatingPointEquality")  // The scale is compared with the value it was read from.
+  private boolean isPickerUpToDate(@NotNull SceneContext transform,
+                                   @NotNull SceneComponent root,
+                                   @JdkConstants.InputEventMask int modifiersEx) {
+    return myPickedRoot == root &&
+           myPickedTransform == transform &&
+           myPickedDisplayListVersion == root.getScene().getDisplayListVersion() &&
+           myPickedModifiersEx == modifiersEx &&
+           myPickedScale == transform.getScale() &&
+           myPickedOriginX == transform.getSwingXDip(0) &&
+           myPickedOriginY == transform.getSwingYDip(0);
+  }
+
+  /**
+   * Forces the hit regions to be collected again by the next {@link #find}, for state changes that don't update the
+   * display list version, like the start and end of an interaction.
+   */
+  void invalidate() {
+    myPickedRoot = null;
+    myPickedTransform = null;
+  }
+
   @SuppressWarnings("FloatingPointEquality")  // The values are directly assigned with no math, so this should be fine.
   public void over(Object over, double dist) {
     if (over instanceof Target) {
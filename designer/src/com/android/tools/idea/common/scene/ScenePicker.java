@@ -25,6 +25,9 @@ public class ScenePicker {
   private final static int MAX_DATA_SIZE = 10;
   private final static int INITAL_OBJECT_STORE = 30;
   private final static double EPSILON = 0.00001;
+  // Below this number of objects a linear scan is cheaper than building the grid.
+  private final static int MIN_INDEXED_OBJECTS = 64;
+  private final static int MAX_GRID_SIZE = 64;
   private double[] mObjectData = new double[100];
   private int mObjectDataUsed = 0;
   private int[] mObjectOffset = new int[INITAL_OBJECT_STORE];
@@ -34,6 +37,18 @@ public class ScenePicker {
   HitElementListener mHitElementListener;
 
   private int mObjectCount = 0;
+
+  // Uniform grid over the bounds of all the objects. The objects overlapping cell c are
+  // myGridItems[myGridCellStart[c]..myGridCellStart[c + 1]), in increasing order.
+  private int myIndexedObjectCount = -1;
+  private int myGridX;
+  private int myGridY;
+  private int myGridColumns;
+  private int myGridRows;
+  private int myGridCellWidth;
+  private int myGridCellHeight;
+  private int[] myGridCellStart = new int[0];
+  private int[] myGridItems = new int[0];
   private final static int OBJECT_LINE = 0;
   private final static int OBJECT_CURVE = 1;
   private final static int OBJECT_RECTANGLE = 2;
@@ -67,19 +82,109 @@ public class ScenePicker {
    * @param y location y
    */
   public void find(int x, int y) {
+    if (mObjectCount >= MIN_INDEXED_OBJECTS) {
+      findIndexed(x, y);
+      return;
+    }
+    for (int i = 0; i < mObjectCount; i++) {
+      check(i, x, y);
+    }
+  }
+
+  private void findIndexed(int x, int y) {
+    if (myIndexedObjectCount != mObjectCount) {
+      buildIndex();
+    }
+    int column = (x - myGridX) / myGridCellWidth;
+    int row = (y - myGridY) / myGridCellHeight;
+    if (x < myGridX || y < myGridY || column >= myGridColumns || row >= myGridRows) {
+      return;
+    }
+    int cell = row * myGridColumns + column;
+    // Items were added in increasing order so the listener is notified in the same order as a linear scan.
+    for (int i = myGridCellStart[cell], end = myGridCellStart[cell + 1]; i < end; i++) {
+      check(myGridItems[i], x, y);
+    }
+  }
+
+  private void check(int object, int x, int y) {
+    int p = object * 4;
+    int x1 = mRect[p++];
+    int y1 = mRect[p++];
+    int x2 = mRect[p++];
+    int y2 = mRect[p];
+    if (inRect(x, y, x1, y1, x2, y2)) {
+      SelectionEngine selector = myEngines[mTypes[object]];
+      if (selector.inRange(object, x, y)) {
+        mHitElementListener.over(mObjects[object], selector.distance());
+      }
+    }
+  }
+
+  /**
+   * Builds the grid used by {@link #find(int, int)} once there are enough objects for a linear scan to be too slow,
+   * e.g. while hovering or dragging in layouts with hundreds of components.
+   */
+  private void buildIndex() {
+    int minX = Integer.MAX_VALUE;
+    int minY = Integer.MAX_VALUE;
+    int maxX = Integer.MIN_VALUE;
+    int maxY = Integer.MIN_VALUE;
+    for (int i = 0; i < mObjectCount; i++) {
+      int p = i * 4;
+      minX = Math.min(minX, mRect[p]);
+      minY = Math.min(minY, mRect[p + 1]);
+      maxX = Math.max(maxX, mRect[p + 2]);
+      maxY = Math.max(maxY, mRect[p + 3]);
+    }
+    int size = Math.max(1, Math.min(MAX_GRID_SIZE, (int)Math.sqrt(mObjectCount)));
+    myGridX = minX;
+    myGridY = minY;
+    myGridColumns = size;
+    myGridRows = size;
+    myGridCellWidth = (int)(((long)maxX - minX) / size + 1);
+    myGridCellHeight = (int)(((long)maxY - minY) / size + 1);
+
+    int cellCount = myGridColumns * myGridRows;
+    if (myGridCellStart.length < cellCount + 1) {
+      myGridCellStart = new int[cellCount + 1];
+    }
+    else {
+      Arrays.fill(myGridCellStart, 0, cellCount + 1, 0);
+    }
+    // First count the items of every cell, then turn the counts into start offsets and fill the cells.
+    for (int i = 0; i < mObjectCount; i++) {
+      int p = i * 4;
+      int firstColumn = (mRect[p] - myGridX) / myGridCellWidth;
+      int lastColumn = (mRect[p + 2] - myGridX) / myGridCellWidth;
+      int firstRow = (mRect[p + 1] - myGridY) / myGridCellHeight;
+      int lastRow = (mRect[p + 3] - myGridY) / myGridCellHeight;
+      for (int row = firstRow; row <= lastRow; row++) {
+        for (int column = firstColumn; column <= lastColumn; column++) {
+          myGridCellStart[row * myGridColumns + column + 1]++;
+        }
+      }
+    }
+    for (int cell = 0; cell < cellCount; cell++) {
+      myGridCellStart[cell + 1] += myGridCellStart[cell];
+    }
+    if (myGridItems.length < myGridCellStart[cellCount]) {
+      myGridItems = new int[myGridCellStart[cellCount]];
+    }
+    int[] next = Arrays.copyOf(myGridCellStart, cellCount);
     for (int i = 0; i < mObjectCount; i++) {
       int p = i * 4;
-      int x1 = mRect[p++];
-      int y1 = mRect[p++];
-      int x2 = mRect[p++];
-      int y2 = mRect[p];
-      if (inRect(x, y, x1, y1, x2, y2)) {
-        SelectionEngine selector = myEngines[mTypes[i]];
-        if (selector.inRange(i, x, y)) {
-          mHitElementListener.over(mObjects[i], selector.distance());
+      int firstColumn = (mRect[p] - myGridX) / myGridCellWidth;
+      int lastColumn = (mRect[p + 2] - myGridX) / myGridCellWidth;
+      int firstRow = (mRect[p + 1] - myGridY) / myGridCellHeight;
+      int lastRow = (mRect[p + 3] - myGridY) / myGridCellHeight;
+      for (int row = firstRow; row <= lastRow; row++) {
+        for (int column = firstColumn; column <= lastColumn; column++) {
+          myGridItems[next[row * myGridColumns + column]++] = i;
         }
       }
     }
+    myIndexedObjectCount = mObjectCount;
   }
 
   /**
@@ -121,6 +226,7 @@ public class ScenePicker {
   public void reset() {
     mObjectCount = 0;
     mObjectDataUsed = 0;
+    myIndexedObjectCount = -1;
     Arrays.fill(mObjects, null);// delete references
   }
 
@@ -44,6 +44,7 @@ public class SecondarySelector {
   private static ArrayList<SecondarySelector> freeList = new ArrayList<>();
   private static HashSet<SecondarySelector> freeSet = new HashSet<>();
   private static ArrayList<SecondarySelector> unFreed;
+  private static int allocationCount = 0;
 
   static {
     if (DEBUG) {
@@ -65,6 +66,7 @@ public class SecondarySelector {
   public static SecondarySelector get(NlComponent component, Constraint constraint) {
     SecondarySelector selector = freeList.isEmpty() ? new SecondarySelector() : freeList.remove(0);
     freeSet.remove(selector);
+    allocationCount++;
     selector.myComponent = component;
     selector.myConstraint = constraint;
     if (DEBUG) {
@@ -75,6 +77,14 @@ public class SecondarySelector {
     return selector;
   }
 
+  /**
+   * Number of selectors handed out by {@link #get} so far, used to know whether a display list holds selectors
+   * that will be released on the next rebuild.
+   */
+  public static int getAllocationCount() {
+    return allocationCount;
+  }
+
   public Constraint getConstraint() {
     return myConstraint;
   }
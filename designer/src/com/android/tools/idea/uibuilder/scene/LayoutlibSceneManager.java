@@ -274,6 +274,9 @@ public class LayoutlibSceneManager extends SceneManager {
   @GuardedBy("myRenderResultLock")
   @Nullable
   private RenderResult myRenderResult;
+  // Image displayed instead of the image of myRenderResult, if not null
+  @Nullable
+  private volatile ImagePool.Image myRenderedImageOverride;
   // Variables to track previous values of the configuration bar for tracking purposes
   private final AtomicInteger myConfigurationUpdatedFlags = new AtomicInteger(0);
   private long myElapsedFrameTimeMs = -1;
@@ -1043,6 +1046,26 @@ public class LayoutlibSceneManager extends SceneManager {
     }
   }
 
+  /**
+   * Displays the given image instead of the image of the last render result, until this is called again with null. This allows
+   * displaying images rendered ahead of time (e.g. the frames of an animation while scrubbing its timeline), without the renders
+   * that produce them changing what is displayed.
+   * <p>
+   * The image is not disposed by this scene manager.
+   */
+  public void setRenderedImageOverride(@Nullable ImagePool.Image image) {
+    myRenderedImageOverride = image;
+    getDesignSurface().repaint();
+  }
+
+  /**
+   * Returns the image set with {@link #setRenderedImageOverride(ImagePool.Image)}, if any.
+   */
+  @Nullable
+  public ImagePool.Image getRenderedImageOverride() {
+    return myRenderedImageOverride;
+  }
+
   @Override
   @NotNull
   public Map<Object, Map<ResourceReference, ResourceValue>> getDefaultProperties() {
@@ -60,6 +60,10 @@ public class ScreenViewLayer extends Layer {
    * Cached last render result
    */
   @Nullable private RenderResult myLastRenderResult;
+  /**
+   * Cached last image override, see {@link LayoutlibSceneManager#setRenderedImageOverride(ImagePool.Image)}
+   */
+  @Nullable private ImagePool.Image myLastImageOverride;
 
   private final Rectangle myScreenViewVisibleRect = new Rectangle();
   private final Dimension myScreenViewSize = new Dimension();
@@ -154,6 +158,11 @@ public class ScreenViewLayer extends Layer {
       myScreenView.getScene().needsRebuildList();
       drawNewImg = true;
     }
+    ImagePool.Image imageOverride = myScreenView.getSceneManager().getRenderedImageOverride();
+    if (imageOverride != myLastImageOverride) {
+      myLastImageOverride = imageOverride;
+      drawNewImg = true;
+    }
 
     Graphics2D g = (Graphics2D) graphics2D.create();
     BufferedImage[] cachedVisibleImage = new BufferedImage[1];
@@ -161,8 +170,9 @@ public class ScreenViewLayer extends Layer {
     double currentScale = myScreenView.getScale();
     //noinspection FloatingPointEquality
     if (drawNewImg || currentScale != myLastScale || !myScreenViewVisibleRect.equals(myCachedScreenViewDisplayRect)) {
-      if (myLastRenderResult != null) {
-        ImagePool.Image image = myLastRenderResult.getRenderedImage();
+      ImagePool.Image image = imageOverride != null ? imageOverride :
+                              myLastRenderResult != null ? myLastRenderResult.getRenderedImage() : null;
+      if (image != null) {
         ImagePoolImageDisposer.runWithDisposeLock(image, theImage -> {
           if (theImage.isValid()) {
             int resultImageWidth = theImage.getWidth();
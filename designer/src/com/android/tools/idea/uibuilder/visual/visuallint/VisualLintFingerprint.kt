@@ -0,0 +1,148 @@
+/*
+ * Copyright (C) 2022 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.android.tools.idea.uibuilder.visual.visuallint
+
+import com.android.ide.common.rendering.api.ResourceNamespace
+import com.android.ide.common.rendering.api.ResourceReference
+import com.android.ide.common.rendering.api.StyleResourceValue
+import com.android.resources.ResourceType
+import com.android.resources.ResourceUrl
+import com.android.tools.idea.configurations.ConfigurationManager
+import com.android.tools.idea.res.LocalResourceRepository
+import com.android.tools.idea.res.ResourceRepositoryManager
+import com.android.tools.idea.res.getSourceAsVirtualFile
+import com.google.common.hash.Hasher
+import com.google.common.hash.Hashing
+import com.intellij.openapi.util.Key
+import com.intellij.openapi.vfs.VirtualFile
+import com.intellij.psi.PsiManager
+import com.intellij.psi.xml.XmlFile
+import com.intellij.psi.xml.XmlTag
+import org.jetbrains.android.facet.AndroidFacet
+import java.nio.charset.StandardCharsets.UTF_8
+
+private val FINGERPRINT_KEY = Key.create<CachedFingerprint>("VisualLintFingerprint")
+
+/**
+ * Returns a fingerprint of the inputs of the rendering of a layout, other than the code of its views: its XML, its default theme and
+ * the styles it inherits from, the values of the resources it references (following references between resources) and the
+ * fingerprints of the layouts it includes. Layouts whose fingerprint didn't change don't need to be rendered and analyzed again.
+ *
+ * The fingerprint is kept with the layout, and only computed again once the layout, a file it depends on or the app resources changed.
+ *
+ * Must be called from a read action.
+ */
+internal fun computeVisualLintFingerprint(facet: AndroidFacet, file: XmlFile): String {
+  val theme = file.virtualFile?.let { ConfigurationManager.getOrCreateInstance(facet).getConfiguration(it).theme }.orEmpty()
+  val resources = ResourceRepositoryManager.getAppResources(facet)
+  val resourcesModificationCount = resources.modificationCount
+  file.getUserData(FINGERPRINT_KEY)?.let { if (it.isUpToDate(theme, resourcesModificationCount)) return it.fingerprint }
+
+  val hasher = Hashing.sha256().newHasher()
+  hasher.putString(theme, UTF_8)
+  val fingerprinter = LayoutFingerprinter(facet, resources, hasher)
+  fingerprinter.addReference(theme)
+  fingerprinter.addLayout(file)
+  val fingerprint = hasher.hash().toString()
+  file.putUserData(FINGERPRINT_KEY, CachedFingerprint(fingerprint, theme, resourcesModificationCount, fingerprinter.stamps))
+  return fingerprint
+}
+
+/** A fingerprint, with the modification stamps of what it was computed from. */
+private class CachedFingerprint(
+  val fingerprint: String,
+  private val theme: String,
+  private val resourcesModificationCount: Long,
+  private val stamps: List<Pair<() -> Long, Long>>
+) {
+  fun isUpToDate(theme: String, resourcesModificationCount: Long) =
+    this.theme == theme &&
+    this.resourcesModificationCount == resourcesModificationCount &&
+    stamps.all { (stamp, value) -> stamp() == value }
+}
+
+private class LayoutFingerprinter(
+  private val facet: AndroidFacet,
+  private val resources: LocalResourceRepository,
+  private val hasher: Hasher
+) {
+  private val visitedLayouts = mutableSetOf<VirtualFile>()
+  private val visitedResources = mutableSetOf<ResourceReference>()
+
+  /** The modification stamps of the files read, other than the resource values, which are covered by the resources modification count. */
+  val stamps = mutableListOf<Pair<() -> Long, Long>>()
+
+  private fun addStamp(stamp: () -> Long) {
+    stamps.add(stamp to stamp())
+  }
+
+  fun addLayout(file: XmlFile) {
+    val virtualFile = file.virtualFile ?: return
+    if (!visitedLayouts.add(virtualFile)) return
+    // The stamp of the PSI file also changes with unsaved edits.
+    addStamp { if (file.isValid) file.modificationStamp else -1 }
+    hasher.putString(virtualFile.path, UTF_8).putString(file.text, UTF_8)
+    file.rootTag?.let { addReferences(it) }
+  }
+
+  private fun addReferences(tag: XmlTag) {
+    tag.attributes.forEach { attribute -> attribute.value?.let { addReference(it) } }
+    tag.subTags.forEach { addReferences(it) }
+  }
+
+  fun addReference(value: String) {
+    val url = ResourceUrl.parse(value.trim()) ?: return
+    if (url.type == ResourceType.ID || url.isCreate) return
+    url.resolve(ResourceNamespace.RES_AUTO, ResourceNamespace.Resolver.EMPTY_RESOLVER)?.let { addReference(it) }
+  }
+
+  private fun addReference(reference: ResourceReference) {
+    if (!visitedResources.add(reference)) return
+    hasher.putString(reference.resourceUrl.toString(), UTF_8)
+    for (item in resources.getResources(reference)) {
+      hasher.putString(item.configuration.qualifierString, UTF_8)
+      if (item.isFileBased) {
+        val file = item.getSourceAsVirtualFile() ?: continue
+        if (reference.resourceType == ResourceType.LAYOUT) {
+          (PsiManager.getInstance(facet.module.project).findFile(file) as? XmlFile)?.let { addLayout(it) }
+        }
+        else {
+          addStamp { if (file.isValid) file.modificationStamp else -1 }
+          hasher.putString(file.path, UTF_8).putLong(file.timeStamp).putLong(file.length)
+        }
+        continue
+      }
+
+      val resourceValue = item.resourceValue ?: continue
+      if (resourceValue is StyleResourceValue) {
+        resourceValue.parentStyle?.let { addReference(it) }
+        for (styleItem in resourceValue.definedStyleItems) {
+          hasher.putString(styleItem.attrName, UTF_8)
+          styleItem.value?.let {
+            hasher.putString(it, UTF_8)
+            addReference(it)
+          }
+        }
+      }
+      else {
+        resourceValue.value?.let {
+          hasher.putString(it, UTF_8)
+          addReference(it)
+        }
+      }
+    }
+  }
+}
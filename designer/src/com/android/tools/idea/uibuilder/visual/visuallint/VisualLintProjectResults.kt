@@ -0,0 +1,135 @@
+/*
+ * Copyright (C) 2022 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.android.tools.idea.uibuilder.visual.visuallint
+
+import com.android.tools.idea.common.error.Issue
+import com.android.tools.idea.common.error.IssueProvider
+import com.android.tools.idea.common.error.IssueSource
+import com.google.common.collect.ImmutableCollection
+import com.intellij.lang.annotation.HighlightSeverity
+import com.intellij.openapi.components.PersistentStateComponent
+import com.intellij.openapi.components.Service
+import com.intellij.openapi.components.State
+import com.intellij.openapi.components.Storage
+import com.intellij.openapi.components.StoragePathMacros
+import com.intellij.openapi.project.Project
+import com.intellij.openapi.vfs.LocalFileSystem
+import com.intellij.openapi.vfs.VirtualFile
+import com.intellij.util.xmlb.annotations.Tag
+import com.intellij.util.xmlb.annotations.XCollection
+import java.util.concurrent.ConcurrentHashMap
+
+/**
+ * Results of the project wide Visual Lint analysis (see [VisualLintService.runProjectVisualLintAnalysis]), by layout.
+ *
+ * A layout is only analyzed again when its fingerprint (see [computeVisualLintFingerprint]) changes. The fingerprints and a summary of
+ * the issues found are saved in the project cache, so the layouts that didn't change since the previous session aren't analyzed
+ * again either: their issues are restored from the summary.
+ */
+@Service
+@State(name = "VisualLintProjectResults", storages = [Storage(StoragePathMacros.CACHE_FILE)])
+class VisualLintProjectResults : IssueProvider(), PersistentStateComponent<VisualLintProjectResults.ResultsState> {
+  companion object {
+    @JvmStatic
+    fun getInstance(project: Project): VisualLintProjectResults = project.getService(VisualLintProjectResults::class.java)
+  }
+
+  private class LayoutResult(val fingerprint: String, val issues: Collection<Issue>, val summaries: List<IssueState>)
+
+  /** Results by layout path. */
+  private val results = ConcurrentHashMap<String, LayoutResult>()
+
+  override fun collectIssues(issueListBuilder: ImmutableCollection.Builder<Issue>) {
+    results.values.forEach { issueListBuilder.addAll(it.issues) }
+  }
+
+  /** Returns true if [file] was analyzed with the given [fingerprint], in this session or in a previous one. */
+  fun isUpToDate(file: VirtualFile, fingerprint: String): Boolean = results[file.path]?.fingerprint == fingerprint
+
+  /** Replaces the results of [file] with the [issues] found when analyzing it with the given [fingerprint]. */
+  fun update(file: VirtualFile, fingerprint: String, issues: Collection<Issue>) {
+    val summaries = issues.filterIsInstance<VisualLintRenderIssue>().map { IssueState(it.summary, it.severity.name) }
+    results[file.path] = LayoutResult(fingerprint, issues, summaries)
+    notifyModified()
+  }
+
+  /** Drops the results of [file], so it is analyzed again the next time. */
+  fun remove(file: VirtualFile) {
+    if (results.remove(file.path) != null) {
+      notifyModified()
+    }
+  }
+
+  /** Drops the results of the layouts that were deleted. */
+  fun removeDeletedLayouts() {
+    if (results.keys.removeIf { LocalFileSystem.getInstance().findFileByPath(it) == null }) {
+      notifyModified()
+    }
+  }
+
+  override fun getState(): ResultsState {
+    return ResultsState().apply {
+      layouts = results.map { (path, result) ->
+        LayoutState().apply {
+          this.path = path
+          fingerprint = result.fingerprint
+          issues = result.summaries.toMutableList()
+        }
+      }.toMutableList()
+    }
+  }
+
+  override fun loadState(state: ResultsState) {
+    results.clear()
+    for (layout in state.layouts) {
+      val file = LocalFileSystem.getInstance().findFileByPath(layout.path) ?: continue
+      val issues = layout.issues.map { VisualLintRestoredIssue(file, it) }
+      results[layout.path] = LayoutResult(layout.fingerprint, issues, layout.issues)
+    }
+  }
+
+  @Tag("layout")
+  class LayoutState {
+    var path: String = ""
+    var fingerprint: String = ""
+    @get:XCollection(propertyElementName = "issues")
+    var issues: MutableList<IssueState> = mutableListOf()
+  }
+
+  @Tag("issue")
+  class IssueState(var summary: String = "", var severity: String = "")
+
+  class ResultsState {
+    @get:XCollection(propertyElementName = "layouts")
+    var layouts: MutableList<LayoutState> = mutableListOf()
+  }
+}
+
+/**
+ * An issue of a layout that was analyzed in a previous session, and hasn't changed since. Only the summary of the original issue is
+ * kept, so this points to the layout file rather than to the components of the issue.
+ */
+private class VisualLintRestoredIssue(layout: VirtualFile, state: VisualLintProjectResults.IssueState) : Issue() {
+  override val summary = state.summary
+  override val description = state.summary
+  override val severity = listOf(HighlightSeverity.ERROR, HighlightSeverity.WARNING, HighlightSeverity.WEAK_WARNING)
+                            .firstOrNull { it.name == state.severity } ?: HighlightSeverity.WARNING
+  override val category = "Visual Lint Issue"
+  override val source = object : IssueSource {
+    override val file = layout
+    override val displayText = layout.name
+  }
+}
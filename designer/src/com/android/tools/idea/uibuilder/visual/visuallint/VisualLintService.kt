@@ -16,14 +16,19 @@
 package com.android.tools.idea.uibuilder.visual.visuallint
 
 import com.android.ide.common.rendering.HardwareConfigHelper
+import com.android.ide.common.rendering.api.ResourceNamespace
+import com.android.resources.ResourceType
 import com.android.tools.idea.common.error.IssueModel
 import com.android.tools.idea.common.model.ModelListener
 import com.android.tools.idea.common.model.NlModel
+import com.android.tools.idea.configurations.ConfigurationManager
 import com.android.tools.idea.flags.StudioFlags
 import com.android.tools.idea.rendering.RenderAsyncActionExecutor
 import com.android.tools.idea.rendering.RenderResult
 import com.android.tools.idea.rendering.RenderService
 import com.android.tools.idea.rendering.errors.ui.RenderErrorModel
+import com.android.tools.idea.res.ResourceRepositoryManager
+import com.android.tools.idea.res.getSourceAsVirtualFile
 import com.android.tools.idea.uibuilder.scene.NlModelHierarchyUpdater.updateHierarchy
 import com.android.tools.idea.uibuilder.visual.WearDeviceModelsProvider
 import com.android.tools.idea.uibuilder.visual.WindowSizeModelsProvider
@@ -43,16 +48,21 @@ import com.intellij.codeInsight.daemon.HighlightDisplayKey
 import com.intellij.codeInspection.InspectionProfile
 import com.intellij.lang.annotation.HighlightSeverity
 import com.intellij.openapi.Disposable
+import com.intellij.openapi.application.runReadAction
 import com.intellij.openapi.components.Service
 import com.intellij.openapi.project.Project
 import com.intellij.openapi.util.Disposer
+import com.intellij.openapi.vfs.VirtualFile
 import com.intellij.profile.ProfileChangeAdapter
 import com.intellij.profile.codeInspection.InspectionProfileManager
+import com.intellij.psi.PsiManager
+import com.intellij.psi.xml.XmlFile
 import com.intellij.util.concurrency.AppExecutorUtil
 import java.util.concurrent.CompletableFuture
 import java.util.concurrent.CountDownLatch
 import java.util.concurrent.ExecutorService
 import java.util.concurrent.TimeUnit
+import org.jetbrains.android.facet.AndroidFacet
 
 /**
  * Pool of 1 thread to trigger background visual linting analysis one at a time, and wait for its completion
@@ -90,6 +100,9 @@ class VisualLintService(val project: Project): Disposable {
 
   init {
     issueModel.addIssueProvider(issueProvider, false)
+    if (StudioFlags.NELE_VISUAL_LINT_PROJECT_WIDE.get()) {
+      issueModel.addIssueProvider(VisualLintProjectResults.getInstance(project), false)
+    }
     val connection = project.messageBus.connect()
     ignoredTypes = mutableListOf()
     getIgnoredTypesFromProfile(InspectionProfileManager.getInstance(project).currentProfile)
@@ -156,28 +169,94 @@ class VisualLintService(val project: Project): Disposable {
         } else {
           WindowSizeModelsProvider.createNlModels(displayingModel, displayingModel.file, displayingModel.facet)
         }
-        val latch = CountDownLatch(modelsToAnalyze.size)
-        val visualLintBaseConfigIssues = VisualLintBaseConfigIssues()
-        for (model in modelsToAnalyze) {
-          val requireRender = StudioFlags.NELE_ATF_IN_VISUAL_LINT.get() && VisualLintErrorType.ATF !in ignoredTypes
-          createRenderResult(model, requireRender).handleAsync({ result, _ ->
-            try {
-              if (result != null) {
-                updateHierarchy(result, model)
-                analyzeAfterModelUpdate(issueProvider, result, model, visualLintBaseConfigIssues, true)
-              }
-            } finally {
-              Disposer.dispose(model)
-              latch.countDown()
-            }
-          }, visualLintAnalyzerExecutorService)
-        }
-        latch.await(5, TimeUnit.SECONDS)
+        analyzeModels(modelsToAnalyze, issueProvider)
         issueModel.updateErrorsList()
       } finally {
         displayingModel.removeListener(listener)
       }
     }, executorService)
+
+    if (StudioFlags.NELE_VISUAL_LINT_PROJECT_WIDE.get() && models.isNotEmpty()) {
+      // The displayed layout was just analyzed above.
+      runProjectVisualLintAnalysis(models[0].facet, executorService, models[0].virtualFile)
+    }
+  }
+
+  /**
+   * Runs visual lint analysis in a pooled thread for all the layouts of the module of [facet], and adds the issues found to the
+   * [IssueModel].
+   *
+   * Only the layouts whose fingerprint (see [computeVisualLintFingerprint]) changed since they were last analyzed, in this session
+   * or in a previous one, are rendered and analyzed. See [VisualLintProjectResults].
+   */
+  fun runProjectVisualLintAnalysis(facet: AndroidFacet) {
+    runProjectVisualLintAnalysis(facet, visualLintExecutorService)
+  }
+
+  @VisibleForTesting
+  fun runProjectVisualLintAnalysis(facet: AndroidFacet, executorService: ExecutorService, excludedLayout: VirtualFile? = null) {
+    CompletableFuture.runAsync({
+      val projectResults = VisualLintProjectResults.getInstance(project)
+      projectResults.removeDeletedLayouts()
+      // The issues of the displayed layout come from its own analysis, an older result would show them twice or show fixed ones.
+      excludedLayout?.let { projectResults.remove(it) }
+      val layouts = runReadAction {
+        ResourceRepositoryManager.getModuleResources(facet).getResources(ResourceNamespace.RES_AUTO, ResourceType.LAYOUT).values()
+          .mapNotNull { it.getSourceAsVirtualFile() }
+          .filter { it != excludedLayout }
+          .distinct()
+      }
+      for (layout in layouts) {
+        val (file, fingerprint) = runReadAction {
+          val file = PsiManager.getInstance(project).findFile(layout) as? XmlFile
+          file to file?.let { computeVisualLintFingerprint(facet, it) }
+        }
+        if (file == null || fingerprint == null || projectResults.isUpToDate(layout, fingerprint)) {
+          continue
+        }
+
+        val device = runReadAction { ConfigurationManager.getOrCreateInstance(facet).getConfiguration(layout).device }
+        val modelsToAnalyze = if (HardwareConfigHelper.isWear(device)) {
+          WearDeviceModelsProvider.createNlModels(this, file, facet)
+        } else {
+          WindowSizeModelsProvider.createNlModels(this, file, facet)
+        }
+        val layoutIssueProvider = VisualLintIssueProvider(this)
+        try {
+          // Layouts that couldn't be fully analyzed are analyzed again next time.
+          if (analyzeModels(modelsToAnalyze, layoutIssueProvider)) {
+            projectResults.update(layout, fingerprint, layoutIssueProvider.getIssues().toList())
+          }
+        } finally {
+          Disposer.dispose(layoutIssueProvider)
+        }
+      }
+      issueModel.updateErrorsList()
+    }, executorService)
+  }
+
+  /**
+   * Renders the given models and collects the issues found in [targetIssueProvider], then disposes the models. Returns false if
+   * the analysis didn't complete in time.
+   */
+  private fun analyzeModels(modelsToAnalyze: List<NlModel>, targetIssueProvider: VisualLintIssueProvider): Boolean {
+    val latch = CountDownLatch(modelsToAnalyze.size)
+    val visualLintBaseConfigIssues = VisualLintBaseConfigIssues()
+    for (model in modelsToAnalyze) {
+      val requireRender = StudioFlags.NELE_ATF_IN_VISUAL_LINT.get() && VisualLintErrorType.ATF !in ignoredTypes
+      createRenderResult(model, requireRender).handleAsync({ result, _ ->
+        try {
+          if (result != null) {
+            updateHierarchy(result, model)
+            analyzeAfterModelUpdate(targetIssueProvider, result, model, visualLintBaseConfigIssues, true)
+          }
+        } finally {
+          Disposer.dispose(model)
+          latch.countDown()
+        }
+      }, visualLintAnalyzerExecutorService)
+    }
+    return latch.await(5, TimeUnit.SECONDS)
   }
 
   /**
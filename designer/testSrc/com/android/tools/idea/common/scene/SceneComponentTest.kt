@@ -21,6 +21,7 @@ import com.android.SdkConstants.TEXT_VIEW
 import com.android.testutils.MockitoKt.whenever
 import com.android.tools.idea.common.LayoutTestUtilities
 import com.android.tools.idea.common.fixtures.ModelBuilder
+import com.android.tools.idea.common.scene.draw.DisplayList
 import com.android.tools.idea.common.scene.target.CommonDragTarget
 import com.android.tools.idea.flags.StudioFlags
 import com.android.tools.idea.uibuilder.scene.SceneTest
@@ -74,6 +75,23 @@ open class SceneComponentTest: SceneTest() {
     StudioFlags.NELE_DRAG_PLACEHOLDER.clearOverride()
   }
 
+  fun testDisplayListIsReusedUntilTheComponentChanges() {
+    fun build() = DisplayList().apply { myScene.buildDisplayList(this, 0) }.commands.toList()
+
+    val first = build()
+    val second = build()
+    assertSize(first.size, second)
+    assertTrue(first.zip(second).all { (a, b) -> a === b })
+
+    myScene.getSceneComponent("child")!!.setPosition(10, 10)
+    val moved = build()
+    assertFalse(moved.zip(second).all { (a, b) -> a === b })
+
+    myScene.needsRebuildList()
+    val rebuilt = build()
+    assertTrue(rebuilt.zip(moved).none { (a, b) -> a === b })
+  }
+
   override fun createModel(): ModelBuilder {
     return model("scene_component_test.xml",
         component(LINEAR_LAYOUT)
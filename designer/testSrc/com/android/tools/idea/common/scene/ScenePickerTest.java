@@ -22,6 +22,8 @@ import java.awt.geom.FlatteningPathIterator;
 import java.awt.geom.GeneralPath;
 import java.awt.geom.PathIterator;
 import java.awt.geom.Rectangle2D;
+import java.util.ArrayList;
+import java.util.function.Consumer;
 import junit.framework.TestCase;
 
 /**
@@ -274,6 +276,44 @@ public class ScenePickerTest extends TestCase {
     }
   }
 
+  public void testIndexedFindKeepsOrder() {
+    // Enough overlapping shapes for the grid index to be used, plus shapes spanning the whole area.
+    ArrayList<Consumer<ScenePicker>> shapes = new ArrayList<>();
+    shapes.add(picker -> picker.addRect(0, 0, 0, 0, 1000, 1000));
+    for (int i = 1; i <= 200; i++) {
+      int id = i;
+      int x = 37 * i % 900;
+      int y = 53 * i % 900;
+      shapes.add(picker -> picker.addRect(id, 5, x, y, x + 100, y + 100));
+    }
+    shapes.add(picker -> picker.addLine(201, 5, 0, 1000, 1000, 0, 1));
+    shapes.add(picker -> picker.addCircle(202, 5, 500, 500, 20));
+
+    ScenePicker scenePicker = new ScenePicker();
+    shapes.forEach(shape -> shape.accept(scenePicker));
+    ArrayList<Object> hits = new ArrayList<>();
+    scenePicker.setSelectListener((obj, dist) -> hits.add(obj));
+
+    // Every shape alone in a picker is found by a linear scan.
+    ScenePicker singlePicker = new ScenePicker();
+    ArrayList<Object> expected = new ArrayList<>();
+    singlePicker.setSelectListener((obj, dist) -> expected.add(obj));
+
+    for (int x = -20; x < 1020; x += 13) {
+      for (int y = -20; y < 1020; y += 17) {
+        expected.clear();
+        for (Consumer<ScenePicker> shape : shapes) {
+          singlePicker.reset();
+          shape.accept(singlePicker);
+          singlePicker.find(x, y);
+        }
+        hits.clear();
+        scenePicker.find(x, y);
+        assertEquals(x + "," + y, expected, hits);
+      }
+    }
+  }
+
   public void testEllipseCode() {
     ScenePicker scenePicker = new ScenePicker() {
       {
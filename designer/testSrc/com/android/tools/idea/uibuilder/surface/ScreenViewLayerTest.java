@@ -92,6 +92,7 @@ public class ScreenViewLayerTest {
                                           @NotNull RenderResult firstResult,
                                           @NotNull RenderResult ...otherResults) {
     LayoutlibSceneManager sceneManager = mock(LayoutlibSceneManager.class, RETURNS_DEEP_STUBS);
+    when(sceneManager.getRenderedImageOverride()).thenReturn(null);
     ScreenView screenView = Mockito.spy(
       new ScreenView(mock(NlDesignSurface.class), sceneManager, new ScreenView.ContentSizePolicy() {
         @Override
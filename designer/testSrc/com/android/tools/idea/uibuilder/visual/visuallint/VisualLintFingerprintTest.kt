@@ -0,0 +1,134 @@
+/*
+ * Copyright (C) 2022 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.android.tools.idea.uibuilder.visual.visuallint
+
+import com.android.tools.idea.configurations.ConfigurationManager
+import com.android.tools.idea.testing.AndroidProjectRule
+import com.android.tools.idea.testing.waitForResourceRepositoryUpdates
+import com.intellij.openapi.application.runReadAction
+import com.intellij.openapi.command.WriteCommandAction
+import com.intellij.psi.PsiDocumentManager
+import com.intellij.psi.xml.XmlFile
+import org.jetbrains.android.facet.AndroidFacet
+import org.junit.Rule
+import org.junit.Test
+import kotlin.test.assertEquals
+import kotlin.test.assertNotEquals
+
+class VisualLintFingerprintTest {
+
+  @JvmField
+  @Rule
+  val projectRule = AndroidProjectRule.inMemory()
+
+  private fun addStrings(title: String, unused: String) {
+    projectRule.fixture.addFileToProject("res/values/strings.xml", """
+      <resources>
+        <string name="title">$title</string>
+        <string name="unused">$unused</string>
+      </resources>
+    """.trimIndent())
+    waitForResourceRepositoryUpdates(projectRule.module)
+  }
+
+  private fun fingerprint(file: XmlFile): String {
+    return runReadAction { computeVisualLintFingerprint(AndroidFacet.getInstance(projectRule.module)!!, file) }
+  }
+
+  @Test
+  fun fingerprintDependsOnReferencedResourcesAndIncludedLayouts() {
+    projectRule.fixture.addFileToProject("res/layout/header.xml", """
+      <TextView xmlns:android="http://schemas.android.com/apk/res/android"
+          android:layout_width="match_parent"
+          android:layout_height="wrap_content"
+          android:text="@string/title" />
+    """.trimIndent())
+    val layout = projectRule.fixture.addFileToProject("res/layout/main.xml", """
+      <LinearLayout xmlns:android="http://schemas.android.com/apk/res/android"
+          android:layout_width="match_parent"
+          android:layout_height="match_parent">
+        <include layout="@layout/header" />
+      </LinearLayout>
+    """.trimIndent()) as XmlFile
+    addStrings("Title", "Unused")
+    val original = fingerprint(layout)
+
+    assertEquals(original, fingerprint(layout))
+
+    addStrings("Title", "Still unused")
+    assertEquals(original, fingerprint(layout))
+
+    // The string is only referenced from the included layout.
+    addStrings("Another title", "Still unused")
+    assertNotEquals(original, fingerprint(layout))
+  }
+
+  @Test
+  fun fingerprintDependsOnThemeAndItsParents() {
+    val layout = projectRule.fixture.addFileToProject("res/layout/main.xml", """
+      <LinearLayout xmlns:android="http://schemas.android.com/apk/res/android"
+          android:layout_width="match_parent"
+          android:layout_height="match_parent" />
+    """.trimIndent()) as XmlFile
+    addStyles("#FFFFFF")
+    ConfigurationManager.getOrCreateInstance(AndroidFacet.getInstance(projectRule.module)!!)
+      .getConfiguration(layout.virtualFile).setTheme("@style/AppTheme")
+    val original = fingerprint(layout)
+
+    assertEquals(original, fingerprint(layout))
+
+    // The color is only set by the parent of the theme.
+    addStyles("#000000")
+    assertNotEquals(original, fingerprint(layout))
+  }
+
+  @Test
+  fun fingerprintChangesWhenIncludedLayoutIsEdited() {
+    val header = projectRule.fixture.addFileToProject("res/layout/header.xml", """
+      <TextView xmlns:android="http://schemas.android.com/apk/res/android"
+          android:layout_width="match_parent"
+          android:layout_height="wrap_content" />
+    """.trimIndent())
+    val layout = projectRule.fixture.addFileToProject("res/layout/main.xml", """
+      <LinearLayout xmlns:android="http://schemas.android.com/apk/res/android"
+          android:layout_width="match_parent"
+          android:layout_height="match_parent">
+        <include layout="@layout/header" />
+      </LinearLayout>
+    """.trimIndent()) as XmlFile
+    waitForResourceRepositoryUpdates(projectRule.module)
+    val original = fingerprint(layout)
+
+    WriteCommandAction.runWriteCommandAction(projectRule.project) {
+      val document = PsiDocumentManager.getInstance(projectRule.project).getDocument(header)!!
+      document.setText(document.text.replace("wrap_content", "match_parent"))
+      PsiDocumentManager.getInstance(projectRule.project).commitDocument(document)
+    }
+    assertNotEquals(original, fingerprint(layout))
+  }
+
+  private fun addStyles(backgroundColor: String) {
+    projectRule.fixture.addFileToProject("res/values/styles.xml", """
+      <resources>
+        <style name="Base.AppTheme" parent="android:Theme.Material.Light">
+          <item name="android:colorBackground">$backgroundColor</item>
+        </style>
+        <style name="AppTheme" parent="Base.AppTheme" />
+      </resources>
+    """.trimIndent())
+    waitForResourceRepositoryUpdates(projectRule.module)
+  }
+}
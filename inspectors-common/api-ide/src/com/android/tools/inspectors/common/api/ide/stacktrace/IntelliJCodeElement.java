@@ -21,12 +21,14 @@ import com.android.tools.inspectors.common.api.stacktrace.CodeElement;
 import com.google.common.base.Strings;
 import com.intellij.openapi.project.Project;
 import com.intellij.openapi.roots.ProjectFileIndex;
+import com.intellij.openapi.roots.ProjectRootModificationTracker;
 import com.intellij.openapi.vfs.LocalFileSystem;
 import com.intellij.openapi.vfs.VirtualFile;
 import com.intellij.openapi.vfs.newvfs.impl.StubVirtualFile;
 import com.intellij.psi.JavaPsiFacade;
 import com.intellij.psi.PsiClass;
 import com.intellij.psi.search.GlobalSearchScope;
+import com.intellij.psi.util.PsiModificationTracker;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
@@ -40,6 +42,13 @@ public final class IntelliJCodeElement implements CodeElement {
 
   @Nullable private VirtualFile myCachedClassFile = UNRESOLVED_CLASS_FILE;
 
+  /**
+   * {@link #isInUserCode()} is called on every repaint of the views showing this element, so its result is cached until the project
+   * roots, which decide what is user code, or the PSI, which decides which file the class is in, change.
+   */
+  private long myUserCodeModificationCount = -1;
+  private boolean myIsInUserCode;
+
   public IntelliJCodeElement(@NotNull Project project, @NotNull CodeLocation codeLocation) {
     myProject = project;
     myCodeLocation = codeLocation;
@@ -87,8 +96,16 @@ public final class IntelliJCodeElement implements CodeElement {
       return false;
     }
 
-    VirtualFile sourceFile = myCodeLocation.isNativeCode() ? findSourceFile() : findClassFile();
-    return sourceFile != null && ProjectFileIndex.getInstance(myProject).isInSource(sourceFile);
+    // Both counts only ever increase, so their sum changes whenever either of them does.
+    long modificationCount = ProjectRootModificationTracker.getInstance(myProject).getModificationCount() +
+                             PsiModificationTracker.getInstance(myProject).getModificationCount();
+    if (modificationCount != myUserCodeModificationCount) {
+      myCachedClassFile = UNRESOLVED_CLASS_FILE;
+      VirtualFile sourceFile = myCodeLocation.isNativeCode() ? findSourceFile() : findClassFile();
+      myIsInUserCode = sourceFile != null && ProjectFileIndex.getInstance(myProject).isInSource(sourceFile);
+      myUserCodeModificationCount = modificationCount;
+    }
+    return myIsInUserCode;
   }
 
   @Nullable
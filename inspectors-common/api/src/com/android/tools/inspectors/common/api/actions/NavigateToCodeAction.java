@@ -22,6 +22,7 @@ import com.intellij.openapi.actionSystem.AnAction;
 import com.intellij.openapi.actionSystem.AnActionEvent;
 import com.intellij.openapi.actionSystem.Presentation;
 import com.intellij.openapi.application.ApplicationManager;
+import java.util.Collections;
 import java.util.function.Supplier;
 import org.jetbrains.annotations.NotNull;
 
@@ -50,8 +51,8 @@ public final class NavigateToCodeAction extends AnAction {
     // action to be ignored. Therefore we always enable the button before checking isNavigatable asynchronously.
     e.getPresentation().setEnabled(true);
 
-    myCodeNavigator.isNavigatable(codeLocation).thenAcceptAsync(
-        isNavigatable -> e.getPresentation().setEnabled(isNavigatable),
+    myCodeNavigator.isNavigatable(Collections.singletonList(codeLocation)).thenAcceptAsync(
+        isNavigatable -> e.getPresentation().setEnabled(isNavigatable.get(0)),
         ApplicationManager.getApplication()::invokeLater);
   }
 
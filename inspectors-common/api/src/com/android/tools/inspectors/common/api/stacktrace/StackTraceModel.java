@@ -87,6 +87,10 @@ public final class StackTraceModel extends AspectModel<StackTraceModel.Aspect> {
     clearSelection();
     myStackFrames = stackFrames;
     myThreadId = threadId;
+    if (!stackFrames.isEmpty()) {
+      // Look up all the frames in a single batch, so they are already resolved when the user navigates to one of them.
+      myCodeNavigator.isNavigatable(stackFrames);
+    }
     changed(Aspect.STACK_FRAMES);
   }
 
@@ -26,6 +26,7 @@ import com.android.tools.idea.layoutinspector.model.DrawViewImage
 import com.android.tools.idea.layoutinspector.model.ViewNode
 import com.android.tools.idea.layoutinspector.proto.SkiaParser.RequestedNodeInfo
 import com.android.tools.idea.layoutinspector.skia.ParsingFailedException
+import com.android.tools.idea.layoutinspector.skia.PictureSupersededException
 import com.android.tools.idea.layoutinspector.skia.SkiaParser
 import com.android.tools.idea.layoutinspector.skia.UnsupportedPictureVersionException
 import com.android.tools.idea.layoutinspector.ui.InspectorBannerService
@@ -179,6 +180,10 @@ class ViewAndroidWindow(
       errorMessage = "Invalid picture data received from device. Rotation disabled."
       null
     }
+    catch (ex: PictureSupersededException) {
+      // A newer picture of this window will be rendered instead.
+      null
+    }
     catch (ex: UnsupportedPictureVersionException) {
       errorMessage = "No renderer supporting SKP version ${ex.version} found. Rotation disabled."
       null
@@ -20,6 +20,8 @@ import com.android.tools.idea.layoutinspector.proto.SkiaParser.RequestedNodeInfo
 import com.android.tools.layoutinspector.InvalidPictureException
 import com.android.tools.layoutinspector.LayoutInspectorUtils.buildTree
 import com.android.tools.layoutinspector.SkiaViewNode
+import java.util.concurrent.ConcurrentHashMap
+import java.util.concurrent.atomic.AtomicLong
 
 /**
  * Service for converting a serialized `SkPicture` into a tree of [SkiaViewNode]s with rendered images.
@@ -33,6 +35,7 @@ interface SkiaParser {
    *        first ancestor that is in the list.
    * @param scale Factor by which the rendered images should be scaled. Should probably be between 0 and 1.
    * @param isInterrupted Returns `true` if we should immediately cancel any pending operation.
+   * @throws PictureSupersededException if a newer picture for the same window was requested while this one was being processed.
    */
   @Throws(InvalidPictureException::class)
   fun getViewTree(
@@ -53,8 +56,26 @@ class SkiaParserImpl(
   private val connectionFactory: SkiaParserServerConnectionFactory = SkiaParserServerConnectionFactoryImpl
 ) : SkiaParser {
 
+  private val connectionLock = Any()
+  @Volatile
   private var connection: SkiaParserServerConnection? = null
 
+  private val requestCounter = AtomicLong()
+
+  /**
+   * The id of the latest request for each window, keyed by the id of the root node of the window. Requests for different windows can be
+   * processed concurrently over the same connection, but only the latest picture of a given window is worth processing.
+   *
+   * Note that the live updates of the Layout Inspector are loaded one at a time by a `MostRecentExecutor`, so they don't overlap: this
+   * only applies to callers parsing pictures from several threads.
+   */
+  private val latestRequests = ConcurrentHashMap<Long, Long>()
+
+  private fun getConnection(data: ByteArray): SkiaParserServerConnection =
+    connection ?: synchronized(connectionLock) {
+      connection ?: connectionFactory.createConnection(data).also { connection = it }
+    }
+
   @Slow
   @Throws(InvalidPictureException::class)
   override fun getViewTree(
@@ -63,22 +84,34 @@ class SkiaParserImpl(
     scale: Double,
     isInterrupted: () -> Boolean
   ): SkiaViewNode {
+    val windowId = requestedNodes.firstOrNull()?.id
+    val requestId = requestCounter.incrementAndGet()
+    windowId?.let { latestRequests[it] = requestId }
+    val isSuperseded = { windowId != null && latestRequests[windowId] != requestId }
     try {
-      if (connection == null) {
-        connection = connectionFactory.createConnection(data)
-      }
-      val (root, images) = connection?.getViewTree(data, requestedNodes, scale) ?: throw Exception("connection can't be null here")
-      return buildTree(root, images, isInterrupted, requestedNodes.associateBy { req -> req.id }) ?: throw ParsingFailedException()
+      val (root, images) = getConnection(data).getViewTree(data, requestedNodes, scale)
+      // Building the tree decodes all the images, skip it if a newer picture arrived while this one was being parsed.
+      if (isSuperseded()) throw PictureSupersededException()
+      return buildTree(root, images, { isInterrupted() || isSuperseded() }, requestedNodes.associateBy { req -> req.id })
+             ?: throw if (isSuperseded()) PictureSupersededException() else ParsingFailedException()
+    }
+    catch (e: PictureSupersededException) {
+      throw e
     }
     catch (e: Exception) {
       failureCallback()
       throw e
     }
+    finally {
+      windowId?.let { latestRequests.remove(it, requestId) }
+    }
   }
 
   @Slow
   override fun shutdown() {
-    connection?.shutdown()
-    connection = null
+    synchronized(connectionLock) {
+      connection?.shutdown()
+      connection = null
+    }
   }
 }
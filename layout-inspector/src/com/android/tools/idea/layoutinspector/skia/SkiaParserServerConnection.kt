@@ -23,6 +23,7 @@ import com.android.tools.idea.layoutinspector.proto.SkiaParser.RequestedNodeInfo
 import com.android.tools.idea.layoutinspector.proto.SkiaParserServiceGrpc
 import com.android.tools.idea.protobuf.ByteString
 import com.android.tools.idea.protobuf.Empty
+import com.android.tools.idea.protobuf.UnsafeByteOperations
 import com.google.common.annotations.VisibleForTesting
 import com.intellij.execution.configurations.GeneralCommandLine
 import com.intellij.execution.process.OSProcessHandler
@@ -55,6 +56,10 @@ class SkiaParserServerConnection(private val serverPath: Path) {
   private lateinit var channel: ManagedChannel
   private var handler: OSProcessHandler? = null
 
+  /** Set once the server has answered a [ping]. After that, requests are sent without waiting for a new ping. */
+  @Volatile
+  private var isServerReady = false
+
   /**
    * Start the server if it isn't already running. This must be run before any other operations on this object.
    *
@@ -129,7 +134,10 @@ class SkiaParserServerConnection(private val serverPath: Path) {
   @Slow
   @Throws(ParsingFailedException::class, UnsupportedPictureVersionException::class)
   fun getViewTree(data: ByteArray, requestedNodes: Iterable<RequestedNodeInfo>, scale: Double): Pair<InspectorView, Map<Int, ByteString>> {
-    ping()
+    if (!isServerReady) {
+      ping()
+      isServerReady = true
+    }
     return getViewTreeImpl(data, requestedNodes, scale)
   }
 
@@ -213,7 +221,8 @@ class SkiaParserServerConnection(private val serverPath: Path) {
       val requestBuilder = GetViewTreeRequest.newBuilder()
         .setVersion(2)
         .setTotalSize(data.size)
-        .setSkp(ByteString.copyFrom(data, offset, size))
+        // The data is not modified after being received so the chunks can share it instead of copying it.
+        .setSkp(UnsafeByteOperations.unsafeWrap(data, offset, size))
       if (offset + size == data.size) {
         // this is the last request, add the rest of the data
         requestBuilder.addAllRequestedNodes(requestedNodes).scale = scale.toFloat()
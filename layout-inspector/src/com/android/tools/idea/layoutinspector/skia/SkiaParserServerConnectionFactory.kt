@@ -266,3 +266,8 @@ class UnsupportedPictureVersionException(val version: Int) : Exception()
  * Thrown if parsing a `SkPicture` fails in the parser.
  */
 class ParsingFailedException : Exception()
+
+/**
+ * Thrown if the processing of a `SkPicture` is abandoned because a newer picture for the same window was requested.
+ */
+class PictureSupersededException : Exception()
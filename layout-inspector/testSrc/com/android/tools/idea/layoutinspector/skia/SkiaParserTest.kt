@@ -28,12 +28,14 @@ import com.android.tools.idea.protobuf.TextFormat
 import com.android.tools.idea.testing.AndroidProjectRule
 import com.android.tools.layoutinspector.InvalidPictureException
 import com.android.tools.layoutinspector.LayoutInspectorUtils
+import com.android.tools.perflogger.Benchmark
 import com.google.common.truth.Truth.assertThat
 import org.junit.Assert.fail
 import org.junit.Rule
 import org.junit.Test
 import org.junit.rules.RuleChain
 import java.awt.image.BufferedImage
+import java.util.concurrent.atomic.AtomicInteger
 import kotlin.test.assertTrue
 
 private const val TEST_DATA_PATH = "tools/adt/idea/layout-inspector/testData"
@@ -122,35 +124,79 @@ class SkiaParserIntegrationTest {
   @get:Rule
   val flagRule = SetFlagRule(StudioFlags.DYNAMIC_LAYOUT_INSPECTOR_USE_DEVBUILD_SKIA_SERVER, true)
 
-  @Test
-  fun testRunServer() {
-    val server = SkiaParserServerConnection(mock())
-    // Call createGrpcClient directly to skip running the server binary
-    val port = server.createGrpcClient()
-    val serverThread = Thread { runServer(port) }
-    serverThread.start()
-    val node1 = RequestedNodeInfo.newBuilder().apply {
+  private val requestedNodes = listOf(
+    RequestedNodeInfo.newBuilder().apply {
       id = 1
       width = 1000
       height = 2000
       x = 0
       y = 0
-    }.build()
-    val node2 = RequestedNodeInfo.newBuilder().apply {
+    }.build(),
+    RequestedNodeInfo.newBuilder().apply {
       id = 2
       width = 500
       height = 1000
       x = 100
       y = 100
-    }.build()
-    val node4 = RequestedNodeInfo.newBuilder().apply {
+    }.build(),
+    RequestedNodeInfo.newBuilder().apply {
       id = 4
       width = 400
       height = 500
       x = 300
       y = 1200
     }.build()
-    val (root, imageMap) = server.getViewTree(generateBoxes(), listOf(node1, node2, node4), 1.0)
+  )
+
+  @Test
+  fun testPipelinedRequests() {
+    val server = SkiaParserServerConnection(mock())
+    // Call createGrpcClient directly to skip running the server binary
+    val port = server.createGrpcClient()
+    val serverThread = Thread { runServer(port) }
+    serverThread.start()
+    val failures = AtomicInteger(0)
+    val parser = SkiaParserImpl({ failures.incrementAndGet() }) { server }
+    val picture = generateBoxes()
+    val completed = AtomicInteger(0)
+    val superseded = AtomicInteger(0)
+
+    // Send pictures of the same window from several threads. Outdated pictures can be dropped, but every request must either complete or
+    // be superseded by a newer one.
+    val threadCount = 2
+    val picturesPerThread = 5
+    val startMs = System.currentTimeMillis()
+    val threads = (1..threadCount).map {
+      Thread {
+        repeat(picturesPerThread) {
+          try {
+            parser.getViewTree(picture, requestedNodes, 1.0)
+            completed.incrementAndGet()
+          }
+          catch (_: PictureSupersededException) {
+            superseded.incrementAndGet()
+          }
+        }
+      }.apply { start() }
+    }
+    threads.forEach { it.join() }
+    benchmark.log("pipelined_pictures_ms", System.currentTimeMillis() - startMs)
+
+    assertThat(failures.get()).isEqualTo(0)
+    assertThat(completed.get()).isAtLeast(1)
+    assertThat(completed.get() + superseded.get()).isEqualTo(threadCount * picturesPerThread)
+    parser.shutdown()
+    serverThread.join()
+  }
+
+  @Test
+  fun testRunServer() {
+    val server = SkiaParserServerConnection(mock())
+    // Call createGrpcClient directly to skip running the server binary
+    val port = server.createGrpcClient()
+    val serverThread = Thread { runServer(port) }
+    serverThread.start()
+    val (root, imageMap) = server.getViewTree(generateBoxes(), requestedNodes, 1.0)
     assertThat(imageMap.values.map { it.size() }).containsExactly(8000000, 2000000, 800000)
     val expected = Node(1, Node(1), Node(2, Node(2)), Node(4, Node(4)))
     assertIdsEqual(expected, root)
@@ -182,6 +228,8 @@ class SkiaParserIntegrationTest {
   private class Node(val id: Int, vararg val children: Node)
 
   companion object {
+    private val benchmark = Benchmark.Builder("Skia Parser Timings (Millis)").setProject("Android Studio Layout Inspector").build()
+
     init {
       System.loadLibrary("skiaparser-test")
     }
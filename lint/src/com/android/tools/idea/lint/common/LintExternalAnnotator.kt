@@ -149,6 +149,8 @@ class LintExternalAnnotator : ExternalAnnotator<LintEditorResult, LintEditorResu
 
   override fun doAnnotate(lintResult: LintEditorResult): LintEditorResult {
     val startTime = System.currentTimeMillis()
+    val event = LintAnnotateEvent()
+    event.begin()
     val client = LintIdeSupport.get().createEditorClient(lintResult)
     try {
       var scope: EnumSet<Scope>
@@ -196,6 +198,10 @@ class LintExternalAnnotator : ExternalAnnotator<LintEditorResult, LintEditorResu
       LintIdeSupport.get().logSession(lint, lintResult)
     } finally {
       Disposer.dispose(client)
+      if (event.shouldCommit()) {
+        event.file = lintResult.mainFile.name
+        event.commit()
+      }
     }
     return lintResult
   }
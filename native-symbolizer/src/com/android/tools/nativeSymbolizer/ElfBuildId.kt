@@ -0,0 +1,97 @@
+/*
+ * Copyright (C) 2022 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.android.tools.nativeSymbolizer
+
+import java.io.File
+import java.io.IOException
+import java.io.RandomAccessFile
+import java.nio.ByteBuffer
+import java.nio.ByteOrder
+import java.nio.channels.FileChannel
+
+private val ELF_MAGIC = byteArrayOf(0x7f, 'E'.code.toByte(), 'L'.code.toByte(), 'F'.code.toByte())
+private const val ELFCLASS64: Byte = 2
+private const val ELFDATA2MSB: Byte = 2
+private const val SHT_NOTE = 7
+private const val NT_GNU_BUILD_ID = 3
+
+/**
+ * Reads the GNU build-id of an ELF file, i.e. the descriptor of its NT_GNU_BUILD_ID note, as a lowercase hex string.
+ *
+ * @return the build-id, or null if the file is not an ELF file or has no build-id note.
+ */
+fun readElfBuildId(file: File): String? {
+  try {
+    RandomAccessFile(file, "r").use { raf ->
+      val buffer = raf.channel.map(FileChannel.MapMode.READ_ONLY, 0, raf.length())
+      return readElfBuildId(buffer)
+    }
+  }
+  catch (e: IOException) {
+    getLogger().warn("Failed to read the build-id of $file", e)
+    return null
+  }
+  catch (e: RuntimeException) {
+    // Truncated or otherwise malformed file.
+    getLogger().warn("Malformed ELF file $file", e)
+    return null
+  }
+}
+
+private fun readElfBuildId(buffer: ByteBuffer): String? {
+  if (buffer.limit() < 0x40 || ELF_MAGIC.indices.any { buffer.get(it) != ELF_MAGIC[it] }) {
+    return null
+  }
+  val is64Bit = buffer.get(4) == ELFCLASS64
+  buffer.order(if (buffer.get(5) == ELFDATA2MSB) ByteOrder.BIG_ENDIAN else ByteOrder.LITTLE_ENDIAN)
+
+  val sectionHeadersOffset = if (is64Bit) buffer.getLong(0x28) else (buffer.getInt(0x20).toLong() and 0xFFFFFFFFL)
+  val sectionHeaderSize = buffer.getShort(if (is64Bit) 0x3A else 0x2E).toInt() and 0xFFFF
+  val sectionCount = buffer.getShort(if (is64Bit) 0x3C else 0x30).toInt() and 0xFFFF
+
+  for (i in 0 until sectionCount) {
+    val header = (sectionHeadersOffset + i.toLong() * sectionHeaderSize).toInt()
+    if (buffer.getInt(header + 4) != SHT_NOTE) {
+      continue
+    }
+    val offset = if (is64Bit) buffer.getLong(header + 0x18).toInt() else buffer.getInt(header + 0x10)
+    val size = if (is64Bit) buffer.getLong(header + 0x20).toInt() else buffer.getInt(header + 0x14)
+    findBuildIdNote(buffer, offset, size)?.let { return it }
+  }
+  return null
+}
+
+/**
+ * Walks the notes of a SHT_NOTE section. Each note is a (namesz, descsz, type) header followed by the name and the descriptor, both
+ * padded to 4 bytes.
+ */
+private fun findBuildIdNote(buffer: ByteBuffer, sectionOffset: Int, sectionSize: Int): String? {
+  var note = sectionOffset
+  while (note + 12 <= sectionOffset + sectionSize) {
+    val nameSize = buffer.getInt(note)
+    val descSize = buffer.getInt(note + 4)
+    val type = buffer.getInt(note + 8)
+    val name = note + 12
+    val desc = name + align4(nameSize)
+    if (type == NT_GNU_BUILD_ID && nameSize == 4 && buffer.get(name) == 'G'.code.toByte()) {
+      return (0 until descSize).joinToString("") { "%02x".format(buffer.get(desc + it)) }
+    }
+    note = desc + align4(descSize)
+  }
+  return null
+}
+
+private fun align4(size: Int) = (size + 3) and 3.inv()
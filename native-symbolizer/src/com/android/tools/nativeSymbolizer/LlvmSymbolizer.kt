@@ -57,46 +57,60 @@ class LlvmSymbolizer(private val symbolizerExe: String,
    * @param offset - The starting byte address in the module of the symbol.
    */
   override fun symbolize(abiArch: String, module: File, offset: Long): Symbol? {
-    val symFiles = symLocator.getFiles(abiArch)
+    for (symFile in symLocator.getSymbolFiles(abiArch, module)) {
+      val result = symbolizeInFile(symFile, module, listOf(offset))?.first()
+      if (result != null)
+        return result
+    }
 
-    for (symFile in symFiles.filter { it.nameWithoutExtension == module.nameWithoutExtension }) {
-      val request = formatRequest(symFile, offset)
+    return null
+  }
+
+  /**
+   * Symbolizes several offsets of the same symbol file. Requests are written to llvm-symbolizer in batches of [BATCH_SIZE], and all
+   * the responses of a batch are read back at once, instead of waiting for a round-trip per offset.
+   *
+   * @return the symbols found for each offset, in the same order, or null if llvm-symbolizer failed or timed out.
+   */
+  internal fun symbolizeInFile(symFile: File, module: File, offsets: List<Long>): List<Symbol?>? {
+    val results = ArrayList<Symbol?>(offsets.size)
+    for (batch in offsets.chunked(BATCH_SIZE)) {
+      val requests = batch.joinToString("") { formatRequest(symFile, it) }
 
       val holder = getProcHolder()
-      val future = executor.submit( Callable<List<String>> {
-        holder.stdin.write(request)
+      val future = executor.submit( Callable<List<List<String>>> {
+        holder.stdin.write(requests)
         holder.stdin.flush()
 
-        val response: MutableList<String> = mutableListOf()
-        var responseLine: String?
-        while (true) {
-          responseLine = holder.stdout.readLine()
-          if (responseLine.isNullOrEmpty()) {
-            break
+        List(batch.size) {
+          val response: MutableList<String> = mutableListOf()
+          var responseLine: String?
+          while (true) {
+            responseLine = holder.stdout.readLine()
+            if (responseLine.isNullOrEmpty()) {
+              break
+            }
+            response.add(responseLine)
           }
-          response.add(responseLine)
+          response
         }
-        response
       })
-      val response : List<String>
+      val responses : List<List<String>>
       try {
-        response = future.get(timeoutMsc, TimeUnit.MILLISECONDS)
+        responses = future.get(timeoutMsc * batch.size, TimeUnit.MILLISECONDS)
       } catch (e: TimeoutException) {
         getLogger().warn("llvm-symbolizer timed out", e)
         stop()
-        continue
+        return null
       } catch (e: ExecutionException) {
         getLogger().warn("llvm-symbolizer communication failed", e)
         stop()
-        continue
+        return null
       }
 
-      val result = parseResponse(response, module)
-      if (result != null)
-        return result
+      responses.mapTo(results) { parseResponse(it, module) }
     }
-
-    return null
+    return results
   }
 
   private fun getProcHolder() : ProcessHolder {
@@ -160,6 +174,14 @@ class LlvmSymbolizer(private val symbolizerExe: String,
     procHolder = null
   }
 
+  private companion object {
+    /**
+     * Maximum number of requests written to llvm-symbolizer before reading their responses. Keeps the responses of a batch well within
+     * the pipe buffer, so the symbolizer never blocks on a full stdout while we are still writing to its stdin.
+     */
+    const val BATCH_SIZE = 64
+  }
+
   private class ProcessHolder(val process: Process,
                               val stdout: BufferedReader,
                               val stdin: OutputStreamWriter) : Disposable {
@@ -167,4 +189,10 @@ class LlvmSymbolizer(private val symbolizerExe: String,
       process.destroy()
     }
   }
-}
\ No newline at end of file
+}
+
+/**
+ * Symbol files that may contain the symbols of [module], i.e. the files with the same name as the module.
+ */
+internal fun SymbolFilesLocator.getSymbolFiles(abiArch: String, module: File) =
+  getFiles(abiArch).filter { it.nameWithoutExtension == module.nameWithoutExtension }
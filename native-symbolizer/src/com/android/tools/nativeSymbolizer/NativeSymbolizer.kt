@@ -35,6 +35,11 @@ data class Symbol(val name: String, val module: String, val sourceFile: String =
  * Components that can fetch information about native symbols by a module and an offset.
  */
 interface NativeSymbolizer {
+  /**
+   * @param module - path to a native module (on the device or host)
+   * @param offset - offset in the native module that needs to be symbolized
+   */
+  data class Frame(val module: File, val offset: Long)
 
   /**
    * Obtains information about a function (symbol) located at a given offset in a given module
@@ -45,13 +50,26 @@ interface NativeSymbolizer {
    */
   @Throws(IOException::class)
   fun symbolize(abiArch: String, module: File, offset: Long): Symbol?
+
+  /**
+   * Symbolizes all the given frames, which implementations can do faster than one by one.
+   *
+   * @return the symbol of each frame, in the same order, or null for frames whose symbol can't be found.
+   */
+  @Throws(IOException::class)
+  fun symbolizeAll(abiArch: String, frames: List<Frame>): List<Symbol?> = frames.map { symbolize(abiArch, it.module, it.offset) }
+
   fun stop()
 }
 
+/**
+ * Creates the [NativeSymbolizer] of a project, with its own pool of llvm-symbolizer processes. Its results are cached in the
+ * [SharedSymbolCache], across projects and IDE restarts.
+ */
 fun createNativeSymbolizer(locator:SymbolFilesLocator): NativeSymbolizer {
   val symbolizerPath = getLlvmSymbolizerPath()
   getLogger().info("Creating a native symbolizer. Executable path: $symbolizerPath")
-  return LlvmSymbolizer(symbolizerPath, locator)
+  return SymbolizationService(locator, SharedSymbolCache.getInstance().cache) { LlvmSymbolizer(symbolizerPath, locator) }
 }
 
 /**
@@ -0,0 +1,286 @@
+/*
+ * Copyright (C) 2022 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.android.tools.nativeSymbolizer
+
+import com.intellij.openapi.Disposable
+import com.intellij.openapi.application.ApplicationManager
+import com.intellij.openapi.application.PathManager
+import com.intellij.openapi.components.Service
+import com.intellij.util.concurrency.AppExecutorUtil
+import java.io.BufferedInputStream
+import java.io.ByteArrayOutputStream
+import java.io.DataInputStream
+import java.io.DataOutputStream
+import java.io.EOFException
+import java.io.File
+import java.io.FileInputStream
+import java.io.FileOutputStream
+import java.io.FilterInputStream
+import java.io.IOException
+import java.io.InputStream
+import java.io.RandomAccessFile
+import java.nio.file.Paths
+import java.util.concurrent.ConcurrentHashMap
+import java.util.concurrent.Executor
+
+/**
+ * Symbolization results keyed by the build-id of a symbol file plus an offset in it. Since a build-id identifies the exact binary,
+ * results stay valid across captures and IDE restarts, so they are persisted to [cacheFile] if one is given.
+ *
+ * The file is an append-only log of entries. It is loaded on [loadExecutor], and lookups miss until it is loaded. New entries are
+ * buffered and appended to the file in chunks, once it is loaded. Negative results (offsets without symbol) are cached as well.
+ * Only one instance may use a given file; [SharedSymbolCache] holds the one of the IDE.
+ */
+class SymbolCache(private val cacheFile: File?,
+                  private val maxEntries: Int = DEFAULT_MAX_ENTRIES,
+                  loadExecutor: Executor = Executor(Runnable::run)) {
+  data class Key(val buildId: String, val offset: Long)
+
+  /**
+   * A cached result. [name] is empty if llvm-symbolizer found no symbol at the offset.
+   */
+  data class Entry(val name: String, val sourceFile: String, val lineNumber: Int) {
+    fun toSymbol(module: File) = if (name.isEmpty()) null else Symbol(name, module.absolutePath, sourceFile, lineNumber)
+
+    companion object {
+      @JvmField val NOT_FOUND = Entry("", "", 0)
+
+      fun of(symbol: Symbol?) = if (symbol == null) NOT_FOUND else Entry(symbol.name, symbol.sourceFile, symbol.lineNumber)
+    }
+  }
+
+  private val entries = ConcurrentHashMap<Key, Entry>()
+
+  // Nothing is written to the file until it is loaded, so that a partial last entry can be cut off first.
+  @Volatile
+  private var loaded = false
+
+  // Guarded by this.
+  private var clearedWhileLoading = false
+
+  // Guarded by this. Entries not written to the file yet.
+  private val pending = ByteArrayOutputStream()
+  private val pendingOut = DataOutputStream(pending)
+
+  // Guarded by this.
+  private var output: FileOutputStream? = null
+
+  init {
+    if (cacheFile != null && cacheFile.exists()) {
+      loadExecutor.execute { load(cacheFile) }
+    }
+    else {
+      loaded = true
+    }
+  }
+
+  val size get() = entries.size
+
+  val isLoaded get() = loaded
+
+  operator fun get(key: Key): Entry? = entries[key]
+
+  @Synchronized
+  fun put(key: Key, entry: Entry) {
+    add(key, entry)
+    flushIfNeeded()
+  }
+
+  @Synchronized
+  fun putAll(newEntries: Map<Key, Entry>) {
+    newEntries.forEach { (key, entry) -> add(key, entry) }
+    flushIfNeeded()
+  }
+
+  @Synchronized
+  fun clear() {
+    entries.clear()
+    pending.reset()
+    closeOutput()
+    if (loaded) {
+      cacheFile?.delete()
+    }
+    else {
+      clearedWhileLoading = true
+    }
+  }
+
+  /**
+   * Appends the buffered entries to the file. Does nothing until the file is loaded; the entries are then appended right after.
+   */
+  @Synchronized
+  fun flush() {
+    if (!loaded || cacheFile == null || pending.size() == 0) {
+      return
+    }
+    try {
+      val out = output ?: openOutput(cacheFile).also { output = it }
+      pending.writeTo(out)
+    }
+    catch (e: IOException) {
+      getLogger().warn("Failed to write symbol cache $cacheFile", e)
+      closeOutput()
+    }
+    pending.reset()
+  }
+
+  /**
+   * Writes the buffered entries and closes the file. Entries added before the file is loaded are only kept in memory.
+   */
+  @Synchronized
+  fun close() {
+    flush()
+    closeOutput()
+  }
+
+  private fun add(key: Key, entry: Entry) {
+    if (entries.size >= maxEntries) {
+      // Start over rather than tracking usage: entries of binaries that are no longer built would otherwise stay forever.
+      clear()
+    }
+    entries[key] = entry
+    if (cacheFile != null) {
+      pendingOut.writeUTF(key.buildId)
+      pendingOut.writeLong(key.offset)
+      pendingOut.writeUTF(entry.name)
+      pendingOut.writeUTF(entry.sourceFile)
+      pendingOut.writeInt(entry.lineNumber)
+    }
+  }
+
+  private fun flushIfNeeded() {
+    if (pending.size() >= FLUSH_SIZE) {
+      flush()
+    }
+  }
+
+  private fun load(file: File) {
+    val loadedEntries = HashMap<Key, Entry>()
+    try {
+      readEntries(file, loadedEntries)
+    }
+    finally {
+      synchronized(this) {
+        if (clearedWhileLoading) {
+          file.delete()
+        }
+        else {
+          // Entries added while loading are more recent, and are appended to the file by the next flush.
+          loadedEntries.forEach { (key, entry) -> entries.putIfAbsent(key, entry) }
+        }
+        loaded = true
+        flushIfNeeded()
+      }
+    }
+  }
+
+  private fun readEntries(file: File, loadedEntries: MutableMap<Key, Entry>) {
+    val input = CountingInputStream(BufferedInputStream(FileInputStream(file)))
+    var validLength = 0L
+    try {
+      DataInputStream(input).use { data ->
+        if (data.readInt() != VERSION) {
+          throw IOException("Unsupported symbol cache version")
+        }
+        while (true) {
+          validLength = input.count
+          val key = Key(data.readUTF(), data.readLong())
+          loadedEntries[key] = Entry(data.readUTF(), data.readUTF(), data.readInt())
+        }
+      }
+    }
+    catch (e: EOFException) {
+      // End of the log. Cut off a partially written last entry, so that new entries are appended right after the last valid one.
+      if (validLength == 0L) {
+        file.delete()
+      }
+      else if (validLength < file.length()) {
+        truncate(file, validLength, loadedEntries)
+      }
+    }
+    catch (e: IOException) {
+      getLogger().warn("Discarding unreadable symbol cache $file", e)
+      loadedEntries.clear()
+      file.delete()
+    }
+  }
+
+  private fun truncate(file: File, length: Long, loadedEntries: MutableMap<Key, Entry>) {
+    try {
+      RandomAccessFile(file, "rw").use { it.setLength(length) }
+    }
+    catch (e: IOException) {
+      getLogger().warn("Discarding unwritable symbol cache $file", e)
+      loadedEntries.clear()
+      file.delete()
+    }
+  }
+
+  private fun openOutput(file: File): FileOutputStream {
+    file.parentFile?.mkdirs()
+    val isNew = !file.exists() || file.length() == 0L
+    return FileOutputStream(file, true).also {
+      if (isNew) DataOutputStream(it).writeInt(VERSION)
+    }
+  }
+
+  private fun closeOutput() {
+    try {
+      output?.close()
+    }
+    catch (e: IOException) {
+      getLogger().warn("Failed to close symbol cache $cacheFile", e)
+    }
+    output = null
+  }
+
+  private class CountingInputStream(input: InputStream) : FilterInputStream(input) {
+    var count = 0L
+      private set
+
+    override fun read(): Int = super.read().also { if (it >= 0) count++ }
+
+    override fun read(b: ByteArray, off: Int, len: Int): Int = super.read(b, off, len).also { if (it > 0) count += it }
+
+    override fun skip(n: Long): Long = super.skip(n).also { count += it }
+  }
+
+  companion object {
+    private const val VERSION = 1
+    private const val FLUSH_SIZE = 64 * 1024
+    const val DEFAULT_MAX_ENTRIES = 2_000_000
+  }
+}
+
+/**
+ * Holds the [SymbolCache] of the IDE, shared by the symbolizers of all projects so that only one of them writes to the cache file.
+ * The file is loaded in background the first time the cache is used, and closed with the application.
+ */
+@Service
+class SharedSymbolCache : Disposable {
+  val cache = SymbolCache(Paths.get(PathManager.getSystemPath(), SYMBOL_CACHE_DIR, SYMBOL_CACHE_FILE).toFile(),
+                          loadExecutor = AppExecutorUtil.getAppExecutorService())
+
+  override fun dispose() = cache.close()
+
+  companion object {
+    private const val SYMBOL_CACHE_DIR = "native-symbolizer"
+    private const val SYMBOL_CACHE_FILE = "symbols.bin"
+
+    @JvmStatic
+    fun getInstance(): SharedSymbolCache = ApplicationManager.getApplication().getService(SharedSymbolCache::class.java)
+  }
+}
@@ -0,0 +1,116 @@
+/*
+ * Copyright (C) 2022 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.android.tools.nativeSymbolizer
+
+import com.intellij.util.concurrency.AppExecutorUtil
+import java.io.File
+import java.util.concurrent.ConcurrentHashMap
+import java.util.concurrent.ExecutorService
+
+/**
+ * Implementation of NativeSymbolizer for symbolizing many frames at once.
+ *
+ * Frames are first looked up in a [SymbolCache] keyed by the build-id of the symbol file and the offset. The remaining frames of a
+ * symbol file are split across a pool of llvm-symbolizer processes, each of which receives its share as batched requests.
+ *
+ * Each project gets its own service, with its own pool, from [createNativeSymbolizer]; only the cache is shared.
+ */
+class SymbolizationService(private val symLocator: SymbolFilesLocator,
+                           private val cache: SymbolCache,
+                           poolSize: Int = DEFAULT_POOL_SIZE,
+                           createSymbolizer: () -> LlvmSymbolizer) : NativeSymbolizer {
+
+  private val symbolizers = List(poolSize) { createSymbolizer() }
+  private val executor: ExecutorService = AppExecutorUtil.createBoundedApplicationPoolExecutor("NativeSymbolizer", poolSize)
+  private val cacheIds = ConcurrentHashMap<File, CacheId>()
+
+  override fun symbolize(abiArch: String, module: File, offset: Long): Symbol? =
+    symbolizeAll(abiArch, listOf(NativeSymbolizer.Frame(module, offset)))[0]
+
+  @Synchronized
+  override fun symbolizeAll(abiArch: String, frames: List<NativeSymbolizer.Frame>): List<Symbol?> {
+    val symbols = HashMap<NativeSymbolizer.Frame, Symbol?>()
+    for ((module, moduleFrames) in frames.distinct().groupBy { it.module }) {
+      // As in LlvmSymbolizer, the first symbol file that knows about an offset wins.
+      var pending = moduleFrames.map { it.offset }
+      for (symFile in symLocator.getSymbolFiles(abiArch, module)) {
+        if (pending.isEmpty()) {
+          break
+        }
+        val buildId = getCacheId(symFile)
+        val misses = pending.filter { cache[SymbolCache.Key(buildId, it)] == null }
+        val found = symbolizeInParallel(symFile, module, misses).mapKeys { (offset, _) -> SymbolCache.Key(buildId, offset) }
+        cache.putAll(found)
+
+        pending = pending.filter { offset ->
+          val key = SymbolCache.Key(buildId, offset)
+          // The cache may have been cleared in the meantime, so the results of this batch are looked up first.
+          val symbol = (found[key] ?: cache[key])?.toSymbol(module)
+          symbols[NativeSymbolizer.Frame(module, offset)] = symbol
+          symbol == null
+        }
+      }
+    }
+    cache.flush()
+    return frames.map { symbols[it] }
+  }
+
+  /**
+   * Splits the offsets across the symbolizer pool. Offsets whose request failed are left out of the result, so they are not cached.
+   */
+  private fun symbolizeInParallel(symFile: File, module: File, offsets: List<Long>): Map<Long, SymbolCache.Entry> {
+    if (offsets.isEmpty()) {
+      return emptyMap()
+    }
+    val chunkSize = (offsets.size + symbolizers.size - 1) / symbolizers.size
+    val futures = offsets.chunked(chunkSize).mapIndexed { i, chunk ->
+      executor.submit<List<Pair<Long, SymbolCache.Entry>>> {
+        val symbols = symbolizers[i].symbolizeInFile(symFile, module, chunk) ?: return@submit emptyList()
+        chunk.zip(symbols.map(SymbolCache.Entry::of))
+      }
+    }
+    return futures.flatMap { it.get() }.toMap()
+  }
+
+  /**
+   * The build-id of a symbol file, or a key derived from its path and timestamp if it has none.
+   */
+  private fun getCacheId(symFile: File): String {
+    val lastModified = symFile.lastModified()
+    val cached = cacheIds[symFile]
+    if (cached != null && cached.lastModified == lastModified) {
+      return cached.id
+    }
+    val id = readElfBuildId(symFile) ?: "${symFile.absolutePath}:${symFile.length()}:$lastModified"
+    cacheIds[symFile] = CacheId(id, lastModified)
+    return id
+  }
+
+  /**
+   * Stops the llvm-symbolizer processes of this service. They are started again by the next request that misses the cache.
+   */
+  @Synchronized
+  override fun stop() {
+    symbolizers.forEach(LlvmSymbolizer::stop)
+  }
+
+  private data class CacheId(val id: String, val lastModified: Long)
+
+  companion object {
+    @JvmField
+    val DEFAULT_POOL_SIZE = (Runtime.getRuntime().availableProcessors() / 2).coerceIn(1, 4)
+  }
+}
@@ -0,0 +1,118 @@
+/*
+ * Copyright (C) 2022 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.android.tools.nativeSymbolizer
+
+import com.intellij.openapi.util.io.FileUtil
+import org.junit.Assert
+import org.junit.Test
+import java.io.File
+
+class SymbolCacheTest {
+  private val module = File("/data/app/com.someapp.name-abcd09876abds==/lib/arm64/libnative-lib.so")
+
+  @Test
+  fun entriesArePersisted() {
+    val cacheFile = File(FileUtil.createTempDirectory("symbol-cache", null, true), "symbols.bin")
+    val cache = SymbolCache(cacheFile)
+    cache.put(SymbolCache.Key("abcd", 0x909c), SymbolCache.Entry("TestSimpleMethodCall", "native-lib.cpp", 36))
+    cache.put(SymbolCache.Key("abcd", 0x1), SymbolCache.Entry.NOT_FOUND)
+    cache.put(SymbolCache.Key("ef01", 0x909c), SymbolCache.Entry("OtherMethod", "other.cpp", 2))
+    cache.close()
+
+    val reloaded = SymbolCache(cacheFile)
+    Assert.assertEquals(3, reloaded.size)
+    Assert.assertEquals(Symbol("TestSimpleMethodCall", module.absolutePath, "native-lib.cpp", 36),
+                        reloaded[SymbolCache.Key("abcd", 0x909c)]!!.toSymbol(module))
+    Assert.assertEquals(SymbolCache.Entry.NOT_FOUND, reloaded[SymbolCache.Key("abcd", 0x1)])
+    Assert.assertNull(reloaded[SymbolCache.Key("abcd", 0x1)]!!.toSymbol(module))
+    Assert.assertNull(reloaded[SymbolCache.Key("abcd", 0x2)])
+  }
+
+  @Test
+  fun partialEntryIsDropped() {
+    val cacheFile = File(FileUtil.createTempDirectory("symbol-cache", null, true), "symbols.bin")
+    val cache = SymbolCache(cacheFile)
+    cache.put(SymbolCache.Key("abcd", 1), SymbolCache.Entry("Method", "native-lib.cpp", 1))
+    cache.close()
+    // Simulate a write interrupted in the middle of an entry.
+    cacheFile.appendBytes(byteArrayOf(0, 4, 'e'.code.toByte()))
+
+    val reloaded = SymbolCache(cacheFile)
+    Assert.assertEquals(1, reloaded.size)
+    reloaded.put(SymbolCache.Key("abcd", 2), SymbolCache.Entry("OtherMethod", "native-lib.cpp", 2))
+    reloaded.close()
+
+    // The new entry was appended after the last valid one, not after the partial one.
+    val reloadedAgain = SymbolCache(cacheFile)
+    Assert.assertEquals(2, reloadedAgain.size)
+    Assert.assertEquals(SymbolCache.Entry("OtherMethod", "native-lib.cpp", 2), reloadedAgain[SymbolCache.Key("abcd", 2)])
+  }
+
+  @Test
+  fun corruptedFileIsDiscarded() {
+    val cacheFile = FileUtil.createTempFile("symbols", ".bin", true)
+    cacheFile.writeText("not a symbol cache")
+    val cache = SymbolCache(cacheFile)
+    Assert.assertEquals(0, cache.size)
+  }
+
+  @Test
+  fun cacheStartsOverWhenFull() {
+    val cache = SymbolCache(null, 2)
+    cache.put(SymbolCache.Key("abcd", 1), SymbolCache.Entry.NOT_FOUND)
+    cache.put(SymbolCache.Key("abcd", 2), SymbolCache.Entry.NOT_FOUND)
+    cache.put(SymbolCache.Key("abcd", 3), SymbolCache.Entry.NOT_FOUND)
+    Assert.assertEquals(1, cache.size)
+    Assert.assertNotNull(cache[SymbolCache.Key("abcd", 3)])
+  }
+
+  @Test
+  fun entriesAreWrittenWhenFlushed() {
+    val cacheFile = File(FileUtil.createTempDirectory("symbol-cache", null, true), "symbols.bin")
+    val cache = SymbolCache(cacheFile)
+    cache.put(SymbolCache.Key("abcd", 1), SymbolCache.Entry("Method", "native-lib.cpp", 1))
+    Assert.assertFalse(cacheFile.exists())
+
+    cache.flush()
+    Assert.assertEquals(1, SymbolCache(cacheFile).size)
+    cache.close()
+  }
+
+  @Test
+  fun fileIsLoadedInBackground() {
+    val cacheFile = File(FileUtil.createTempDirectory("symbol-cache", null, true), "symbols.bin")
+    SymbolCache(cacheFile).apply {
+      put(SymbolCache.Key("abcd", 1), SymbolCache.Entry("Method", "native-lib.cpp", 1))
+      close()
+    }
+    val loadTasks = mutableListOf<Runnable>()
+
+    val cache = SymbolCache(cacheFile, loadExecutor = { loadTasks.add(it) })
+    Assert.assertFalse(cache.isLoaded)
+    Assert.assertNull(cache[SymbolCache.Key("abcd", 1)])
+    // Entries added while loading are kept, and written once the file is loaded.
+    cache.put(SymbolCache.Key("abcd", 2), SymbolCache.Entry("OtherMethod", "native-lib.cpp", 2))
+    cache.flush()
+    loadTasks.single().run()
+    Assert.assertTrue(cache.isLoaded)
+    Assert.assertEquals(SymbolCache.Entry("Method", "native-lib.cpp", 1), cache[SymbolCache.Key("abcd", 1)])
+    cache.close()
+
+    val reloaded = SymbolCache(cacheFile)
+    Assert.assertEquals(2, reloaded.size)
+    Assert.assertEquals(SymbolCache.Entry("OtherMethod", "native-lib.cpp", 2), reloaded[SymbolCache.Key("abcd", 2)])
+  }
+}
@@ -0,0 +1,77 @@
+/*
+ * Copyright (C) 2022 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.android.tools.nativeSymbolizer
+
+import com.android.testutils.TestUtils.resolveWorkspacePath
+import com.intellij.openapi.util.io.FileUtil
+import org.junit.Assert
+import org.junit.Test
+import java.io.File
+
+class SymbolizationServiceTest {
+  private val arch = "arm64"
+  private val modulePath = File("/data/app/com.someapp.name-abcd09876abds==/lib/arm64/libnative-lib.so")
+  private val symLocator = SymbolFilesLocator(DynamicSymbolSource().add(arch, getTestPath(arch)))
+
+  @Test
+  fun batchMatchesSingleRequests() {
+    val frames = readOffsets().map { NativeSymbolizer.Frame(modulePath, it) }
+    val symbolizer = LlvmSymbolizer(getLlvmSymbolizerPath(), symLocator)
+    val expected = frames.map { symbolizer.symbolize(arch, it.module, it.offset) }
+    symbolizer.stop()
+
+    val service = SymbolizationService(symLocator, SymbolCache(null), 3) { LlvmSymbolizer(getLlvmSymbolizerPath(), symLocator) }
+    // Duplicated frames are only symbolized once, but still get a result each.
+    Assert.assertEquals(expected + expected, service.symbolizeAll(arch, frames + frames))
+    service.stop()
+  }
+
+  @Test
+  fun cachedSymbolsDoNotNeedSymbolizer() {
+    val cacheFile = File(FileUtil.createTempDirectory("symbol-cache", null, true), "symbols.bin")
+    val frames = readOffsets().map { NativeSymbolizer.Frame(modulePath, it) } + NativeSymbolizer.Frame(modulePath, 0xffffffffff)
+    val cache = SymbolCache(cacheFile)
+    val service = SymbolizationService(symLocator, cache) { LlvmSymbolizer(getLlvmSymbolizerPath(), symLocator) }
+    val expected = service.symbolizeAll(arch, frames)
+    service.stop()
+    cache.close()
+    Assert.assertNotNull(expected.first())
+    Assert.assertNull(expected.last())
+
+    // A fresh service reading the same cache file must not need to start llvm-symbolizer at all.
+    val missingExe = getLlvmSymbolizerPath().replace("llvm-symbolizer", "not-llvm-symbolizer")
+    val cachedService = SymbolizationService(symLocator, SymbolCache(cacheFile)) { LlvmSymbolizer(missingExe, symLocator) }
+    Assert.assertEquals(expected, cachedService.symbolizeAll(arch, frames))
+  }
+
+  @Test
+  fun unknownModule() {
+    val service = SymbolizationService(symLocator, SymbolCache(null)) { LlvmSymbolizer(getLlvmSymbolizerPath(), symLocator) }
+    Assert.assertNull(service.symbolize(arch, File("/p/libnotexists.so"), 12345))
+  }
+
+  private fun readOffsets() =
+    // +1 to get an address within the function, rather than function start address
+    getTestPath(arch, "symbols.txt").readLines().map { it.split('|')[0].toLong(16) + 1 }
+
+  private fun getTestPath(vararg part: String): File {
+    var testDataDir = resolveWorkspacePath("tools/adt/idea/native-symbolizer/testData/bin/")
+    for (p in part) {
+      testDataDir = testDataDir.resolve(p)
+    }
+    return testDataDir.toAbsolutePath().toFile()
+  }
+}
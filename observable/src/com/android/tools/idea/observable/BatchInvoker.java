@@ -16,7 +16,11 @@
 package com.android.tools.idea.observable;
 
 import com.google.common.collect.Queues;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.PriorityQueue;
 import java.util.Queue;
+import java.util.Set;
 import javax.swing.SwingUtilities;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
@@ -32,6 +36,11 @@ import org.jetbrains.annotations.TestOnly;
  * Doing this will allow us to avoid doing expensive updates on redundant, intermediate changes,
  * e.g. if you have five values in a complex mathematical calculation, and all values change in
  * the same frame, you only want to run the calculation once.
+ *
+ * Runnables implementing {@link OrderedRunnable} run by increasing {@link OrderedRunnable#getOrder()}
+ * within a batch. A runnable enqueued while a batch is running joins that batch if it is ordered
+ * after the runnable currently running, or if it is still waiting to run; otherwise it is deferred
+ * to the next batch.
  */
 public final class BatchInvoker {
   /**
@@ -58,9 +67,15 @@ public final class BatchInvoker {
   private final Strategy myStrategy;
 
   /**
-   * A current batch of runnables that are either running or will run soon.
+   * A current batch of runnables that will run soon, by order and then by insertion.
+   */
+  private final Queue<Entry> myRunnables = new PriorityQueue<>(
+    Comparator.<Entry>comparingInt(entry -> entry.myOrder).thenComparingLong(entry -> entry.mySequence));
+
+  /**
+   * The runnables in {@link #myRunnables}, to collapse redundant runnables without a linear search.
    */
-  private final Queue<Runnable> myRunnables = Queues.newArrayDeque();
+  private final Set<Runnable> myPendingRunnables = new HashSet<>();
 
   /**
    * A deferred batch of runnables, for those that are added by {@link #enqueue(Runnable)} while a
@@ -70,6 +85,13 @@ public final class BatchInvoker {
 
   private boolean myUpdateInProgress;
 
+  /**
+   * The order of the runnable currently running, if {@link #myUpdateInProgress}.
+   */
+  private int myCurrentOrder;
+
+  private long myNextSequence;
+
   public BatchInvoker() {
     this(ourOverrideStrategy != null ? ourOverrideStrategy : SWING_INVOKE_LATER_STRATEGY);
   }
@@ -85,7 +107,14 @@ public final class BatchInvoker {
    */
   public void enqueue(@NotNull Runnable runnable) {
     if (myUpdateInProgress) {
-      if (!myDeferredRunnables.contains(runnable)) {
+      if (myPendingRunnables.contains(runnable)) {
+        // It hasn't run yet, so it will see the latest values anyway.
+        return;
+      }
+      if (getOrder(runnable) > myCurrentOrder) {
+        addToBatch(runnable);
+      }
+      else if (!myDeferredRunnables.contains(runnable)) {
         myDeferredRunnables.add(runnable);
       }
       return;
@@ -94,30 +123,40 @@ public final class BatchInvoker {
     // Prepare to run an update if we're the first update request. Any other requests that are made
     // before the update runs will get lumped in with it.
     boolean shouldInvoke = myRunnables.isEmpty();
-    if (!myRunnables.contains(runnable)) {
-      myRunnables.add(runnable);
-    }
+    addToBatch(runnable);
 
     if (shouldInvoke) {
       enqueueInvoke();
     }
   }
 
+  private void addToBatch(@NotNull Runnable runnable) {
+    if (myPendingRunnables.add(runnable)) {
+      myRunnables.add(new Entry(runnable, getOrder(runnable), myNextSequence++));
+    }
+  }
+
+  private static int getOrder(@NotNull Runnable runnable) {
+    return runnable instanceof OrderedRunnable ? ((OrderedRunnable)runnable).getOrder() : 0;
+  }
+
   private void enqueueInvoke() {
     myStrategy.invoke(() -> {
       int cycleCount = 0;
       RuntimeException runnableExceptionChain = null;
       while (true) {
         myUpdateInProgress = true;
-        for (Runnable runnable : myRunnables) {
+        Entry entry;
+        while ((entry = myRunnables.poll()) != null) {
+          myPendingRunnables.remove(entry.myRunnable);
+          myCurrentOrder = entry.myOrder;
           try {
-            runnable.run();
+            entry.myRunnable.run();
           }
           catch (RuntimeException ex) {
             runnableExceptionChain = addExceptionCause(ex, runnableExceptionChain);
           }
         }
-        myRunnables.clear();
 
         myUpdateInProgress = false;
 
@@ -128,7 +167,7 @@ public final class BatchInvoker {
             throw new InfiniteCycleException(runnableExceptionChain);
           }
 
-          myRunnables.addAll(myDeferredRunnables);
+          myDeferredRunnables.forEach(this::addToBatch);
           myDeferredRunnables.clear();
         }
         else {
@@ -152,6 +191,26 @@ public final class BatchInvoker {
     void invoke(@NotNull Runnable runnableBatch);
   }
 
+  /**
+   * A runnable that should run after the runnables of a lower order in the same batch, e.g. because
+   * it reads values that they write.
+   */
+  public interface OrderedRunnable extends Runnable {
+    int getOrder();
+  }
+
+  private static final class Entry {
+    @NotNull private final Runnable myRunnable;
+    private final int myOrder;
+    private final long mySequence;
+
+    private Entry(@NotNull Runnable runnable, int order, long sequence) {
+      myRunnable = runnable;
+      myOrder = order;
+      mySequence = sequence;
+    }
+  }
+
   /**
    * Override the default invocation strategy used if one is not provided in the constructor.
    */
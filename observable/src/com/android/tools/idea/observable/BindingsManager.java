@@ -16,10 +16,13 @@
 package com.android.tools.idea.observable;
 
 import com.android.tools.idea.observable.core.ObservableBool;
+import com.android.tools.idea.observable.expressions.Expression;
 import com.google.common.base.Objects;
 import java.util.ArrayList;
+import java.util.IdentityHashMap;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
 import org.jetbrains.annotations.NotNull;
 
 /**
@@ -30,6 +33,13 @@ import org.jetbrains.annotations.NotNull;
  * {@link #bind(SettableValue, ObservableValue)} and
  * {@link #bindTwoWay(SettableValue, SettableValue)}.
  * <p/>
+ * Updates are run in the topological order of the dependency graph formed by the bindings and the
+ * {@link Expression}s between them: a destination is only updated after every binding its source
+ * (transitively) depends on. This way, a change that fans out through many bindings updates each
+ * destination once, in a single batch, instead of updating it from stale values first and then
+ * again in later batches. Unchanged destinations don't notify their listeners, so propagation stops
+ * there.
+ * <p/>
  * Note: This class is currently not thread-safe. You are expected to read, write, and bind
  * values on the dispatch thread to avoid undefined behavior.
  */
@@ -40,6 +50,13 @@ public final class BindingsManager {
 
   private final BatchInvoker myInvoker;
 
+  /**
+   * The depth of the values in the dependency graph, see {@link #getDepth(ObservableValue)}.
+   * Computed lazily, and dropped whenever bindings change.
+   */
+  private final Map<ObservableValue<?>, Integer> myDepths = new IdentityHashMap<>();
+  private final Map<SettableValue<?>, OneWayBinding<?>> myBindingsByDest = new IdentityHashMap<>();
+
   public BindingsManager() {
     myInvoker = new BatchInvoker();
   }
@@ -73,7 +90,10 @@ public final class BindingsManager {
   public <T> void bind(@NotNull SettableValue<T> dest, @NotNull ObservableValue<T> src, @NotNull ObservableValue<Boolean> enabled) {
     release(dest);
 
-    myOneWayBindings.add(new OneWayBinding<>(dest, src, enabled));
+    OneWayBinding<T> binding = new OneWayBinding<>(dest, src, enabled);
+    myOneWayBindings.add(binding);
+    myBindingsByDest.put(dest, binding);
+    myDepths.clear();
   }
 
   /**
@@ -99,6 +119,8 @@ public final class BindingsManager {
       if (binding.myDest == dest) {
         binding.dispose();
         i.remove();
+        myBindingsByDest.remove(dest);
+        myDepths.clear();
         return;
       }
     }
@@ -143,6 +165,8 @@ public final class BindingsManager {
       oneWayBinding.dispose();
     }
     myOneWayBindings.clear();
+    myBindingsByDest.clear();
+    myDepths.clear();
 
     for (TwoWayBinding<?> twoWayBinding : myTwoWayBindings) {
       twoWayBinding.dispose();
@@ -150,6 +174,32 @@ public final class BindingsManager {
     myTwoWayBindings.clear();
   }
 
+  /**
+   * Returns the length of the longest chain of one-way bindings {@code value} is computed from,
+   * looking through expressions. Updaters reading a value run after all the updaters writing a
+   * value it depends on, since those have a lower depth.
+   */
+  private int getDepth(@NotNull ObservableValue<?> value) {
+    Integer depth = myDepths.get(value);
+    if (depth != null) {
+      return depth;
+    }
+    // Temporary value, which breaks cycles in the graph.
+    myDepths.put(value, 0);
+    int result = 0;
+    if (value instanceof Expression) {
+      for (ObservableValue<?> dependency : ((Expression<?>)value).getDependencies()) {
+        result = Math.max(result, getDepth(dependency));
+      }
+    }
+    OneWayBinding<?> binding = value instanceof SettableValue ? myBindingsByDest.get(value) : null;
+    if (binding != null) {
+      result = Math.max(result, getDepth(binding.mySrc) + 1);
+    }
+    myDepths.put(value, result);
+    return result;
+  }
+
   private final class OneWayBinding<T> implements InvalidationListener {
     private final SettableValue<T> myDest;
     private final ObservableValue<T> mySrc;
@@ -158,7 +208,7 @@ public final class BindingsManager {
     @Override
     public void onInvalidated() {
       if (myEnabled.get()) {
-        myInvoker.enqueue(new DestUpdater<>(myDest, mySrc));
+        myInvoker.enqueue(new DestUpdater<>(myDest, mySrc, getDepth(mySrc)));
       }
     }
 
@@ -189,8 +239,8 @@ public final class BindingsManager {
     public TwoWayBinding(SettableValue<T> lhs, SettableValue<T> rhs) {
       myLhs = lhs;
       myRhs = rhs;
-      myLeftChangedListener = () -> myInvoker.enqueue(new DestUpdater<>(myRhs, myLhs));
-      myRightChangedListener = () -> myInvoker.enqueue(new DestUpdater<>(myLhs, myRhs));
+      myLeftChangedListener = () -> myInvoker.enqueue(new DestUpdater<>(myRhs, myLhs, getDepth(myLhs)));
+      myRightChangedListener = () -> myInvoker.enqueue(new DestUpdater<>(myLhs, myRhs, getDepth(myRhs)));
 
       myLhs.addListener(myLeftChangedListener);
       myRhs.addListener(myRightChangedListener);
@@ -210,13 +260,20 @@ public final class BindingsManager {
    * value on request. This class is used by both {@link OneWayBinding} and {@link TwoWayBinding}
    * to enqueue an update after they detect a change.
    */
-  private static final class DestUpdater<T> implements Runnable {
+  private static final class DestUpdater<T> implements BatchInvoker.OrderedRunnable {
     private final SettableValue<T> myDest;
     private final ObservableValue<T> mySrc;
+    private final int myOrder;
 
-    public DestUpdater(SettableValue<T> dest, ObservableValue<T> src) {
+    public DestUpdater(SettableValue<T> dest, ObservableValue<T> src, int order) {
       myDest = dest;
       mySrc = src;
+      myOrder = order;
+    }
+
+    @Override
+    public int getOrder() {
+      return myOrder;
     }
 
     @Override
@@ -18,6 +18,9 @@ package com.android.tools.idea.observable.expressions;
 import com.android.tools.idea.observable.AbstractObservableValue;
 import com.android.tools.idea.observable.InvalidationListener;
 import com.android.tools.idea.observable.ObservableValue;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
 import java.util.function.Supplier;
 import org.jetbrains.annotations.NotNull;
 
@@ -31,17 +34,28 @@ import org.jetbrains.annotations.NotNull;
 public abstract class Expression<T> extends AbstractObservableValue<T> implements ObservableValue<T> {
   @SuppressWarnings("FieldCanBeLocal") // must be local to avoid weak garbage collection
   private final InvalidationListener myListener = () -> notifyInvalidated();
+  @NotNull private final List<ObservableValue<?>> myDependencies;
 
   protected Expression(@NotNull ObservableValue<?>... values) {
     if (values.length == 0) {
       throw new IllegalArgumentException("Can't create an expression without any target observables");
     }
+    myDependencies = Collections.unmodifiableList(Arrays.asList(values.clone()));
 
     for (ObservableValue value : values) {
       value.addWeakListener(myListener);
     }
   }
 
+  /**
+   * Returns the observables this expression is computed from, which {@link com.android.tools.idea.observable.BindingsManager} uses
+   * to order updates.
+   */
+  @NotNull
+  public final List<ObservableValue<?>> getDependencies() {
+    return myDependencies;
+  }
+
   @NotNull
   public static <T> Expression<T> create(@NotNull Supplier<? extends T> valueSupplier, @NotNull ObservableValue<?>... values) {
     return new Expression<T>(values) {
@@ -21,6 +21,7 @@ import com.android.tools.idea.observable.collections.ObservableList;
 import com.android.tools.idea.observable.core.BoolValueProperty;
 import com.android.tools.idea.observable.core.IntValueProperty;
 import com.android.tools.idea.observable.core.StringValueProperty;
+import com.android.tools.idea.observable.expressions.Expression;
 import com.android.tools.idea.observable.expressions.list.MapExpression;
 import java.util.Arrays;
 import org.jetbrains.annotations.NotNull;
@@ -282,4 +283,31 @@ public final class BindingsManagerTest {
     srcProperty.set(50);
     assertThat(destProperty.get()).isEqualTo(50);
   }
-}
\ No newline at end of file
+
+  @Test
+  public void bindingsAreUpdatedOnceInDependencyOrder() {
+    TestInvokeStrategy testStrategy = new TestInvokeStrategy();
+    BindingsManager bindings = new BindingsManager(testStrategy);
+    IntValueProperty a = new IntValueProperty(1);
+    IntValueProperty b = new IntValueProperty();
+    IntValueProperty c = new IntValueProperty();
+    int[] sumEvaluations = new int[1];
+
+    // c = a + b, where b = a * 10. Bind c first, so that it would be updated from a stale b if bindings ran in binding order.
+    bindings.bind(c, Expression.create(() -> {
+      sumEvaluations[0]++;
+      return a.get() + b.get();
+    }, a, b));
+    bindings.bind(b, a.transform(value -> value * 10));
+    testStrategy.updateAllSteps();
+    assertThat(c.get()).isEqualTo(11);
+
+    sumEvaluations[0] = 0;
+    a.set(2);
+    testStrategy.updateOneStep();
+    assertThat(b.get()).isEqualTo(20);
+    assertThat(c.get()).isEqualTo(22);
+    assertThat(sumEvaluations[0]).isEqualTo(1);
+    assertThat(testStrategy.myBatchQueue).isEmpty();
+  }
+}
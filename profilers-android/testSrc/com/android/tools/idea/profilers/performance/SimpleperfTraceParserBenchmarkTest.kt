@@ -0,0 +1,57 @@
+/*
+ * Copyright (C) 2022 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.android.tools.idea.profilers.performance
+
+import com.android.tools.profilers.cpu.CpuProfilerTestUtils
+import com.android.tools.profilers.cpu.simpleperf.SimpleperfTraceParser
+import org.junit.Test
+import java.io.File
+import kotlin.test.assertTrue
+
+/**
+ * Measures the time and memory needed to import recorded simpleperf traces, which is dominated by building the call trees of
+ * every sampled thread.
+ */
+class SimpleperfTraceParserBenchmarkTest {
+  private val benchmark = benchmarkMemoryAndTime("Simpleperf Trace Import", "Parse")
+
+  private enum class TestCase(val traceFile: File) {
+    SIMPLEPERF(CpuProfilerTestUtils.getTraceFile("simpleperf.trace")),
+    SIMPLEPERF_CALLCHAIN(CpuProfilerTestUtils.getTraceFile("simpleperf_callchain.trace")),
+    SIMPLEPERF_WITHOUT_SYMBOLS(CpuProfilerTestUtils.getTraceFile("simpleperf_trace_without_symbols.trace")),
+  }
+
+  @Test
+  fun benchmarkSimpleperf() = runBenchmark(TestCase.SIMPLEPERF)
+
+  @Test
+  fun benchmarkSimpleperfCallchain() = runBenchmark(TestCase.SIMPLEPERF_CALLCHAIN)
+
+  @Test
+  fun benchmarkSimpleperfWithoutSymbols() = runBenchmark(TestCase.SIMPLEPERF_WITHOUT_SYMBOLS)
+
+  private fun runBenchmark(case: TestCase) {
+    // Warm up class loading and the JIT so the measurement reflects the parsing itself.
+    repeat(WARMUP_ITERATIONS) { SimpleperfTraceParser().parse(case.traceFile, 1) }
+
+    val capture = benchmark(case.name) { SimpleperfTraceParser().parse(case.traceFile, 1) }
+    assertTrue(capture.threads.isNotEmpty())
+  }
+
+  private companion object {
+    const val WARMUP_ITERATIONS = 3
+  }
+}
@@ -48,9 +48,12 @@ import java.awt.Graphics;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Locale;
+import java.util.Objects;
 import java.util.Set;
 import java.util.function.Function;
+import java.util.stream.Collectors;
 import javax.swing.JComponent;
 import javax.swing.JPanel;
 import javax.swing.JTree;
@@ -107,6 +110,16 @@ public abstract class TreeDetailsView extends CaptureDetailsView {
     if (cpuCapture.getSystemTraceData() == null) {
       profilersView.getIdeProfilerComponents().createContextMenuInstaller()
         .installNavigationContextMenu(myTree, navigator, () -> getCodeLocation(myTree));
+      myTree.addTreeExpansionListener(new TreeExpansionListener() {
+        @Override
+        public void treeExpanded(TreeExpansionEvent event) {
+          prefetchNavigatables(navigator, event.getPath());
+        }
+
+        @Override
+        public void treeCollapsed(TreeExpansionEvent event) {
+        }
+      });
     }
 
     switchCardLayout(myPanel, model.isEmpty());
@@ -215,6 +228,20 @@ public abstract class TreeDetailsView extends CaptureDetailsView {
       .build();
   }
 
+  /**
+   * Looks up the children of an expanded node in a single batch, so they are already resolved when the user navigates to one of them.
+   */
+  private static void prefetchNavigatables(@NotNull CodeNavigator navigator, @NotNull TreePath expandedPath) {
+    CpuTreeNode<?> node = (CpuTreeNode<?>)expandedPath.getLastPathComponent();
+    List<CodeLocation> locations = node.getChildren().stream()
+      .map(child -> modelToCodeLocation(child.getBase().getMethodModel()))
+      .filter(Objects::nonNull)
+      .collect(Collectors.toList());
+    if (!locations.isEmpty()) {
+      navigator.isNavigatable(locations);
+    }
+  }
+
   @Nullable
   private static CodeLocation getCodeLocation(@NotNull JTree tree) {
     if (tree.getSelectionPath() == null) {
@@ -16,6 +16,7 @@
 package com.android.tools.profilers;
 
 import com.android.tools.idea.transport.TransportClient;
+import com.android.tools.idea.transport.poller.TransportEventSubscriptions;
 import com.android.tools.profiler.proto.Commands;
 import com.android.tools.profiler.proto.CpuServiceGrpc;
 import com.android.tools.profiler.proto.EnergyServiceGrpc;
@@ -31,6 +32,7 @@ import com.android.tools.idea.io.grpc.inprocess.InProcessChannelBuilder;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.Executor;
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 
 public class ProfilerClient {
 
@@ -41,15 +43,21 @@ public class ProfilerClient {
   @NotNull private final NetworkServiceGrpc.NetworkServiceBlockingStub myNetworkClient;
   @NotNull private final EventServiceGrpc.EventServiceBlockingStub myEventClient;
   @NotNull private final EnergyServiceGrpc.EnergyServiceBlockingStub myEnergyClient;
+  @Nullable private final TransportEventSubscriptions myEventSubscriptions;
 
   public ProfilerClient(@NotNull String name) {
     // Optimization - In-process direct-executor channel which allows us to communicate between the profiler and transport-database without
     // going through the thread pool. This gives us a speed boost per grpc call plus the full caller's stack in transport-database.
-    this(InProcessChannelBuilder.forName(name).usePlaintext().directExecutor().build());
+    this(InProcessChannelBuilder.forName(name).usePlaintext().directExecutor().build(), TransportEventSubscriptions.forChannel(name));
   }
 
   @VisibleForTesting
   public ProfilerClient(@NotNull ManagedChannel channel) {
+    this(channel, null);
+  }
+
+  private ProfilerClient(@NotNull ManagedChannel channel, @Nullable TransportEventSubscriptions eventSubscriptions) {
+    myEventSubscriptions = eventSubscriptions;
     myTransportClient = TransportServiceGrpc.newBlockingStub(channel);
     myProfilerClient = ProfilerServiceGrpc.newBlockingStub(channel);
     myMemoryClient = MemoryServiceGrpc.newBlockingStub(channel);
@@ -64,6 +72,14 @@ public class ProfilerClient {
     return myTransportClient;
   }
 
+  /**
+   * Notifications of new events from the in-process datastore, or null if the client is not connected to one.
+   */
+  @Nullable
+  public TransportEventSubscriptions getEventSubscriptions() {
+    return myEventSubscriptions;
+  }
+
   public CompletableFuture<Transport.ExecuteResponse> executeAsync(Commands.Command command, Executor executor) {
     return TransportClient.executeAsync(myTransportClient, command, executor);
   }
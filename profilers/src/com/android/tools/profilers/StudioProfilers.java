@@ -278,7 +278,9 @@ public class StudioProfilers extends AspectModel<ProfilerAspect> implements Upda
     // Manage our own poll interval with the poller instead of using the ScheduledExecutorService helper provided in TransportEventPoller.
     // The rest of the Studio code runs on its own updater and assumes all UI-related code (e.g. Aspect) be handled via the updating
     // thread. Using the ScheduleExecutorService would violate that assumption and cause concurrency issues.
-    myTransportPoller = new TransportEventPoller(myClient.getTransportClient(), Comparator.comparing(Common.Event::getTimestamp));
+    // Listeners are only queried when the datastore notifies them of new events, so polling on every tick is cheap.
+    myTransportPoller = new TransportEventPoller(myClient.getTransportClient(), Comparator.comparing(Common.Event::getTimestamp),
+                                                 myClient.getEventSubscriptions());
 
     myUpdater.register(this);
   }
@@ -30,6 +30,8 @@ import com.android.tools.profilers.cpu.nodemodel.SingleNameModel;
 import com.google.common.annotations.VisibleForTesting;
 import com.google.common.collect.Lists;
 import com.intellij.openapi.diagnostic.Logger;
+import it.unimi.dsi.fastutil.ints.Int2ObjectMap;
+import it.unimi.dsi.fastutil.ints.Int2ObjectOpenHashMap;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.IOException;
@@ -43,10 +45,15 @@ import java.util.Comparator;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 import java.util.Set;
-import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
 import java.util.concurrent.TimeUnit;
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 
 /**
  * Parses a trace file obtained using simpleperf to a map threadId -> {@link CaptureNode}.
@@ -94,12 +101,12 @@ public class SimpleperfTraceParser implements TraceParser {
   /**
    * Maps a file id to its correspondent {@link SimpleperfReport.File}.
    */
-  private final Map<Integer, SimpleperfReport.File> myFiles;
+  private final Int2ObjectMap<SimpleperfReport.File> myFiles;
 
   /**
    * Maps a thread id to its corresponding {@link SimpleperfReport.Thread} object.
    */
-  private final Map<Integer, SimpleperfReport.Thread> myThreads;
+  private final Int2ObjectMap<SimpleperfReport.Thread> myThreads;
 
   /**
    * List of samples containing method trace data.
@@ -111,6 +118,17 @@ public class SimpleperfTraceParser implements TraceParser {
    */
   private final Map<CpuThreadInfo, CaptureNode> myCaptureTrees;
 
+  /**
+   * Interns the {@link CaptureNodeModel} created for each call chain entry, so the models are shared by all the nodes (of all threads)
+   * referring to the same symbol, instead of being parsed again for every sample.
+   */
+  private final Map<SymbolKey, CaptureNodeModel> myModelCache = new ConcurrentHashMap<>();
+
+  /**
+   * Pool used to build the call trees of the threads concurrently.
+   */
+  @NotNull private final ForkJoinPool myPool;
+
   /**
    * Number of samples read from trace file.
    */
@@ -147,13 +165,22 @@ public class SimpleperfTraceParser implements TraceParser {
    */
   private String myAppDataFolderPrefix;
 
-  private Set<String> myTags = new TreeSet<>(TAG_COMPARATOR);
+  /**
+   * Tags of the symbols present in the trace. Populated concurrently while the call trees of the threads are built.
+   */
+  private final Set<String> myTags = new ConcurrentSkipListSet<>(TAG_COMPARATOR);
 
   public SimpleperfTraceParser() {
-    myFiles = new HashMap<>();
+    this(ForkJoinPool.commonPool());
+  }
+
+  @VisibleForTesting
+  SimpleperfTraceParser(@NotNull ForkJoinPool pool) {
+    myFiles = new Int2ObjectOpenHashMap<>();
     mySamples = new ArrayList<>();
     myCaptureTrees = new HashMap<>();
-    myThreads = new HashMap<>();
+    myThreads = new Int2ObjectOpenHashMap<>();
+    myPool = pool;
   }
 
   /**
@@ -332,25 +359,35 @@ public class SimpleperfTraceParser implements TraceParser {
     myCaptureRange.set(TimeUnit.NANOSECONDS.toMicros(startTimestamp), TimeUnit.NANOSECONDS.toMicros(endTimestamp));
 
     // Split the samples per thread.
-    Map<Integer, List<SimpleperfReport.Sample>> threadSamples = splitSamplesPerThread();
-
-    // Process the samples for each thread
-    for (Map.Entry<Integer, List<SimpleperfReport.Sample>> threadSamplesEntry : threadSamples.entrySet()) {
-      parseThreadSamples(threadSamplesEntry.getKey(), threadSamplesEntry.getValue());
+    Int2ObjectMap<List<SimpleperfReport.Sample>> threadSamples = splitSamplesPerThread();
+
+    // Process the samples for each thread. The trees of different threads don't share any nodes, so they can be built concurrently.
+    List<ForkJoinTask<ThreadTree>> tasks = new ArrayList<>(threadSamples.size());
+    for (Int2ObjectMap.Entry<List<SimpleperfReport.Sample>> threadSamplesEntry : threadSamples.int2ObjectEntrySet()) {
+      int threadId = threadSamplesEntry.getIntKey();
+      List<SimpleperfReport.Sample> samples = threadSamplesEntry.getValue();
+      tasks.add(myPool.submit(() -> parseThreadSamples(threadId, samples)));
+    }
+    for (ForkJoinTask<ThreadTree> task : tasks) {
+      ThreadTree tree = task.join();
+      if (tree != null) {
+        myCaptureTrees.put(tree.myThreadInfo, tree.myRoot);
+      }
     }
   }
 
   /**
    * Group the samples collected by thread.
    */
-  private Map<Integer, List<SimpleperfReport.Sample>> splitSamplesPerThread() {
-    Map<Integer, List<SimpleperfReport.Sample>> threadSamples = new HashMap<>();
+  private Int2ObjectMap<List<SimpleperfReport.Sample>> splitSamplesPerThread() {
+    Int2ObjectMap<List<SimpleperfReport.Sample>> threadSamples = new Int2ObjectOpenHashMap<>();
     for (SimpleperfReport.Sample sample : mySamples) {
-      int threadId = sample.getThreadId();
-      if (!threadSamples.containsKey(threadId)) {
-        threadSamples.put(threadId, new ArrayList<>());
+      List<SimpleperfReport.Sample> samples = threadSamples.get(sample.getThreadId());
+      if (samples == null) {
+        samples = new ArrayList<>();
+        threadSamples.put(sample.getThreadId(), samples);
       }
-      threadSamples.get(threadId).add(sample);
+      samples.add(sample);
     }
     return threadSamples;
   }
@@ -366,12 +403,15 @@ public class SimpleperfTraceParser implements TraceParser {
   }
 
   /**
-   * Parses the list of samples of a thread into a {@link CaptureNode} tree.
+   * Parses the list of samples of a thread into a {@link CaptureNode} tree. Can be called concurrently for different threads.
+   *
+   * @return the thread and the root of its tree, or null if the thread has no samples.
    */
-  private void parseThreadSamples(int threadId, List<SimpleperfReport.Sample> threadSamples) {
+  @Nullable
+  private ThreadTree parseThreadSamples(int threadId, List<SimpleperfReport.Sample> threadSamples) {
     if (threadSamples.isEmpty()) {
       getLog().warn(String.format("Warning: No samples read for thread %s (%d)", myThreads.get(threadId), threadId));
-      return;
+      return null;
     }
 
     if (!myThreads.containsKey(threadId)) {
@@ -387,7 +427,7 @@ public class SimpleperfTraceParser implements TraceParser {
     SimpleperfReport.Thread thread = myThreads.get(threadId);
     CaptureNode root = createCaptureNode(new SingleNameModel(thread.getThreadName()), firstTimestamp, threadTimeNs);
     root.setDepth(0);
-    myCaptureTrees.put(new CpuThreadInfo(threadId, thread.getThreadName(), threadId == thread.getProcessId()), root);
+    CpuThreadInfo threadInfo = new CpuThreadInfo(threadId, thread.getThreadName(), threadId == thread.getProcessId());
 
     // Parse the first call chain so we have a value for lastCallchain
     List<SimpleperfReport.Sample.CallChainEntry> previousCallChain = Lists.reverse(threadSamples.get(0).getCallchainList());
@@ -417,6 +457,7 @@ public class SimpleperfTraceParser implements TraceParser {
     updateAncestorsEndTime(lastTimestamp, threadTimeNs, lastVisitedNode);
     // update the root timestamp
     setNodeEndTime(root, lastTimestamp, threadTimeNs);
+    return new ThreadTree(threadInfo, root);
   }
 
   /**
@@ -501,6 +542,13 @@ public class SimpleperfTraceParser implements TraceParser {
   }
 
   private CaptureNodeModel methodModelFromCallchainEntry(SimpleperfReport.Sample.CallChainEntry callChainEntry, long parentVAddress) {
+    // The vAddress of the entry itself is only part of the model when its symbol is invalid.
+    long vAddress = callChainEntry.getSymbolId() == INVALID_SYMBOL_ID ? callChainEntry.getVaddrInFile() : -1;
+    SymbolKey key = new SymbolKey(callChainEntry.getFileId(), callChainEntry.getSymbolId(), vAddress, parentVAddress);
+    return myModelCache.computeIfAbsent(key, k -> createMethodModel(callChainEntry, parentVAddress));
+  }
+
+  private CaptureNodeModel createMethodModel(SimpleperfReport.Sample.CallChainEntry callChainEntry, long parentVAddress) {
     int symbolId = callChainEntry.getSymbolId();
     SimpleperfReport.File symbolFile = myFiles.get(callChainEntry.getFileId());
     if (symbolFile == null) {
@@ -526,6 +574,54 @@ public class SimpleperfTraceParser implements TraceParser {
     return node;
   }
 
+  /**
+   * Root of the call tree built for a thread, together with the thread information.
+   */
+  private static final class ThreadTree {
+    @NotNull private final CpuThreadInfo myThreadInfo;
+    @NotNull private final CaptureNode myRoot;
+
+    private ThreadTree(@NotNull CpuThreadInfo threadInfo, @NotNull CaptureNode root) {
+      myThreadInfo = threadInfo;
+      myRoot = root;
+    }
+  }
+
+  /**
+   * Identifies the {@link CaptureNodeModel} of a call chain entry. Entries with the same key are parsed into equivalent models.
+   */
+  private static final class SymbolKey {
+    private final int myFileId;
+    private final int mySymbolId;
+    private final long myVAddress;
+    private final long myParentVAddress;
+
+    private SymbolKey(int fileId, int symbolId, long vAddress, long parentVAddress) {
+      myFileId = fileId;
+      mySymbolId = symbolId;
+      myVAddress = vAddress;
+      myParentVAddress = parentVAddress;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (this == o) {
+        return true;
+      }
+      if (!(o instanceof SymbolKey)) {
+        return false;
+      }
+      SymbolKey other = (SymbolKey)o;
+      return myFileId == other.myFileId && mySymbolId == other.mySymbolId &&
+             myVAddress == other.myVAddress && myParentVAddress == other.myParentVAddress;
+    }
+
+    @Override
+    public int hashCode() {
+      return Objects.hash(myFileId, mySymbolId, myVAddress, myParentVAddress);
+    }
+  }
+
   // Order the tags coarsely depending on whether they're full paths or wild cards
   private static TagClass tagClass(String tag) {
     return tag.contains("*") ? TagClass.PREFIXED_PATH :
@@ -30,6 +30,7 @@ import com.android.tools.profilers.cpu.BaseCpuCapture;
 import com.android.tools.profilers.cpu.CaptureNode;
 import com.android.tools.profilers.cpu.CpuCapture;
 import com.android.tools.profilers.cpu.CpuThreadInfo;
+import com.android.tools.profilers.cpu.nodemodel.CaptureNodeModel;
 import com.android.tools.profilers.cpu.nodemodel.CppFunctionModel;
 import com.google.common.collect.Lists;
 import com.intellij.openapi.util.io.FileUtil;
@@ -39,7 +40,10 @@ import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
 import java.util.concurrent.TimeUnit;
 import org.junit.Before;
 import org.junit.Test;
@@ -240,6 +244,38 @@ public class SimpleperfTraceParserTest {
     assertEquals(capture.getMainThreadId(), BaseCpuCapture.NO_THREAD_ID);
   }
 
+  @Test
+  public void concurrentParsingMatchesSingleThreadedParsing() throws IOException {
+    CpuCapture capture = myParser.parse(myTraceFile, 0);
+    ForkJoinPool singleThreadPool = new ForkJoinPool(1);
+    try {
+      CpuCapture singleThreadCapture = new SimpleperfTraceParser(singleThreadPool).parse(myTraceFile, 0);
+      assertThat(capture.getThreads()).containsExactlyElementsIn(singleThreadCapture.getThreads());
+      assertThat(capture.getTags()).containsExactlyElementsIn(singleThreadCapture.getTags()).inOrder();
+      for (CpuThreadInfo thread : capture.getThreads()) {
+        assertSameTree(capture.getCaptureNode(thread.getId()), singleThreadCapture.getCaptureNode(thread.getId()));
+      }
+    }
+    finally {
+      singleThreadPool.shutdown();
+    }
+  }
+
+  @Test
+  public void nodeModelsAreSharedAcrossThreads() throws IOException {
+    CpuCapture capture = myParser.parse(myTraceFile, 0);
+    // All the threads started by pthread go through the same "__start_thread" frame, which should be parsed into a single model.
+    Set<CaptureNodeModel> startThreadModels = Collections.newSetFromMap(new IdentityHashMap<>());
+    for (CaptureNode tree : capture.getCaptureNodes()) {
+      for (CaptureNode child : tree.getChildren()) {
+        if (child.getData().getFullName().startsWith("__start_thread")) {
+          startThreadModels.add(child.getData());
+        }
+      }
+    }
+    assertThat(startThreadModels).hasSize(1);
+  }
+
   @Test
   public void tagsSortedByExpectedOrder() {
     List<String> tags = Arrays.asList("/a/b/c", "/c/d/e", "[java]", "/a/*");
@@ -248,6 +284,19 @@ public class SimpleperfTraceParserTest {
     assertThat(tags).isEqualTo(Arrays.asList("/a/b/c", "/c/d/e", "[java]", "/a/*"));
   }
 
+  private static void assertSameTree(CaptureNode expected, CaptureNode actual) {
+    assertEquals(expected.getData().getId(), actual.getData().getId());
+    assertEquals(expected.getStartGlobal(), actual.getStartGlobal());
+    assertEquals(expected.getEndGlobal(), actual.getEndGlobal());
+    assertEquals(expected.getStartThread(), actual.getStartThread());
+    assertEquals(expected.getEndThread(), actual.getEndThread());
+    assertEquals(expected.getDepth(), actual.getDepth());
+    assertEquals(expected.getChildCount(), actual.getChildCount());
+    for (int i = 0; i < expected.getChildCount(); i++) {
+      assertSameTree(expected.getChildAt(i), actual.getChildAt(i));
+    }
+  }
+
   /**
    * Checks that a {@link CaptureNode} tree starts with "__start_thread -> __pthread_start", then verifies the node just after then.
    */
@@ -21,6 +21,7 @@ import com.android.annotations.concurrency.UiThread
 import com.android.ide.common.repository.GradleVersion
 import com.android.tools.analytics.UsageTracker
 import com.android.tools.idea.IdeInfo
+import com.android.tools.idea.diagnostics.jfr.GradleSyncPhase
 import com.android.tools.idea.gradle.project.AndroidStudioGradleInstallationManager
 import com.android.tools.idea.gradle.project.sync.GradleSyncState.Companion.JDK_LOCATION_WARNING_NOTIFICATION_GROUP
 import com.android.tools.idea.gradle.project.sync.hyperlink.DoNotShowJdkHomeWarningAgainHyperlink
@@ -74,6 +75,7 @@ import org.jetbrains.annotations.VisibleForTesting
 import org.jetbrains.plugins.gradle.service.GradleInstallationManager
 import java.util.concurrent.ConcurrentHashMap
 import java.util.concurrent.ConcurrentMap
+import java.util.concurrent.atomic.AtomicReference
 import java.util.concurrent.locks.ReentrantLock
 import kotlin.concurrent.withLock
 
@@ -187,6 +189,22 @@ class GradleSyncStateHolder constructor(private val project: Project)  {
 
   private val state: Holder = Holder()
 
+  /** JFR event of the current phase of sync, committed when the next phase starts or when sync finishes. */
+  private val syncPhaseEvent = AtomicReference<GradleSyncPhase?>()
+
+  private fun startSyncPhase(phase: String?) {
+    val event = phase?.let { GradleSyncPhase() }
+    event?.begin()
+    val previous = syncPhaseEvent.getAndSet(event)
+    if (previous != null && previous.shouldCommit()) {
+      previous.commit()
+    }
+    if (event != null && event.isEnabled) {
+      event.phase = phase
+      event.project = project.name
+    }
+  }
+
   /**
    * Triggered at the start of a sync.
    */
@@ -200,6 +218,7 @@ class GradleSyncStateHolder constructor(private val project: Project)  {
     }
 
     LOG.info("Started ($trigger) sync with Gradle for project '${project.name}'.")
+    startSyncPhase(GradleSyncPhase.MODELS)
 
     eventLogger.syncStarted(GradleSyncStats.GradleSyncType.GRADLE_SYNC_TYPE_SINGLE_VARIANT, trigger)
 
@@ -219,6 +238,7 @@ class GradleSyncStateHolder constructor(private val project: Project)  {
     eventLogger.setupStarted()
 
     LOG.info("Started setup of project '${project.name}'.")
+    startSyncPhase(GradleSyncPhase.SETUP)
 
     logSyncEvent(AndroidStudioEvent.EventKind.GRADLE_SYNC_SETUP_STARTED, rootProjectPath)
   }
@@ -315,6 +335,7 @@ class GradleSyncStateHolder constructor(private val project: Project)  {
    * Common code to (re)set state once the sync has completed, all successful/failed/skipped syncs should run through this method.
    */
   private fun syncFinished(newState: LastSyncState) {
+    startSyncPhase(null)
 
     state.set {
       copy(state = newState, externalSystemTaskId = null, lastSyncFinishedTimeStamp = System.currentTimeMillis())
@@ -22,6 +22,7 @@ import java.lang.ref.SoftReference;
 import java.util.ArrayList;
 import java.util.List;
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 
 /**
  * A stat counter that surrounds and captures timing and call information of a sequence of calls within a stack frame.
@@ -43,6 +44,11 @@ public abstract class MethodStat {
   @SerializedName("endTime")
   private long myEndTime;
 
+  /**
+   * Depth of this stat for {@link PaintRecorder}, or -1 if it is not recorded.
+   */
+  private final int myRecordedDepth;
+
   @SerializedName("classType")
   private String getClassType() {
     return getClass().getSimpleName();
@@ -52,6 +58,7 @@ public abstract class MethodStat {
     myOwner = new SoftReference<>(owner);
     // TODO: instrument caller with try-catch as well.
     RenderStatsManager.push(this);
+    myRecordedDepth = PaintRecorder.enter();
   }
 
   /**
@@ -60,6 +67,17 @@ public abstract class MethodStat {
   public void endMethod() {
     myEndTime = System.nanoTime();
     RenderStatsManager.pop(this);
+    if (myRecordedDepth >= 0) {
+      PaintRecorder.exit(this, myRecordedDepth, myOwner.get(), getBounds());
+    }
+  }
+
+  /**
+   * @return the x, y, width and height of the area painted by the method, if known, for {@link PaintRecorder}.
+   */
+  @Nullable
+  protected int[] getBounds() {
+    return null;
   }
 
   /**
@@ -59,4 +59,10 @@ public class PaintComponentMethodStat extends MethodStat {
       myIsImage = false;
     }
   }
+
+  @Override
+  @NotNull
+  protected int[] getBounds() {
+    return myClip;
+  }
 }
@@ -67,4 +67,10 @@ public class PaintImmediatelyMethodStat extends MethodStat {
     }
     myBounds = new int[]{x, y, w, h};
   }
+
+  @Override
+  @NotNull
+  protected int[] getBounds() {
+    return myBounds;
+  }
 }
@@ -0,0 +1,185 @@
+/*
+ * Copyright (C) 2022 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.android.tools.swingp;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Always-on, low-overhead alternative to {@link RenderStatsManager}.
+ * <p>
+ * Instead of building call trees and serializing them to JSON, every completed {@link MethodStat} is written as a fixed-size binary
+ * record (start time, duration, owner component and nesting depth, owner and method classes, bounds) into a lock-free ring buffer of the painting thread.
+ * Only the most recent {@link #RECORDS_PER_THREAD} records of each thread are kept, so recording can stay enabled for a whole session,
+ * and {@link #dump(OutputStream)} writes them as a compact trace that {@link com.android.tools.swingp.trace.PaintTraceAnalyzer}
+ * reads offline.
+ * <p>
+ * The timestamps are the ones {@link MethodStat} already takes, so both modes measure the same thing.
+ * <p>
+ * Trace format (big-endian): magic, version, class name count, class names (UTF), thread count, then for every thread its id, name
+ * (UTF), record count and records of {@link #RECORD_SIZE} longs.
+ */
+public final class PaintRecorder {
+  public static final int TRACE_MAGIC = 0x53575054; // "SWPT"
+  public static final int TRACE_VERSION = 1;
+  public static final int RECORDS_PER_THREAD = 1 << 14;
+  /**
+   * Number of longs per record: start time, duration, then pairs of ints packed with {@link #pack(int, int)}: identity hash code of
+   * the owner and depth, class index of the owner (-1 if unknown) and of the method stat, x and y, width and height.
+   */
+  public static final int RECORD_SIZE = 6;
+
+  private static final ConcurrentLinkedQueue<PaintRingBuffer> ourBuffers = new ConcurrentLinkedQueue<>();
+  /**
+   * Only set once the thread records something, so that threads that never paint while recording don't get a buffer.
+   */
+  private static final ThreadLocal<PaintRingBuffer> ourBuffer = new ThreadLocal<>();
+
+  /**
+   * Indices of the class names in the trace, shared by all threads. Components and method stats come from a small set of classes,
+   * so this stays small.
+   */
+  private static final Map<Class<?>, Integer> ourClassIndices = new ConcurrentHashMap<>();
+  private static final List<String> ourClassNames = new ArrayList<>();
+
+  private static volatile boolean ourIsEnabled = false;
+
+  private PaintRecorder() {
+  }
+
+  /**
+   * Enables/disables recording. As with {@link RenderStatsManager#setIsEnabled(boolean)}, method stats already running keep being
+   * recorded until their stack unwinds.
+   */
+  public static void setIsEnabled(boolean isEnabled) {
+    ourIsEnabled = isEnabled;
+  }
+
+  public static boolean isEnabled() {
+    return ourIsEnabled;
+  }
+
+  /**
+   * Called when a {@link MethodStat} starts. Returns its depth, or -1 if it should not be recorded.
+   */
+  static int enter() {
+    PaintRingBuffer buffer = ourBuffer.get();
+    if (buffer == null) {
+      if (!ourIsEnabled) {
+        return -1;
+      }
+      buffer = new PaintRingBuffer(Thread.currentThread(), RECORDS_PER_THREAD);
+      ourBuffer.set(buffer);
+      ourBuffers.add(buffer);
+    }
+    else if (!ourIsEnabled && buffer.myDepth == 0) {
+      return -1;
+    }
+    return buffer.myDepth++;
+  }
+
+  /**
+   * Called when a {@link MethodStat} that {@link #enter()}ed at {@code depth} ends.
+   */
+  static void exit(@NotNull MethodStat stat, int depth, @Nullable Object owner, @Nullable int[] bounds) {
+    PaintRingBuffer buffer = ourBuffer.get();
+    buffer.myDepth = depth;
+    long ownerAndDepth = pack(owner == null ? 0 : System.identityHashCode(owner), depth);
+    long classes = pack(owner == null ? -1 : getClassIndex(owner.getClass()), getClassIndex(stat.getClass()));
+    long location = bounds == null ? 0 : pack(bounds[0], bounds[1]);
+    long size = bounds == null ? 0 : pack(bounds[2], bounds[3]);
+    buffer.write(stat.getStartTime(), stat.getEndTime() - stat.getStartTime(), ownerAndDepth, classes, location, size);
+  }
+
+  /**
+   * Packs two ints in a long, as stored in the records.
+   */
+  public static long pack(int high, int low) {
+    return ((long)high << 32) | (low & 0xFFFFFFFFL);
+  }
+
+  private static int getClassIndex(@NotNull Class<?> clazz) {
+    Integer index = ourClassIndices.get(clazz);
+    if (index != null) {
+      return index;
+    }
+    synchronized (ourClassNames) {
+      return ourClassIndices.computeIfAbsent(clazz, c -> {
+        ourClassNames.add(c.getName());
+        return ourClassNames.size() - 1;
+      });
+    }
+  }
+
+  /**
+   * Writes the records currently held by all threads as a trace.
+   */
+  public static void dump(@NotNull OutputStream outputStream) throws IOException {
+    DataOutputStream out = new DataOutputStream(new BufferedOutputStream(outputStream));
+    out.writeInt(TRACE_MAGIC);
+    out.writeInt(TRACE_VERSION);
+
+    List<PaintRingBuffer> buffers = new ArrayList<>(ourBuffers);
+    List<long[]> snapshots = new ArrayList<>(buffers.size());
+    for (PaintRingBuffer buffer : buffers) {
+      snapshots.add(buffer.snapshot());
+    }
+
+    // Written after the snapshots, so that it contains all the classes they refer to.
+    List<String> classNames;
+    synchronized (ourClassNames) {
+      classNames = new ArrayList<>(ourClassNames);
+    }
+    out.writeInt(classNames.size());
+    for (String className : classNames) {
+      out.writeUTF(className);
+    }
+
+    out.writeInt(buffers.size());
+    for (int i = 0; i < buffers.size(); i++) {
+      PaintRingBuffer buffer = buffers.get(i);
+      long[] records = snapshots.get(i);
+      out.writeLong(buffer.getThreadId());
+      out.writeUTF(buffer.getThreadName());
+      out.writeInt(records.length / RECORD_SIZE);
+      for (long value : records) {
+        out.writeLong(value);
+      }
+      if (buffer.getThread() == null) {
+        // Nothing will be added for a thread that was collected.
+        ourBuffers.remove(buffer);
+      }
+    }
+    out.flush();
+  }
+
+  public static void dump(@NotNull Path path) throws IOException {
+    try (OutputStream outputStream = Files.newOutputStream(path)) {
+      dump(outputStream);
+    }
+  }
+}
@@ -0,0 +1,111 @@
+/*
+ * Copyright (C) 2022 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.android.tools.swingp;
+
+import static com.android.tools.swingp.PaintRecorder.RECORD_SIZE;
+
+import java.lang.ref.WeakReference;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Fixed-size ring of the most recent {@link PaintRecorder} records of a single thread.
+ * <p>
+ * Only the owning thread writes, without locking or allocating. Other threads take a {@link #snapshot()} at any time: records that
+ * might have been overwritten while the snapshot was copied are dropped from it.
+ */
+final class PaintRingBuffer {
+  @NotNull private final WeakReference<Thread> myThread;
+  private final long myThreadId;
+  @NotNull private final String myThreadName;
+  private final int myCapacity;
+  @NotNull private final AtomicLongArray myRecords;
+  /**
+   * Number of records written since the buffer was created. Record {@code i} lives at slot {@code i % capacity}.
+   */
+  @NotNull private final AtomicLong myWritten = new AtomicLong();
+
+  /**
+   * Nesting depth of the method stats currently running on the owning thread. Only accessed by that thread.
+   */
+  int myDepth;
+
+  PaintRingBuffer(@NotNull Thread thread, int capacity) {
+    myThread = new WeakReference<>(thread);
+    myThreadId = thread.getId();
+    myThreadName = thread.getName();
+    myCapacity = capacity;
+    myRecords = new AtomicLongArray(capacity * RECORD_SIZE);
+  }
+
+  @Nullable
+  Thread getThread() {
+    return myThread.get();
+  }
+
+  long getThreadId() {
+    return myThreadId;
+  }
+
+  @NotNull
+  String getThreadName() {
+    return myThreadName;
+  }
+
+  /**
+   * Must only be called by the owning thread.
+   */
+  void write(long startTime, long duration, long owner, long classes, long location, long size) {
+    long index = myWritten.get();
+    int offset = (int)(index % myCapacity) * RECORD_SIZE;
+    myRecords.lazySet(offset, startTime);
+    myRecords.lazySet(offset + 1, duration);
+    myRecords.lazySet(offset + 2, owner);
+    myRecords.lazySet(offset + 3, classes);
+    myRecords.lazySet(offset + 4, location);
+    myRecords.lazySet(offset + 5, size);
+    myWritten.lazySet(index + 1);
+  }
+
+  /**
+   * Returns the complete records currently in the buffer, oldest first, {@link PaintRecorder#RECORD_SIZE} longs per record.
+   */
+  @NotNull
+  long[] snapshot() {
+    long end = myWritten.get();
+    long start = Math.max(0, end - myCapacity);
+    long[] copy = new long[(int)(end - start) * RECORD_SIZE];
+    for (long index = start; index < end; index++) {
+      int offset = (int)(index % myCapacity) * RECORD_SIZE;
+      for (int i = 0; i < RECORD_SIZE; i++) {
+        copy[(int)(index - start) * RECORD_SIZE + i] = myRecords.get(offset + i);
+      }
+    }
+    // The writer may have wrapped around while we were copying: drop the records whose slot was (or is being) reused.
+    long firstValid = Math.max(start, myWritten.get() - myCapacity + 1);
+    if (firstValid <= start) {
+      return copy;
+    }
+    if (firstValid >= end) {
+      return new long[0];
+    }
+    long[] valid = new long[(int)(end - firstValid) * RECORD_SIZE];
+    System.arraycopy(copy, (int)(firstValid - start) * RECORD_SIZE, valid, 0, valid.length);
+    return valid;
+  }
+}
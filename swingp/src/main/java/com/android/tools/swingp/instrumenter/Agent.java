@@ -15,12 +15,20 @@
  */
 package com.android.tools.swingp.instrumenter;
 
+import com.android.tools.swingp.PaintRecorder;
 import java.awt.Window;
+import java.io.IOException;
 import java.lang.instrument.Instrumentation;
+import java.nio.file.Paths;
 import javax.swing.JComponent;
 import javax.swing.RepaintManager;
 
 public class Agent {
+  /**
+   * Agent argument that turns on {@link PaintRecorder}. With {@code record=<file>}, the trace is also dumped to that file on exit.
+   */
+  private static final String RECORD_ARG = "record";
+
   public static void premain(String agentArgs, Instrumentation instrumentation) {
     System.out.println("Starting instrumentation agent.");
     agentmain(agentArgs, instrumentation);
@@ -41,5 +49,24 @@ public class Agent {
     catch (Exception e) {
       System.out.println(e);
     }
+
+    if (agentArgs != null && agentArgs.startsWith(RECORD_ARG)) {
+      startRecording(agentArgs.substring(RECORD_ARG.length()));
+    }
+  }
+
+  private static void startRecording(String fileArg) {
+    PaintRecorder.setIsEnabled(true);
+    if (fileArg.startsWith("=") && fileArg.length() > 1) {
+      String file = fileArg.substring(1);
+      Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+        try {
+          PaintRecorder.dump(Paths.get(file));
+        }
+        catch (IOException e) {
+          System.out.println(e);
+        }
+      }, "Swingp Trace Writer"));
+    }
   }
 }
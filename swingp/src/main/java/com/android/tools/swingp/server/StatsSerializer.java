@@ -15,6 +15,7 @@
  */
 package com.android.tools.swingp.server;
 
+import com.android.tools.swingp.PaintRecorder;
 import com.android.tools.swingp.RenderStatsManager;
 import com.google.gson.JsonElement;
 import com.google.gson.JsonNull;
@@ -55,6 +56,10 @@ public class StatsSerializer {
 
   private static final int SWING_MONITOR_SERVER_PORT = 61642;
   private static final int MAX_BATCH_SIZE = 10;
+  /**
+   * Returns the current {@link PaintRecorder} trace, for recordings that are running alongside the JSON stats.
+   */
+  private static final String TRACE_PATH = "/trace";
 
   @NotNull private final LinkedBlockingQueue<byte[]> mySerializedStats;
   @NotNull private final PollingSerializer myPollingSerializer;
@@ -68,6 +73,16 @@ public class StatsSerializer {
       .bootstrap()
       .setListenerPort(SWING_MONITOR_SERVER_PORT)
       .setSocketConfig(SocketConfig.custom().setSoKeepAlive(true).build())
+      .registerHandler(TRACE_PATH, new HttpRequestHandler() {
+        @Override
+        public void handle(HttpRequest request, HttpResponse response, HttpContext context) throws IOException {
+          ByteArrayOutputStream stream = new ByteArrayOutputStream();
+          PaintRecorder.dump(stream);
+          response.setStatusCode(HttpStatus.SC_OK);
+          response.setHeader("Access-Control-Allow-Origin", "*");
+          response.setEntity(new ByteArrayEntity(stream.toByteArray()));
+        }
+      })
       .registerHandler("*", new HttpRequestHandler() {
         @Override
         public void handle(HttpRequest request, HttpResponse response, HttpContext context) {
@@ -0,0 +1,185 @@
+/*
+ * Copyright (C) 2022 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.android.tools.swingp.trace;
+
+import com.android.tools.swingp.PaintRecorder;
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Offline analyzer of the traces written by {@link PaintRecorder#dump(java.io.OutputStream)}.
+ * <p>
+ * Records are written when their method ends, so the records of a thread are in post-order: a method comes after all the methods it
+ * called. Walking them backwards, every record is preceded by its caller, which lets us rebuild the paint path (the chain of
+ * component and method names from the outermost paint call) of every record and rank the paths by total time.
+ * <p>
+ * Usage: {@code PaintTraceAnalyzer <trace file> [number of paths]}
+ */
+public final class PaintTraceAnalyzer {
+  /**
+   * Path element used for the callers that were dropped from the ring buffer before the trace was dumped.
+   */
+  public static final String UNKNOWN_CALLER = "?";
+
+  private PaintTraceAnalyzer() {
+  }
+
+  /**
+   * Aggregated stats of a paint path, across all threads.
+   */
+  public static final class PaintPath {
+    @NotNull private final String myPath;
+    private long myTotalNs;
+    private long myMaxNs;
+    private int myCount;
+
+    private PaintPath(@NotNull String path) {
+      myPath = path;
+    }
+
+    /**
+     * The path, as " > "-separated {@code Component.Method} elements.
+     */
+    @NotNull
+    public String getPath() {
+      return myPath;
+    }
+
+    public long getTotalNs() {
+      return myTotalNs;
+    }
+
+    public long getMaxNs() {
+      return myMaxNs;
+    }
+
+    public int getCount() {
+      return myCount;
+    }
+
+    @Override
+    public String toString() {
+      return String.format("%10.2fms %10.2fms %8d  %s", myTotalNs / 1e6, myMaxNs / 1e6, myCount, myPath);
+    }
+  }
+
+  /**
+   * Reads a trace and returns its paint paths, most expensive (by total time) first.
+   */
+  @NotNull
+  public static List<PaintPath> rankPaintPaths(@NotNull InputStream inputStream) throws IOException {
+    DataInputStream in = new DataInputStream(new BufferedInputStream(inputStream));
+    if (in.readInt() != PaintRecorder.TRACE_MAGIC) {
+      throw new IOException("Not a swingp paint trace");
+    }
+    int version = in.readInt();
+    if (version != PaintRecorder.TRACE_VERSION) {
+      throw new IOException("Unsupported swingp paint trace version: " + version);
+    }
+
+    String[] classNames = new String[in.readInt()];
+    for (int i = 0; i < classNames.length; i++) {
+      classNames[i] = simpleName(in.readUTF());
+    }
+
+    Map<String, PaintPath> paths = new HashMap<>();
+    int threadCount = in.readInt();
+    for (int thread = 0; thread < threadCount; thread++) {
+      in.readLong(); // Thread id
+      in.readUTF(); // Thread name
+      long[] records = new long[in.readInt() * PaintRecorder.RECORD_SIZE];
+      for (int i = 0; i < records.length; i++) {
+        records[i] = in.readLong();
+      }
+      addPaths(records, classNames, paths);
+    }
+
+    List<PaintPath> ranked = new ArrayList<>(paths.values());
+    ranked.sort(Comparator.comparingLong(PaintPath::getTotalNs).reversed());
+    return ranked;
+  }
+
+  private static void addPaths(@NotNull long[] records, @NotNull String[] classNames, @NotNull Map<String, PaintPath> paths) {
+    // The path of the record being processed, by depth.
+    List<String> stack = new ArrayList<>();
+    for (int offset = records.length - PaintRecorder.RECORD_SIZE; offset >= 0; offset -= PaintRecorder.RECORD_SIZE) {
+      long duration = records[offset + 1];
+      int depth = (int)records[offset + 2];
+      int ownerClass = (int)(records[offset + 3] >> 32);
+      int methodClass = (int)records[offset + 3];
+
+      String element = (ownerClass < 0 ? UNKNOWN_CALLER : classNames[ownerClass]) + "." + methodName(classNames[methodClass]);
+      while (stack.size() > depth) {
+        stack.remove(stack.size() - 1);
+      }
+      while (stack.size() < depth) {
+        stack.add(UNKNOWN_CALLER);
+      }
+      stack.add(element);
+
+      PaintPath path = paths.computeIfAbsent(String.join(" > ", stack), PaintPath::new);
+      path.myTotalNs += duration;
+      path.myMaxNs = Math.max(path.myMaxNs, duration);
+      path.myCount++;
+    }
+  }
+
+  @NotNull
+  private static String simpleName(@NotNull String className) {
+    return className.substring(Math.max(className.lastIndexOf('.'), className.lastIndexOf('$')) + 1);
+  }
+
+  /**
+   * PaintComponentMethodStat -> paintComponent
+   */
+  @NotNull
+  private static String methodName(@NotNull String methodStatName) {
+    String name = methodStatName.endsWith("MethodStat")
+                  ? methodStatName.substring(0, methodStatName.length() - "MethodStat".length())
+                  : methodStatName;
+    return name.isEmpty() ? name : Character.toLowerCase(name.charAt(0)) + name.substring(1);
+  }
+
+  public static void main(String[] args) throws IOException {
+    if (args.length < 1) {
+      System.err.println("Usage: PaintTraceAnalyzer <trace file> [number of paths]");
+      System.exit(1);
+    }
+    Path trace = Paths.get(args[0]);
+    int limit = args.length > 1 ? Integer.parseInt(args[1]) : 20;
+
+    List<PaintPath> paths;
+    try (InputStream inputStream = Files.newInputStream(trace)) {
+      paths = rankPaintPaths(inputStream);
+    }
+    System.out.println(String.format("%12s %12s %8s  %s", "total", "max", "count", "path"));
+    paths.stream().limit(limit).forEach(System.out::println);
+    long totalNs = paths.stream().filter(path -> !path.getPath().contains(" > ")).mapToLong(PaintPath::getTotalNs).sum();
+    System.out.println(String.format("%d paths, %dms in outermost paint calls", paths.size(), TimeUnit.NANOSECONDS.toMillis(totalNs)));
+  }
+}
@@ -0,0 +1,91 @@
+/*
+ * Copyright (C) 2022 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.android.tools.swingp;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import com.android.tools.swingp.trace.PaintTraceAnalyzer;
+import com.android.tools.swingp.trace.PaintTraceAnalyzer.PaintPath;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.util.List;
+import java.util.stream.Collectors;
+import org.jetbrains.annotations.NotNull;
+import org.junit.After;
+import org.junit.Test;
+
+public class PaintRecorderTest {
+  @After
+  public void tearDown() {
+    PaintRecorder.setIsEnabled(false);
+  }
+
+  @Test
+  public void recordsPaintPaths() throws Exception {
+    PaintRecorder.setIsEnabled(true);
+    Outer outer = new Outer();
+    MethodStat outerStat = new TestMethodStat(outer);
+    for (int i = 0; i < 2; i++) {
+      MethodStat innerStat = new TestMethodStat(new Inner());
+      innerStat.endMethod();
+    }
+    outerStat.endMethod();
+    PaintRecorder.setIsEnabled(false);
+
+    // Not recorded anymore.
+    new TestMethodStat(outer).endMethod();
+
+    ByteArrayOutputStream stream = new ByteArrayOutputStream();
+    PaintRecorder.dump(stream);
+    List<PaintPath> paths = PaintTraceAnalyzer.rankPaintPaths(new ByteArrayInputStream(stream.toByteArray())).stream()
+      .filter(path -> path.getPath().contains("Outer") || path.getPath().contains("Inner"))
+      .collect(Collectors.toList());
+
+    assertThat(paths).hasSize(2);
+    assertThat(paths.get(0).getPath()).isEqualTo("Outer.test");
+    assertThat(paths.get(0).getCount()).isEqualTo(1);
+    assertThat(paths.get(1).getPath()).isEqualTo("Outer.test > Inner.test");
+    assertThat(paths.get(1).getCount()).isEqualTo(2);
+    assertThat(paths.get(0).getTotalNs()).isAtLeast(paths.get(1).getTotalNs());
+  }
+
+  @Test
+  public void ringBufferKeepsMostRecentRecords() {
+    PaintRingBuffer buffer = new PaintRingBuffer(Thread.currentThread(), 4);
+    for (int i = 0; i < 10; i++) {
+      buffer.write(i, 1, 0, 0, 0, 0);
+    }
+
+    long[] records = buffer.snapshot();
+    // The oldest slot is dropped, since the writer could have been overwriting it.
+    assertThat(records.length).isEqualTo(3 * PaintRecorder.RECORD_SIZE);
+    assertThat(records[0]).isEqualTo(7);
+    assertThat(records[PaintRecorder.RECORD_SIZE]).isEqualTo(8);
+    assertThat(records[2 * PaintRecorder.RECORD_SIZE]).isEqualTo(9);
+  }
+
+  private static final class Outer {
+  }
+
+  private static final class Inner {
+  }
+
+  private static final class TestMethodStat extends MethodStat {
+    public TestMethodStat(@NotNull Object owner) {
+      super(owner);
+    }
+  }
+}
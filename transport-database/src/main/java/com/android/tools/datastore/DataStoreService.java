@@ -132,6 +132,9 @@ public class DataStoreService implements DataStoreTable.DataStoreTableErrorCallb
 
   private final Timer myReportTimer;
 
+  @NotNull private final String myServiceName;
+  @NotNull private final EventSubscriptionHub myEventSubscriptions = new EventSubscriptionHub();
+
   /**
    * @param fetchExecutor A callback which is given a {@link Runnable} for each datastore service.
    *                      The runnable, when run, begins polling the target service. You probably
@@ -154,11 +157,13 @@ public class DataStoreService implements DataStoreTable.DataStoreTableErrorCallb
     myFetchExecutor = fetchExecutor;
     myInterceptor = interceptor;
     myDatastoreDirectory = datastoreDirectory;
+    myServiceName = serviceName;
     myServerBuilder = InProcessServerBuilder.forName(serviceName).directExecutor();
     // Calling set with null resets the exception handler to the default exception handler.
     // getLogger().error(exception);
     setNoPiiExceptionHandler(null);
     createPollers();
+    EventSubscriptionHub.register(serviceName, myEventSubscriptions);
     myServer = myServerBuilder.build();
     try {
       myServer.start();
@@ -197,6 +202,7 @@ public class DataStoreService implements DataStoreTable.DataStoreTableErrorCallb
     // TODO b/73538507 shared between all services to support inserting file content into generic byte cache (e.g. importing hprof)
     // We should be able to keep this inside TransportService after legacy pipeline removal.
     UnifiedEventsTable unifiedTable = new UnifiedEventsTable();
+    unifiedTable.addInsertListener(myEventSubscriptions);
     myTransportService = new TransportService(this, unifiedTable, myFetchExecutor, !PROFILER_UNIFIED_PIPELINE.get());
     registerService(myTransportService);
     registerService(new ProfilerService(this, myLogService));
@@ -266,7 +272,17 @@ public class DataStoreService implements DataStoreTable.DataStoreTableErrorCallb
     }
   }
 
+  /**
+   * Pushes the events inserted in this datastore to in-process subscribers. The same hub can be found by service name with
+   * {@link EventSubscriptionHub#forService(String)}.
+   */
+  @NotNull
+  public EventSubscriptionHub getEventSubscriptions() {
+    return myEventSubscriptions;
+  }
+
   public void shutdown() {
+    EventSubscriptionHub.unregister(myServiceName, myEventSubscriptions);
     myReportTimer.cancel();
     myServer.shutdownNow();
     for (DataStoreClient client : myConnectedClients.values()) {
@@ -0,0 +1,140 @@
+/*
+ * Copyright (C) 2022 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.android.tools.datastore;
+
+import com.android.tools.datastore.database.UnifiedEventsTable;
+import com.android.tools.profiler.proto.Common.Event;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Pushes the events inserted into a {@link UnifiedEventsTable} to in-process subscribers, as soon as they are inserted, so that clients
+ * don't have to poll the table with {@code getEventGroups} to find out about new events.
+ * <p>
+ * Subscribers filter on (kind, stream id, pid), where a stream id or pid of 0 matches any value, like in
+ * {@link com.android.tools.profiler.proto.Transport.GetEventGroupsRequest}. All the subscribers with the same filter share one
+ * subscription, so dispatching an event costs at most four map lookups whatever the number of subscribers.
+ * <p>
+ * Subscribers are called on the thread inserting the event, which is typically the thread streaming events from a device, so they
+ * should only hand the event over to another thread.
+ */
+public class EventSubscriptionHub implements UnifiedEventsTable.InsertListener {
+  /**
+   * Hubs of the {@link DataStoreService}s running in this process, by service (in-process channel) name.
+   */
+  private static final Map<String, EventSubscriptionHub> ourHubs = new ConcurrentHashMap<>();
+
+  private final Map<Filter, List<Consumer<Event>>> mySubscriptions = new ConcurrentHashMap<>();
+
+  /**
+   * Returns the hub of the in-process {@link DataStoreService} named {@code serviceName}, or null if there is none.
+   */
+  @Nullable
+  public static EventSubscriptionHub forService(@NotNull String serviceName) {
+    return ourHubs.get(serviceName);
+  }
+
+  static void register(@NotNull String serviceName, @NotNull EventSubscriptionHub hub) {
+    ourHubs.put(serviceName, hub);
+  }
+
+  static void unregister(@NotNull String serviceName, @NotNull EventSubscriptionHub hub) {
+    ourHubs.remove(serviceName, hub);
+  }
+
+  /**
+   * Calls {@code subscriber} with every event of {@code kind} inserted for {@code streamId} and {@code pid} (0 meaning any), until the
+   * returned handle is closed.
+   */
+  @NotNull
+  public AutoCloseable subscribe(@NotNull Event.Kind kind, long streamId, int pid, @NotNull Consumer<Event> subscriber) {
+    Filter filter = new Filter(kind, streamId, pid);
+    mySubscriptions.compute(filter, (key, subscribers) -> {
+      List<Consumer<Event>> list = subscribers == null ? new CopyOnWriteArrayList<>() : subscribers;
+      list.add(subscriber);
+      return list;
+    });
+    return () -> mySubscriptions.computeIfPresent(filter, (key, subscribers) -> {
+      subscribers.remove(subscriber);
+      return subscribers.isEmpty() ? null : subscribers;
+    });
+  }
+
+  /**
+   * Number of distinct filters currently subscribed to.
+   */
+  public int getSubscriptionCount() {
+    return mySubscriptions.size();
+  }
+
+  @Override
+  public void onEventInserted(long streamId, @NotNull Event event) {
+    if (mySubscriptions.isEmpty()) {
+      return;
+    }
+    Event.Kind kind = event.getKind();
+    int pid = event.getPid();
+    dispatch(new Filter(kind, streamId, pid), event);
+    if (pid != 0) {
+      dispatch(new Filter(kind, streamId, 0), event);
+    }
+    if (streamId != 0) {
+      dispatch(new Filter(kind, 0, pid), event);
+      if (pid != 0) {
+        dispatch(new Filter(kind, 0, 0), event);
+      }
+    }
+  }
+
+  private void dispatch(@NotNull Filter filter, @NotNull Event event) {
+    List<Consumer<Event>> subscribers = mySubscriptions.get(filter);
+    if (subscribers != null) {
+      subscribers.forEach(subscriber -> subscriber.accept(event));
+    }
+  }
+
+  private static final class Filter {
+    @NotNull private final Event.Kind myKind;
+    private final long myStreamId;
+    private final int myPid;
+
+    private Filter(@NotNull Event.Kind kind, long streamId, int pid) {
+      myKind = kind;
+      myStreamId = streamId;
+      myPid = pid;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+      if (!(obj instanceof Filter)) {
+        return false;
+      }
+      Filter other = (Filter)obj;
+      return myKind == other.myKind && myStreamId == other.myStreamId && myPid == other.myPid;
+    }
+
+    @Override
+    public int hashCode() {
+      return Objects.hash(myKind, myStreamId, myPid);
+    }
+  }
+}
@@ -0,0 +1,39 @@
+/*
+ * Copyright (C) 2022 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.android.tools.datastore.database;
+
+import jdk.jfr.Category;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Threshold;
+
+/**
+ * JFR event covering the queries of a {@link DataStoreTable}, reported with the other Android Studio spans in freeze reports.
+ */
+@Name("com.android.tools.idea.DataStoreQuery")
+@Label("Transport Datastore Query")
+@Category({"Android Studio", "Spans"})
+@Threshold("1 ms")
+@StackTrace(false)
+class DataStoreQueryEvent extends Event {
+  @Label("phase")
+  String phase;
+
+  @Label("table")
+  String table;
+}
@@ -192,9 +192,16 @@ public abstract class DataStoreTable<T extends Enum> {
     if (isClosed()) {
       return new EmptyResultSet();
     }
-    PreparedStatement stmt = getStatementMap().get(statement);
-    applyParams(stmt, params);
-    return stmt.executeQuery();
+    DataStoreQueryEvent event = new DataStoreQueryEvent();
+    event.begin();
+    try {
+      PreparedStatement stmt = getStatementMap().get(statement);
+      applyParams(stmt, params);
+      return stmt.executeQuery();
+    }
+    finally {
+      commitQueryEvent(event, statement.name());
+    }
   }
 
   protected ResultSet executeOneTimeQuery(@NotNull String sql, Object[] params) throws SQLException {
@@ -205,14 +212,32 @@ public abstract class DataStoreTable<T extends Enum> {
       myCustomQueryCache.set(new HashMap<>());
     }
 
-    Map<String, PreparedStatement> queryCache = myCustomQueryCache.get();
-    if (!queryCache.containsKey(sql)) {
-      queryCache.put(sql, myConnection.prepareStatement(sql));
+    DataStoreQueryEvent event = new DataStoreQueryEvent();
+    event.begin();
+    try {
+      Map<String, PreparedStatement> queryCache = myCustomQueryCache.get();
+      if (!queryCache.containsKey(sql)) {
+        queryCache.put(sql, myConnection.prepareStatement(sql));
+      }
+
+      PreparedStatement statement = queryCache.get(sql);
+      applyParams(statement, params);
+      return statement.executeQuery();
+    }
+    finally {
+      commitQueryEvent(event, "one-time query");
     }
+  }
 
-    PreparedStatement statement = queryCache.get(sql);
-    applyParams(statement, params);
-    return statement.executeQuery();
+  /**
+   * Commits the JFR event of a query. The fields are only filled when the event is recorded.
+   */
+  private void commitQueryEvent(@NotNull DataStoreQueryEvent event, @NotNull String phase) {
+    if (event.shouldCommit()) {
+      event.phase = phase;
+      event.table = getClass().getSimpleName();
+      event.commit();
+    }
   }
 
   protected void applyParams(@NotNull PreparedStatement statement, Object... params) throws SQLException {
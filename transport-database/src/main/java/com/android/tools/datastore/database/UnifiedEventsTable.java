@@ -29,12 +29,20 @@ import java.sql.SQLException;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.function.Predicate;
 import java.util.stream.Collectors;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
 public class UnifiedEventsTable extends DataStoreTable<UnifiedEventsTable.Statements> {
+  /**
+   * Notified of every event passed to {@link #insertUnifiedEvent(long, Event)}, on the inserting thread, after it is inserted.
+   */
+  public interface InsertListener {
+    void onEventInserted(long streamId, @NotNull Event event);
+  }
+
   public enum Statements {
     // Since no data should be updated after it has been inserted we drop any duplicated request from the poller.
     INSERT_EVENT(
@@ -60,6 +68,16 @@ public class UnifiedEventsTable extends DataStoreTable<UnifiedEventsTable.Statem
     }
   }
 
+  private final List<InsertListener> myInsertListeners = new CopyOnWriteArrayList<>();
+
+  public void addInsertListener(@NotNull InsertListener listener) {
+    myInsertListeners.add(listener);
+  }
+
+  public void removeInsertListener(@NotNull InsertListener listener) {
+    myInsertListeners.remove(listener);
+  }
+
   @Override
   public void prepareStatements() {
     try {
@@ -104,6 +122,9 @@ public class UnifiedEventsTable extends DataStoreTable<UnifiedEventsTable.Statem
             event.getTimestamp(),
             event.getIsEnded() ? 1 : 0,
             event.toByteArray());
+    for (InsertListener listener : myInsertListeners) {
+      listener.onEventInserted(streamId, event);
+    }
   }
 
   public void deleteEvents(long streamId, int pid, long groupId, Event.Kind kind, long fromTimestamp, long toTimestamp) {
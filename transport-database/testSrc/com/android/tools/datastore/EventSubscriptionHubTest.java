@@ -0,0 +1,83 @@
+/*
+ * Copyright (C) 2022 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.android.tools.datastore;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import com.android.tools.profiler.proto.Common.Event;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.Test;
+
+public class EventSubscriptionHubTest {
+  private static Event event(Event.Kind kind, int pid) {
+    return Event.newBuilder().setKind(kind).setPid(pid).build();
+  }
+
+  @Test
+  public void eventsArePushedToMatchingSubscribers() throws Exception {
+    EventSubscriptionHub hub = new EventSubscriptionHub();
+    List<Event> exact = new ArrayList<>();
+    List<Event> anyPid = new ArrayList<>();
+    List<Event> anyStream = new ArrayList<>();
+    List<Event> anything = new ArrayList<>();
+    List<Event> otherKind = new ArrayList<>();
+    hub.subscribe(Event.Kind.PROCESS, 1, 10, exact::add);
+    hub.subscribe(Event.Kind.PROCESS, 1, 0, anyPid::add);
+    hub.subscribe(Event.Kind.PROCESS, 0, 10, anyStream::add);
+    hub.subscribe(Event.Kind.PROCESS, 0, 0, anything::add);
+    hub.subscribe(Event.Kind.STREAM, 0, 0, otherKind::add);
+
+    Event process10 = event(Event.Kind.PROCESS, 10);
+    Event process20 = event(Event.Kind.PROCESS, 20);
+    hub.onEventInserted(1, process10);
+    hub.onEventInserted(2, process20);
+
+    assertThat(exact).containsExactly(process10);
+    assertThat(anyPid).containsExactly(process10);
+    assertThat(anyStream).containsExactly(process10);
+    assertThat(anything).containsExactly(process10, process20).inOrder();
+    assertThat(otherKind).isEmpty();
+  }
+
+  @Test
+  public void subscribersWithTheSameFilterShareASubscription() throws Exception {
+    EventSubscriptionHub hub = new EventSubscriptionHub();
+    List<Event> first = new ArrayList<>();
+    List<Event> second = new ArrayList<>();
+    AutoCloseable firstHandle = hub.subscribe(Event.Kind.PROCESS, 1, 0, first::add);
+    AutoCloseable secondHandle = hub.subscribe(Event.Kind.PROCESS, 1, 0, second::add);
+    assertThat(hub.getSubscriptionCount()).isEqualTo(1);
+
+    firstHandle.close();
+    Event event = event(Event.Kind.PROCESS, 10);
+    hub.onEventInserted(1, event);
+    assertThat(first).isEmpty();
+    assertThat(second).containsExactly(event);
+
+    secondHandle.close();
+    assertThat(hub.getSubscriptionCount()).isEqualTo(0);
+  }
+
+  @Test
+  public void hubsAreFoundByServiceName() {
+    EventSubscriptionHub hub = new EventSubscriptionHub();
+    EventSubscriptionHub.register("EventSubscriptionHubTest", hub);
+    assertThat(EventSubscriptionHub.forService("EventSubscriptionHubTest")).isSameAs(hub);
+    EventSubscriptionHub.unregister("EventSubscriptionHubTest", hub);
+    assertThat(EventSubscriptionHub.forService("EventSubscriptionHubTest")).isNull();
+  }
+}